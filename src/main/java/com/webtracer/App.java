@@ -4,10 +4,16 @@ import com.google.inject.Guice;
 import com.google.inject.Inject;
 import com.webtracer.config.ConfigFileLoader;
 import com.webtracer.config.WebCrawlerConfig;
+import com.webtracer.crawler.CrawlProgressReporter;
 import com.webtracer.crawler.CrawlResult;
 import com.webtracer.crawler.CrawlResultSerializer;
 import com.webtracer.crawler.GenericWebCrawler;
+import com.webtracer.crawler.wordcount.PageCountStore;
 import com.webtracer.di.module.CrawlerModule;
+import com.webtracer.parser.DefaultDocumentLoader;
+import com.webtracer.parser.HttpResponseCache;
+import com.webtracer.parser.WarcDocumentLoader;
+import com.webtracer.parser.wordcount.InMemoryParseResultCache;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.FileWriter;
@@ -15,7 +21,9 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.nio.file.Path;
 import java.util.Date;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.Optional;
 
 @Slf4j
 public class App {
@@ -23,6 +31,21 @@ public class App {
     @Inject
     private GenericWebCrawler crawler;
 
+    @Inject
+    private DefaultDocumentLoader documentLoader;
+
+    @Inject
+    private Optional<InMemoryParseResultCache> documentCache;
+
+    @Inject
+    private Optional<PageCountStore> pageCountStore;
+
+    @Inject
+    private Optional<WarcDocumentLoader> warcDocumentLoader;
+
+    @Inject
+    private RobotsTxtCache robotsTxtCache;
+
     private final WebCrawlerConfig config;
 
     private App(WebCrawlerConfig config) {
@@ -68,8 +91,26 @@ public class App {
         Guice.createInjector(new CrawlerModule(config)).injectMembers(this);
         log.debug("Dependencies injected successfully.");
 
-        // Perform the crawling operation
-        CrawlResult result = crawler.crawl(config.getInitialPages());
+        // Perform the crawling operation, reporting its progress if requested
+        CrawlResult result;
+        try {
+            if (config.getProgressInterval().isZero()) {
+                result = crawler.crawl(config.getInitialPages());
+            } else {
+                String progressPath = config.getProgressPath();
+                try (CrawlProgressReporter reporter = new CrawlProgressReporter(
+                        crawler, config.getProgressInterval(), progressPath.isEmpty() ? null : Path.of(progressPath))) {
+                    reporter.start();
+                    result = crawler.crawl(config.getInitialPages());
+                }
+            }
+        } finally {
+            closeResponseCache();
+            closePageCountStore();
+            closeRobotsTxtStore();
+            closeWarcDocumentLoader();
+            logDocumentCacheStats();
+        }
         log.info("Crawling completed successfully.");
 
         CrawlResultSerializer<CrawlResult> resultWriter = new CrawlResultSerializer<>(result);
@@ -105,4 +146,71 @@ public class App {
         log.info("Web crawler application finished.");
     }
 
+    /**
+     * Closes the HTTP response cache, if any, which logs how many pages it served.
+     */
+    private void closeResponseCache() {
+        HttpResponseCache responseCache = documentLoader.getResponseCache();
+        if (responseCache == null) {
+            return;
+        }
+        try {
+            responseCache.close();
+        } catch (IOException e) {
+            log.warn("Failed to close the HTTP response cache.", e);
+        }
+    }
+
+    /**
+     * Closes the store of per-page word counts of an incremental crawl, if any.
+     */
+    private void closePageCountStore() {
+        if (pageCountStore.isEmpty()) {
+            return;
+        }
+        try {
+            pageCountStore.get().close();
+        } catch (IOException e) {
+            log.warn("Failed to close the page count store.", e);
+        }
+    }
+
+    /**
+     * Closes the store of robots.txt rules kept between runs, if any.
+     */
+    private void closeRobotsTxtStore() {
+        try {
+            robotsTxtCache.close();
+        } catch (IOException e) {
+            log.warn("Failed to close the robots.txt store.", e);
+        }
+    }
+
+    /**
+     * Closes the WARC archives a crawl was replayed from, if any.
+     */
+    private void closeWarcDocumentLoader() {
+        if (warcDocumentLoader.isEmpty()) {
+            return;
+        }
+        try {
+            warcDocumentLoader.get().close();
+        } catch (IOException e) {
+            log.warn("Failed to close the WARC archives.", e);
+        }
+    }
+
+    /**
+     * Logs how many pages were served from the in-memory cache of recent parse results, if any.
+     */
+    private void logDocumentCacheStats() {
+        documentCache.map(InMemoryParseResultCache::getStats)
+                .filter(stats -> stats.getRequests() > 0)
+                .ifPresent(stats -> log.info(
+                        "In-memory document cache: {} pages, {} hits ({}%), {} misses, {} evicted, {} not admitted",
+                        stats.getRequests(), stats.getHits(),
+                        String.format(Locale.ROOT, "%.1f", stats.getHitRatio() * 100), stats.getMisses(),
+                        stats.getEvictions(), stats.getRejections()));
+    }
+
 }
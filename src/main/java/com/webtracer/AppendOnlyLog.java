@@ -0,0 +1,282 @@
+package com.webtracer;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * The {@code AppendOnlyLog} class is the file format shared by the stores of the crawler: a header identifying the
+ * kind of file and the settings it was written with, followed by an append-only log of checksummed records. The
+ * log only frames, replays and compacts the records; what a record means is up to the store:
+ * <ul>
+ *   <li>opening the log maps the file into memory and hands every record to the store in order; a record cut short
+ *   by a crash or with a wrong checksum ends the log, and is dropped together with everything after it;</li>
+ *   <li>a file written with another header, e.g. another version or fingerprint, is discarded;</li>
+ *   <li>{@link #append(byte[])} appends a record with a single write;</li>
+ *   <li>{@link #compact(Collection, Function)} rewrites the file with the live records only, replacing it
+ *   atomically; stores compact once {@link #needsCompaction(int)} reports that the log holds more than twice as
+ *   many records as they keep.</li>
+ * </ul>
+ *
+ * <p>Each record is its payload size and the CRC32 of its payload, followed by the payload.</p>
+ *
+ * <p>This class is not thread-safe; the stores synchronize their access to it.</p>
+ */
+@Slf4j
+public final class AppendOnlyLog implements Closeable {
+
+    /**
+     * Size of the length and checksum preceding the payload of each record.
+     */
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private final Path file;
+
+    private final String description;
+
+    private final byte[] header;
+
+    private FileChannel channel;
+
+    private int recordCount;
+
+    private AppendOnlyLog(Path file, String description, byte[] header, FileChannel channel, int recordCount) {
+        this.file = file;
+        this.description = description;
+        this.header = header;
+        this.channel = channel;
+        this.recordCount = recordCount;
+    }
+
+    /**
+     * Opens the log kept in the given file, replaying its records, and creates the file if it does not exist.
+     *
+     * @param file          the file of the log.
+     * @param description   what the file holds, for messages, e.g. {@code "robots.txt store"}.
+     * @param header        the header of the file, starting with a magic number identifying the kind of file; a
+     *                      file with the same magic number but another header is discarded.
+     * @param maxRecordSize the largest payload of a single record; larger lengths are treated as corruption.
+     * @param reader        applies the payload of each record, in the order they were appended; it throws
+     *                      {@link BufferUnderflowException}, {@link IndexOutOfBoundsException} or
+     *                      {@link IllegalArgumentException} at a malformed payload, which ends the log.
+     * @return the opened log, positioned at its end.
+     * @throws IOException if the file is not of the expected kind, or cannot be read or written.
+     */
+    public static AppendOnlyLog open(@NonNull Path file, @NonNull String description, byte @NonNull [] header,
+                                     int maxRecordSize, @NonNull Consumer<ByteBuffer> reader) throws IOException {
+        long validLength = 0;
+        int recordCount = 0;
+
+        if (Files.exists(file) && Files.size(file) > 0) {
+            try (FileChannel readChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+                if (buffer.remaining() < Integer.BYTES || buffer.getInt(0) != ByteBuffer.wrap(header).getInt()) {
+                    throw new IOException("Not a " + description + ": " + file);
+                }
+                if (buffer.remaining() < header.length
+                        || !buffer.slice(0, header.length).equals(ByteBuffer.wrap(header))) {
+                    log.info("Discarding {} {}, which was written by another version or with other settings",
+                             description, file);
+                } else {
+                    buffer.position(header.length);
+                    while (readRecord(buffer, maxRecordSize, reader)) {
+                        recordCount++;
+                    }
+                    validLength = buffer.position();
+                    if (buffer.hasRemaining()) {
+                        log.warn("Dropping {} bytes of incomplete or corrupt records from {}", buffer.remaining(),
+                                 file);
+                    }
+                }
+            }
+        } else {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (validLength == 0) {
+                channel.truncate(0);
+                write(channel, ByteBuffer.wrap(header));
+            } else if (channel.size() != validLength) {
+                channel.truncate(validLength);
+            }
+            channel.position(channel.size());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new AppendOnlyLog(file, description, header, channel, recordCount);
+    }
+
+    /**
+     * Checks whether the log has grown large enough to be compacted.
+     *
+     * @param liveRecords the number of records the store keeps, e.g. one per key.
+     * @return {@code true} if the log holds more than twice as many records.
+     */
+    public boolean needsCompaction(int liveRecords) {
+        return recordCount > 2 * liveRecords;
+    }
+
+    /**
+     * Appends a record to the log.
+     *
+     * @param payload the payload of the record.
+     * @return {@code false} if the log is closed.
+     * @throws IOException if the record cannot be written.
+     */
+    public boolean append(byte @NonNull [] payload) throws IOException {
+        if (!channel.isOpen()) {
+            return false;
+        }
+        write(channel, frame(payload));
+        recordCount++;
+        return true;
+    }
+
+    /**
+     * Rewrites the file with the given records only, replacing it atomically.
+     *
+     * @param records the live records, in the order they are replayed when the log is opened.
+     * @param encoder encodes the payload of a record.
+     * @param <T>     the type of the records.
+     * @throws IOException if the file cannot be written; the log is left unchanged.
+     */
+    public <T> void compact(@NonNull Collection<T> records, @NonNull Function<? super T, byte[]> encoder)
+            throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(),
+                                              ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                write(out, ByteBuffer.wrap(header));
+                for (T record : records) {
+                    write(out, frame(encoder.apply(record)));
+                }
+                out.force(true);
+            }
+            channel.close();
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Compacted {} {} to {} records", description, file, records.size());
+        } finally {
+            Files.deleteIfExists(temporary);
+            if (!channel.isOpen()) {
+                channel = FileChannel.open(file, StandardOpenOption.WRITE);
+                channel.position(channel.size());
+            }
+        }
+        recordCount = records.size();
+    }
+
+    /**
+     * Checks whether the log is open.
+     *
+     * @return {@code false} once the log was closed.
+     */
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes a string as its length and UTF-8 bytes.
+     *
+     * @param buffer the buffer to write to.
+     * @param string the UTF-8 bytes of the string.
+     * @return the buffer.
+     */
+    public static ByteBuffer putString(ByteBuffer buffer, byte[] string) {
+        return buffer.putInt(string.length).put(string);
+    }
+
+    /**
+     * Reads a string written by {@link #putString(ByteBuffer, byte[])}.
+     *
+     * @param buffer the buffer to read from.
+     * @return the string.
+     * @throws BufferUnderflowException if the length is negative or exceeds the buffer.
+     */
+    public static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer frame(byte[] payload) {
+        CRC32 checksum = new CRC32();
+        checksum.update(payload);
+        return ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length)
+                .putInt(payload.length)
+                .putInt((int) checksum.getValue())
+                .put(payload)
+                .flip();
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Hands the payload of the record at the position of the buffer to the reader, advancing past it.
+     *
+     * @return {@code false} at the end of the log or at an incomplete or corrupt record, leaving the position of
+     * the buffer unchanged.
+     */
+    private static boolean readRecord(ByteBuffer buffer, int maxRecordSize, Consumer<ByteBuffer> reader) {
+        int start = buffer.position();
+        if (buffer.remaining() < RECORD_HEADER_SIZE) {
+            return false;
+        }
+        int payloadSize = buffer.getInt();
+        int expectedChecksum = buffer.getInt();
+        if (payloadSize < 0 || payloadSize > maxRecordSize || payloadSize > buffer.remaining()) {
+            buffer.position(start);
+            return false;
+        }
+
+        ByteBuffer payload = buffer.slice(buffer.position(), payloadSize);
+        CRC32 checksum = new CRC32();
+        checksum.update(payload.duplicate());
+        if ((int) checksum.getValue() != expectedChecksum) {
+            buffer.position(start);
+            return false;
+        }
+
+        try {
+            reader.accept(payload);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            buffer.position(start);
+            return false;
+        }
+        buffer.position(buffer.position() + payloadSize);
+        return true;
+    }
+}
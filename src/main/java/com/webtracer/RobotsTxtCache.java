@@ -1,117 +1,515 @@
 package com.webtracer;
 
+import com.webtracer.parser.DocumentLoader;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Connection;
 import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
+
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.logging.Logger;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code RobotsTxtCache} class decides whether URLs may be crawled according to the robots.txt file of their
+ * host, fetching each robots.txt file once and caching its rules.
+ *
+ * <p>Robots.txt files are fetched asynchronously on a small pool of daemon threads, never while holding a lock.
+ * Loading is single-flight: the first caller for a host starts the fetch, and every other caller for that host
+ * waits on, or chains to, the same future.</p>
+ *
+ * <p>Cached rules expire:</p>
+ * <ul>
+ *   <li>rules fetched successfully, or a missing robots.txt file (a {@code 4xx} response), live for the TTL; once
+ *   they have expired, the next caller starts a background refresh and keeps getting the old rules until it
+ *   completes;</li>
+ *   <li>a robots.txt file that could not be fetched allows everything, but only for the shorter negative TTL, after
+ *   which it is fetched again. A failed refresh keeps the previous rules for the negative TTL.</li>
+ * </ul>
+ *
+ * <p>Robots.txt files are read line by line by a {@link RobotsTxtParser} and the rules of each host are compiled
+ * into {@link RobotsTxtRules}, which match paths with the {@code *} and {@code $} wildcards and longest-match
+ * precedence of RFC 9309.</p>
+ *
+ * <p>With a {@link RobotsTxtStore}, the cache starts with the rules fetched by earlier runs and keeps every rule
+ * set it fetches in the store. Stored rules that have expired are revalidated in the background with their
+ * {@code ETag} when their host is next crawled, so an unchanged file is not downloaded again.</p>
+ *
+ * <p>The cache holds at most a fixed number of hosts and evicts the least recently used host beyond it. Only
+ * {@code http} and {@code https} URLs are subject to robots.txt; all other URLs, such as local files, are always
+ * allowed.</p>
+ *
+ * <p>This class is thread-safe; a single instance is meant to be shared by all crawlers of an application.</p>
+ */
+@Slf4j
+public class RobotsTxtCache implements Closeable {
+
+    /**
+     * The user agent whose robots.txt rules are followed by default.
+     */
+    public static final String DEFAULT_USER_AGENT = "WebTracer";
 
-public class RobotsTxtCache {
+    /**
+     * Default time after which the rules of a host are refreshed.
+     */
+    public static final Duration DEFAULT_TTL = Duration.ofHours(24);
+
+    /**
+     * Default time after which a robots.txt file that could not be fetched is fetched again.
+     */
+    public static final Duration DEFAULT_NEGATIVE_TTL = Duration.ofMinutes(5);
+
+    /**
+     * Default number of hosts whose rules are cached.
+     */
+    public static final int DEFAULT_MAX_HOSTS = 10_000;
+
+    private static final int FETCH_THREADS = 4;
+
+    private static final int FETCH_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * Runs the fetches of every cache created with the default fetcher settings. The pool is shared rather than
+     * created per cache so that caches can be created and dropped freely, e.g. by the injector of each crawl job of
+     * a long-running service, without leaking threads; its daemon threads are started on the first fetch and never
+     * keep the application from exiting.
+     */
+    private static final Executor FETCH_EXECUTOR = newFetchExecutor();
 
-    private static final Logger log = Logger.getLogger(RobotsTxtCache.class.getName());
-    private final ConcurrentMap<String, RobotsTxtRules> domainRulesCache = new ConcurrentHashMap<>();
     private final String userAgent;
 
+    private final Clock clock;
+
+    private final Duration ttl;
+
+    private final Duration negativeTtl;
+
+    private final RobotsTxtFetcher fetcher;
+
+    private final Executor executor;
+
+    /**
+     * Keeps the fetched rules for later runs, or {@code null}.
+     */
+    private final RobotsTxtStore store;
+
+    /**
+     * Cached hosts in least recently used order. Guarded by itself; no I/O is ever performed while holding it.
+     */
+    private final Map<String, Entry> entries;
+
     public RobotsTxtCache(String userAgent) {
+        this(userAgent, null);
+    }
+
+    /**
+     * Creates a cache that starts with the rules kept in the given store and keeps every fetched rule set in it.
+     * Stored rules that have expired are revalidated in the background when their host is next crawled.
+     *
+     * @param userAgent the user agent whose rules are followed.
+     * @param store     the store of rules fetched by earlier runs, or {@code null} to start empty.
+     */
+    public RobotsTxtCache(String userAgent, RobotsTxtStore store) {
+        this(userAgent, Clock.systemUTC(), DEFAULT_TTL, DEFAULT_NEGATIVE_TTL, DEFAULT_MAX_HOSTS,
+             RobotsTxtCache::download, FETCH_EXECUTOR, store);
+    }
+
+    /**
+     * Creates a cache that reads robots.txt files through a document loader instead of downloading them, e.g. from
+     * the archive a crawl is replayed from. A robots.txt file the loader cannot open is treated as missing.
+     *
+     * @param userAgent      the user agent whose rules are followed.
+     * @param documentLoader the loader opening the robots.txt files.
+     * @return the cache.
+     */
+    public static RobotsTxtCache loadingThrough(String userAgent, @NonNull DocumentLoader documentLoader) {
+        return new RobotsTxtCache(userAgent, Clock.systemUTC(), DEFAULT_TTL, DEFAULT_NEGATIVE_TTL, DEFAULT_MAX_HOSTS,
+                                  (robotsTxtUri, etag) -> load(documentLoader, robotsTxtUri), FETCH_EXECUTOR,
+                                  null);
+    }
+
+    /**
+     * Creates a cache with the given expiry and size settings.
+     *
+     * @param userAgent   the user agent whose rules are followed.
+     * @param clock       the clock the expiry of the rules is measured with.
+     * @param ttl         the time after which the rules of a host are refreshed.
+     * @param negativeTtl the time after which a robots.txt file that could not be fetched is fetched again.
+     * @param maxHosts    the number of hosts whose rules are cached.
+     * @param fetcher     fetches the content of robots.txt files.
+     * @param executor    runs the fetches.
+     * @param store       the store of rules fetched by earlier runs, or {@code null}.
+     */
+    RobotsTxtCache(@NonNull String userAgent, @NonNull Clock clock, @NonNull Duration ttl,
+                   @NonNull Duration negativeTtl, int maxHosts, @NonNull RobotsTxtFetcher fetcher,
+                   @NonNull Executor executor, RobotsTxtStore store) {
         this.userAgent = userAgent;
+        this.clock = clock;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.fetcher = fetcher;
+        this.executor = executor;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxHosts;
+            }
+        };
+        this.store = store;
+        if (store != null) {
+            warmFrom(store);
+        }
     }
 
     /**
      * Checks if the specified URI is allowed to be crawled by checking the robots.txt rules.
-     * The rules are cached per domain for efficient reuse.
+     * The rules are cached per host for efficient reuse; the calling thread waits while they are fetched.
      *
      * @param uri the URI to check
      * @return true if the URI is allowed to be crawled, false otherwise
      */
     public boolean isAllowed(URI uri) {
-        String domainKey = uri.getScheme() + "://" + uri.getHost();
+        return isAllowedAsync(uri).join();
+    }
+
+    /**
+     * Checks asynchronously if the specified URI is allowed to be crawled by checking the robots.txt rules.
+     *
+     * @param uri the URI to check
+     * @return a future completed with {@code true} if the URI is allowed to be crawled, once the rules of its host
+     * are known
+     */
+    public CompletableFuture<Boolean> isAllowedAsync(@NonNull URI uri) {
+        String scheme = uri.getScheme();
+        if (uri.getHost() == null || !("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme))) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        String hostKey = hostKey(uri);
+        // Rules are matched against the path and query, as they appear in the URL
+        String rawPath = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        String path = uri.getRawQuery() == null ? rawPath : rawPath + "?" + uri.getRawQuery();
+
+        Entry entry;
+        boolean created = false;
+        synchronized (entries) {
+            entry = entries.get(hostKey);
+            if (entry == null) {
+                entry = new Entry(new CompletableFuture<>());
+                entries.put(hostKey, entry);
+                created = true;
+            }
+        }
 
-        // Fetch rules if not already cached
-        RobotsTxtRules rules = domainRulesCache.computeIfAbsent(domainKey, key -> fetchRobotsTxtRules(uri));
+        if (created) {
+            load(hostKey, entry);
+        } else if (entry.isExpired(clock.instant()) && entry.refreshing.compareAndSet(false, true)) {
+            refresh(hostKey, entry);
+        }
+        return entry.rules.thenApply(rules -> rules.isAllowed(path));
+    }
 
-        // Check the rules for the specific path
-        return rules.isAllowed(uri.getPath());
+    /**
+     * Returns the delay the robots.txt file of the host of the given URI asks crawlers to wait between requests,
+     * if the rules of the host have been loaded.
+     *
+     * @param uri a URI of the host.
+     * @return the crawl delay, or empty if there is none or the rules of the host are not loaded yet.
+     */
+    public Optional<Duration> getCrawlDelay(@NonNull URI uri) {
+        Entry entry;
+        synchronized (entries) {
+            entry = uri.getHost() == null ? null : entries.get(hostKey(uri));
+        }
+        if (entry == null || !entry.rules.isDone()) {
+            return Optional.empty();
+        }
+        return entry.rules.join().crawlDelay();
     }
 
     /**
-     * Fetches and parses the robots.txt file for the given URI's domain.
+     * Returns the number of hosts whose rules are cached or being fetched.
      *
-     * @param uri the URI to fetch rules for
-     * @return the parsed rules for the domain
+     * @return the number of cached hosts.
      */
-    private RobotsTxtRules fetchRobotsTxtRules(URI uri) {
-        String robotsTxtUrl = uri.getScheme() + "://" + uri.getHost() + "/robots.txt";
-        log.info("Fetching robots.txt from: " + robotsTxtUrl);
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
 
-        List<String> disallowedPaths = new ArrayList<>();
-        List<String> allowedPaths = new ArrayList<>();
+    /**
+     * Closes the store, if any. Rules fetched afterwards, e.g. by a background refresh that is still running, are
+     * cached but no longer stored.
+     *
+     * @throws IOException if the store cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    private static String hostKey(URI uri) {
+        return uri.getScheme().toLowerCase() + "://" + uri.getHost().toLowerCase()
+                + (uri.getPort() == -1 ? "" : ":" + uri.getPort());
+    }
+
+    /**
+     * Adds the hosts of the store to the cache, with the expiry they would have had in the run that fetched them.
+     */
+    private void warmFrom(RobotsTxtStore store) {
+        synchronized (entries) {
+            // The least recently fetched hosts come first, and are the first to be evicted
+            for (RobotsTxtStore.HostRecord record : store.records()) {
+                Entry entry = new Entry(CompletableFuture.completedFuture(record.getRules()));
+                entry.etag = record.getEtag();
+                entry.expiresAt = record.getFetchedAt().plus(ttl);
+                entries.put(record.getHostKey(), entry);
+            }
+            log.info("Loaded the robots.txt rules of {} hosts from the store", entries.size());
+        }
+    }
+
+    private void load(String hostKey, Entry entry) {
+        CompletableFuture.supplyAsync(() -> fetch(hostKey, null), executor).whenComplete((fetched, failure) -> {
+            if (fetched == null || fetched.rules() == null) {
+                log.warn("Failed to fetch robots.txt of {}, allowing all paths for {}", hostKey, negativeTtl);
+                entry.expiresAt = clock.instant().plus(negativeTtl);
+                entry.rules.complete(RobotsTxtRules.ALLOW_ALL);
+            } else {
+                entry.etag = fetched.etag();
+                entry.expiresAt = clock.instant().plus(ttl);
+                entry.rules.complete(fetched.rules());
+                persist(hostKey, fetched.rules(), fetched.etag());
+            }
+        });
+    }
+
+    /**
+     * Fetches the rules of a host again, serving the expired rules until the new ones replace them.
+     */
+    private void refresh(String hostKey, Entry expired) {
+        log.debug("Refreshing robots.txt of {}", hostKey);
+        CompletableFuture.supplyAsync(() -> fetch(hostKey, expired.etag), executor).whenComplete((fetched, failure) -> {
+            Entry refreshed;
+            if (fetched == null) {
+                log.warn("Failed to refresh robots.txt of {}, keeping the previous rules for {}", hostKey,
+                         negativeTtl);
+                refreshed = new Entry(expired.rules);
+                refreshed.etag = expired.etag;
+                refreshed.expiresAt = clock.instant().plus(negativeTtl);
+            } else {
+                // Rules that have not been modified are kept
+                refreshed = fetched.rules() == null
+                        ? new Entry(expired.rules)
+                        : new Entry(CompletableFuture.completedFuture(fetched.rules()));
+                refreshed.etag = fetched.etag();
+                refreshed.expiresAt = clock.instant().plus(ttl);
+                persist(hostKey, refreshed.rules.join(), fetched.etag());
+            }
+            synchronized (entries) {
+                // The host may have been evicted in the meantime
+                entries.replace(hostKey, expired, refreshed);
+            }
+        });
+    }
+
+    private void persist(String hostKey, RobotsTxtRules rules, String etag) {
+        if (store != null) {
+            store.put(new RobotsTxtStore.HostRecord(hostKey, clock.instant(), etag, rules));
+        }
+    }
+
+    /**
+     * Fetches and parses the robots.txt file of the given host.
+     *
+     * @param hostKey the scheme, host and port of the robots.txt file
+     * @param etag    the entity tag of the cached file, to fetch it only if it has been modified, or {@code null}
+     * @return the parsed rules, with no rules if the file has not been modified, or {@code null} if the file could
+     * not be fetched
+     */
+    private Fetched fetch(String hostKey, String etag) {
+        String robotsTxtUrl = hostKey + "/robots.txt";
+        log.info("Fetching robots.txt from: {}", robotsTxtUrl);
         try {
-            Document robotsTxtDoc = Jsoup.connect(robotsTxtUrl).get();
-            String robotsTxtContent = robotsTxtDoc.body().text();
-
-            // Ensure structured processing by splitting content into lines
-            robotsTxtContent = robotsTxtContent
-                    .replaceAll("User-agent:", "\nUser-agent:")
-                    .replaceAll("Disallow:", "\nDisallow:")
-                    .replaceAll("Allow:", "\nAllow:");
-
-            String[] lines = robotsTxtContent.split("\n");
-            boolean isRelevantSection = false;
-
-            for (String line : lines) {
-                line = line.trim();
-                if (line.isEmpty() || line.startsWith("#")) continue;  // Ignore empty lines and comments
-
-                if (line.toLowerCase().startsWith("user-agent:")) {
-                    String specifiedUserAgent = line.substring("user-agent:".length()).trim().toLowerCase();
-                    isRelevantSection = specifiedUserAgent.equals(userAgent.toLowerCase()) || specifiedUserAgent.equals("*");
-                } else if (isRelevantSection) {
-                    if (line.toLowerCase().startsWith("disallow:")) {
-                        String path = line.substring("disallow:".length()).trim();
-                        if (!path.isEmpty()) disallowedPaths.add(path);
-                    } else if (line.toLowerCase().startsWith("allow:")) {
-                        String path = line.substring("allow:".length()).trim();
-                        if (!path.isEmpty()) allowedPaths.add(path);
+            RobotsTxtResponse response = fetcher.fetch(URI.create(robotsTxtUrl), etag);
+            switch (response.getStatus()) {
+                case NOT_MODIFIED -> {
+                    log.debug("robots.txt of {} has not been modified", hostKey);
+                    return new Fetched(null, etag);
+                }
+                case MISSING -> {
+                    return new Fetched(RobotsTxtRules.ALLOW_ALL, null);
+                }
+                default -> {
+                    try (InputStream content = response.getBody()) {
+                        RobotsTxtRules rules = RobotsTxtParser.parse(
+                                new InputStreamReader(content, StandardCharsets.UTF_8), userAgent);
+                        log.debug("Compiled {} robots.txt rules of {}", rules.size(), hostKey);
+                        return new Fetched(rules, response.getEtag());
                     }
                 }
             }
-        } catch (IOException e) {
-            log.warning("Failed to fetch or parse robots.txt: " + e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to fetch or parse robots.txt: {}", robotsTxtUrl, e);
+            return null;
         }
-
-        return new RobotsTxtRules(allowedPaths, disallowedPaths);
     }
 
     /**
-     * Stores the parsed rules from a robots.txt file.
+     * Downloads a robots.txt file over HTTP, as a conditional request if its entity tag is known.
+     *
+     * @throws IOException if the file could not be downloaded, including server errors
      */
-    private static class RobotsTxtRules {
-        private final List<String> allowedPaths;
-        private final List<String> disallowedPaths;
+    private static RobotsTxtResponse download(URI robotsTxtUri, String etag) throws IOException {
+        Connection connection = Jsoup.connect(robotsTxtUri.toString())
+                .ignoreContentType(true)
+                .ignoreHttpErrors(true)
+                .timeout(FETCH_TIMEOUT_MILLIS)
+                .maxBodySize(RobotsTxtParser.MAX_LENGTH * 4);
+        if (etag != null) {
+            connection.header("If-None-Match", etag);
+        }
+        Connection.Response response = connection.execute();
+        int status = response.statusCode();
+        if (status == 304) {
+            return RobotsTxtResponse.notModified();
+        }
+        if (status >= 400 && status < 500) {
+            log.debug("No robots.txt at {} (HTTP {})", robotsTxtUri, status);
+            return RobotsTxtResponse.missing();
+        }
+        if (status >= 300) {
+            throw new IOException("HTTP " + status + " fetching " + robotsTxtUri);
+        }
+        return RobotsTxtResponse.ok(response.bodyStream(), response.header("ETag"));
+    }
 
-        public RobotsTxtRules(List<String> allowedPaths, List<String> disallowedPaths) {
-            this.allowedPaths = allowedPaths;
-            this.disallowedPaths = disallowedPaths;
+    /**
+     * Opens a robots.txt file through a document loader.
+     */
+    private static RobotsTxtResponse load(DocumentLoader documentLoader, URI robotsTxtUri) throws IOException {
+        try {
+            return RobotsTxtResponse.ok(documentLoader.openDocumentStream(robotsTxtUri).getBody(), null);
+        } catch (ApiException e) {
+            log.debug("No robots.txt at {}: {}", robotsTxtUri, e.getMessage());
+            return RobotsTxtResponse.missing();
         }
+    }
+
+    private static Executor newFetchExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(FETCH_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "robots-txt-fetcher-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Fetches the content of robots.txt files.
+     */
+    @FunctionalInterface
+    interface RobotsTxtFetcher {
 
         /**
-         * Checks if the given path is allowed based on the robots.txt rules.
+         * Fetches the robots.txt file at the given location.
          *
-         * @param path the path to check
-         * @return true if the path is allowed, false otherwise
+         * @param robotsTxtUri the location of the file.
+         * @param etag         the entity tag of the cached file, to fetch it only if it has been modified, or
+         *                     {@code null} to fetch it unconditionally.
+         * @return the response.
+         * @throws IOException if the file could not be fetched.
          */
-        public boolean isAllowed(String path) {
-            for (String allowed : allowedPaths) {
-                if (path.startsWith(allowed)) return true;
-            }
-            for (String disallowed : disallowedPaths) {
-                if (path.startsWith(disallowed)) return false;
-            }
-            return true;  // Default to allowing if no matching rules are found
+        RobotsTxtResponse fetch(URI robotsTxtUri, String etag) throws IOException;
+    }
+
+    /**
+     * The response to a robots.txt request.
+     */
+    @Value
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    static class RobotsTxtResponse {
+
+        enum Status {
+            OK, NOT_MODIFIED, MISSING
+        }
+
+        @NonNull
+        Status status;
+
+        /**
+         * The content of the file, closed by the cache, or {@code null} unless the status is {@link Status#OK}.
+         */
+        InputStream body;
+
+        /**
+         * The entity tag of the file, or {@code null}.
+         */
+        String etag;
+
+        static RobotsTxtResponse ok(@NonNull InputStream body, String etag) {
+            return new RobotsTxtResponse(Status.OK, body, etag);
+        }
+
+        static RobotsTxtResponse notModified() {
+            return new RobotsTxtResponse(Status.NOT_MODIFIED, null, null);
+        }
+
+        static RobotsTxtResponse missing() {
+            return new RobotsTxtResponse(Status.MISSING, null, null);
+        }
+    }
+
+    /**
+     * Parsed rules and the entity tag they were fetched with; the rules are {@code null} if the file has not
+     * been modified.
+     */
+    private record Fetched(RobotsTxtRules rules, String etag) {
+    }
+
+    /**
+     * The cached rules of a host.
+     */
+    private static final class Entry {
+
+        private final CompletableFuture<RobotsTxtRules> rules;
+
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private volatile String etag;
+
+        /**
+         * When the rules expire, or {@code null} while they are fetched for the first time.
+         */
+        private volatile Instant expiresAt;
+
+        private Entry(CompletableFuture<RobotsTxtRules> rules) {
+            this.rules = rules;
+        }
+
+        private boolean isExpired(Instant now) {
+            Instant expiry = expiresAt;
+            return expiry != null && !now.isBefore(expiry);
         }
     }
 }
@@ -0,0 +1,158 @@
+package com.webtracer;
+
+import com.webtracer.RobotsTxtRules.Rule;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code RobotsTxtParser} class reads a robots.txt file line by line and compiles the rules that apply to a
+ * crawler into {@link RobotsTxtRules}, without holding the whole file in memory.
+ *
+ * <p>Records are grouped as specified by RFC 9309: a group starts with one or more {@code User-agent} lines and
+ * holds the {@code Allow} and {@code Disallow} rules that follow, up to the next {@code User-agent} line after a
+ * rule. The rules of all groups naming the crawler's product token, compared case-insensitively, are combined; if
+ * no group names it, the rules of all {@code *} groups are used instead. The {@code Crawl-delay} of the applicable
+ * groups, in seconds, is kept with the rules. Comments, unknown records such as {@code Sitemap} and lines without a
+ * colon are ignored.</p>
+ *
+ * <p>Only the first {@value #MAX_LENGTH} characters of a file are parsed, the minimum RFC 9309 requires crawlers to
+ * parse.</p>
+ */
+@Slf4j
+final class RobotsTxtParser {
+
+    /**
+     * Number of characters after which the rest of a robots.txt file is ignored.
+     */
+    static final int MAX_LENGTH = 500 * 1024;
+
+    /**
+     * Longest {@code Crawl-delay} that is taken into account; longer values are ignored.
+     */
+    static final Duration MAX_CRAWL_DELAY = Duration.ofMinutes(1);
+
+    private final String productToken;
+
+    private final List<Rule> agentRules = new ArrayList<>();
+
+    private final List<Rule> wildcardRules = new ArrayList<>();
+
+    private Duration agentCrawlDelay;
+
+    private Duration wildcardCrawlDelay;
+
+    /**
+     * Whether any group names the crawler, in which case the {@code *} groups do not apply, even if the groups
+     * naming the crawler have no rules.
+     */
+    private boolean agentNamed;
+
+    private boolean agentGroup;
+
+    private boolean wildcardGroup;
+
+    /**
+     * Whether the current group already has rules, so that the next {@code User-agent} line starts a new group.
+     */
+    private boolean groupHasRules;
+
+    private RobotsTxtParser(String productToken) {
+        this.productToken = productToken;
+    }
+
+    /**
+     * Parses a robots.txt file and compiles the rules that apply to the given crawler. The reader is not closed.
+     *
+     * @param reader       the content of the robots.txt file.
+     * @param productToken the product token of the crawler, e.g. {@code WebTracer}.
+     * @return the rules that apply to the crawler.
+     * @throws IOException if reading fails.
+     */
+    static RobotsTxtRules parse(@NonNull Reader reader, @NonNull String productToken) throws IOException {
+        RobotsTxtParser parser = new RobotsTxtParser(productToken);
+        BufferedReader lines = reader instanceof BufferedReader bufferedReader
+                ? bufferedReader
+                : new BufferedReader(reader);
+        int length = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            length += line.length() + 1;
+            if (length > MAX_LENGTH) {
+                log.debug("Ignoring robots.txt content after {} characters", MAX_LENGTH);
+                break;
+            }
+            parser.parseLine(line);
+        }
+        return parser.build();
+    }
+
+    private void parseLine(String line) {
+        int comment = line.indexOf('#');
+        int end = comment < 0 ? line.length() : comment;
+        int colon = line.indexOf(':');
+        if (colon < 0 || colon > end) {
+            return;
+        }
+        String key = line.substring(0, colon).trim();
+        String value = line.substring(colon + 1, end).trim();
+
+        if (key.equalsIgnoreCase("user-agent")) {
+            if (groupHasRules) {
+                agentGroup = false;
+                wildcardGroup = false;
+                groupHasRules = false;
+            }
+            if (value.equals("*")) {
+                wildcardGroup = true;
+            } else if (value.equalsIgnoreCase(productToken)) {
+                agentGroup = true;
+                agentNamed = true;
+            }
+        } else if (key.equalsIgnoreCase("allow") || key.equalsIgnoreCase("disallow")) {
+            groupHasRules = true;
+            Rule rule = new Rule(key.equalsIgnoreCase("allow"), value);
+            if (agentGroup) {
+                agentRules.add(rule);
+            }
+            if (wildcardGroup) {
+                wildcardRules.add(rule);
+            }
+        } else if (key.equalsIgnoreCase("crawl-delay")) {
+            Duration crawlDelay = parseCrawlDelay(value);
+            if (crawlDelay != null && agentGroup) {
+                agentCrawlDelay = crawlDelay;
+            }
+            if (crawlDelay != null && wildcardGroup) {
+                wildcardCrawlDelay = crawlDelay;
+            }
+        }
+    }
+
+    private static Duration parseCrawlDelay(String value) {
+        try {
+            double seconds = Double.parseDouble(value);
+            if (seconds >= 0 && seconds <= MAX_CRAWL_DELAY.toSeconds()) {
+                return Duration.ofMillis(Math.round(seconds * 1000));
+            }
+        } catch (NumberFormatException e) {
+            // Ignored like any other malformed line
+        }
+        log.debug("Ignoring invalid Crawl-delay: {}", value);
+        return null;
+    }
+
+    private RobotsTxtRules build() {
+        RobotsTxtRules.Builder builder = new RobotsTxtRules.Builder();
+        for (Rule rule : agentNamed ? agentRules : wildcardRules) {
+            builder.add(rule);
+        }
+        return builder.crawlDelay(agentNamed ? agentCrawlDelay : wildcardCrawlDelay).build();
+    }
+}
@@ -0,0 +1,416 @@
+package com.webtracer;
+
+import lombok.NonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The {@code RobotsTxtRules} class holds the allow and disallow rules of a robots.txt file that apply to a crawler,
+ * compiled into a path trie.
+ *
+ * <p>Rules are matched as specified by RFC 9309:</p>
+ * <ul>
+ *   <li>a rule matches a path if its pattern is a prefix of the path, where {@code *} in a pattern matches any
+ *   sequence of characters and a trailing {@code $} anchors the pattern at the end of the path;</li>
+ *   <li>the matching rule with the longest pattern decides, and an allow rule wins over a disallow rule with a
+ *   pattern of the same length;</li>
+ *   <li>a path that no rule matches is allowed, and {@code /robots.txt} is always allowed.</li>
+ * </ul>
+ *
+ * <p>The rules also keep the patterns they were compiled from and the {@code Crawl-delay} of the group they were
+ * taken from, so that they can be stored and compiled again.</p>
+ *
+ * <p>Lookups walk the trie along the path in a single pass and allocate nothing. Without wildcard rules a single
+ * node is live at a time; with wildcards the trie is simulated as an automaton, keeping the set of nodes live at
+ * each position of the path in scratch arrays reused by every lookup of the thread. The size of that set is bounded
+ * when the rules are compiled, so a lookup costs at most the path length times that bound whatever the number of
+ * {@code *} in a pattern.</p>
+ *
+ * <p>Instances are immutable and thread-safe.</p>
+ */
+final class RobotsTxtRules {
+
+    /**
+     * Rules that allow every path.
+     */
+    static final RobotsTxtRules ALLOW_ALL = new Builder().build();
+
+    private static final int NO_MATCH = -1;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final Node root;
+
+    private final int ruleCount;
+
+    /**
+     * The number of nodes reached by {@code *}.
+     */
+    private final int wildcardCount;
+
+    /**
+     * The maximum number of nodes live at the same position of a path.
+     */
+    private final int liveCapacity;
+
+    private final List<Rule> rules;
+
+    private final Duration crawlDelay;
+
+    private RobotsTxtRules(Node root, int ruleCount, int wildcardCount, int liveCapacity, List<Rule> rules,
+                           Duration crawlDelay) {
+        this.root = root;
+        this.ruleCount = ruleCount;
+        this.wildcardCount = wildcardCount;
+        this.liveCapacity = liveCapacity;
+        this.rules = rules;
+        this.crawlDelay = crawlDelay;
+    }
+
+    /**
+     * Checks if the given path is allowed based on the robots.txt rules.
+     *
+     * @param path the path of the URL to check, including its query if any
+     * @return true if the path is allowed, false otherwise
+     */
+    boolean isAllowed(@NonNull String path) {
+        if (ruleCount == 0 || path.equals("/robots.txt")) {
+            return true;
+        }
+        int bestMatch = wildcardCount == 0 ? matchLiteral(path) : match(path);
+        return bestMatch == NO_MATCH || (bestMatch & 1) == 1;
+    }
+
+    /**
+     * Returns the number of distinct rules.
+     *
+     * @return the number of rules.
+     */
+    int size() {
+        return ruleCount;
+    }
+
+    /**
+     * Returns the rules in the order they were added, including duplicates.
+     *
+     * @return the source rules.
+     */
+    List<Rule> rules() {
+        return rules;
+    }
+
+    /**
+     * Returns the delay the robots.txt file asks crawlers to wait between requests to the host.
+     *
+     * @return the crawl delay, or empty if the file does not specify one.
+     */
+    Optional<Duration> crawlDelay() {
+        return Optional.ofNullable(crawlDelay);
+    }
+
+    /**
+     * Finds the best rule matching the path in a trie without wildcards, following the single path of nodes.
+     *
+     * @return the best match encoded as {@code patternLength * 2 + (allow ? 1 : 0)}, so that longer patterns and
+     * then allow rules compare greater, or {@link #NO_MATCH}.
+     */
+    private int matchLiteral(String path) {
+        Node node = root;
+        int best = node.prefixMatch;
+        for (int index = 0; index < path.length(); index++) {
+            node = node.child(path.charAt(index));
+            if (node == null) {
+                return best;
+            }
+            best = Math.max(best, node.prefixMatch);
+        }
+        return Math.max(best, node.endMatch);
+    }
+
+    /**
+     * Finds the best rule matching the path, keeping the nodes live after each character of the path.
+     *
+     * <p>Every node has a single parent, so the children reached from distinct live nodes are distinct, and only
+     * nodes reached by {@code *} can be added twice. Once reached, such a node stays live for the rest of the path,
+     * as {@code *} also matches every later character, so it is added at most once per lookup.</p>
+     *
+     * @return the best match encoded as in {@link #matchLiteral(String)}, or {@link #NO_MATCH}.
+     */
+    private int match(String path) {
+        Scratch scratch = SCRATCH.get();
+        scratch.ensureCapacity(liveCapacity, wildcardCount);
+        int lookup = scratch.nextLookup();
+        int[] reachedBy = scratch.reachedBy;
+        Node[] live = scratch.live;
+        Node[] next = scratch.next;
+        live[0] = root;
+        int liveCount = 1;
+        int best = NO_MATCH;
+        for (int index = 0; ; index++) {
+            // A * also matches the empty sequence, so the node it leads to is live at the same position
+            for (int i = 0; i < liveCount; i++) {
+                Node node = live[i];
+                best = Math.max(best, node.prefixMatch);
+                if (index == path.length()) {
+                    best = Math.max(best, node.endMatch);
+                }
+                Node wildcard = node.wildcard;
+                if (wildcard != null && reachedBy[wildcard.wildcardIndex] != lookup) {
+                    reachedBy[wildcard.wildcardIndex] = lookup;
+                    live[liveCount++] = wildcard;
+                }
+            }
+            if (index == path.length()) {
+                break;
+            }
+
+            char c = path.charAt(index);
+            int nextCount = 0;
+            for (int i = 0; i < liveCount; i++) {
+                Node node = live[i];
+                if (node.wildcardIndex >= 0) {
+                    next[nextCount++] = node;
+                }
+                Node child = node.child(c);
+                if (child != null) {
+                    next[nextCount++] = child;
+                }
+            }
+            if (nextCount == 0) {
+                break;
+            }
+            Node[] previous = live;
+            live = next;
+            liveCount = nextCount;
+            next = previous;
+        }
+        // Do not keep the nodes of rules that may be evicted reachable from the thread
+        Arrays.fill(live, 0, liveCapacity, null);
+        Arrays.fill(next, 0, liveCapacity, null);
+        return best;
+    }
+
+    /**
+     * An {@code Allow} or {@code Disallow} rule.
+     *
+     * @param allow   whether the rule allows the paths it matches.
+     * @param pattern the path pattern of the rule.
+     */
+    record Rule(boolean allow, @NonNull String pattern) {
+    }
+
+    /**
+     * A node of the path trie, reached by the pattern characters on the way from the root.
+     */
+    private static final class Node {
+
+        private char[] labels = new char[0];
+
+        private Node[] children = new Node[0];
+
+        /**
+         * The node reached by {@code *}, or {@code null}.
+         */
+        private Node wildcard;
+
+        /**
+         * The index of this node among the nodes reached by {@code *}, or {@code -1} if it is reached by a literal
+         * character.
+         */
+        private int wildcardIndex = -1;
+
+        /**
+         * Best rule whose pattern ends at this node, or {@link #NO_MATCH}.
+         */
+        private int prefixMatch = NO_MATCH;
+
+        /**
+         * Best rule whose pattern ends at this node followed by {@code $}, or {@link #NO_MATCH}.
+         */
+        private int endMatch = NO_MATCH;
+
+        /**
+         * For a node reached by {@code *}, the length of the longest run of literal characters following it in a
+         * pattern.
+         */
+        private int literalDepth;
+
+        private Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index < 0 ? null : children[index];
+        }
+
+        private Node addChild(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            Node child = new Node();
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newLabels[insertAt] = label;
+            newChildren[insertAt] = child;
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            labels = newLabels;
+            children = newChildren;
+            return child;
+        }
+    }
+
+    /**
+     * The arrays a thread simulates the trie in, grown to the largest rules it has looked paths up in.
+     */
+    private static final class Scratch {
+
+        private Node[] live = new Node[0];
+
+        private Node[] next = new Node[0];
+
+        /**
+         * The lookup in which each node reached by {@code *} was last reached.
+         */
+        private int[] reachedBy = new int[0];
+
+        private int lookup;
+
+        private void ensureCapacity(int liveCapacity, int wildcardCount) {
+            if (live.length < liveCapacity) {
+                live = new Node[liveCapacity];
+                next = new Node[liveCapacity];
+            }
+            if (reachedBy.length < wildcardCount) {
+                reachedBy = new int[wildcardCount];
+                lookup = 0;
+            }
+        }
+
+        private int nextLookup() {
+            if (++lookup == 0) {
+                // After wrapping around, earlier lookups could be mistaken for the current one
+                Arrays.fill(reachedBy, 0);
+                lookup = 1;
+            }
+            return lookup;
+        }
+    }
+
+    /**
+     * The {@code Builder} class compiles allow and disallow rules into a {@link RobotsTxtRules}.
+     */
+    static final class Builder {
+
+        private final Node root = new Node();
+
+        private final List<Rule> rules = new ArrayList<>();
+
+        private int ruleCount;
+
+        private final List<Node> wildcards = new ArrayList<>();
+
+        private Duration crawlDelay;
+
+        /**
+         * Adds an {@code Allow} rule. Empty patterns are ignored.
+         *
+         * @param pattern the path pattern of the rule.
+         * @return this builder.
+         */
+        Builder allow(@NonNull String pattern) {
+            return add(pattern, true);
+        }
+
+        /**
+         * Adds a {@code Disallow} rule. Empty patterns are ignored.
+         *
+         * @param pattern the path pattern of the rule.
+         * @return this builder.
+         */
+        Builder disallow(@NonNull String pattern) {
+            return add(pattern, false);
+        }
+
+        /**
+         * Adds a rule. Rules with an empty pattern are ignored.
+         *
+         * @param rule the rule to add.
+         * @return this builder.
+         */
+        Builder add(@NonNull Rule rule) {
+            return add(rule.pattern(), rule.allow());
+        }
+
+        /**
+         * Sets the delay the robots.txt file asks crawlers to wait between requests.
+         *
+         * @param crawlDelay the crawl delay, or {@code null} for none.
+         * @return this builder.
+         */
+        Builder crawlDelay(Duration crawlDelay) {
+            this.crawlDelay = crawlDelay;
+            return this;
+        }
+
+        RobotsTxtRules build() {
+            // The root is only live at the start of a path, so at most one node below it is live at a time. A node
+            // reached by * stays live, and below it at most one node per depth of the literal run that follows it.
+            int liveCapacity = 1;
+            for (Node wildcard : wildcards) {
+                liveCapacity += 1 + wildcard.literalDepth;
+            }
+            return new RobotsTxtRules(root, ruleCount, wildcards.size(), liveCapacity, List.copyOf(rules),
+                                      crawlDelay);
+        }
+
+        private Builder add(String pattern, boolean allow) {
+            if (pattern.isEmpty()) {
+                return this;
+            }
+            rules.add(new Rule(allow, pattern));
+            boolean anchored = pattern.endsWith("$");
+            int end = anchored ? pattern.length() - 1 : pattern.length();
+
+            Node node = root;
+            Node wildcard = null;
+            int literalDepth = 0;
+            for (int i = 0; i < end; i++) {
+                char c = pattern.charAt(i);
+                if (c != '*') {
+                    node = node.addChild(c);
+                    if (wildcard != null) {
+                        wildcard.literalDepth = Math.max(wildcard.literalDepth, ++literalDepth);
+                    }
+                } else if (i == 0 || pattern.charAt(i - 1) != '*') {
+                    // Consecutive wildcards match the same as a single one
+                    if (node.wildcard == null) {
+                        node.wildcard = new Node();
+                        node.wildcard.wildcardIndex = wildcards.size();
+                        wildcards.add(node.wildcard);
+                    }
+                    node = node.wildcard;
+                    wildcard = node;
+                    literalDepth = 0;
+                }
+            }
+
+            int match = pattern.length() * 2 + (allow ? 1 : 0);
+            int previous = anchored ? node.endMatch : node.prefixMatch;
+            if (anchored) {
+                node.endMatch = Math.max(node.endMatch, match);
+            } else {
+                node.prefixMatch = Math.max(node.prefixMatch, match);
+            }
+            if (previous == NO_MATCH) {
+                ruleCount++;
+            }
+            return this;
+        }
+    }
+}
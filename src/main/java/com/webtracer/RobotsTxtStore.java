@@ -0,0 +1,198 @@
+package com.webtracer;
+
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code RobotsTxtStore} class keeps the robots.txt rules and metadata of hosts in a file, so that a new run
+ * of the crawler starts with the rules fetched by earlier runs instead of fetching robots.txt again for every host.
+ *
+ * <p>For each host the store keeps its compiled rules, its {@code Crawl-delay}, the time its robots.txt file was
+ * last fetched or revalidated, and its {@code ETag}, so that stale rules can be revalidated with a conditional
+ * request. The file is an {@link AppendOnlyLog}, the last record of a host replacing the earlier ones; it is
+ * compacted when it is opened holding more than twice as many records as hosts, keeping the {@value #MAX_HOSTS}
+ * most recently fetched hosts.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ */
+@Slf4j
+public final class RobotsTxtStore implements Closeable {
+
+    /**
+     * Maximum number of hosts kept when the store is compacted.
+     */
+    static final int MAX_HOSTS = 100_000;
+
+    private static final int MAGIC = 0x57545254;
+
+    private static final int VERSION = 1;
+
+    /**
+     * Largest payload of a single record; larger lengths are treated as corruption.
+     */
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    private final Path file;
+
+    private final Map<String, HostRecord> records;
+
+    private final AppendOnlyLog appendLog;
+
+    private RobotsTxtStore(Path file, Map<String, HostRecord> records, AppendOnlyLog appendLog) {
+        this.file = file;
+        this.records = records;
+        this.appendLog = appendLog;
+    }
+
+    /**
+     * Opens the store kept in the given file, creating the file if it does not exist.
+     *
+     * @param file the file of the store.
+     * @return the opened store.
+     * @throws IOException if the file cannot be read or written.
+     */
+    public static RobotsTxtStore open(@NonNull Path file) throws IOException {
+        Map<String, HostRecord> records = new LinkedHashMap<>();
+        byte[] header = ByteBuffer.allocate(Integer.BYTES * 2).putInt(MAGIC).putInt(VERSION).array();
+        AppendOnlyLog appendLog = AppendOnlyLog.open(file, "robots.txt store", header, MAX_RECORD_SIZE, payload -> {
+            HostRecord record = decode(payload);
+            records.remove(record.getHostKey());
+            records.put(record.getHostKey(), record);
+        });
+
+        try {
+            if (appendLog.needsCompaction(records.size()) || records.size() > MAX_HOSTS) {
+                List<HostRecord> kept = new ArrayList<>(records.values());
+                kept.sort(Comparator.comparing(HostRecord::getFetchedAt));
+                if (kept.size() > MAX_HOSTS) {
+                    kept.subList(0, kept.size() - MAX_HOSTS).forEach(record -> records.remove(record.getHostKey()));
+                    kept = kept.subList(kept.size() - MAX_HOSTS, kept.size());
+                }
+                appendLog.compact(kept, RobotsTxtStore::encode);
+            }
+        } catch (IOException e) {
+            appendLog.close();
+            throw e;
+        }
+        log.info("Opened robots.txt store {} with {} hosts", file, records.size());
+        return new RobotsTxtStore(file, records, appendLog);
+    }
+
+    /**
+     * Returns the stored hosts, the least recently fetched first.
+     *
+     * @return a snapshot of the stored records.
+     */
+    synchronized List<HostRecord> records() {
+        List<HostRecord> snapshot = new ArrayList<>(records.values());
+        snapshot.sort(Comparator.comparing(HostRecord::getFetchedAt));
+        return snapshot;
+    }
+
+    /**
+     * Stores the record of a host, replacing any earlier record of the same host.
+     *
+     * @param record the record to store.
+     */
+    synchronized void put(@NonNull HostRecord record) {
+        try {
+            if (appendLog.append(encode(record))) {
+                records.put(record.getHostKey(), record);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to store the robots.txt rules of {} in {}", record.getHostKey(), file, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        appendLog.close();
+    }
+
+    private static byte[] encode(HostRecord record) {
+        List<byte[]> strings = new ArrayList<>();
+        strings.add(record.getHostKey().getBytes(StandardCharsets.UTF_8));
+        strings.add(record.getEtag() == null ? new byte[0] : record.getEtag().getBytes(StandardCharsets.UTF_8));
+        List<RobotsTxtRules.Rule> rules = record.getRules().rules();
+        for (RobotsTxtRules.Rule rule : rules) {
+            strings.add(rule.pattern().getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Host and ETag, fetch time and crawl delay, rule count, then a flag per rule
+        int payloadSize = Long.BYTES * 2 + Integer.BYTES + rules.size();
+        for (byte[] string : strings) {
+            payloadSize += Integer.BYTES + string.length;
+        }
+
+        ByteBuffer payload = ByteBuffer.allocate(payloadSize);
+        AppendOnlyLog.putString(payload, strings.get(0));
+        AppendOnlyLog.putString(payload, strings.get(1));
+        payload.putLong(record.getFetchedAt().toEpochMilli());
+        payload.putLong(record.getRules().crawlDelay().map(Duration::toMillis).orElse(-1L));
+        payload.putInt(rules.size());
+        for (int i = 0; i < rules.size(); i++) {
+            payload.put((byte) (rules.get(i).allow() ? 1 : 0));
+            AppendOnlyLog.putString(payload, strings.get(i + 2));
+        }
+        return payload.array();
+    }
+
+    private static HostRecord decode(ByteBuffer payload) {
+        String hostKey = AppendOnlyLog.getString(payload);
+        String etag = AppendOnlyLog.getString(payload);
+        Instant fetchedAt = Instant.ofEpochMilli(payload.getLong());
+        long crawlDelayMillis = payload.getLong();
+        int ruleCount = payload.getInt();
+        RobotsTxtRules.Builder rules = new RobotsTxtRules.Builder();
+        for (int i = 0; i < ruleCount; i++) {
+            boolean allow = payload.get() == 1;
+            rules.add(new RobotsTxtRules.Rule(allow, AppendOnlyLog.getString(payload)));
+        }
+        rules.crawlDelay(crawlDelayMillis < 0 ? null : Duration.ofMillis(crawlDelayMillis));
+        return new HostRecord(hostKey, fetchedAt, etag.isEmpty() ? null : etag, rules.build());
+    }
+
+    /**
+     * The stored robots.txt rules and metadata of a host.
+     */
+    @Value
+    static class HostRecord {
+
+        /**
+         * The scheme, host and port the robots.txt file applies to.
+         */
+        @NonNull
+        String hostKey;
+
+        /**
+         * When the robots.txt file was last fetched or revalidated.
+         */
+        @NonNull
+        Instant fetchedAt;
+
+        /**
+         * The entity tag of the robots.txt file, or {@code null} if the server sent none.
+         */
+        String etag;
+
+        /**
+         * The rules that apply to the crawler, including the crawl delay.
+         */
+        @NonNull
+        RobotsTxtRules rules;
+    }
+}
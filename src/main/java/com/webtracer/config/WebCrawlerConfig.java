@@ -2,6 +2,12 @@ package com.webtracer.config;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.webtracer.parser.DefaultDocumentLoader;
+import com.webtracer.parser.HttpResponseCache;
+import com.webtracer.parser.ParseMode;
+import com.webtracer.parser.wordcount.InMemoryParseResultCache;
+import com.webtracer.parser.wordcount.ParseResultStore;
+import com.webtracer.parser.wordcount.WordCountPageParserImpl;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -155,4 +161,313 @@ public final class WebCrawlerConfig {
     @Builder.Default
     private final Duration parseTimeout = Duration.ofSeconds(10);
 
+    /**
+     * How pages are parsed, either {@code DOM}, {@code STREAMING} or {@code STREAMING_BYTES}.
+     * <p>
+     * In {@code DOM} mode each page is parsed into a complete document tree, which is typically
+     * several times larger than the page itself. In {@code STREAMING} mode pages are tokenized
+     * as they are read and words and links are extracted on the fly, so the memory used per page
+     * stays constant. {@code STREAMING_BYTES} additionally tokenizes UTF-8 pages on their raw
+     * bytes and only creates a string for the first occurrence of each word on a page; pages in
+     * other charsets are decoded first. All modes produce the same words and links.
+     * </p>
+     * <p>
+     * Default value: {@code DOM}.
+     * </p>
+     */
+    @JsonProperty("parseMode")
+    @Builder.Default
+    private final ParseMode parseMode = ParseMode.DOM;
+
+    /**
+     * The number of characters of text on a single page after which the rest of the page is counted in parallel.
+     * <p>
+     * The text of a page beyond this threshold is split at whitespace into chunks that are counted by idle
+     * workers of the crawl and merged, so that a single very large page, such as a log or a dump, does not
+     * keep one worker busy while the others wait. Pages with less text are always counted by a single worker.
+     * A value of 0 disables parallel counting. Pages counted on their raw bytes in {@code STREAMING_BYTES}
+     * mode are not split.
+     * </p>
+     * <p>
+     * Default value: 1048576 (about 1 MB of text).
+     * </p>
+     */
+    @JsonProperty("parallelTextThreshold")
+    @Builder.Default
+    private final int parallelTextThreshold = WordCountPageParserImpl.DEFAULT_PARALLEL_TEXT_THRESHOLD;
+
+    /**
+     * The maximum CPU time spent parsing a single page.
+     * <p>
+     * Malformed or adversarial pages, such as massively nested tags, can otherwise keep a worker busy for a long
+     * time. Once parsing a page has taken longer than this budget, the parser stops, keeps the words and links
+     * found so far and reports the page in the {@code truncatedPages} of the result. A value of 0 disables the
+     * budget.
+     * </p>
+     * <p>
+     * Default value: 5 seconds.
+     * </p>
+     */
+    @JsonDeserialize(using = DurationDeserializer.class)
+    @JsonProperty("maxParseCpuTime")
+    @Builder.Default
+    private final Duration maxParseCpuTime = WordCountPageParserImpl.DEFAULT_MAX_PARSE_CPU_TIME;
+
+    /**
+     * The maximum number of bytes read from a single page.
+     * <p>
+     * Remote pages whose {@code Content-Length} header exceeds the limit are not downloaded at all. For other
+     * pages the limit is enforced while the page is read, so an oversized response is never buffered in full.
+     * Longer pages are truncated: only their first bytes are parsed, and the page is reported in the
+     * {@code truncatedPages} of the result. A value of 0 disables the limit.
+     * </p>
+     * <p>
+     * Default value: 67108864 (64 MiB).
+     * </p>
+     */
+    @JsonProperty("maxBodySize")
+    @Builder.Default
+    private final long maxBodySize = DefaultDocumentLoader.DEFAULT_MAX_BODY_SIZE;
+
+    /**
+     * The directory where the bodies of remote pages are cached between crawls.
+     * <p>
+     * Pages are stored by the digest of their content, and indexed by URL together with their
+     * {@code ETag} and {@code Last-Modified} headers. A later crawl requests cached pages
+     * conditionally, so that a page that has not changed is answered with {@code 304 Not Modified}
+     * and read from the cache instead of being downloaded again. Pages whose {@code Cache-Control}
+     * grants a {@code max-age} are read from the cache without a request until it expires. The ratios
+     * of pages served from the cache, revalidated and downloaded are logged at the end of the crawl.
+     * </p>
+     * <p>
+     * Default value: "" (pages are not cached).
+     * </p>
+     */
+    @JsonProperty("httpCachePath")
+    @Builder.Default
+    private final String httpCachePath = "";
+
+    /**
+     * The maximum total size, in bytes, of the pages kept in the {@code httpCachePath} cache.
+     * <p>
+     * Once the cache grows larger, the least recently used pages are evicted.
+     * </p>
+     * <p>
+     * Default value: 1073741824 (1 GiB).
+     * </p>
+     */
+    @JsonProperty("httpCacheMaxSize")
+    @Builder.Default
+    private final long httpCacheMaxSize = HttpResponseCache.DEFAULT_MAX_SIZE;
+
+    /**
+     * The directory where the word counts and links of parsed pages are kept between crawls.
+     * <p>
+     * Each page is read into memory and hashed before it is parsed. If the store holds the result of a
+     * page with the same content, location and parse settings, the page is not parsed again and its
+     * stored result is used instead. Results of truncated pages are not stored.
+     * </p>
+     * <p>
+     * Default value: "" (every page is parsed).
+     * </p>
+     */
+    @JsonProperty("parseResultCachePath")
+    @Builder.Default
+    private final String parseResultCachePath = "";
+
+    /**
+     * The maximum size, in bytes, of the {@code parseResultCachePath} store.
+     * <p>
+     * The store is split in two generations of half this size. When the current generation is full, the
+     * previous one is dropped, so results of pages that are no longer crawled age out.
+     * </p>
+     * <p>
+     * Default value: 268435456 (256 MiB).
+     * </p>
+     */
+    @JsonProperty("parseResultCacheMaxSize")
+    @Builder.Default
+    private final long parseResultCacheMaxSize = ParseResultStore.DEFAULT_MAX_SIZE;
+
+    /**
+     * The maximum estimated size, in bytes, of the word counts and links of recently parsed pages kept in memory.
+     * <p>
+     * Results are keyed by the canonical URL of the page, so that a page reached under another spelling of its
+     * URL, e.g. with a default port or a fragment, is neither fetched nor parsed again. Once the cache is full, a
+     * newly parsed page only replaces a cached one if it was requested more often recently, so that pages seen
+     * once do not evict popular ones. The hit ratio is logged at the end of the crawl. Results of truncated pages
+     * are not cached. A value of 0 disables the cache.
+     * </p>
+     * <p>
+     * Default value: 0 (results are not cached in memory).
+     * </p>
+     */
+    @JsonProperty("documentCacheMaxSize")
+    @Builder.Default
+    private final long documentCacheMaxSize = 0;
+
+    /**
+     * How long the result of a page is served from the {@code documentCacheMaxSize} cache after it was parsed.
+     * <p>
+     * Default value: 3600 seconds (1 hour).
+     * </p>
+     */
+    @JsonDeserialize(using = DurationDeserializer.class)
+    @JsonProperty("documentCacheTtl")
+    @Builder.Default
+    private final Duration documentCacheTtl = InMemoryParseResultCache.DEFAULT_TTL;
+
+    /**
+     * Whether each worker thread keeps the tables it counts a page in and reuses them for its next page.
+     * <p>
+     * By default every page gets fresh hash tables, and its word counts and links are copied into an immutable
+     * result before they are merged into the crawl. When enabled, each worker clears and reuses its own tables,
+     * and the crawl drains the counts of a page straight from them, which removes most of the per-page
+     * allocation of small pages. The words and links found are the same either way.
+     * </p>
+     * <p>
+     * Default value: {@code false}.
+     * </p>
+     */
+    @JsonProperty("reuseParserState")
+    @Builder.Default
+    private final boolean reuseParserState = false;
+
+    /**
+     * The number of words monitored when aggregating word counts approximately.
+     * <p>
+     * When set to {@code 0}, every distinct word is counted exactly, and memory grows with the
+     * vocabulary of the crawled pages. A positive value switches to a fixed-size Space-Saving
+     * sketch: memory stays bounded however many pages are crawled, every word occurring more than
+     * {@code N / sketchCapacity} times (out of {@code N} counted occurrences) is guaranteed to be
+     * reported, and each reported count comes with an error bound in the result.
+     * </p>
+     * <p>
+     * As a rule of thumb, a capacity of {@code popularWordCount / ε} bounds the error of the top
+     * words by {@code ε N / popularWordCount}.
+     * </p>
+     * <p>
+     * Default value: 0 (exact counting).
+     * </p>
+     */
+    @JsonProperty("sketchCapacity")
+    @Builder.Default
+    private final int sketchCapacity = 0;
+
+    /**
+     * The number of consecutive parsed pages after which the crawl stops early if the ranking of
+     * the {@code popularWordCount} top words did not change.
+     * <p>
+     * Many crawls only need the top words, which usually stop changing long before
+     * {@code maxDepth} or the timeout is reached. Once the set and order of the top words stayed
+     * the same for this many pages, the remaining URLs are skipped, and the result reports the
+     * crawl as converged together with the number of fetches avoided. Later pages could still
+     * have changed the ranking, so larger values trade speed for confidence.
+     * </p>
+     * <p>
+     * Default value: 0 (never stop early).
+     * </p>
+     */
+    @JsonProperty("convergencePages")
+    @Builder.Default
+    private final int convergencePages = 0;
+
+    /**
+     * Whether {@code MirrorIngestWebCrawler} extracts the links of every ingested page to report
+     * the pages that no other page links to.
+     * <p>
+     * The ingest of a local mirror counts every HTML file under its root instead of following
+     * links, so links are only extracted when orphaned pages are to be reported. The starting
+     * pages, and the {@code index.html} of a starting directory, are never reported.
+     * </p>
+     * <p>
+     * Default value: false.
+     * </p>
+     */
+    @JsonProperty("reportOrphanPages")
+    @Builder.Default
+    private final boolean reportOrphanPages = false;
+
+    /**
+     * The interval, in seconds, at which the progress of a running crawl is reported.
+     * <p>
+     * Each report contains the number of URLs visited so far and the current
+     * {@code popularWordCount} top words, in the same JSON format as the final result.
+     * Reporting reads a snapshot maintained by the crawler and does not pause the crawl.
+     * </p>
+     * <p>
+     * Default value: 0 (no progress reports).
+     * </p>
+     */
+    @JsonDeserialize(using = DurationDeserializer.class)
+    @JsonProperty("progressIntervalSeconds")
+    @Builder.Default
+    private final Duration progressInterval = Duration.ZERO;
+
+    /**
+     * The file path where progress reports should be written.
+     * <p>
+     * The file is replaced atomically with the latest report, so it always holds one complete
+     * JSON document. If the path is empty, reports are written to the console.
+     * </p>
+     */
+    @JsonProperty("progressPath")
+    @Builder.Default
+    private final String progressPath = "";
+
+    /**
+     * The file path where robots.txt rules are kept between runs.
+     * <p>
+     * The store holds the rules, crawl delay, last fetch time and {@code ETag} of every host whose
+     * robots.txt file was fetched. A new run starts with the stored rules instead of fetching robots.txt
+     * again for every host; rules older than a day are revalidated in the background with a conditional
+     * request when their host is next crawled. If the file cannot be opened, the crawl runs without it.
+     * </p>
+     * <p>
+     * Default value: "" (robots.txt rules are not kept between runs).
+     * </p>
+     */
+    @JsonProperty("robotsTxtStorePath")
+    @Builder.Default
+    private final String robotsTxtStorePath = "";
+
+    /**
+     * The file where the word counts of every crawled page are kept for the next crawl.
+     * <p>
+     * When set, a crawl is incremental: it starts from the word counts of the pages of the previous crawl,
+     * and each page is read and hashed, but only parsed if its content changed. The counts of a changed page
+     * replace its previous counts in the total, and the counts of pages that were not reached again are
+     * subtracted, so the result is the same as that of a full crawl. Combined with {@code httpCachePath},
+     * unchanged remote pages are answered with {@code 304 Not Modified} and not downloaded again. Incremental
+     * crawls require exact word counts, so the setting is ignored when {@code sketchCapacity} or
+     * {@code convergencePages} is set.
+     * </p>
+     * <p>
+     * Default value: "" (every page is counted from scratch).
+     * </p>
+     */
+    @JsonProperty("incrementalCrawlPath")
+    @Builder.Default
+    private final String incrementalCrawlPath = "";
+
+    /**
+     * WARC archives to replay pages from instead of requesting them.
+     * <p>
+     * Each entry is a {@code .warc} or {@code .warc.gz} file, or a directory whose such files are
+     * replayed in the order of their names. The archives are indexed by URL at startup, streaming
+     * the files in parallel, and the crawl then reads every page, and every robots.txt file, from the
+     * archived responses, without any network access. Archived redirects are followed; pages that
+     * were not archived fail to load. A URL captured more than once is replayed from its latest
+     * capture. Replayed crawls are reproducible and run at disk speed, which makes them suited to
+     * performance testing and to reprocessing archived crawls; {@code throttleDelayMillis} should
+     * then be 0. If an archive cannot be read, the application does not start.
+     * </p>
+     * <p>
+     * Default value: empty (pages are requested from the web).
+     * </p>
+     */
+    @JsonProperty("warcPaths")
+    @Builder.Default
+    private final List<String> warcPaths = new ArrayList<>();
+
 }
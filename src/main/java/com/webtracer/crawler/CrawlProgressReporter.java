@@ -0,0 +1,152 @@
+package com.webtracer.crawler;
+
+import com.webtracer.ApiException;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically reports the progress of a running crawl by serializing {@link GenericWebCrawler#snapshot()}
+ * to a file or to the console.
+ *
+ * <p>Reports are produced on a dedicated daemon thread. When writing to a file, each report is first written
+ * to a temporary sibling file which then replaces the target, so the target always holds one complete JSON
+ * document. Crawlers that do not support live progress produce no reports.</p>
+ *
+ * <p>Reporting starts with {@link #start()} and stops when the reporter is closed.</p>
+ */
+@Slf4j
+public final class CrawlProgressReporter implements AutoCloseable {
+
+    private final GenericWebCrawler crawler;
+    private final Duration interval;
+    private final Path outputPath;
+    private final Writer consoleWriter;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a reporter for the given crawler.
+     *
+     * @param crawler    the crawler whose progress is reported.
+     * @param interval   the interval between two reports; must be positive.
+     * @param outputPath the file reports are written to, or {@code null} to write them to the console.
+     * @throws IllegalArgumentException if {@code interval} is not positive.
+     */
+    public CrawlProgressReporter(@NonNull GenericWebCrawler crawler, @NonNull Duration interval, Path outputPath) {
+        if (interval.isZero() || interval.isNegative()) {
+            throw new IllegalArgumentException("Progress interval must be positive: " + interval);
+        }
+        this.crawler = crawler;
+        this.interval = interval;
+        this.outputPath = outputPath;
+        this.consoleWriter = new OutputStreamWriter(System.out);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "crawl-progress-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts reporting at the configured interval, beginning one interval from now.
+     */
+    public void start() {
+        long millis = interval.toMillis();
+        scheduler.scheduleAtFixedRate(this::reportSafely, millis, millis, TimeUnit.MILLISECONDS);
+        log.info("Reporting crawl progress every {} to {}", interval, outputPath == null ? "console" : outputPath);
+    }
+
+    /**
+     * Writes a report of the current progress, if the crawler has any.
+     *
+     * @throws ApiException if the report cannot be written.
+     */
+    public void report() throws ApiException {
+        Optional<? extends CrawlResult> snapshot = crawler.snapshot();
+        if (snapshot.isEmpty()) {
+            log.trace("No crawl progress to report");
+            return;
+        }
+
+        CrawlResultSerializer<CrawlResult> serializer = new CrawlResultSerializer<>(snapshot.get());
+        if (outputPath == null) {
+            try {
+                serializer.saveToWriter(nonClosing(consoleWriter));
+                consoleWriter.write(System.lineSeparator());
+                consoleWriter.flush();
+            } catch (IOException e) {
+                throw new ApiException("Failed to write crawl progress to console", e);
+            }
+            return;
+        }
+
+        Path directory = outputPath.toAbsolutePath().getParent();
+        try {
+            Path temporary = Files.createTempFile(directory, outputPath.getFileName().toString(), ".tmp");
+            try {
+                serializer.saveToPath(temporary);
+                moveReplacing(temporary, outputPath);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            throw new ApiException("Failed to write crawl progress to path: " + outputPath, e);
+        }
+    }
+
+    /**
+     * Stops reporting. A report in progress is allowed to complete.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(interval.toMillis() + 1_000, TimeUnit.MILLISECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void reportSafely() {
+        try {
+            report();
+        } catch (RuntimeException e) {
+            // A failed report must not cancel the following ones
+            log.warn("Failed to report crawl progress", e);
+        }
+    }
+
+    private static void moveReplacing(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static Writer nonClosing(Writer writer) {
+        return new FilterWriter(writer) {
+            @Override
+            public void close() throws IOException {
+                // Do not close System.out
+                flush();
+            }
+        };
+    }
+}
@@ -4,6 +4,7 @@ package com.webtracer.crawler;
 import com.webtracer.ApiException;
 
 import java.util.List;
+import java.util.Optional;
 
 
 /**
@@ -43,4 +44,17 @@ public interface GenericWebCrawler {
     default int getMaxConcurrencyLevel() {
         return Runtime.getRuntime().availableProcessors();
     }
+
+    /**
+     * Returns the partial result of the crawl currently running, or of the last completed crawl. The snapshot
+     * may be taken from any thread while {@link #crawl(List)} is running and must not pause the crawl.
+     *
+     * <p>The default implementation does not support live progress and returns an empty {@link Optional}.</p>
+     *
+     * @return the result of the crawl so far, or an empty {@link Optional} if no crawl has started or live
+     *         progress is not supported.
+     */
+    default Optional<? extends CrawlResult> snapshot() {
+        return Optional.empty();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.webtracer.crawler.linkgraph;
+
+import com.webtracer.crawler.CrawlResult;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The {@code LinkGraphResult} class represents the result of a link-discovery crawl: the link structure of the
+ * crawled site, without any word counts.
+ *
+ * <p>This class is immutable. Pages and their hyperlinks are sorted by URL, so that the serialized results of two crawls of the same
+ * site can be compared line by line.</p>
+ */
+@Getter
+@Slf4j
+public final class LinkGraphResult extends CrawlResult {
+
+    /**
+     * An unmodifiable {@link Map} where each key is the URL of a visited page and each value lists the distinct
+     * hyperlinks of that page. Links of pages at the maximum depth are included, although the
+     * pages they point to were not visited.
+     */
+    @NonNull
+    private final Map<String, List<String>> links;
+
+    @Builder
+    public LinkGraphResult(int totalUrlsVisited, @NonNull Map<String, List<String>> links) {
+        super(totalUrlsVisited);
+        Map<String, List<String>> sortedLinks = new TreeMap<>();
+        links.forEach((page, pageLinks) -> sortedLinks.put(page, pageLinks.stream().sorted().toList()));
+        this.links = Collections.unmodifiableMap(sortedLinks);
+
+        log.debug("LinkGraphResult created with totalUrlsVisited = {} and {} pages with links", totalUrlsVisited,
+                  this.links.size());
+    }
+}
@@ -0,0 +1,211 @@
+package com.webtracer.crawler.linkgraph;
+
+import com.webtracer.ApiException;
+import com.webtracer.RobotsTxtCache;
+import com.webtracer.crawler.DomainThrottler;
+import com.webtracer.crawler.GenericWebCrawler;
+import com.webtracer.di.annotation.*;
+import com.webtracer.parser.AbstractPageParserFactory;
+import com.webtracer.parser.ParseProjection;
+import com.webtracer.parser.wordcount.WordCountPageParser;
+import com.webtracer.parser.wordcount.WordCountParseResult;
+import jakarta.inject.Inject;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.regex.Pattern;
+
+/**
+ * A web crawler that maps the link structure of a site without counting any words. It visits pages exactly like
+ * the {@link com.webtracer.crawler.wordcount.RecursiveActionWebCrawler}, honouring the same depth limit, timeout,
+ * URL exclusions, robots.txt rules and domain throttling, but parses each page with a
+ * {@link ParseProjection#LINKS} projection: text is never split into words, so discovering the link graph costs
+ * little more than reading the pages.
+ *
+ * <p>The Fork/Join framework processes each page as a separate task that spawns subtasks for its hyperlinks. In
+ * the streaming parse modes, subtasks are forked as soon as each hyperlink is read.</p>
+ */
+@Slf4j
+public class LinkGraphWebCrawler implements GenericWebCrawler {
+
+    private final Clock systemClock;
+    private final AbstractPageParserFactory parserFactory;
+    private final Duration crawlTimeout;
+    private final ForkJoinPool threadPool;
+    private final List<Pattern> excludedUrls;
+    private final int maximumDepth;
+    private final DomainThrottler domainThrottler;
+    private final RobotsTxtCache robotsTxtCache;
+    private volatile RunningCrawl runningCrawl;
+
+    /**
+     * Constructs a LinkGraphWebCrawler with the specified parameters.
+     *
+     * @param systemClock      the clock to use for timing operations
+     * @param parserFactory    the factory to create parsers for processing web pages
+     * @param crawlTimeout     the maximum duration to allow for crawling
+     * @param concurrencyLevel the maximum level of concurrency allowed; this controls the number of threads
+     *                         that can be used simultaneously by the ForkJoinPool.
+     * @param maximumDepth     the maximum depth to crawl
+     * @param excludedUrls     a list of URL patterns to exclude from crawling
+     * @param domainThrottler  the throttler to control request rates per domain
+     * @param robotsTxtCache   the robots.txt rules shared by the crawlers of the application
+     */
+    @Inject
+    public LinkGraphWebCrawler(
+            Clock systemClock,
+            @WordCountFactory AbstractPageParserFactory parserFactory,
+            @CrawlTimeout Duration crawlTimeout,
+            @ConcurrencyLevel int concurrencyLevel,
+            @CrawlMaxDepth int maximumDepth,
+            @ExcludedUrls List<Pattern> excludedUrls,
+            DomainThrottler domainThrottler,
+            RobotsTxtCache robotsTxtCache
+    ) {
+        this.systemClock = systemClock;
+        this.parserFactory = parserFactory;
+        this.crawlTimeout = crawlTimeout;
+        this.threadPool = new ForkJoinPool(Math.min(concurrencyLevel, getMaxConcurrencyLevel()));
+        this.maximumDepth = maximumDepth;
+        this.excludedUrls = excludedUrls;
+        this.domainThrottler = domainThrottler;
+        this.robotsTxtCache = robotsTxtCache;
+        log.info("Initialized LinkGraphWebCrawler with max depth: {}, concurrency level: {}, crawl timeout: {}",
+                 maximumDepth, concurrencyLevel, crawlTimeout);
+    }
+
+    /**
+     * Crawls the web starting from the given initial pages, collecting the hyperlinks of every visited page.
+     *
+     * @param initialPages a list of URLs to start crawling from
+     * @return a LinkGraphResult containing the hyperlinks of each visited page and the total number of visited
+     * URLs
+     * @throws ApiException if an error occurs during crawling
+     */
+    @Override
+    public LinkGraphResult crawl(List<String> initialPages) throws ApiException {
+        log.info("Starting link discovery with initial pages: {}", initialPages);
+
+        Instant deadline = systemClock.instant().plus(crawlTimeout);
+        ConcurrentMap<String, List<String>> links = new ConcurrentHashMap<>();
+        Set<String> visitedUrls = new ConcurrentSkipListSet<>();
+        RunningCrawl crawl = new RunningCrawl(visitedUrls, links);
+        this.runningCrawl = crawl;
+
+        for (String url : initialPages) {
+            log.debug("Invoking link discovery for URL: {}", url);
+            threadPool.invoke(new LinkDiscoveryAction(deadline, url, maximumDepth, visitedUrls, links));
+        }
+
+        log.info("Link discovery completed. Total URLs visited: {}", visitedUrls.size());
+        return crawl.result();
+    }
+
+    /**
+     * Returns the link graph discovered so far by the running crawl. Safe to call from any thread.
+     *
+     * @return the result of the crawl so far, or an empty {@link Optional} if no crawl has started.
+     */
+    @Override
+    public Optional<LinkGraphResult> snapshot() {
+        return Optional.ofNullable(runningCrawl).map(RunningCrawl::result);
+    }
+
+    /**
+     * The state of a crawl, shared by its tasks and read by {@link #snapshot()}.
+     *
+     * @param visitedUrls the URLs claimed by a task, including those still being parsed.
+     * @param links       the hyperlinks of each parsed page.
+     */
+    private record RunningCrawl(Set<String> visitedUrls, ConcurrentMap<String, List<String>> links) {
+
+        LinkGraphResult result() {
+            return LinkGraphResult.builder().totalUrlsVisited(visitedUrls.size()).links(links).build();
+        }
+    }
+
+    /**
+     * A RecursiveAction that collects the hyperlinks of a single page and recursively invokes itself for each of
+     * them.
+     */
+    @RequiredArgsConstructor
+    private final class LinkDiscoveryAction extends RecursiveAction {
+
+        private final Instant crawlDeadline;
+        private final String currentUrl;
+        private final int remainingDepth;
+        private final Set<String> visitedUrls;
+        private final ConcurrentMap<String, List<String>> links;
+
+        @Override
+        protected void compute() {
+            if (remainingDepth == 0 || systemClock.instant().isAfter(crawlDeadline)) {
+                log.debug("Stopping link discovery at URL: {} due to depth limit or timeout", currentUrl);
+                return;
+            }
+
+            for (Pattern pattern : excludedUrls) {
+                if (pattern.matcher(currentUrl).matches()) {
+                    log.debug("Excluding URL: {} based on exclusion pattern", currentUrl);
+                    return;
+                }
+            }
+
+            if (!robotsTxtCache.isAllowed(URI.create(currentUrl)) || !visitedUrls.add(currentUrl)) {
+                return;
+            }
+
+            try {
+                domainThrottler.acquire(URI.create(currentUrl).getHost());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Thread interrupted while throttling domain for URL: {}", currentUrl);
+                return;
+            }
+
+            WordCountPageParser parser = (WordCountPageParser) parserFactory.createParserInstance(currentUrl);
+            if (parser.getParseMode() != null && parser.getParseMode().isStreaming()) {
+                // Fork a subtask as soon as each hyperlink is read
+                List<LinkDiscoveryAction> subtasks = new ArrayList<>();
+                try {
+                    WordCountParseResult result = parser.parse(ParseProjection.LINKS, link -> {
+                        LinkDiscoveryAction subtask = subtask(link);
+                        subtask.fork();
+                        subtasks.add(subtask);
+                    });
+                    links.put(currentUrl, List.copyOf(result.getHyperLinkList()));
+                    result.release();
+                } finally {
+                    // Subtasks forked before a parse failure are still joined, so none outlives this task.
+                    log.debug("Joining subtasks for URL: {} with {} hyperlinks", currentUrl, subtasks.size());
+                    subtasks.forEach(LinkDiscoveryAction::join);
+                }
+                return;
+            }
+
+            WordCountParseResult result = parser.parse(ParseProjection.LINKS);
+            List<LinkDiscoveryAction> subtasks = result.getHyperLinkList().stream().map(this::subtask).toList();
+            links.put(currentUrl, List.copyOf(result.getHyperLinkList()));
+            result.release();
+            log.debug("Invoking subtasks for URL: {} with {} hyperlinks", currentUrl, subtasks.size());
+            invokeAll(subtasks);
+        }
+
+        private LinkDiscoveryAction subtask(String link) {
+            return new LinkDiscoveryAction(crawlDeadline, link, remainingDepth - 1, visitedUrls, links);
+        }
+    }
+}
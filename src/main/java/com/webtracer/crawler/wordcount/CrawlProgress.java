@@ -0,0 +1,350 @@
+package com.webtracer.crawler.wordcount;
+
+import com.webtracer.parser.PageParser;
+import com.webtracer.parser.ParseProjection;
+import com.webtracer.parser.wordcount.ContentDigest;
+import com.webtracer.parser.wordcount.PageRevision;
+import com.webtracer.parser.wordcount.WordCountPageParser;
+import com.webtracer.parser.wordcount.WordCountParseResult;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The {@code CrawlProgress} class holds the shared state of a running word count crawl: the aggregated word
+ * counts, the live top words and the number of visited URLs.
+ *
+ * <p>Crawler threads record visits and parsed pages; any other thread may take a {@link #snapshot()} of the
+ * crawl so far. Snapshots cost {@code O(k)} for the top {@code k} words and never block the crawler threads.</p>
+ *
+ * <p>When a convergence threshold is configured, the progress also decides when the crawl may stop early: once
+ * the set and order of the top {@code k} words did not change for that many consecutive parsed pages, the crawl
+ * is {@linkplain #isConverged() converged}. Crawlers then skip the URLs that reach them and record them as pruned
+ * frontier URLs. Only those URLs are counted, not the pages they link to: the pages below a pruned URL were never
+ * discovered, so the number of fetches avoided is at least, and usually much more than, the number of pruned
+ * URLs.</p>
+ *
+ * <p>Convergence is only judged by the stability of the ranking. A statistical criterion, e.g. stopping once the
+ * margin between the counts of the {@code k}-th and {@code (k+1)}-th words exceeds what the remaining pages could
+ * plausibly overturn, is left for future work: the tracker only keeps the top {@code k} words, and the size of
+ * the unexplored frontier is unknown.</p>
+ *
+ * <p>When a {@link PageCountStore} holding the pages of the previous crawl is given, the crawl is incremental:
+ * the aggregate starts from the word counts of the stored pages, pages whose content did not change are not
+ * parsed and leave the aggregate as it is, the counts of changed pages are replaced by their new counts, and once
+ * the crawl is {@linkplain #complete() complete} the counts of stored pages that were not visited again are
+ * subtracted. The result is the same as that of a full crawl of the same pages. Incremental crawls require exact
+ * word counts and no early convergence. Snapshots of an incremental crawl may still list words whose counts
+ * dropped.</p>
+ */
+@Slf4j
+final class CrawlProgress {
+
+    /**
+     * The aggregated word counts of all recorded pages.
+     */
+    @Getter
+    private final WordCountAggregator wordCounts;
+
+    private final TopKTracker popularWords;
+
+    private final AtomicInteger visitedUrls = new AtomicInteger();
+
+    private final int convergencePages;
+
+    private final Lock convergenceLock = new ReentrantLock();
+
+    private long observedRankingVersion = -1;
+
+    private int stablePages;
+
+    private volatile boolean converged;
+
+    private final Set<String> prunedUrls = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> truncatedPages = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The pages of the previous crawl, or {@code null} if the crawl is not incremental.
+     */
+    private final PageCountStore pageCounts;
+
+    /**
+     * The pages recorded by an incremental crawl, whose stored counts must not be subtracted.
+     */
+    private final Set<String> recordedPages = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger unchangedPages = new AtomicInteger();
+
+    /**
+     * Creates the progress of a new crawl that never converges early.
+     *
+     * @param wordCounts       the aggregator receiving the word counts of parsed pages.
+     * @param popularWordCount the number of top words reported by snapshots.
+     */
+    CrawlProgress(@NonNull WordCountAggregator wordCounts, int popularWordCount) {
+        this(wordCounts, popularWordCount, 0);
+    }
+
+    /**
+     * Creates the progress of a new crawl.
+     *
+     * @param wordCounts       the aggregator receiving the word counts of parsed pages.
+     * @param popularWordCount the number of top words reported by snapshots.
+     * @param convergencePages the number of consecutive pages after which an unchanged top-{@code k} ranking
+     *                         ends the crawl, or {@code 0} to never end it early.
+     * @throws IllegalArgumentException if {@code convergencePages} is negative.
+     */
+    CrawlProgress(@NonNull WordCountAggregator wordCounts, int popularWordCount, int convergencePages) {
+        this(wordCounts, popularWordCount, convergencePages, null);
+    }
+
+    /**
+     * Creates the progress of a new crawl, which is incremental if a store of the pages of the previous crawl is
+     * given. The word counts of the stored pages are added to the aggregate.
+     *
+     * @param wordCounts       the aggregator receiving the word counts of parsed pages.
+     * @param popularWordCount the number of top words reported by snapshots.
+     * @param convergencePages the number of consecutive pages after which an unchanged top-{@code k} ranking
+     *                         ends the crawl, or {@code 0} to never end it early.
+     * @param pageCounts       the pages of the previous crawl, or {@code null} for a full crawl. Ignored unless
+     *                         the word counts are exact and the crawl never ends early.
+     * @throws IllegalArgumentException if {@code convergencePages} is negative.
+     */
+    CrawlProgress(@NonNull WordCountAggregator wordCounts, int popularWordCount, int convergencePages,
+                  PageCountStore pageCounts) {
+        if (convergencePages < 0) {
+            throw new IllegalArgumentException("convergencePages must not be negative: " + convergencePages);
+        }
+        this.wordCounts = wordCounts;
+        this.popularWords = new TopKTracker(popularWordCount);
+        // Without popular words to rank there is nothing to converge on
+        this.convergencePages = popularWordCount > 0 ? convergencePages : 0;
+
+        if (pageCounts != null && (!(wordCounts instanceof WordCountTable) || this.convergencePages > 0)) {
+            log.warn("Incremental crawls need exact word counts and no convergence; crawling every page instead");
+            pageCounts = null;
+        }
+        this.pageCounts = pageCounts;
+        if (pageCounts != null) {
+            List<PageCountStore.PageRecord> pages = pageCounts.pages();
+            pages.forEach(page -> wordCounts.addAll(page.getWordCounts(), popularWords::offer));
+            log.info("Starting an incremental crawl from the word counts of {} pages", pages.size());
+        }
+    }
+
+    /**
+     * Records that a URL has been visited.
+     */
+    void recordVisit() {
+        visitedUrls.incrementAndGet();
+    }
+
+    /**
+     * Merges the word counts of a parsed page into the aggregate and the live top words.
+     *
+     * @param pageWordCounts the word counts of the page.
+     */
+    void recordPage(@NonNull Map<String, Integer> pageWordCounts) {
+        wordCounts.addAll(pageWordCounts, popularWords::offer);
+        if (convergencePages > 0 && !converged) {
+            updateConvergence();
+        }
+    }
+
+    /**
+     * Merges the word counts of a parsed page into the aggregate and the live top words, and records the page
+     * as truncated if it was only partly parsed.
+     *
+     * @param url    the URL of the page.
+     * @param result the parse result of the page.
+     */
+    void recordPage(@NonNull String url, @NonNull WordCountParseResult result) {
+        if (result.isTruncated()) {
+            truncatedPages.add(url);
+        }
+        recordPage(result.getWordFrequencyMap());
+    }
+
+    /**
+     * Parses a page and records its word counts. In an incremental crawl, the page is only parsed if its content
+     * changed since the previous crawl; otherwise its stored result is returned, its stored links are passed to
+     * the listener, and the aggregate, which already holds its counts, is left as it is.
+     *
+     * @param url          the URL of the page.
+     * @param parser       the parser of the page.
+     * @param projection   the outputs the caller will read.
+     * @param linkListener receives each distinct hyperlink of the page as soon as it is found, or {@code null} if
+     *                     the caller reads the hyperlinks of the result instead.
+     * @return the result of the page, to be {@linkplain WordCountParseResult#release() released} once its
+     * hyperlinks have been read.
+     */
+    WordCountParseResult parsePage(@NonNull String url, @NonNull PageParser parser,
+                                   @NonNull ParseProjection projection, Consumer<String> linkListener) {
+        if (pageCounts == null || !(parser instanceof WordCountPageParser wordCountParser)) {
+            WordCountParseResult result = linkListener == null
+                    ? (WordCountParseResult) parser.parse(projection)
+                    : ((WordCountPageParser) parser).parse(projection, linkListener);
+            recordPage(url, result);
+            if (pageCounts != null) {
+                recordChangedPage(url, PageRevision.changed(null, result), projection);
+            }
+            return result;
+        }
+
+        PageCountStore.PageRecord previous = pageCounts.get(url);
+        ContentDigest previousDigest = previous != null && previous.isReusableFor(projection)
+                ? previous.getDigest()
+                : null;
+        PageRevision revision = wordCountParser.parseRevision(
+                projection, linkListener == null ? link -> {
+                } : linkListener, previousDigest);
+        if (revision.isUnchanged()) {
+            recordedPages.add(url);
+            unchangedPages.incrementAndGet();
+            WordCountParseResult result = previous.toResult(projection);
+            if (linkListener != null) {
+                result.getHyperLinkList().forEach(linkListener);
+            }
+            return result;
+        }
+
+        WordCountParseResult result = revision.getResult();
+        recordChangedPage(url, revision, projection);
+        recordPage(url, result);
+        return result;
+    }
+
+    /**
+     * Ends an incremental crawl by subtracting the word counts of the stored pages that were not visited again,
+     * and removing them from the store. Does nothing for a full crawl.
+     */
+    void complete() {
+        if (pageCounts == null) {
+            return;
+        }
+        int removedPages = 0;
+        for (PageCountStore.PageRecord page : pageCounts.pages()) {
+            if (!recordedPages.contains(page.getUrl())) {
+                subtract(page.getWordCounts());
+                pageCounts.remove(page.getUrl());
+                removedPages++;
+            }
+        }
+        log.info("Incremental crawl: {} unchanged pages, {} changed or new pages, {} removed pages",
+                 unchangedPages.get(), recordedPages.size() - unchangedPages.get(), removedPages);
+    }
+
+    /**
+     * Replaces the stored counts of a page that was parsed in an incremental crawl: the previous counts of the
+     * page are subtracted from the aggregate, and its new result is stored.
+     */
+    private void recordChangedPage(String url, PageRevision revision, ParseProjection projection) {
+        if (!recordedPages.add(url)) {
+            return;
+        }
+        PageCountStore.PageRecord previous = pageCounts.get(url);
+        if (previous != null) {
+            subtract(previous.getWordCounts());
+        }
+        pageCounts.put(PageCountStore.PageRecord.of(url, revision.getDigest(), projection, revision.getResult()));
+    }
+
+    private void subtract(Map<String, Integer> pageWordCounts) {
+        Map<String, Integer> negated = new HashMap<>(pageWordCounts.size() * 4 / 3 + 1);
+        pageWordCounts.forEach((word, count) -> negated.put(word, -count));
+        wordCounts.addAll(negated);
+    }
+
+    /**
+     * Returns the URLs of the pages that were only partly parsed, in no particular order.
+     *
+     * @return the truncated pages recorded so far.
+     */
+    List<String> truncatedPages() {
+        return List.copyOf(truncatedPages);
+    }
+
+    /**
+     * Checks whether the top-{@code k} ranking has been stable for the configured number of pages. Once
+     * converged, the crawl stays converged.
+     *
+     * @return {@code true} if the crawl should stop fetching new pages.
+     */
+    boolean isConverged() {
+        return converged;
+    }
+
+    /**
+     * Records a frontier URL that was not fetched because the crawl had converged.
+     *
+     * @param url the skipped URL.
+     */
+    void recordPrunedUrl(@NonNull String url) {
+        prunedUrls.add(url);
+    }
+
+    /**
+     * Returns the number of distinct frontier URLs skipped because the crawl had converged, not counting the pages
+     * below them that were never discovered.
+     *
+     * @return the number of pruned frontier URLs.
+     */
+    int prunedFrontierUrls() {
+        return prunedUrls.size();
+    }
+
+    /**
+     * Returns the number of URLs visited so far.
+     *
+     * @return the number of visited URLs.
+     */
+    int visitedUrls() {
+        return visitedUrls.get();
+    }
+
+    /**
+     * Returns the state of the crawl so far as a {@link WordCountResult}.
+     *
+     * <p>Snapshots carry no error bounds: computing them would require locking an approximate aggregator.
+     * The final result of the crawl reports them.</p>
+     *
+     * @return the visited URLs and the current top words.
+     */
+    WordCountResult snapshot() {
+        return WordCountResult.builder()
+                .totalUrlsVisited(visitedUrls.get())
+                .wordFrequencyMap(popularWords.snapshot())
+                .converged(converged)
+                .prunedFrontierUrls(prunedFrontierUrls())
+                .truncatedPages(truncatedPages())
+                .build();
+    }
+
+    private void updateConvergence() {
+        convergenceLock.lock();
+        try {
+            long rankingVersion = popularWords.rankingVersion();
+            if (!popularWords.isFull() || rankingVersion != observedRankingVersion) {
+                observedRankingVersion = rankingVersion;
+                stablePages = 0;
+            } else if (++stablePages >= convergencePages && !converged) {
+                converged = true;
+                log.info("Top words unchanged for {} pages after {} visited URLs; stopping the crawl early",
+                         stablePages, visitedUrls.get());
+            }
+        } finally {
+            convergenceLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package com.webtracer.crawler.wordcount;
+
+import com.webtracer.ApiException;
+import com.webtracer.di.annotation.*;
+import com.webtracer.parser.AbstractPageParserFactory;
+import com.webtracer.parser.PageFormat;
+import com.webtracer.parser.ParseProjection;
+import com.webtracer.parser.wordcount.WordCountParseResult;
+import jakarta.inject.Inject;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.regex.Pattern;
+
+/**
+ * A crawler that counts the words of a static site mirrored to a local directory by reading every HTML file under
+ * it, instead of following the links of its pages.
+ *
+ * <p>Each initial page is a {@code file:} URL of a directory, or of a page whose directory is ingested. The
+ * directories are walked by a Fork/Join pool: every directory is listed by its own task, which forks a task for
+ * each subdirectory and each HTML file, so that the disk is read and the pages are counted by all workers at once.
+ * Files are selected by their extension; excluded URLs are skipped, and the crawl timeout stops the walk, but the
+ * maximum depth does not apply. Symbolic links are not followed.</p>
+ *
+ * <p>Links are only extracted when orphaned pages are to be reported. The result then lists the ingested pages
+ * that no other ingested page links to, not counting the initial pages and the {@code index.html} of an initial
+ * directory. Otherwise the result is the same as that of a crawl visiting every ingested page.</p>
+ */
+@Slf4j
+public class MirrorIngestWebCrawler implements WordCountWebCrawler {
+
+    private static final List<String> INDEX_PAGES = List.of("index.html", "index.htm");
+
+    private final Clock systemClock;
+    private final AbstractPageParserFactory parserFactory;
+    private final Duration crawlTimeout;
+    private final int topWordCount;
+    private final ForkJoinPool threadPool;
+    private final List<Pattern> excludedUrls;
+    private final int sketchCapacity;
+    private final boolean reportOrphanPages;
+    private volatile CrawlProgress progress;
+
+    /**
+     * Constructs a MirrorIngestWebCrawler with the specified parameters.
+     *
+     * @param systemClock       the clock to use for timing operations
+     * @param parserFactory     the factory to create parsers for processing pages
+     * @param crawlTimeout      the maximum duration to allow for the ingest
+     * @param topWordCount      the maximum number of words to include in the result
+     * @param concurrencyLevel  the maximum number of directories and pages read at once
+     * @param excludedUrls      a list of URL patterns of files and directories to skip
+     * @param sketchCapacity    the number of words monitored when counting approximately, or {@code 0} to count
+     *                          every word exactly
+     * @param reportOrphanPages whether to extract links and report the pages no other page links to
+     */
+    @Inject
+    public MirrorIngestWebCrawler(
+            Clock systemClock,
+            @WordCountFactory AbstractPageParserFactory parserFactory,
+            @CrawlTimeout Duration crawlTimeout,
+            @PopularWordCount int topWordCount,
+            @ConcurrencyLevel int concurrencyLevel,
+            @ExcludedUrls List<Pattern> excludedUrls,
+            @SketchCapacity int sketchCapacity,
+            @ReportOrphanPages boolean reportOrphanPages
+    ) {
+        this.systemClock = systemClock;
+        this.parserFactory = parserFactory;
+        this.crawlTimeout = crawlTimeout;
+        this.topWordCount = topWordCount;
+        this.threadPool = new ForkJoinPool(Math.min(concurrencyLevel, getMaxConcurrencyLevel()));
+        this.excludedUrls = excludedUrls;
+        this.sketchCapacity = sketchCapacity;
+        this.reportOrphanPages = reportOrphanPages;
+        log.info("Initialized MirrorIngestWebCrawler with concurrency level: {}, crawl timeout: {}" +
+                         " and orphan page report: {}", concurrencyLevel, crawlTimeout, reportOrphanPages);
+    }
+
+    /**
+     * Counts the words of every HTML file under the directories of the given pages.
+     *
+     * @param initialPages {@code file:} URLs of the directories to ingest, or of pages whose directories are
+     *                     ingested
+     * @return a WordCountResult containing the word frequencies, the number of ingested pages and, if requested,
+     * the orphaned pages
+     * @throws ApiException if an initial page is not a local directory or file
+     */
+    @Override
+    public WordCountResult crawl(List<String> initialPages) throws ApiException {
+        log.info("Starting ingest of local mirrors: {}", initialPages);
+
+        Set<Path> roots = new HashSet<>();
+        Set<Path> entryPages = new HashSet<>();
+        for (String page : initialPages) {
+            Path path = localPath(page)
+                    .orElseThrow(() -> new ApiException("Not a local file or directory: " + page));
+            if (Files.isDirectory(path)) {
+                roots.add(path);
+                INDEX_PAGES.forEach(index -> entryPages.add(path.resolve(index)));
+            } else if (Files.isRegularFile(path) && path.getParent() != null) {
+                roots.add(path.getParent());
+                entryPages.add(path);
+            } else {
+                throw new ApiException("Not a local file or directory: " + page);
+            }
+        }
+
+        Instant deadline = systemClock.instant().plus(crawlTimeout);
+        CrawlProgress progress = new CrawlProgress(WordCountAggregator.create(sketchCapacity), topWordCount);
+        this.progress = progress;
+        Ingest ingest = new Ingest(progress, deadline);
+
+        // Nested roots would count their pages twice
+        List<IngestDirectory> tasks = roots.stream()
+                .filter(root -> roots.stream().noneMatch(other -> !other.equals(root) && root.startsWith(other)))
+                .sorted()
+                .map(root -> new IngestDirectory(ingest, root))
+                .toList();
+        for (IngestDirectory task : tasks) {
+            log.debug("Ingesting directory: {}", task.directory);
+            threadPool.invoke(task);
+        }
+
+        log.info("Ingest completed. Total pages counted: {}", ingest.pages.size());
+
+        List<String> orphanPages = reportOrphanPages ? ingest.orphanPages(entryPages) : List.of();
+        if (!orphanPages.isEmpty()) {
+            log.info("{} pages are not linked from any other page", orphanPages.size());
+        }
+
+        WordCountAggregator wordCounts = progress.getWordCounts();
+        if (wordCounts.isEmpty()) {
+            log.warn("No words found during the ingest.");
+            return WordCountResult.builder()
+                    .wordFrequencyMap(Collections.emptyMap())
+                    .totalUrlsVisited(ingest.pages.size())
+                    .truncatedPages(progress.truncatedPages())
+                    .orphanPages(orphanPages)
+                    .build();
+        }
+
+        Map<String, Integer> popularWords = wordCounts.top(topWordCount);
+        return WordCountResult.builder()
+                .wordFrequencyMap(popularWords)
+                .wordFrequencyErrorBounds(wordCounts.errorBounds(popularWords.keySet()))
+                .totalUrlsVisited(ingest.pages.size())
+                .truncatedPages(progress.truncatedPages())
+                .orphanPages(orphanPages)
+                .build();
+    }
+
+    /**
+     * Returns the ingested pages and top words of the running ingest. Safe to call from any thread.
+     *
+     * @return the result of the ingest so far, or an empty {@link Optional} if no ingest has started.
+     */
+    @Override
+    public Optional<WordCountResult> snapshot() {
+        CrawlProgress current = progress;
+        return current == null ? Optional.empty() : Optional.of(current.snapshot());
+    }
+
+    /**
+     * Converts a {@code file:} URL to a normalized absolute path.
+     *
+     * @return the path, or an empty {@link Optional} if the URL does not denote a local file.
+     */
+    private static Optional<Path> localPath(String url) {
+        try {
+            URI uri = URI.create(url);
+            if (!"file".equals(uri.getScheme())) {
+                return Optional.empty();
+            }
+            return Optional.of(Path.of(uri).toAbsolutePath().normalize());
+        } catch (IllegalArgumentException | FileSystemNotFoundException e) {
+            log.trace("Not a local path: {}", url);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The state of a running ingest shared by its tasks.
+     */
+    @RequiredArgsConstructor
+    private final class Ingest {
+
+        private final CrawlProgress progress;
+
+        private final Instant deadline;
+
+        /**
+         * The ingested pages.
+         */
+        private final Set<Path> pages = ConcurrentHashMap.newKeySet();
+
+        /**
+         * The local pages linked from another ingested page, as found in the links, which may not exist.
+         */
+        private final Set<Path> linkedPages = ConcurrentHashMap.newKeySet();
+
+        private boolean isExcluded(Path path) {
+            String url = path.toUri().toString();
+            for (Pattern pattern : excludedUrls) {
+                if (pattern.matcher(url).matches()) {
+                    log.debug("Excluding {} based on exclusion pattern", url);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isExpired() {
+            return systemClock.instant().isAfter(deadline);
+        }
+
+        /**
+         * Counts a page and records the local pages it links to.
+         */
+        private void count(Path page) {
+            if (!pages.add(page)) {
+                return;
+            }
+            String url = page.toUri().toString();
+            progress.recordVisit();
+            ParseProjection projection = reportOrphanPages ? ParseProjection.ALL : ParseProjection.WORDS;
+            WordCountParseResult result = progress.parsePage(url, parserFactory.createParserInstance(url),
+                                                             projection, null);
+            if (reportOrphanPages) {
+                result.getHyperLinkList().forEach(link -> recordLink(page, link));
+            }
+            result.release();
+        }
+
+        /**
+         * Records the local page a link points to. Local links are resolved as paths, so a fragment or query ends
+         * up in the file name; as pages are counted in parallel, a file name holding a {@code #} or {@code ?} cannot
+         * be told from a link with a fragment or query yet, and both pages are recorded. A link to a directory
+         * also records the index pages of the directory.
+         */
+        private void recordLink(Path page, String link) {
+            Optional<Path> linked = localPath(link);
+            if (linked.isEmpty()) {
+                return;
+            }
+            Set<Path> targets = new HashSet<>();
+            targets.add(linked.get());
+            String path = linked.get().toString();
+            int end = path.length();
+            for (char separator : new char[]{'#', '?'}) {
+                int index = path.indexOf(separator);
+                if (index >= 0) {
+                    end = Math.min(end, index);
+                }
+            }
+            if (end < path.length()) {
+                targets.add(Path.of(path.substring(0, end)));
+            }
+            for (Path target : List.copyOf(targets)) {
+                // Only names without an extension are looked up on disk, so most links cost no file system call
+                Path name = target.getFileName();
+                if (name != null && name.toString().indexOf('.') < 0 && Files.isDirectory(target)) {
+                    INDEX_PAGES.forEach(index -> targets.add(target.resolve(index)));
+                }
+            }
+            targets.remove(page);
+            linkedPages.addAll(targets);
+        }
+
+        private List<String> orphanPages(Set<Path> entryPages) {
+            return pages.stream()
+                    .filter(page -> !linkedPages.contains(page) && !entryPages.contains(page))
+                    .map(page -> page.toUri().toString())
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Lists a directory and forks a task for each of its subdirectories and HTML files.
+     */
+    @RequiredArgsConstructor
+    private static final class IngestDirectory extends RecursiveAction {
+
+        private final Ingest ingest;
+
+        private final Path directory;
+
+        @Override
+        protected void compute() {
+            if (ingest.isExpired()) {
+                log.debug("Stopping ingest at directory: {} due to timeout", directory);
+                return;
+            }
+            List<RecursiveAction> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    if (ingest.isExcluded(entry)) {
+                        continue;
+                    }
+                    BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class,
+                                                                          LinkOption.NOFOLLOW_LINKS);
+                    if (attributes.isDirectory()) {
+                        subtasks.add(new IngestDirectory(ingest, entry));
+                    } else if (attributes.isRegularFile() && isHtml(entry)) {
+                        subtasks.add(new IngestPage(ingest, entry));
+                    }
+                }
+            } catch (IOException | InvalidPathException e) {
+                log.warn("Failed to list directory: {}", directory, e);
+            }
+            log.trace("Forking {} tasks for directory: {}", subtasks.size(), directory);
+            invokeAll(subtasks);
+        }
+
+        private static boolean isHtml(Path file) {
+            return PageFormat.fromExtension(file.toUri())
+                    .map(format -> format == PageFormat.HTML || format == PageFormat.XHTML)
+                    .orElse(false);
+        }
+    }
+
+    /**
+     * Counts a single page.
+     */
+    @RequiredArgsConstructor
+    private static final class IngestPage extends RecursiveAction {
+
+        private final Ingest ingest;
+
+        private final Path page;
+
+        @Override
+        protected void compute() {
+            if (ingest.isExpired()) {
+                log.debug("Skipping page: {} due to timeout", page);
+                return;
+            }
+            ingest.count(page);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.webtracer.crawler.wordcount;
+
+import com.webtracer.AppendOnlyLog;
+import com.webtracer.parser.ParseProjection;
+import com.webtracer.parser.wordcount.ContentDigest;
+import com.webtracer.parser.wordcount.WordCountParseResult;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code PageCountStore} class keeps the word counts and links of every page of a crawl in a file, together
+ * with the digest of the content they were counted from, so that the next crawl of the same pages only parses the
+ * pages whose content changed and updates the aggregate word counts by the difference.
+ *
+ * <p>The file is an {@link AppendOnlyLog} whose header holds a fingerprint of the settings the counts depend on,
+ * e.g. the excluded words, so that a store written with another fingerprint is discarded when it is opened. The
+ * last record of a URL replaces the earlier ones, and the log is compacted when it is opened holding more than
+ * twice as many records as pages.</p>
+ *
+ * <p>The records of all pages are kept in memory while the store is open.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ */
+@Slf4j
+public final class PageCountStore implements Closeable {
+
+    private static final int MAGIC = 0x57545043;
+
+    private static final int VERSION = 1;
+
+    /**
+     * Largest payload of a single record; larger lengths are treated as corruption.
+     */
+    private static final int MAX_RECORD_SIZE = 256 * 1024 * 1024;
+
+    private static final byte PAGE = 0;
+
+    private static final byte REMOVED = 1;
+
+    private static final int HAS_DIGEST = 1;
+
+    private static final int TRUNCATED = 2;
+
+    private final Path file;
+
+    private final Map<String, PageRecord> pages;
+
+    private final AppendOnlyLog appendLog;
+
+    private PageCountStore(Path file, Map<String, PageRecord> pages, AppendOnlyLog appendLog) {
+        this.file = file;
+        this.pages = pages;
+        this.appendLog = appendLog;
+    }
+
+    /**
+     * Opens the store kept in the given file, creating the file if it does not exist.
+     *
+     * @param file        the file of the store.
+     * @param fingerprint describes the settings the word counts depend on, e.g. the excluded words; pages stored
+     *                    with another fingerprint are discarded.
+     * @return the opened store.
+     * @throws IOException if the file cannot be read or written.
+     */
+    public static PageCountStore open(@NonNull Path file, @NonNull String fingerprint) throws IOException {
+        Map<String, PageRecord> pages = new HashMap<>();
+        AppendOnlyLog appendLog = AppendOnlyLog.open(file, "page count store", header(fingerprint),
+                                                     MAX_RECORD_SIZE, payload -> read(payload, pages));
+        try {
+            if (appendLog.needsCompaction(pages.size())) {
+                appendLog.compact(pages.values(), PageCountStore::encode);
+            }
+        } catch (IOException e) {
+            appendLog.close();
+            throw e;
+        }
+        log.info("Opened page count store {} with {} pages", file, pages.size());
+        return new PageCountStore(file, pages, appendLog);
+    }
+
+    /**
+     * Returns the stored record of a page.
+     *
+     * @param url the URL of the page.
+     * @return the record, or {@code null} if the page is not stored.
+     */
+    synchronized PageRecord get(@NonNull String url) {
+        return pages.get(url);
+    }
+
+    /**
+     * Returns the records of all stored pages.
+     *
+     * @return a snapshot of the stored records, in no particular order.
+     */
+    synchronized List<PageRecord> pages() {
+        return new ArrayList<>(pages.values());
+    }
+
+    /**
+     * Stores the record of a page, replacing any earlier record of the same page.
+     *
+     * @param record the record to store.
+     */
+    synchronized void put(@NonNull PageRecord record) {
+        if (append(encode(record), record.getUrl())) {
+            pages.put(record.getUrl(), record);
+        }
+    }
+
+    /**
+     * Removes the record of a page that is no longer part of the crawl.
+     *
+     * @param url the URL of the page.
+     */
+    synchronized void remove(@NonNull String url) {
+        if (pages.containsKey(url) && append(encodeRemoval(url), url)) {
+            pages.remove(url);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        appendLog.close();
+    }
+
+    private boolean append(byte[] payload, String url) {
+        try {
+            return appendLog.append(payload);
+        } catch (IOException e) {
+            log.warn("Failed to store the word counts of {} in {}", url, file, e);
+            return false;
+        }
+    }
+
+    private static byte[] header(String fingerprint) {
+        byte[] fingerprintBytes = fingerprint.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES * 3 + fingerprintBytes.length)
+                .putInt(MAGIC)
+                .putInt(VERSION);
+        return AppendOnlyLog.putString(header, fingerprintBytes).array();
+    }
+
+    private static byte[] encode(PageRecord record) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream payload = new DataOutputStream(bytes)) {
+            payload.writeByte(PAGE);
+            putString(payload, record.getUrl());
+            ContentDigest digest = record.getDigest();
+            payload.writeByte((digest == null ? 0 : HAS_DIGEST) | (record.isTruncated() ? TRUNCATED : 0));
+            payload.writeByte(record.getProjection().ordinal());
+            payload.writeLong(digest == null ? 0 : digest.high());
+            payload.writeLong(digest == null ? 0 : digest.low());
+            payload.writeInt(record.getWordCounts().size());
+            for (Map.Entry<String, Integer> wordCount : record.getWordCounts().entrySet()) {
+                putString(payload, wordCount.getKey());
+                payload.writeInt(wordCount.getValue());
+            }
+            payload.writeInt(record.getLinks().size());
+            for (String link : record.getLinks()) {
+                putString(payload, link);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeRemoval(String url) {
+        byte[] urlBytes = url.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(1 + Integer.BYTES + urlBytes.length).put(REMOVED);
+        return AppendOnlyLog.putString(payload, urlBytes).array();
+    }
+
+    /**
+     * Applies the payload of a record to the pages.
+     */
+    private static void read(ByteBuffer payload, Map<String, PageRecord> pages) {
+        byte type = payload.get();
+        String url = AppendOnlyLog.getString(payload);
+        if (type == REMOVED) {
+            pages.remove(url);
+            return;
+        }
+        int flags = payload.get();
+        ParseProjection projection = ParseProjection.values()[payload.get()];
+        long high = payload.getLong();
+        long low = payload.getLong();
+        int wordCount = payload.getInt();
+        Map<String, Integer> wordCounts = new HashMap<>(Math.max(16, wordCount * 4 / 3 + 1));
+        for (int i = 0; i < wordCount; i++) {
+            wordCounts.put(AppendOnlyLog.getString(payload), payload.getInt());
+        }
+        int linkCount = payload.getInt();
+        List<String> links = new ArrayList<>(Math.min(linkCount, payload.remaining()));
+        for (int i = 0; i < linkCount; i++) {
+            links.add(AppendOnlyLog.getString(payload));
+        }
+        pages.put(url, new PageRecord(url, (flags & HAS_DIGEST) == 0 ? null : new ContentDigest(high, low),
+                                      projection, (flags & TRUNCATED) != 0, wordCounts, links));
+    }
+
+    private static void putString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * The word counts and links of a page, and the digest of the content they were counted from.
+     */
+    @Value
+    static class PageRecord {
+
+        @NonNull
+        String url;
+
+        /**
+         * The digest of the content of the page, or {@code null} if it is unknown, e.g. because the page could not
+         * be loaded.
+         */
+        ContentDigest digest;
+
+        /**
+         * The outputs the page was parsed for.
+         */
+        @NonNull
+        ParseProjection projection;
+
+        /**
+         * Whether only part of the page was counted.
+         */
+        boolean truncated;
+
+        @NonNull
+        Map<String, Integer> wordCounts;
+
+        @NonNull
+        List<String> links;
+
+        /**
+         * Creates the record of a parsed page, copying its result.
+         *
+         * @param url        the URL of the page.
+         * @param digest     the digest of the content of the page, or {@code null} if it is unknown.
+         * @param projection the outputs the page was parsed for.
+         * @param result     the result of the page, which may be a view that is released later.
+         * @return the record.
+         */
+        static PageRecord of(String url, ContentDigest digest, ParseProjection projection,
+                             WordCountParseResult result) {
+            return new PageRecord(url, digest, projection, result.isTruncated(),
+                                  Map.copyOf(result.getWordFrequencyMap()), List.copyOf(result.getHyperLinkList()));
+        }
+
+        /**
+         * Checks whether the stored result can stand in for a parse of the page with the given projection, if its
+         * content is unchanged. Results of truncated pages depend on the parse budget and are never reused.
+         *
+         * @param requested the outputs the page is parsed for now.
+         * @return {@code true} if the stored result holds every requested output.
+         */
+        boolean isReusableFor(ParseProjection requested) {
+            return digest != null && !truncated && (projection == ParseProjection.ALL || projection == requested);
+        }
+
+        /**
+         * Returns the stored result with only the outputs of the given projection.
+         *
+         * @param requested the outputs the page is parsed for now.
+         * @return a result that owns its data.
+         */
+        WordCountParseResult toResult(ParseProjection requested) {
+            return new WordCountParseResult(requested == ParseProjection.LINKS ? Map.of() : wordCounts,
+                                            requested == ParseProjection.WORDS ? List.of() : links, truncated);
+        }
+
+        @Override
+        public String toString() {
+            return "PageRecord(" + url + ", " + projection + ", " + wordCounts.size() + " words, " + links.size()
+                    + " links" + (digest == null ? "" : ", digest " + Long.toHexString(digest.high())) + ")";
+        }
+    }
+}
@@ -5,7 +5,8 @@ import com.webtracer.RobotsTxtCache;
 import com.webtracer.crawler.DomainThrottler;
 import com.webtracer.di.annotation.*;
 import com.webtracer.parser.AbstractPageParserFactory;
-import com.webtracer.parser.wordcount.WordCountPageParserImpl;
+import com.webtracer.parser.ParseProjection;
+import com.webtracer.parser.wordcount.WordCountPageParser;
 import com.webtracer.parser.wordcount.WordCountParseResult;
 import jakarta.inject.Inject;
 import lombok.RequiredArgsConstructor;
@@ -16,10 +17,12 @@ import java.net.URISyntaxException;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveAction;
@@ -46,6 +49,10 @@ public class RecursiveActionWebCrawler implements WordCountWebCrawler {
     private final int maximumDepth;
     private final DomainThrottler domainThrottler;
     private final RobotsTxtCache robotsTxtCache;
+    private final int sketchCapacity;
+    private final int convergencePages;
+    private final PageCountStore pageCountStore;
+    private volatile CrawlProgress progress;
 
     /**
      * Constructs a RecursiveActionWebCrawler with the specified parameters, including domain
@@ -60,6 +67,13 @@ public class RecursiveActionWebCrawler implements WordCountWebCrawler {
      * @param maximumDepth     the maximum depth to crawl
      * @param excludedUrls     a list of URL patterns to exclude from crawling
      * @param domainThrottler  the throttler to control request rates per domain
+     * @param sketchCapacity   the number of words monitored when counting approximately, or {@code 0} to count
+     *                         every word exactly
+     * @param convergencePages the number of pages with an unchanged top-word ranking after which the crawl
+     *                         stops early, or {@code 0} to never stop early
+     * @param robotsTxtCache   the robots.txt rules shared by the crawlers of the application
+     * @param pageCountStore   the word counts of the pages of the previous crawl, which are updated
+     *                         incrementally, or empty to count every page from scratch
      */
     @Inject
     public RecursiveActionWebCrawler(
@@ -70,7 +84,11 @@ public class RecursiveActionWebCrawler implements WordCountWebCrawler {
             @ConcurrencyLevel int concurrencyLevel,
             @CrawlMaxDepth int maximumDepth,
             @ExcludedUrls List<Pattern> excludedUrls,
-            DomainThrottler domainThrottler
+            DomainThrottler domainThrottler,
+            @SketchCapacity int sketchCapacity,
+            @ConvergencePages int convergencePages,
+            RobotsTxtCache robotsTxtCache,
+            Optional<PageCountStore> pageCountStore
     ) {
         this.systemClock = systemClock;
         this.parserFactory = parserFactory;
@@ -80,7 +98,10 @@ public class RecursiveActionWebCrawler implements WordCountWebCrawler {
         this.maximumDepth = maximumDepth;
         this.excludedUrls = excludedUrls;
         this.domainThrottler = domainThrottler;
-        this.robotsTxtCache = new RobotsTxtCache("WebTracer");
+        this.robotsTxtCache = robotsTxtCache;
+        this.sketchCapacity = sketchCapacity;
+        this.convergencePages = convergencePages;
+        this.pageCountStore = pageCountStore.orElse(null);
         log.info(
                 "Initialized RecursiveActionWebCrawler with max depth: {}, concurrency level: {}," +
                         " crawl timeout: {}, and domain throttling.",
@@ -96,7 +117,7 @@ public class RecursiveActionWebCrawler implements WordCountWebCrawler {
      * URLs
      * @throws ApiException if an error occurs during crawling
      *
-     * <p>This method is thread-safe due to the use of {@link ConcurrentHashMap} for word counts and
+     * <p>This method is thread-safe due to the use of a shared {@link CrawlProgress} for word counts and
      * {@link ConcurrentSkipListSet} for tracking visited URLs. Each URL is processed in a separate
      * task, and results are merged safely across threads.</p>
      */
@@ -105,34 +126,59 @@ public class RecursiveActionWebCrawler implements WordCountWebCrawler {
         log.info("Starting crawl with initial pages: {}", initialPages);
 
         Instant deadline = systemClock.instant().plus(crawlTimeout);
-        Map<String, Integer> wordCounts = new ConcurrentHashMap<>();
+        CrawlProgress progress = new CrawlProgress(
+                WordCountAggregator.create(sketchCapacity), topWordCount, convergencePages, pageCountStore);
+        this.progress = progress;
         Set<String> visitedUrls = new ConcurrentSkipListSet<>();
 
         for (String url : initialPages) {
             log.debug("Invoking crawl action for URL: {}", url);
             threadPool.invoke(
-                    new RecursiveActionImpl(systemClock, crawlTimeout, deadline, url, wordCounts,
+                    new RecursiveActionImpl(systemClock, crawlTimeout, deadline, url, progress,
                                             visitedUrls, parserFactory, maximumDepth, excludedUrls,
                                             domainThrottler,robotsTxtCache
                     ));
         }
 
+        progress.complete();
+
         log.info("Crawl completed. Total URLs visited: {}", visitedUrls.size());
 
+        WordCountAggregator wordCounts = progress.getWordCounts();
         if (wordCounts.isEmpty()) {
             log.warn("No words found during the crawl.");
             return WordCountResult.builder()
-                    .wordFrequencyMap(wordCounts)
+                    .wordFrequencyMap(Collections.emptyMap())
                     .totalUrlsVisited(visitedUrls.size())
+                    .truncatedPages(progress.truncatedPages())
                     .build();
         }
 
+        if (progress.isConverged()) {
+            log.info("Crawl converged early; {} frontier URLs pruned", progress.prunedFrontierUrls());
+        }
+        Map<String, Integer> popularWords = wordCounts.top(topWordCount);
         return WordCountResult.builder()
-                .wordFrequencyMap(WordCountUtil.sort(wordCounts, topWordCount))
+                .wordFrequencyMap(popularWords)
+                .wordFrequencyErrorBounds(wordCounts.errorBounds(popularWords.keySet()))
                 .totalUrlsVisited(visitedUrls.size())
+                .converged(progress.isConverged())
+                .prunedFrontierUrls(progress.prunedFrontierUrls())
+                .truncatedPages(progress.truncatedPages())
                 .build();
     }
 
+    /**
+     * Returns the visited URLs and top words of the running crawl. Safe to call from any thread.
+     *
+     * @return the result of the crawl so far, or an empty {@link Optional} if no crawl has started.
+     */
+    @Override
+    public Optional<WordCountResult> snapshot() {
+        CrawlProgress current = progress;
+        return current == null ? Optional.empty() : Optional.of(current.snapshot());
+    }
+
     /**
      * A RecursiveAction implementation for web crawling that processes a given URL
      * and recursively invokes itself for each hyperlink found on the page.
@@ -148,7 +194,7 @@ public class RecursiveActionWebCrawler implements WordCountWebCrawler {
         private final Duration crawlTimeout;
         private final Instant crawlDeadline;
         private final String currentUrl;
-        private final Map<String, Integer> wordCounts;
+        private final CrawlProgress progress;
         private final Set<String> visitedUrls;
         private final AbstractPageParserFactory parserFactory;
         private final int remainingDepth;
@@ -174,10 +220,6 @@ public class RecursiveActionWebCrawler implements WordCountWebCrawler {
                 return;
             }
 
-            if (!robotsTxtCache.isAllowed(URI.create(currentUrl))) {
-                return;
-            }
-
             // Check if the URL matches any of the ignored URL patterns.
             for (Pattern pattern : excludedUrlPatterns) {
                 if (pattern.matcher(currentUrl).matches()) {
@@ -186,11 +228,25 @@ public class RecursiveActionWebCrawler implements WordCountWebCrawler {
                 }
             }
 
+            // Skip the remaining work once the top words have converged.
+            if (progress.isConverged()) {
+                if (!visitedUrls.contains(currentUrl)) {
+                    log.trace("Skipping URL: {} as the top words have converged", currentUrl);
+                    progress.recordPrunedUrl(currentUrl);
+                }
+                return;
+            }
+
+            if (!robotsTxtCache.isAllowed(URI.create(currentUrl))) {
+                return;
+            }
+
             // Check if the URL has already been visited.
             if (!visitedUrls.add(currentUrl)) {
                 log.debug("Skipping already visited URL: {}", currentUrl);
                 return;
             }
+            progress.recordVisit();
 
             // Throttle the request based on the domain
             try {
@@ -205,20 +261,35 @@ public class RecursiveActionWebCrawler implements WordCountWebCrawler {
 
             // Parse the current URL.
             log.debug("Parsing URL: {}", currentUrl);
-            WordCountParseResult result =
-                    ((WordCountPageParserImpl) parserFactory.createParserInstance(currentUrl)).parse();
+            WordCountPageParser parser = (WordCountPageParser) parserFactory.createParserInstance(currentUrl);
+            // Links of pages at the maximum depth are never followed, so they are not extracted.
+            ParseProjection projection = remainingDepth == 1 ? ParseProjection.WORDS : ParseProjection.ALL;
+
+            if (parser.getParseMode() != null && parser.getParseMode().isStreaming()) {
+                // Fork a subtask as soon as each hyperlink is read, so linked pages are fetched
+                // while the rest of this page is still being downloaded.
+                List<RecursiveActionImpl> subtasks = new ArrayList<>();
+                try {
+                    WordCountParseResult result = progress.parsePage(
+                            currentUrl, parser, projection, link -> subtasks.add(subtask(link)));
+                    result.release();
+                } finally {
+                    // Subtasks forked before a parse failure are still joined, so none outlives this task.
+                    log.debug("Joining subtasks for URL: {} with {} hyperlinks", currentUrl, subtasks.size());
+                    subtasks.forEach(RecursiveActionImpl::join);
+                }
+                return;
+            }
 
-            // Update word counts with the parsed data.
-            result.getWordFrequencyMap().forEach((key, value) -> wordCounts.merge(key, value, Integer::sum));
+            // Parse the page and update word counts with the parsed data.
+            WordCountParseResult result = progress.parsePage(currentUrl, parser, projection, null);
 
             // Create and invoke subtasks for each hyperlink found on the page.
             List<RecursiveActionImpl> subtasks = result.getHyperLinkList().stream()
-                    .map(link -> new RecursiveActionImpl(systemClock, crawlTimeout, crawlDeadline,
-                                                         link, wordCounts, visitedUrls,
-                                                         parserFactory, remainingDepth - 1,
-                                                         excludedUrlPatterns, domainThrottler, robotsTxtCache
-                    ))
+                    .map(this::newSubtask)
                     .toList();
+            // The tables of the page go back to this worker before the linked pages are parsed.
+            result.release();
 
             log.debug("Invoking subtasks for URL: {} with {} hyperlinks", currentUrl,
                       subtasks.size()
@@ -228,6 +299,20 @@ public class RecursiveActionWebCrawler implements WordCountWebCrawler {
             invokeAll(subtasks);
         }
 
+        private RecursiveActionImpl newSubtask(String link) {
+            return new RecursiveActionImpl(systemClock, crawlTimeout, crawlDeadline,
+                                           link, progress, visitedUrls,
+                                           parserFactory, remainingDepth - 1,
+                                           excludedUrlPatterns, domainThrottler, robotsTxtCache
+            );
+        }
+
+        private RecursiveActionImpl subtask(String link) {
+            RecursiveActionImpl subtask = newSubtask(link);
+            subtask.fork();
+            return subtask;
+        }
+
         /**
          * Extracts the domain from a given URL.
          *
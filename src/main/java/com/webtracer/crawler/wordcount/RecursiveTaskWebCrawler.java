@@ -5,7 +5,8 @@ import com.webtracer.RobotsTxtCache;
 import com.webtracer.crawler.DomainThrottler;
 import com.webtracer.di.annotation.*;
 import com.webtracer.parser.AbstractPageParserFactory;
-import com.webtracer.parser.wordcount.WordCountPageParserImpl;
+import com.webtracer.parser.ParseProjection;
+import com.webtracer.parser.wordcount.WordCountPageParser;
 import com.webtracer.parser.wordcount.WordCountParseResult;
 import jakarta.inject.Inject;
 import lombok.RequiredArgsConstructor;
@@ -16,11 +17,12 @@ import java.net.URISyntaxException;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveTask;
@@ -44,6 +46,10 @@ public class RecursiveTaskWebCrawler implements WordCountWebCrawler {
     private final int maximumDepth;
     private final DomainThrottler domainThrottler;
     private final RobotsTxtCache robotsTxtCache;
+    private final int sketchCapacity;
+    private final int convergencePages;
+    private final PageCountStore pageCountStore;
+    private volatile CrawlProgress progress;
 
     /**
      * Constructs a RecursiveTaskWebCrawler with the specified parameters, including domain
@@ -57,6 +63,13 @@ public class RecursiveTaskWebCrawler implements WordCountWebCrawler {
      * @param maximumDepth     the maximum depth to crawl
      * @param excludedUrls     a list of URL patterns to exclude from crawling
      * @param domainThrottler  the throttler to control request rates per domain
+     * @param sketchCapacity   the number of words monitored when counting approximately, or {@code 0} to count
+     *                         every word exactly
+     * @param convergencePages the number of pages with an unchanged top-word ranking after which the crawl
+     *                         stops early, or {@code 0} to never stop early
+     * @param robotsTxtCache   the robots.txt rules shared by the crawlers of the application
+     * @param pageCountStore   the word counts of the pages of the previous crawl, which are updated
+     *                         incrementally, or empty to count every page from scratch
      */
     @Inject
     public RecursiveTaskWebCrawler(
@@ -67,7 +80,11 @@ public class RecursiveTaskWebCrawler implements WordCountWebCrawler {
             @ConcurrencyLevel int concurrencyLevel,
             @CrawlMaxDepth int maximumDepth,
             @ExcludedUrls List<Pattern> excludedUrls,
-            DomainThrottler domainThrottler
+            DomainThrottler domainThrottler,
+            @SketchCapacity int sketchCapacity,
+            @ConvergencePages int convergencePages,
+            RobotsTxtCache robotsTxtCache,
+            Optional<PageCountStore> pageCountStore
     ) {
         this.systemClock = systemClock;
         this.parserFactory = parserFactory;
@@ -77,7 +94,10 @@ public class RecursiveTaskWebCrawler implements WordCountWebCrawler {
         this.maximumDepth = maximumDepth;
         this.excludedUrls = excludedUrls;
         this.domainThrottler = domainThrottler;
-        this.robotsTxtCache = new RobotsTxtCache("WebTracer");
+        this.robotsTxtCache = robotsTxtCache;
+        this.sketchCapacity = sketchCapacity;
+        this.convergencePages = convergencePages;
+        this.pageCountStore = pageCountStore.orElse(null);
         log.info(
                 "Initialized RecursiveTaskWebCrawler with max depth: {}, concurrency level: {}," +
                         " crawl timeout: {}, and domain throttling.",
@@ -88,6 +108,10 @@ public class RecursiveTaskWebCrawler implements WordCountWebCrawler {
     /**
      * Crawls the web starting from the given initial pages.
      *
+     * <p>Each task merges the word counts of its page into the shared {@link CrawlProgress}, so that the top
+     * words are known while the crawl runs and an approximate aggregator keeps its bounded memory. Tasks return
+     * the number of pages parsed in their subtree, which are summed up to the root.</p>
+     *
      * @param initialPages a list of URLs to start crawling from
      * @return a WordCountResult containing the word frequencies and the total number of visited
      * URLs
@@ -98,40 +122,67 @@ public class RecursiveTaskWebCrawler implements WordCountWebCrawler {
         log.info("Starting crawl with initial pages: {}", initialPages);
 
         Instant deadline = systemClock.instant().plus(crawlTimeout);
-        Map<String, Integer> wordCounts = new ConcurrentHashMap<>();
+        CrawlProgress progress = new CrawlProgress(
+                WordCountAggregator.create(sketchCapacity), topWordCount, convergencePages, pageCountStore);
+        this.progress = progress;
         Set<String> visitedUrls = new ConcurrentSkipListSet<>();
 
+        int parsedPages = 0;
         for (String url : initialPages) {
             log.debug("Invoking crawl task for URL: {}", url);
-            Map<String, Integer> result = threadPool.invoke(
+            parsedPages += threadPool.invoke(
                     new RecursiveTaskImpl(systemClock, crawlTimeout, deadline, url, visitedUrls,
-                                          parserFactory, maximumDepth, excludedUrls, domainThrottler, robotsTxtCache
+                                          parserFactory, maximumDepth, excludedUrls, domainThrottler, robotsTxtCache,
+                                          progress
                     ));
-            result.forEach((key, value) -> wordCounts.merge(key, value, Integer::sum));
         }
 
-        log.info("Crawl completed. Total URLs visited: {}", visitedUrls.size());
+        progress.complete();
+
+        log.info("Crawl completed. Total URLs visited: {}, pages parsed: {}", visitedUrls.size(), parsedPages);
 
+        WordCountAggregator wordCounts = progress.getWordCounts();
         if (wordCounts.isEmpty()) {
             log.warn("No words found during the crawl.");
             return WordCountResult.builder()
-                    .wordFrequencyMap(wordCounts)
+                    .wordFrequencyMap(Collections.emptyMap())
                     .totalUrlsVisited(visitedUrls.size())
+                    .truncatedPages(progress.truncatedPages())
                     .build();
         }
 
+        if (progress.isConverged()) {
+            log.info("Crawl converged early; {} frontier URLs pruned", progress.prunedFrontierUrls());
+        }
+        Map<String, Integer> popularWords = wordCounts.top(topWordCount);
         return WordCountResult.builder()
-                .wordFrequencyMap(WordCountUtil.sort(wordCounts, topWordCount))
+                .wordFrequencyMap(popularWords)
+                .wordFrequencyErrorBounds(wordCounts.errorBounds(popularWords.keySet()))
                 .totalUrlsVisited(visitedUrls.size())
+                .converged(progress.isConverged())
+                .prunedFrontierUrls(progress.prunedFrontierUrls())
+                .truncatedPages(progress.truncatedPages())
                 .build();
     }
 
+    /**
+     * Returns the visited URLs and top words of the running crawl. Safe to call from any thread.
+     *
+     * @return the result of the crawl so far, or an empty {@link Optional} if no crawl has started.
+     */
+    @Override
+    public Optional<WordCountResult> snapshot() {
+        CrawlProgress current = progress;
+        return current == null ? Optional.empty() : Optional.of(current.snapshot());
+    }
+
     /**
      * A RecursiveTask implementation for web crawling that processes a given URL
-     * and recursively invokes itself for each hyperlink found on the page.
+     * and recursively invokes itself for each hyperlink found on the page. The task
+     * computes the number of pages parsed in its subtree.
      */
     @RequiredArgsConstructor
-    static final class RecursiveTaskImpl extends RecursiveTask<Map<String, Integer>> {
+    static final class RecursiveTaskImpl extends RecursiveTask<Integer> {
 
         private final Clock systemClock;
         private final Duration crawlTimeout;
@@ -143,6 +194,7 @@ public class RecursiveTaskWebCrawler implements WordCountWebCrawler {
         private final List<Pattern> excludedUrlPatterns;
         private final DomainThrottler domainThrottler;
         private final RobotsTxtCache robotsTxtCache;
+        private final CrawlProgress progress;
 
         /**
          * Processes the current URL by parsing its content, updating word counts, and recursively
@@ -153,34 +205,43 @@ public class RecursiveTaskWebCrawler implements WordCountWebCrawler {
          * </p>
          */
         @Override
-        protected Map<String, Integer> compute() {
+        protected Integer compute() {
 
             log.debug("Processing URL: {}", currentUrl);
-            Map<String, Integer> wordCounts = new HashMap<>();
 
             // Check if the maximum depth has been reached or if the deadline has passed.
             if (remainingDepth == 0 || systemClock.instant().isAfter(crawlDeadline)) {
                 log.debug("Stopping crawl at URL: {} due to depth limit or timeout", currentUrl);
-                return wordCounts;
-            }
-
-            if (!robotsTxtCache.isAllowed(URI.create(currentUrl))) {
-                return wordCounts;
+                return 0;
             }
 
             // Check if the URL matches any of the ignored URL patterns.
             for (Pattern pattern : excludedUrlPatterns) {
                 if (pattern.matcher(currentUrl).matches()) {
                     log.debug("Excluding URL: {} based on exclusion pattern", currentUrl);
-                    return wordCounts;
+                    return 0;
+                }
+            }
+
+            // Skip the remaining work once the top words have converged.
+            if (progress.isConverged()) {
+                if (!visitedUrls.contains(currentUrl)) {
+                    log.trace("Skipping URL: {} as the top words have converged", currentUrl);
+                    progress.recordPrunedUrl(currentUrl);
                 }
+                return 0;
+            }
+
+            if (!robotsTxtCache.isAllowed(URI.create(currentUrl))) {
+                return 0;
             }
 
             // Check if the URL has already been visited.
             if (!visitedUrls.add(currentUrl)) { // O(1)
                 log.debug("Skipping already visited URL: {}", currentUrl);
-                return wordCounts;
+                return 0;
             }
+            progress.recordVisit();
 
 
             // Throttle the request based on the domain
@@ -191,36 +252,66 @@ public class RecursiveTaskWebCrawler implements WordCountWebCrawler {
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 log.warn("Thread interrupted while throttling domain for URL: {}", currentUrl);
-                return wordCounts;
+                return 0;
             }
 
             // Parse the current URL.
             log.debug("Parsing URL: {}", currentUrl);
-            WordCountParseResult result =
-                    ((WordCountPageParserImpl) parserFactory.createParserInstance(currentUrl)).parse();
+            WordCountPageParser parser = (WordCountPageParser) parserFactory.createParserInstance(currentUrl);
+            // Links of pages at the maximum depth are never followed, so they are not extracted.
+            ParseProjection projection = remainingDepth == 1 ? ParseProjection.WORDS : ParseProjection.ALL;
 
-            // Update word counts with the parsed data.
-            result.getWordFrequencyMap().forEach((key, value) ->
-                                                         wordCounts.merge(key, value, Integer::sum)
-            );
+            int parsedPages = 1;
+            if (parser.getParseMode() != null && parser.getParseMode().isStreaming()) {
+                // Fork a subtask as soon as each hyperlink is read, so linked pages are fetched
+                // while the rest of this page is still being downloaded.
+                List<RecursiveTaskImpl> subtasks = new ArrayList<>();
+                try {
+                    WordCountParseResult result = progress.parsePage(
+                            currentUrl, parser, projection, link -> subtasks.add(subtask(link)));
+                    result.release();
+                } finally {
+                    // Subtasks forked before a parse failure are still joined, so none outlives this task.
+                    log.debug("Joining subtasks for URL: {} with {} hyperlinks", currentUrl, subtasks.size());
+                    for (RecursiveTaskImpl subtask : subtasks) {
+                        parsedPages += subtask.join();
+                    }
+                }
+                return parsedPages;
+            }
+
+            // Parse the page and update word counts with the parsed data.
+            WordCountParseResult result = progress.parsePage(currentUrl, parser, projection, null);
 
             // Create and invoke subtasks for each hyperlink found on the page.
             List<RecursiveTaskImpl> subtasks = result.getHyperLinkList().stream()
-                    .map(link -> new RecursiveTaskImpl(systemClock, crawlTimeout, crawlDeadline,
-                                                       link, visitedUrls, parserFactory,
-                                                       remainingDepth - 1, excludedUrlPatterns,
-                                                       domainThrottler, robotsTxtCache
-                    ))
+                    .map(this::newSubtask)
                     .toList();
+            // The tables of the page go back to this worker before the linked pages are parsed.
+            result.release();
 
             log.debug("Invoking subtasks for URL: {} with {} hyperlinks", currentUrl,
                       subtasks.size()
             );
-            invokeAll(subtasks).forEach(subtask -> subtask.join().forEach(
-                    (key, value) -> wordCounts.merge(key, value, Integer::sum)
-            ));
+            for (RecursiveTaskImpl subtask : invokeAll(subtasks)) {
+                parsedPages += subtask.join();
+            }
+
+            return parsedPages;
+        }
+
+        private RecursiveTaskImpl newSubtask(String link) {
+            return new RecursiveTaskImpl(systemClock, crawlTimeout, crawlDeadline,
+                                         link, visitedUrls, parserFactory,
+                                         remainingDepth - 1, excludedUrlPatterns,
+                                         domainThrottler, robotsTxtCache, progress
+            );
+        }
 
-            return wordCounts;
+        private RecursiveTaskImpl subtask(String link) {
+            RecursiveTaskImpl subtask = newSubtask(link);
+            subtask.fork();
+            return subtask;
         }
 
         /**
@@ -5,9 +5,8 @@ import com.webtracer.RobotsTxtCache;
 import com.webtracer.di.annotation.*;
 import com.webtracer.ApiException;
 import com.webtracer.parser.AbstractPageParserFactory;
-import com.webtracer.parser.ParseResult;
+import com.webtracer.parser.ParseProjection;
 import com.webtracer.parser.wordcount.WordCountParseResult;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.net.URI;
@@ -27,7 +26,6 @@ import java.util.regex.Pattern;
  * of URLs visited.
  * </p>
  */
-@RequiredArgsConstructor
 @Slf4j
 public final class SequentialWebCrawler implements WordCountWebCrawler {
 
@@ -51,6 +49,18 @@ public final class SequentialWebCrawler implements WordCountWebCrawler {
 
     private final RobotsTxtCache robotsTxtCache;
 
+    // Number of words monitored by the approximate aggregator; 0 = exact word counts.
+    private final int sketchCapacity;
+
+    // Number of pages with an unchanged top-word ranking after which the crawl stops; 0 = never.
+    private final int convergencePages;
+
+    // Word counts of the pages of the previous crawl, updated incrementally; null = full crawls.
+    private final PageCountStore pageCountStore;
+
+    // Progress of the running or last crawl, read by snapshot() from other threads.
+    private volatile CrawlProgress progress;
+
     @Inject
     SequentialWebCrawler(
             Clock clock,
@@ -58,15 +68,22 @@ public final class SequentialWebCrawler implements WordCountWebCrawler {
             @CrawlTimeout Duration crawlTimeout,
             @PopularWordCount int popularWordCount,
             @CrawlMaxDepth int maxDepth,
-            @ExcludedUrls List<Pattern> excludedUrls
+            @ExcludedUrls List<Pattern> excludedUrls,
+            @SketchCapacity int sketchCapacity,
+            @ConvergencePages int convergencePages,
+            RobotsTxtCache robotsTxtCache,
+            Optional<PageCountStore> pageCountStore
     ) {
         this.clock = clock;
         this.crawlTimeout = crawlTimeout;
-        this.popularWordCount = popularWordCount;
         this.maxDepth = maxDepth;
+        this.popularWordCount = popularWordCount;
         this.excludedUrls = excludedUrls;
         this.parserFactory = parserFactory;
-        this.robotsTxtCache = new RobotsTxtCache("WebTracer");
+        this.robotsTxtCache = robotsTxtCache;
+        this.sketchCapacity = sketchCapacity;
+        this.convergencePages = convergencePages;
+        this.pageCountStore = pageCountStore.orElse(null);
     }
 
     /**
@@ -84,29 +101,53 @@ public final class SequentialWebCrawler implements WordCountWebCrawler {
         log.info("Starting crawl with {} starting URLs", startingUrls.size());
 
         Instant deadline = clock.instant().plus(crawlTimeout);
-        Map<String, Integer> counts = new HashMap<>();
+        CrawlProgress progress = new CrawlProgress(
+                WordCountAggregator.create(sketchCapacity), popularWordCount, convergencePages, pageCountStore);
+        this.progress = progress;
         Set<String> visitedUrls = new HashSet<>();
 
         for (String url : startingUrls) {
             log.debug("Crawling URL: {}", url);
-            crawlInternal(url, deadline, maxDepth, counts, visitedUrls);
+            crawlInternal(url, deadline, maxDepth, progress, visitedUrls);
         }
+        progress.complete();
 
+        WordCountAggregator counts = progress.getWordCounts();
         if (counts.isEmpty()) {
             log.warn("No words counted during the crawl");
             return WordCountResult.builder()
-                    .wordFrequencyMap(counts)
+                    .wordFrequencyMap(Collections.emptyMap())
                     .totalUrlsVisited(visitedUrls.size())
+                    .truncatedPages(progress.truncatedPages())
                     .build();
         }
 
         log.info("Crawl completed with {} URLs visited", visitedUrls.size());
+        if (progress.isConverged()) {
+            log.info("Crawl converged early; {} frontier URLs pruned", progress.prunedFrontierUrls());
+        }
+        Map<String, Integer> popularWords = counts.top(popularWordCount);
         return WordCountResult.builder()
-                .wordFrequencyMap(WordCountUtil.sort(counts, popularWordCount))
+                .wordFrequencyMap(popularWords)
+                .wordFrequencyErrorBounds(counts.errorBounds(popularWords.keySet()))
                 .totalUrlsVisited(visitedUrls.size())
+                .converged(progress.isConverged())
+                .prunedFrontierUrls(progress.prunedFrontierUrls())
+                .truncatedPages(progress.truncatedPages())
                 .build();
     }
 
+    /**
+     * Returns the visited URLs and top words of the running crawl. Safe to call from any thread.
+     *
+     * @return the result of the crawl so far, or an empty {@link Optional} if no crawl has started.
+     */
+    @Override
+    public Optional<WordCountResult> snapshot() {
+        CrawlProgress current = progress;
+        return current == null ? Optional.empty() : Optional.of(current.snapshot());
+    }
+
     /**
      * Internal method to handle the crawling of a single URL. This method is called recursively to
      * follow links to the specified depth and accumulate word counts.
@@ -114,14 +155,14 @@ public final class SequentialWebCrawler implements WordCountWebCrawler {
      * @param url          the URL to be crawled.
      * @param deadline     the time at which the crawling should stop.
      * @param maxDepth     the maximum depth to which the crawler should follow links.
-     * @param counts       a map to accumulate word counts across all visited pages.
+     * @param progress     the shared progress accumulating word counts across all visited pages.
      * @param visitedUrls  a set to keep track of visited URLs to prevent reprocessing.
      */
     private void crawlInternal(
             String url,
             Instant deadline,
             int maxDepth,
-            Map<String, Integer> counts,
+            CrawlProgress progress,
             Set<String> visitedUrls) throws ApiException {
 
         if (maxDepth == 0 || clock.instant().isAfter(deadline)) {
@@ -136,6 +177,14 @@ public final class SequentialWebCrawler implements WordCountWebCrawler {
             }
         }
 
+        if (progress.isConverged()) {
+            if (!visitedUrls.contains(url)) {
+                log.trace("Skipping URL: {} as the top words have converged", url);
+                progress.recordPrunedUrl(url);
+            }
+            return;
+        }
+
         if (!robotsTxtCache.isAllowed(URI.create(url))) {
             log.debug("Skipping URL: {} disallowed ", url);
             return;
@@ -147,15 +196,19 @@ public final class SequentialWebCrawler implements WordCountWebCrawler {
         }
 
         try {
-            ParseResult result = parserFactory.createParserInstance(url).parse();
+            // Links of pages at the maximum depth are never followed, so they are not extracted.
+            ParseProjection projection = maxDepth == 1 ? ParseProjection.WORDS : ParseProjection.ALL;
+            WordCountParseResult result = progress.parsePage(url, parserFactory.createParserInstance(url),
+                                                             projection, null);
             visitedUrls.add(url);
+            progress.recordVisit();
 
-            for (Map.Entry<String, Integer> entry : ((WordCountParseResult) result).getWordFrequencyMap().entrySet()) {
-                counts.merge(entry.getKey(), entry.getValue(), Integer::sum);
-            }
+            // The tables of the page are released before the linked pages reuse them.
+            List<String> links = List.copyOf(result.getHyperLinkList());
+            result.release();
 
-            for (String link : ((WordCountParseResult) result).getHyperLinkList()) {
-                crawlInternal(link, deadline, maxDepth - 1, counts, visitedUrls);
+            for (String link : links) {
+                crawlInternal(link, deadline, maxDepth - 1, progress, visitedUrls);
             }
         } catch (ApiException e) {
             log.error("Error parsing URL: {}", url, e);
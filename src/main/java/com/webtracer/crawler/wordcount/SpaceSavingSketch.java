@@ -0,0 +1,257 @@
+package com.webtracer.crawler.wordcount;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * The {@code SpaceSavingSketch} class is a bounded-memory {@link WordCountAggregator} based on the Space-Saving
+ * algorithm by Metwally, Agrawal and El Abbadi.
+ *
+ * <p>The sketch monitors at most {@code capacity} words. A word that is already monitored has its count
+ * increased. A new word replaces the monitored word with the smallest count {@code min}, inheriting
+ * {@code min} both as the starting point of its count and as its error. For a stream of {@code N} total
+ * occurrences this guarantees that:</p>
+ * <ul>
+ *   <li>every reported count overestimates the true count by at most its error, and every error is at most
+ *   {@code N / capacity};</li>
+ *   <li>every word occurring more than {@code N / capacity} times is monitored.</li>
+ * </ul>
+ *
+ * <p>With {@code capacity = k / ε} the memory of the sketch is {@code O(k / ε)} regardless of how many pages are
+ * crawled, and the counts of the top {@code k} words are off by at most {@code ε N / k}.</p>
+ *
+ * <p>Monitored words are kept in an indexed min-heap ordered by count, so both increments and replacements cost
+ * {@code O(log capacity)}. Pages are merged under a lock; this class is thread-safe.</p>
+ */
+@Slf4j
+final class SpaceSavingSketch implements WordCountAggregator {
+
+    private final int capacity;
+
+    private final Lock lock = new ReentrantLock();
+
+    /**
+     * Slot of each monitored word.
+     */
+    private final Map<String, Integer> slots;
+
+    private final String[] words;
+
+    private final int[] counts;
+
+    private final int[] errors;
+
+    /**
+     * Min-heap of slots ordered by count.
+     */
+    private final int[] heap;
+
+    /**
+     * Position of each slot in {@link #heap}.
+     */
+    private final int[] heapPositions;
+
+    private int size;
+
+    private long totalCount;
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param capacity the maximum number of monitored words.
+     * @throws IllegalArgumentException if {@code capacity} is not positive.
+     */
+    SpaceSavingSketch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.slots = new HashMap<>(Math.min(capacity, 1 << 16) * 2);
+        this.words = new String[capacity];
+        this.counts = new int[capacity];
+        this.errors = new int[capacity];
+        this.heap = new int[capacity];
+        this.heapPositions = new int[capacity];
+        log.debug("Created SpaceSavingSketch with capacity {}", capacity);
+    }
+
+    /**
+     * Adds the given number of occurrences of a word.
+     *
+     * @param word  the word to count.
+     * @param count the number of occurrences to add; non-positive counts are ignored.
+     * @throws NullPointerException if {@code word} is {@code null}.
+     */
+    void add(@NonNull String word, int count) {
+        lock.lock();
+        try {
+            addUnlocked(word, count);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void addAll(@NonNull Map<String, Integer> wordCounts, @NonNull ObjIntConsumer<String> updatedTotals) {
+        lock.lock();
+        try {
+            wordCounts.forEach((word, count) -> {
+                int total = addUnlocked(word, count);
+                if (total > 0) {
+                    updatedTotals.accept(word, total);
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        lock.lock();
+        try {
+            return size == 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Map<String, Integer> top(int popularWordCount) {
+        Map<String, Integer> monitored;
+        lock.lock();
+        try {
+            monitored = new HashMap<>(size * 2);
+            for (int slot = 0; slot < size; slot++) {
+                monitored.put(words[slot], counts[slot]);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return WordCountUtil.sort(monitored, popularWordCount);
+    }
+
+    @Override
+    public Map<String, Integer> errorBounds(@NonNull Collection<String> topWords) {
+        lock.lock();
+        try {
+            Map<String, Integer> bounds = new LinkedHashMap<>();
+            for (String word : topWords) {
+                Integer slot = slots.get(word);
+                if (slot != null) {
+                    bounds.put(word, errors[slot]);
+                }
+            }
+            return bounds;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the largest error any reported count may have, {@code N / capacity} where {@code N} is the total
+     * number of occurrences added so far.
+     *
+     * @return the guaranteed maximum error.
+     */
+    long maximumError() {
+        lock.lock();
+        try {
+            return totalCount / capacity;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the estimated total of the word after the addition, or {@code 0} if nothing was added.
+     */
+    private int addUnlocked(String word, int count) {
+        if (count <= 0) {
+            return 0;
+        }
+        totalCount += count;
+
+        Integer slot = slots.get(word);
+        if (slot != null) {
+            counts[slot] = saturatedAdd(counts[slot], count);
+            siftDown(heapPositions[slot]);
+            return counts[slot];
+        }
+
+        if (size < capacity) {
+            int newSlot = size++;
+            words[newSlot] = word;
+            counts[newSlot] = count;
+            errors[newSlot] = 0;
+            slots.put(word, newSlot);
+            heap[newSlot] = newSlot;
+            heapPositions[newSlot] = newSlot;
+            siftUp(newSlot);
+            return count;
+        }
+
+        // Replace the word with the smallest count; the newcomer may have occurred up to that many times before
+        int evicted = heap[0];
+        int minimum = counts[evicted];
+        slots.remove(words[evicted]);
+        log.trace("Evicting word {} with count {} for word {}", words[evicted], minimum, word);
+
+        words[evicted] = word;
+        errors[evicted] = minimum;
+        counts[evicted] = saturatedAdd(minimum, count);
+        slots.put(word, evicted);
+        siftDown(0);
+        return counts[evicted];
+    }
+
+    private void siftUp(int position) {
+        int slot = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[slot]) {
+                break;
+            }
+            place(heap[parent], position);
+            position = parent;
+        }
+        place(slot, position);
+    }
+
+    private void siftDown(int position) {
+        int slot = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+                child++;
+            }
+            if (counts[slot] <= counts[heap[child]]) {
+                break;
+            }
+            place(heap[child], position);
+            position = child;
+        }
+        place(slot, position);
+    }
+
+    private void place(int slot, int position) {
+        heap[position] = slot;
+        heapPositions[slot] = position;
+    }
+
+    private static int saturatedAdd(int count, int increment) {
+        long sum = (long) count + increment;
+        return sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) sum;
+    }
+}
@@ -0,0 +1,161 @@
+package com.webtracer.crawler.wordcount;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The {@code TopKTracker} class maintains the {@code k} most popular words of a running crawl, next to the
+ * aggregated word counts, so that the current ranking can be read at any time without scanning or sorting
+ * the whole vocabulary.
+ *
+ * <p>The tracker is fed with the new total of every word whose count changes. Because totals only grow, a
+ * word outside the top {@code k} can only enter it when its new total ranks before the current last entry,
+ * so the tracked set is always the exact top {@code k} of the totals it was fed. Most updates are rejected
+ * by comparing against a volatile admission count, without taking the lock.</p>
+ *
+ * <p>Each accepted update publishes an immutable, already ranked copy of the top {@code k}. Reading a
+ * {@link #snapshot()} only dereferences that copy, so readers never block the crawler threads, and crawler
+ * threads never wait for readers.</p>
+ */
+@Slf4j
+final class TopKTracker {
+
+    private final int capacity;
+
+    private final Lock lock = new ReentrantLock();
+
+    /**
+     * Current total of each tracked word.
+     */
+    private final Map<String, Integer> members = new HashMap<>();
+
+    /**
+     * Tracked words in ranking order; the last entry is the next candidate for eviction.
+     */
+    private final TreeSet<Map.Entry<String, Integer>> ranking = new TreeSet<>(WordCountUtil.RANKING);
+
+    /**
+     * Smallest total that may still enter the top {@code k}.
+     */
+    private volatile int admissionCount = 1;
+
+    private volatile List<Map.Entry<String, Integer>> published = List.of();
+
+    /**
+     * Incremented whenever the set or the order of the tracked words changes, but not when only their totals do.
+     */
+    private volatile long rankingVersion;
+
+    /**
+     * Creates a tracker of the given size.
+     *
+     * @param capacity the number of top words to track.
+     * @throws IllegalArgumentException if {@code capacity} is negative.
+     */
+    TopKTracker(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Records the new total of a word. Totals older than the one already tracked for the word are ignored,
+     * so concurrent updates of the same word may be offered in any order.
+     *
+     * @param word  the word whose count changed.
+     * @param total the total count of the word after the change.
+     */
+    void offer(@NonNull String word, int total) {
+        if (capacity == 0 || total < admissionCount) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            Integer previous = members.get(word);
+            Map.Entry<String, Integer> entry = Map.entry(word, total);
+            if (previous != null) {
+                if (previous >= total) {
+                    return;
+                }
+                ranking.remove(Map.entry(word, previous));
+            } else if (members.size() == capacity) {
+                Map.Entry<String, Integer> last = ranking.last();
+                if (WordCountUtil.RANKING.compare(entry, last) >= 0) {
+                    return;
+                }
+                ranking.pollLast();
+                members.remove(last.getKey());
+            }
+
+            ranking.add(entry);
+            members.put(word, total);
+            if (members.size() == capacity) {
+                admissionCount = ranking.last().getValue();
+            }
+
+            List<Map.Entry<String, Integer>> previousRanking = published;
+            published = List.copyOf(ranking);
+            if (!sameWords(previousRanking, published)) {
+                rankingVersion++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a number that changes whenever the set or the order of the top words changes. Two equal versions
+     * guarantee the same ranked words, possibly with different totals.
+     *
+     * @return the current ranking version.
+     */
+    long rankingVersion() {
+        return rankingVersion;
+    }
+
+    /**
+     * Checks whether all {@code k} top words are known, i.e. at least {@code k} distinct words have been offered.
+     *
+     * @return {@code true} if the tracker holds {@code k} words.
+     */
+    boolean isFull() {
+        return published.size() == capacity;
+    }
+
+    /**
+     * Returns the current top words in ranking order.
+     *
+     * @return an unmodifiable map of at most {@code k} words to their current totals.
+     */
+    Map<String, Integer> snapshot() {
+        List<Map.Entry<String, Integer>> entries = published;
+        Map<String, Integer> snapshot = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : entries) {
+            snapshot.put(entry.getKey(), entry.getValue());
+        }
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    private static boolean sameWords(List<Map.Entry<String, Integer>> first, List<Map.Entry<String, Integer>> second) {
+        if (first.size() != second.size()) {
+            return false;
+        }
+        for (int i = 0; i < first.size(); i++) {
+            if (!first.get(i).getKey().equals(second.get(i).getKey())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
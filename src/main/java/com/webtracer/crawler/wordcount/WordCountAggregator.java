@@ -0,0 +1,88 @@
+package com.webtracer.crawler.wordcount;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * The {@code WordCountAggregator} interface defines how the word counts of individual pages are combined into
+ * the global word counts of a crawl.
+ *
+ * <p>Two strategies are available:</p>
+ * <ul>
+ *   <li>{@link WordCountTable} keeps an exact count for every distinct word. Its memory grows with the
+ *   vocabulary of the crawled pages.</li>
+ *   <li>{@link SpaceSavingSketch} keeps approximate counts for a fixed number of words. Its memory is bounded
+ *   regardless of how many pages are crawled, and every reported count carries an error bound.</li>
+ * </ul>
+ *
+ * <p>Implementations must be thread-safe, as pages may be merged concurrently from any number of crawler
+ * threads.</p>
+ */
+interface WordCountAggregator {
+
+    /**
+     * Creates the aggregator selected by the {@code "sketchCapacity"} setting of the crawler configuration.
+     *
+     * @param sketchCapacity the number of words monitored by the approximate aggregator, or {@code 0} to
+     *                       count every word exactly.
+     * @return a new, empty aggregator.
+     * @throws IllegalArgumentException if {@code sketchCapacity} is negative.
+     */
+    static WordCountAggregator create(int sketchCapacity) {
+        if (sketchCapacity < 0) {
+            throw new IllegalArgumentException("sketchCapacity must not be negative: " + sketchCapacity);
+        }
+        return sketchCapacity == 0 ? new WordCountTable() : new SpaceSavingSketch(sketchCapacity);
+    }
+
+    /**
+     * Adds every word count of a page to the aggregate.
+     *
+     * @param wordCounts the word counts of a single page.
+     * @throws NullPointerException if {@code wordCounts} is {@code null}.
+     */
+    default void addAll(Map<String, Integer> wordCounts) {
+        addAll(wordCounts, (word, total) -> {
+        });
+    }
+
+    /**
+     * Adds every word count of a page to the aggregate, reporting the new total of each added word.
+     *
+     * @param wordCounts    the word counts of a single page.
+     * @param updatedTotals receives each word of the page with its (possibly estimated) total after the
+     *                      addition; called on the merging thread.
+     * @throws NullPointerException if {@code wordCounts} is {@code null}.
+     */
+    void addAll(Map<String, Integer> wordCounts, ObjIntConsumer<String> updatedTotals);
+
+    /**
+     * Checks whether no word has been counted yet.
+     *
+     * @return {@code true} if the aggregate holds no words.
+     */
+    boolean isEmpty();
+
+    /**
+     * Returns the {@code popularWordCount} most frequent words, ordered as described in {@link WordCountUtil}.
+     *
+     * @param popularWordCount the number of top words to return.
+     * @return the top words mapped to their (possibly estimated) counts.
+     */
+    Map<String, Integer> top(int popularWordCount);
+
+    /**
+     * Returns, for each of the given words, the maximum amount by which its reported count may exceed its true
+     * count. The true count of a word lies between {@code count - bound} and {@code count}.
+     *
+     * <p>Exact aggregators return an empty map.</p>
+     *
+     * @param words the words to report error bounds for, typically the keys of {@link #top(int)}.
+     * @return the error bound of each word that has one.
+     */
+    default Map<String, Integer> errorBounds(Collection<String> words) {
+        return Collections.emptyMap();
+    }
+}
@@ -1,11 +1,14 @@
 package com.webtracer.crawler.wordcount;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.webtracer.crawler.CrawlResult;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -40,12 +43,65 @@ public final class WordCountResult extends CrawlResult {
     @NonNull
     private final Map<String, Integer> wordFrequencyMap;
 
+    /**
+     * An unmodifiable {@link Map} holding, for each word of {@link #wordFrequencyMap}, the maximum amount by
+     * which its reported count may exceed its true count. The true count of a word lies between
+     * {@code count - bound} and {@code count}.
+     *
+     * <p>The map is only populated when the crawl aggregates word counts approximately, as configured by the
+     * {@code "sketchCapacity"} setting. For exact crawls it is empty and omitted from the serialized result.
+     */
+    @NonNull
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private final Map<String, Integer> wordFrequencyErrorBounds;
+
+    /**
+     * Whether the crawl stopped early because the ranking of the top words had converged, as configured by the
+     * {@code "convergencePages"} setting. Omitted from the serialized result when {@code false}.
+     */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private final boolean converged;
+
+    /**
+     * The number of distinct frontier URLs that were not fetched because the crawl had converged. The pages linked
+     * from them were never discovered and are not counted. Omitted from the serialized result when {@code 0}.
+     */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private final int prunedFrontierUrls;
+
+    /**
+     * The URLs of pages that were only partly counted, because they exceeded the {@code "maxBodySize"} or
+     * {@code "maxParseCpuTime"} settings. Omitted from the serialized result when empty.
+     */
+    @NonNull
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private final List<String> truncatedPages;
+
+    /**
+     * The URLs of ingested pages of a local mirror that no other ingested page links to, in alphabetical order,
+     * as reported by {@link MirrorIngestWebCrawler} when the {@code "reportOrphanPages"} setting is enabled.
+     * Omitted from the serialized result when empty.
+     */
+    @NonNull
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private final List<String> orphanPages;
+
     @Builder
-    public WordCountResult(int totalUrlsVisited, @NonNull Map<String, Integer> wordFrequencyMap) {
+    public WordCountResult(int totalUrlsVisited, @NonNull Map<String, Integer> wordFrequencyMap,
+                           Map<String, Integer> wordFrequencyErrorBounds, boolean converged, int prunedFrontierUrls,
+                           List<String> truncatedPages, List<String> orphanPages) {
         super(totalUrlsVisited);
         this.wordFrequencyMap = wordFrequencyMap;
+        this.wordFrequencyErrorBounds = wordFrequencyErrorBounds == null
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(wordFrequencyErrorBounds);
+        this.converged = converged;
+        this.prunedFrontierUrls = prunedFrontierUrls;
+        this.truncatedPages = truncatedPages == null ? Collections.emptyList() : List.copyOf(truncatedPages);
+        this.orphanPages = orphanPages == null ? Collections.emptyList() : List.copyOf(orphanPages);
 
-        log.debug("WordCountResult created with totalUrlsVisited = {} and wordFrequencyMap = {}",
-                  totalUrlsVisited, wordFrequencyMap);
+        log.debug("WordCountResult created with totalUrlsVisited = {}, wordFrequencyMap = {} and " +
+                          "wordFrequencyErrorBounds = {}",
+                  totalUrlsVisited, wordFrequencyMap, this.wordFrequencyErrorBounds);
     }
 }
@@ -0,0 +1,118 @@
+package com.webtracer.crawler.wordcount;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * The {@code WordCountTable} class aggregates word counts across all pages of a crawl. Words are mapped to dense
+ * ids by a {@link WordDictionary}, and counts are kept in atomic {@code int} arrays indexed by id.
+ *
+ * <p>Compared to a {@code ConcurrentHashMap<String, Integer>}, merging a page does not box counts, does not
+ * allocate map nodes and does not retain a {@code String} per distinct word. Counts are stored in chunks that
+ * are allocated lazily as the vocabulary grows, so the table never copies existing counts.</p>
+ *
+ * <p>This class is thread-safe; pages may be merged concurrently from any number of crawler threads.</p>
+ */
+@Slf4j
+final class WordCountTable implements WordCountAggregator {
+
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MAX_CHUNKS = 1 << 15;
+
+    private final WordDictionary dictionary = new WordDictionary();
+
+    private final AtomicReferenceArray<AtomicIntegerArray> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+
+    /**
+     * Adds the given number of occurrences of a word.
+     *
+     * @param word  the word to count.
+     * @param count the number of occurrences to add.
+     * @return the total count of the word after the addition.
+     * @throws NullPointerException if {@code word} is {@code null}.
+     */
+    int add(@NonNull String word, int count) {
+        int id = dictionary.idOf(word);
+        return chunk(id).addAndGet(id & CHUNK_MASK, count);
+    }
+
+    @Override
+    public void addAll(@NonNull Map<String, Integer> wordCounts, @NonNull ObjIntConsumer<String> updatedTotals) {
+        wordCounts.forEach((word, count) -> updatedTotals.accept(word, add(word, count)));
+    }
+
+    /**
+     * Returns the aggregated count of the word with the given id.
+     *
+     * @param id a word id, between {@code 0} and {@link #size()} exclusive.
+     * @return the count of the word.
+     */
+    int count(int id) {
+        AtomicIntegerArray chunk = chunks.get(id >>> CHUNK_BITS);
+        return chunk == null ? 0 : chunk.get(id & CHUNK_MASK);
+    }
+
+    /**
+     * Resolves a word id back to the word.
+     *
+     * @param id a word id, between {@code 0} and {@link #size()} exclusive.
+     * @return the word.
+     */
+    String word(int id) {
+        return dictionary.word(id);
+    }
+
+    /**
+     * Compares two words by their ranking order: longer words first, then alphabetical order.
+     *
+     * @param first  the id of the first word.
+     * @param second the id of the second word.
+     * @return a negative integer, zero, or a positive integer as the first word ranks before, equal to, or
+     *         after the second word.
+     * @see WordDictionary#compareWords(int, int)
+     */
+    int compareWords(int first, int second) {
+        return dictionary.compareWords(first, second);
+    }
+
+    /**
+     * Returns the number of distinct words seen so far.
+     *
+     * @return the number of distinct words.
+     */
+    int size() {
+        return dictionary.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Map<String, Integer> top(int popularWordCount) {
+        return WordCountUtil.sort(this, popularWordCount);
+    }
+
+    private AtomicIntegerArray chunk(int id) {
+        int index = id >>> CHUNK_BITS;
+        if (index >= MAX_CHUNKS) {
+            throw new IllegalStateException("Word dictionary exceeded " + (long) MAX_CHUNKS * CHUNK_SIZE + " words");
+        }
+
+        AtomicIntegerArray chunk = chunks.get(index);
+        if (chunk == null) {
+            chunks.compareAndSet(index, null, new AtomicIntegerArray(CHUNK_SIZE));
+            chunk = chunks.get(index);
+            log.trace("Allocated count chunk {}", index);
+        }
+        return chunk;
+    }
+}
@@ -5,7 +5,8 @@ import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * {@code WordCountUtil} is a utility class that provides functionality for processing word count
@@ -26,11 +27,30 @@ import java.util.stream.Collectors;
  * <p>This utility class is designed to be used within the context of web crawlers or text
  * analysis tools that need to identify and rank popular words based on their occurrences in
  * collected data.</p>
+ *
+ * <p>Only the top {@code popularWordCount} entries are ever ordered. Entries are streamed through a
+ * bounded heap holding the current top candidates, which costs {@code O(n log k)} instead of sorting
+ * all {@code n} entries. Above {@link #PARALLEL_THRESHOLD} entries, the input is split into per-core
+ * partial heaps that are merged at the end.</p>
  */
 @UtilityClass
 @Slf4j
 final class WordCountUtil {
 
+    /**
+     * Number of entries from which the top-K selection is split across the common fork-join pool.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /**
+     * Ranking order of word counts: frequency descending, then word length descending, then alphabetical.
+     */
+    static final Comparator<Map.Entry<String, Integer>> RANKING =
+            Comparator.comparing(Map.Entry<String, Integer>::getValue)
+                    .reversed()
+                    .thenComparing(entry -> entry.getKey().length(), Comparator.reverseOrder())
+                    .thenComparing(Map.Entry::getKey);
+
     /**
      * Sorts an unsorted map of word counts and returns a new map containing the top
      * {@code popularWordCount} words, sorted by the following criteria:
@@ -47,31 +67,134 @@ final class WordCountUtil {
      * @param wordCounts       the unsorted map of word counts.
      * @param popularWordCount the number of top words to include in the result map.
      * @return a map containing the top {@code popularWordCount} words, sorted in the specified order.
+     * @throws IllegalArgumentException if {@code popularWordCount} is negative.
      */
     static Map<String, Integer> sort(@NonNull Map<String, Integer> wordCounts, int popularWordCount) {
         log.debug("Starting sort of word counts with popularWordCount = {}", popularWordCount);
+        requireNonNegative(popularWordCount);
 
         if (wordCounts.isEmpty()) {
             log.info("No word counts to sort; returning empty map");
             return Collections.emptyMap();
         }
 
-        Map<String, Integer> sortedWordCounts = wordCounts.entrySet().parallelStream()
-                .sorted(
-                        Comparator.comparing(Map.Entry<String, Integer>::getValue)
-                                .reversed()
-                                .thenComparing(entry -> entry.getKey().length(), Comparator.reverseOrder())
-                                .thenComparing(Map.Entry::getKey)
-                )
-                .limit(popularWordCount)
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        Integer::sum,
-                        LinkedHashMap::new
-                ));
+        Stream<Map.Entry<String, Integer>> entries = wordCounts.size() >= PARALLEL_THRESHOLD
+                ? wordCounts.entrySet().parallelStream()
+                : wordCounts.entrySet().stream();
+
+        BoundedHeap<Map.Entry<String, Integer>> topEntries = entries.collect(
+                () -> new BoundedHeap<>(popularWordCount, RANKING),
+                BoundedHeap::offer,
+                BoundedHeap::mergeFrom
+        );
+
+        Map<String, Integer> sortedWordCounts = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : topEntries.drainInOrder()) {
+            sortedWordCounts.put(entry.getKey(), entry.getValue());
+        }
 
         log.debug("Completed sorting of word counts. Top {} words: {}", popularWordCount, sortedWordCounts);
         return sortedWordCounts;
     }
+
+    /**
+     * Ranks the words aggregated in a {@link WordCountTable} and returns a new map containing the top
+     * {@code popularWordCount} words, in the same order as {@link #sort(Map, int)}.
+     *
+     * <p>Ranking is performed on word ids. Ties are broken on the encoded words held by the table's
+     * dictionary, so ids are resolved back to {@code String}s only for the selected top entries.</p>
+     *
+     * @param wordCounts       the aggregated word counts.
+     * @param popularWordCount the number of top words to include in the result map.
+     * @return a map containing the top {@code popularWordCount} words, sorted in the specified order.
+     * @throws IllegalArgumentException if {@code popularWordCount} is negative.
+     */
+    static Map<String, Integer> sort(@NonNull WordCountTable wordCounts, int popularWordCount) {
+        log.debug("Starting sort of word count table with popularWordCount = {}", popularWordCount);
+        requireNonNegative(popularWordCount);
+
+        int size = wordCounts.size();
+        Comparator<Integer> ranking = (first, second) -> {
+            int byCount = Integer.compare(wordCounts.count(second), wordCounts.count(first));
+            return byCount != 0 ? byCount : wordCounts.compareWords(first, second);
+        };
+
+        IntStream ids = size >= PARALLEL_THRESHOLD
+                ? IntStream.range(0, size).parallel()
+                : IntStream.range(0, size);
+
+        BoundedHeap<Integer> topIds = ids
+                .filter(id -> wordCounts.count(id) > 0)
+                .collect(
+                        () -> new BoundedHeap<>(popularWordCount, ranking),
+                        BoundedHeap::offer,
+                        BoundedHeap::mergeFrom
+                );
+
+        if (topIds.isEmpty()) {
+            log.info("No word counts to sort; returning empty map");
+            return Collections.emptyMap();
+        }
+
+        Map<String, Integer> sortedWordCounts = new LinkedHashMap<>();
+        for (int id : topIds.drainInOrder()) {
+            sortedWordCounts.put(wordCounts.word(id), wordCounts.count(id));
+        }
+
+        log.debug("Completed sorting of word count table. Top {} words: {}", popularWordCount, sortedWordCounts);
+        return sortedWordCounts;
+    }
+
+    private static void requireNonNegative(int popularWordCount) {
+        if (popularWordCount < 0) {
+            throw new IllegalArgumentException("popularWordCount must not be negative: " + popularWordCount);
+        }
+    }
+
+    /**
+     * A heap retaining the {@code capacity} best elements offered to it according to a ranking order. The
+     * head of the underlying queue is the worst retained element, so each offer is compared against it first.
+     *
+     * @param <T> the type of ranked elements.
+     */
+    private static final class BoundedHeap<T> {
+        private final int capacity;
+        private final Comparator<? super T> ranking;
+        private final PriorityQueue<T> queue;
+
+        private BoundedHeap(int capacity, Comparator<? super T> ranking) {
+            this.capacity = capacity;
+            this.ranking = ranking;
+            this.queue = new PriorityQueue<>(Math.max(1, Math.min(capacity, 1024)) + 1, ranking.reversed());
+        }
+
+        private void offer(T element) {
+            if (queue.size() < capacity) {
+                queue.add(element);
+            } else if (capacity > 0 && ranking.compare(element, queue.peek()) < 0) {
+                queue.poll();
+                queue.add(element);
+            }
+        }
+
+        private void mergeFrom(BoundedHeap<T> other) {
+            other.queue.forEach(this::offer);
+        }
+
+        private boolean isEmpty() {
+            return queue.isEmpty();
+        }
+
+        /**
+         * Empties the heap and returns its elements from best to worst.
+         */
+        private List<T> drainInOrder() {
+            List<T> ordered = new ArrayList<>(queue.size());
+            while (!queue.isEmpty()) {
+                ordered.add(queue.poll());
+            }
+            Collections.reverse(ordered);
+            return ordered;
+        }
+    }
 }
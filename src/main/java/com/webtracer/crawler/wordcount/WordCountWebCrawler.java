@@ -4,6 +4,7 @@ import com.webtracer.ApiException;
 import com.webtracer.crawler.GenericWebCrawler;
 
 import java.util.List;
+import java.util.Optional;
 
 
 /**
@@ -33,4 +34,13 @@ interface WordCountWebCrawler extends GenericWebCrawler {
   @Override
   WordCountResult crawl(List<String> startingUrls) throws ApiException;
 
+  /**
+   * Returns the URLs visited and the {@code popularWordCount} top words of the crawl so far. Error bounds
+   * of approximate counts are only reported by the final result of {@link #crawl(List)}.
+   *
+   * @return the result of the crawl so far, or an empty {@link Optional} if no crawl has started.
+   */
+  @Override
+  Optional<WordCountResult> snapshot();
+
 }
@@ -0,0 +1,341 @@
+package com.webtracer.crawler.wordcount;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The {@code WordDictionary} class is a concurrent, append-only dictionary that maps each distinct word seen
+ * during a crawl to a dense {@code int} id, starting from {@code 0}.
+ *
+ * <p>Words are not retained as {@link String} objects. Their UTF-8 bytes are appended to large byte slabs and
+ * located through primitive arrays, so a vocabulary of a few hundred thousand words costs a handful of arrays
+ * instead of one {@code String}, one {@code byte[]} and one map node per word. Ids are resolved back to
+ * {@code String}s with {@link #word(int)} only when needed, typically for the top-K words of a result.</p>
+ *
+ * <p>Lookups of known words do not allocate: the cached {@link String#hashCode()} is used to probe an
+ * open-addressing table and candidates are compared against the stored bytes by encoding the {@code String}
+ * on the fly. Reads are performed under a shared lock, insertions of new words under an exclusive lock.</p>
+ */
+@Slf4j
+final class WordDictionary {
+
+    /**
+     * Size of a byte slab holding encoded words. Words longer than a slab get a dedicated slab.
+     */
+    static final int SLAB_SIZE = 1 << 20;
+
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Open-addressing hash table holding {@code id + 1} per slot; {@code 0} marks an empty slot.
+     */
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+
+    /**
+     * {@link String#hashCode()} of each word, indexed by id.
+     */
+    private int[] hashes = new int[INITIAL_CAPACITY];
+
+    /**
+     * Location of each word, indexed by id: slab index in the upper and offset in the lower 32 bits.
+     */
+    private long[] locations = new long[INITIAL_CAPACITY];
+
+    /**
+     * Encoded length in bytes of each word, indexed by id.
+     */
+    private int[] lengths = new int[INITIAL_CAPACITY];
+
+    /**
+     * {@link String#length()} of each word, indexed by id.
+     */
+    private int[] charLengths = new int[INITIAL_CAPACITY];
+
+    private byte[][] slabs = new byte[][]{new byte[SLAB_SIZE]};
+
+    private int currentSlab;
+
+    private int slabPosition;
+
+    private int size;
+
+    /**
+     * Returns the id of the given word, assigning the next free id if the word has not been seen before.
+     *
+     * @param word the word to look up.
+     * @return the dense id of the word.
+     * @throws NullPointerException if {@code word} is {@code null}.
+     */
+    int idOf(@NonNull String word) {
+        int hash = word.hashCode();
+
+        lock.readLock().lock();
+        try {
+            int id = find(word, hash);
+            if (id >= 0) {
+                return id;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Another thread may have inserted the word between releasing the read and acquiring the write lock
+            int id = find(word, hash);
+            return id >= 0 ? id : insert(word, hash);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the word with the given id.
+     *
+     * @param id an id previously returned by {@link #idOf(String)}.
+     * @return the word as a new {@link String}.
+     * @throws IndexOutOfBoundsException if no word has the given id.
+     */
+    String word(int id) {
+        lock.readLock().lock();
+        try {
+            if (id < 0 || id >= size) {
+                throw new IndexOutOfBoundsException("Unknown word id: " + id);
+            }
+            long location = locations[id];
+            return new String(slabs[(int) (location >>> 32)], (int) location, lengths[id], StandardCharsets.UTF_8);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compares two words by their ranking order: longer words first, then alphabetical order as defined by
+     * {@link String#compareTo(String)}. The comparison is performed on the stored bytes without creating
+     * {@code String}s.
+     *
+     * @param first  the id of the first word.
+     * @param second the id of the second word.
+     * @return a negative integer, zero, or a positive integer as the first word ranks before, equal to, or
+     *         after the second word.
+     */
+    int compareWords(int first, int second) {
+        lock.readLock().lock();
+        try {
+            int byLength = Integer.compare(charLengths[second], charLengths[first]);
+            if (byLength != 0) {
+                return byLength;
+            }
+
+            Utf16Cursor firstCursor = new Utf16Cursor(first);
+            Utf16Cursor secondCursor = new Utf16Cursor(second);
+            while (true) {
+                int firstUnit = firstCursor.next();
+                int secondUnit = secondCursor.next();
+                if (firstUnit != secondUnit || firstUnit < 0) {
+                    return firstUnit - secondUnit;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of distinct words in the dictionary. Valid ids range from {@code 0} to
+     * {@code size() - 1}.
+     *
+     * @return the number of words.
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int find(String word, int hash) {
+        int mask = table.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            int id = entry - 1;
+            if (hashes[id] == hash && matches(word, id)) {
+                return id;
+            }
+        }
+    }
+
+    private int insert(String word, int hash) {
+        byte[] encoded = word.getBytes(StandardCharsets.UTF_8);
+
+        if (size == hashes.length) {
+            int capacity = hashes.length * 2;
+            hashes = Arrays.copyOf(hashes, capacity);
+            locations = Arrays.copyOf(locations, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            charLengths = Arrays.copyOf(charLengths, capacity);
+            rehash(capacity * 2);
+        }
+
+        int id = size++;
+        hashes[id] = hash;
+        lengths[id] = encoded.length;
+        charLengths[id] = word.length();
+        locations[id] = append(encoded);
+
+        int mask = table.length - 1;
+        int slot = spread(hash) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = id + 1;
+
+        log.trace("Assigned id {} to word: {}", id, word);
+        return id;
+    }
+
+    private long append(byte[] encoded) {
+        if (slabPosition + encoded.length > slabs[currentSlab].length) {
+            if (currentSlab + 1 == slabs.length) {
+                slabs = Arrays.copyOf(slabs, slabs.length * 2);
+            }
+            currentSlab++;
+            slabs[currentSlab] = new byte[Math.max(SLAB_SIZE, encoded.length)];
+            slabPosition = 0;
+        }
+        System.arraycopy(encoded, 0, slabs[currentSlab], slabPosition, encoded.length);
+        long location = ((long) currentSlab << 32) | slabPosition;
+        slabPosition += encoded.length;
+        return location;
+    }
+
+    private void rehash(int tableCapacity) {
+        int[] rehashed = new int[tableCapacity];
+        int mask = tableCapacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = spread(hashes[id]) & mask;
+            while (rehashed[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            rehashed[slot] = id + 1;
+        }
+        table = rehashed;
+    }
+
+    /**
+     * Compares the word with the stored UTF-8 bytes of the given id without encoding it into a new array.
+     */
+    private boolean matches(String word, int id) {
+        byte[] slab = slabs[(int) (locations[id] >>> 32)];
+        int position = (int) locations[id];
+        int end = position + lengths[id];
+
+        for (int i = 0; i < word.length(); i++) {
+            int codePoint = word.codePointAt(i);
+            if (Character.isSupplementaryCodePoint(codePoint)) {
+                i++;
+            } else if (Character.isSurrogate((char) codePoint)) {
+                // Lone surrogates are encoded as '?' by String#getBytes
+                codePoint = '?';
+            }
+
+            if (codePoint < 0x80) {
+                if (position >= end || slab[position++] != (byte) codePoint) {
+                    return false;
+                }
+            } else if (codePoint < 0x800) {
+                if (position + 1 >= end
+                        || slab[position++] != (byte) (0xC0 | (codePoint >> 6))
+                        || slab[position++] != (byte) (0x80 | (codePoint & 0x3F))) {
+                    return false;
+                }
+            } else if (codePoint < 0x10000) {
+                if (position + 2 >= end
+                        || slab[position++] != (byte) (0xE0 | (codePoint >> 12))
+                        || slab[position++] != (byte) (0x80 | ((codePoint >> 6) & 0x3F))
+                        || slab[position++] != (byte) (0x80 | (codePoint & 0x3F))) {
+                    return false;
+                }
+            } else {
+                if (position + 3 >= end
+                        || slab[position++] != (byte) (0xF0 | (codePoint >> 18))
+                        || slab[position++] != (byte) (0x80 | ((codePoint >> 12) & 0x3F))
+                        || slab[position++] != (byte) (0x80 | ((codePoint >> 6) & 0x3F))
+                        || slab[position++] != (byte) (0x80 | (codePoint & 0x3F))) {
+                    return false;
+                }
+            }
+        }
+        return position == end;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Iterates over the UTF-16 code units of a stored word by decoding its UTF-8 bytes. Must be used while
+     * holding the read lock.
+     */
+    private final class Utf16Cursor {
+        private final byte[] slab;
+        private final int end;
+        private int position;
+        private int pendingLowSurrogate = -1;
+
+        private Utf16Cursor(int id) {
+            this.slab = slabs[(int) (locations[id] >>> 32)];
+            this.position = (int) locations[id];
+            this.end = position + lengths[id];
+        }
+
+        /**
+         * @return the next code unit, or {@code -1} at the end of the word.
+         */
+        private int next() {
+            if (pendingLowSurrogate >= 0) {
+                int unit = pendingLowSurrogate;
+                pendingLowSurrogate = -1;
+                return unit;
+            }
+            if (position == end) {
+                return -1;
+            }
+
+            int lead = slab[position] & 0xFF;
+            int codePoint;
+            if (lead < 0x80) {
+                codePoint = lead;
+                position += 1;
+            } else if (lead < 0xE0) {
+                codePoint = ((lead & 0x1F) << 6) | (slab[position + 1] & 0x3F);
+                position += 2;
+            } else if (lead < 0xF0) {
+                codePoint = ((lead & 0x0F) << 12) | ((slab[position + 1] & 0x3F) << 6) | (slab[position + 2] & 0x3F);
+                position += 3;
+            } else {
+                codePoint = ((lead & 0x07) << 18) | ((slab[position + 1] & 0x3F) << 12)
+                        | ((slab[position + 2] & 0x3F) << 6) | (slab[position + 3] & 0x3F);
+                position += 4;
+            }
+
+            if (Character.isSupplementaryCodePoint(codePoint)) {
+                pendingLowSurrogate = Character.lowSurrogate(codePoint);
+                return Character.highSurrogate(codePoint);
+            }
+            return codePoint;
+        }
+    }
+}
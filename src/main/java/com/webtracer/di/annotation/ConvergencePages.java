@@ -0,0 +1,18 @@
+package com.webtracer.di.annotation;
+
+import jakarta.inject.Qualifier;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Annotation for binding the number of consecutive pages after which an unchanged ranking of the
+ * popular words ends the crawl early.
+ *
+ * <p>The value associated with this annotation is derived from the {@code "convergencePages"} setting
+ * in the crawler configuration JSON file. A value of {@code 0} disables early termination.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConvergencePages {
+}
@@ -0,0 +1,17 @@
+package com.webtracer.di.annotation;
+
+import jakarta.inject.Qualifier;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Annotation for binding the {@link com.webtracer.parser.ParseMode} used by page parsers.
+ *
+ * <p>The value associated with this annotation is derived from the {@code "parseMode"} setting
+ * in the crawler configuration JSON file.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface HtmlParseMode {
+}
@@ -0,0 +1,18 @@
+package com.webtracer.di.annotation;
+
+import jakarta.inject.Qualifier;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Annotation for binding the CPU time a page parser may spend on a single page before it stops and
+ * keeps what it has counted.
+ *
+ * <p>The value associated with this annotation is derived from the {@code "maxParseCpuTime"} setting
+ * in the crawler configuration JSON file.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MaxParseCpuTime {
+}
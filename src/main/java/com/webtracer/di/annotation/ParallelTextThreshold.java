@@ -0,0 +1,18 @@
+package com.webtracer.di.annotation;
+
+import jakarta.inject.Qualifier;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Annotation for binding the number of characters of text on a page after which the rest of the page is
+ * counted in parallel.
+ *
+ * <p>The value associated with this annotation is derived from the {@code "parallelTextThreshold"} setting
+ * in the crawler configuration JSON file.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ParallelTextThreshold {
+}
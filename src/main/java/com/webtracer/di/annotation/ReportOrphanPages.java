@@ -0,0 +1,17 @@
+package com.webtracer.di.annotation;
+
+import jakarta.inject.Qualifier;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Annotation for binding whether an ingest of a local mirror reports the pages no other page links to.
+ *
+ * <p>The value associated with this annotation is derived from the {@code "reportOrphanPages"} setting
+ * in the crawler configuration JSON file.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReportOrphanPages {
+}
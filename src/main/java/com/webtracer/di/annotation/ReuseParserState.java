@@ -0,0 +1,17 @@
+package com.webtracer.di.annotation;
+
+import jakarta.inject.Qualifier;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Annotation for binding whether page parsers reuse the tables of their worker thread between pages.
+ *
+ * <p>The value associated with this annotation is derived from the {@code "reuseParserState"} setting
+ * in the crawler configuration JSON file.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReuseParserState {
+}
@@ -0,0 +1,17 @@
+package com.webtracer.di.annotation;
+
+import jakarta.inject.Qualifier;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Annotation for binding the number of words monitored by the approximate word count aggregator.
+ *
+ * <p>The value associated with this annotation is derived from the {@code "sketchCapacity"} setting
+ * in the crawler configuration JSON file. A value of {@code 0} selects exact word counting.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SketchCapacity {
+}
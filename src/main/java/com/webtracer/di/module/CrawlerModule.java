@@ -3,20 +3,29 @@ package com.webtracer.di.module;
 import com.google.inject.*;
 import com.google.inject.multibindings.Multibinder;
 import com.webtracer.ApiException;
+import com.webtracer.RobotsTxtCache;
+import com.webtracer.RobotsTxtStore;
 import com.webtracer.config.WebCrawlerConfig;
 import com.webtracer.crawler.DomainThrottler;
 import com.webtracer.crawler.GenericWebCrawler;
+import com.webtracer.crawler.linkgraph.LinkGraphWebCrawler;
+import com.webtracer.crawler.wordcount.MirrorIngestWebCrawler;
+import com.webtracer.crawler.wordcount.PageCountStore;
 import com.webtracer.crawler.wordcount.RecursiveActionWebCrawler;
 import com.webtracer.crawler.wordcount.RecursiveTaskWebCrawler;
 import com.webtracer.crawler.wordcount.SequentialWebCrawler;
 import com.webtracer.di.annotation.*;
+import com.webtracer.parser.WarcDocumentLoader;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -36,11 +45,16 @@ public class CrawlerModule extends AbstractModule {
         multibinder.addBinding().to(SequentialWebCrawler.class);
         multibinder.addBinding().to(RecursiveActionWebCrawler.class);
         multibinder.addBinding().to(RecursiveTaskWebCrawler.class);
+        multibinder.addBinding().to(LinkGraphWebCrawler.class);
+        multibinder.addBinding().to(MirrorIngestWebCrawler.class);
 
         bind(Clock.class).toInstance(Clock.systemUTC());
         bind(Key.get(Integer.class, CrawlMaxDepth.class)).toInstance(config.getMaxDepth());
         bind(Key.get(Integer.class, PopularWordCount.class)).toInstance(config.getPopularWordCount());
         bind(Key.get(Duration.class, CrawlTimeout.class)).toInstance(config.getTimeout());
+        bind(Key.get(Integer.class, SketchCapacity.class)).toInstance(config.getSketchCapacity());
+        bind(Key.get(Integer.class, ConvergencePages.class)).toInstance(config.getConvergencePages());
+        bind(Key.get(Boolean.class, ReportOrphanPages.class)).toInstance(config.isReportOrphanPages());
 
         bind(new Key<List<Pattern>>(ExcludedUrls.class) {}).toInstance(config.getExcludedUrls());
 
@@ -48,6 +62,18 @@ public class CrawlerModule extends AbstractModule {
                 ParserModule.builder()
                         .excludedWords(config.getExcludedWords())
                         .parseTimeout(config.getParseTimeout())
+                        .parseMode(config.getParseMode())
+                        .parallelTextThreshold(config.getParallelTextThreshold())
+                        .maxParseCpuTime(config.getMaxParseCpuTime())
+                        .maxBodySize(config.getMaxBodySize())
+                        .reuseParserState(config.isReuseParserState())
+                        .httpCachePath(config.getHttpCachePath())
+                        .httpCacheMaxSize(config.getHttpCacheMaxSize())
+                        .parseResultCachePath(config.getParseResultCachePath())
+                        .parseResultCacheMaxSize(config.getParseResultCacheMaxSize())
+                        .documentCacheMaxSize(config.getDocumentCacheMaxSize())
+                        .documentCacheTtl(config.getDocumentCacheTtl())
+                        .warcPaths(config.getWarcPaths())
                         .build()
         );
 
@@ -80,6 +106,42 @@ public class CrawlerModule extends AbstractModule {
         return new DomainThrottler(delayBetweenRequests);
     }
 
+    @Provides
+    @Singleton
+    RobotsTxtCache provideRobotsTxtCache(Optional<WarcDocumentLoader> warcDocumentLoader) {
+        if (warcDocumentLoader.isPresent()) {
+            // Replayed crawls follow the archived robots.txt files
+            return RobotsTxtCache.loadingThrough(RobotsTxtCache.DEFAULT_USER_AGENT, warcDocumentLoader.get());
+        }
+        RobotsTxtStore store = null;
+        if (!config.getRobotsTxtStorePath().isEmpty()) {
+            try {
+                store = RobotsTxtStore.open(Path.of(config.getRobotsTxtStorePath()));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to open robots.txt store {}, robots.txt rules will not be kept between runs",
+                         config.getRobotsTxtStorePath(), e);
+            }
+        }
+        return new RobotsTxtCache(RobotsTxtCache.DEFAULT_USER_AGENT, store);
+    }
+
+    @Provides
+    @Singleton
+    Optional<PageCountStore> providePageCountStore() {
+        if (config.getIncrementalCrawlPath().isEmpty()) {
+            return Optional.empty();
+        }
+        // Counts depend on the excluded words, so counts of pages crawled with other exclusions are discarded
+        try {
+            return Optional.of(PageCountStore.open(Path.of(config.getIncrementalCrawlPath()),
+                                                   ParserModule.fingerprint(config.getExcludedWords())));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to open page count store {}, every page will be counted from scratch",
+                     config.getIncrementalCrawlPath(), e);
+            return Optional.empty();
+        }
+    }
+
     @Provides
     @Singleton
     @ConcurrencyLevel
@@ -3,17 +3,34 @@ package com.webtracer.di.module;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
+import com.webtracer.ApiException;
 import com.webtracer.di.annotation.ExcludedWords;
+import com.webtracer.di.annotation.HtmlParseMode;
+import com.webtracer.di.annotation.MaxParseCpuTime;
+import com.webtracer.di.annotation.ParallelTextThreshold;
+import com.webtracer.di.annotation.ReuseParserState;
 import com.webtracer.di.annotation.WordCountFactory;
 import com.webtracer.parser.AbstractPageParserFactory;
 import com.webtracer.parser.DefaultDocumentLoader;
+import com.webtracer.parser.DocumentLoader;
+import com.webtracer.parser.HttpResponseCache;
+import com.webtracer.parser.ParseMode;
+import com.webtracer.parser.WarcDocumentLoader;
+import com.webtracer.parser.wordcount.CachingPageParserFactory;
+import com.webtracer.parser.wordcount.InMemoryParseResultCache;
+import com.webtracer.parser.wordcount.ParseResultStore;
 import com.webtracer.parser.wordcount.WordCountPageParserFactoryImpl;
+import com.webtracer.parser.wordcount.WordCountPageParserImpl;
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Builder
 @Slf4j
@@ -22,22 +39,180 @@ public class ParserModule extends AbstractModule {
     private final List<Pattern> excludedWords;
     private final Duration parseTimeout;
 
+    @Builder.Default
+    private final ParseMode parseMode = ParseMode.DOM;
+
+    @Builder.Default
+    private final int parallelTextThreshold = WordCountPageParserImpl.DEFAULT_PARALLEL_TEXT_THRESHOLD;
+
+    @Builder.Default
+    private final Duration maxParseCpuTime = WordCountPageParserImpl.DEFAULT_MAX_PARSE_CPU_TIME;
+
+    @Builder.Default
+    private final long maxBodySize = DefaultDocumentLoader.DEFAULT_MAX_BODY_SIZE;
+
+    @Builder.Default
+    private final boolean reuseParserState = false;
+
+    @Builder.Default
+    private final String httpCachePath = "";
+
+    @Builder.Default
+    private final long httpCacheMaxSize = HttpResponseCache.DEFAULT_MAX_SIZE;
+
+    @Builder.Default
+    private final String parseResultCachePath = "";
+
+    @Builder.Default
+    private final long parseResultCacheMaxSize = ParseResultStore.DEFAULT_MAX_SIZE;
+
+    @Builder.Default
+    private final long documentCacheMaxSize = 0;
+
+    @Builder.Default
+    private final Duration documentCacheTtl = InMemoryParseResultCache.DEFAULT_TTL;
+
+    @Builder.Default
+    private final List<String> warcPaths = List.of();
+
+    /**
+     * A cache of recent parse results owned by the caller, e.g. shared by the injectors of the crawl jobs of a
+     * long-lived service, used instead of a cache of {@code documentCacheMaxSize} bytes.
+     */
+    private final InMemoryParseResultCache documentCache;
+
     @Override
     protected void configure() {
-        log.debug("Configuring ParserModule with excludedWords: {}, parseTimeout: {} ms", excludedWords, parseTimeout.toMillis());
-
-        // Bind the abstract factory to the concrete implementation
-        bind(AbstractPageParserFactory.class)
-                .annotatedWith(WordCountFactory.class)
-                .to(WordCountPageParserFactoryImpl.class);
+        log.debug("Configuring ParserModule with excludedWords: {}, parseTimeout: {} ms, parseMode: {}, "
+                          + "parallelTextThreshold: {}, maxParseCpuTime: {} ms, maxBodySize: {}, reuseParserState: {}, "
+                          + "httpCachePath: {}, httpCacheMaxSize: {}, parseResultCachePath: {}, "
+                          + "parseResultCacheMaxSize: {}, documentCacheMaxSize: {}, documentCacheTtl: {} s, "
+                          + "warcPaths: {}",
+                  excludedWords, parseTimeout.toMillis(), parseMode, parallelTextThreshold,
+                  maxParseCpuTime.toMillis(), maxBodySize, reuseParserState, httpCachePath, httpCacheMaxSize,
+                  parseResultCachePath, parseResultCacheMaxSize, documentCacheMaxSize, documentCacheTtl.toSeconds(),
+                  warcPaths);
 
         log.info("ParserModule configured with WordCountPageParserFactoryImpl");
     }
 
+    @Provides
+    @Singleton
+    @WordCountFactory
+    AbstractPageParserFactory provideWordCountFactory(WordCountPageParserFactoryImpl factory,
+                                                      Optional<InMemoryParseResultCache> cache) {
+        // Decorate the concrete implementation if recent results are cached in memory
+        return cache.<AbstractPageParserFactory>map(c -> new CachingPageParserFactory(factory, c, cacheFingerprint()))
+                .orElse(factory);
+    }
+
+    @Provides
+    @Singleton
+    Optional<InMemoryParseResultCache> provideInMemoryParseResultCache() {
+        if (documentCache != null) {
+            return Optional.of(documentCache);
+        }
+        if (documentCacheMaxSize <= 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new InMemoryParseResultCache(documentCacheMaxSize, documentCacheTtl));
+    }
+
     @Provides
     @Singleton
     DefaultDocumentLoader provideDefaultDocumentLoader() {
-        return new DefaultDocumentLoader(parseTimeout);
+        HttpResponseCache responseCache = null;
+        if (!httpCachePath.isEmpty()) {
+            try {
+                responseCache = HttpResponseCache.open(Path.of(httpCachePath), httpCacheMaxSize);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to open HTTP response cache {}, documents will be downloaded in full",
+                         httpCachePath, e);
+            }
+        }
+        return new DefaultDocumentLoader(parseTimeout, maxBodySize, responseCache);
+    }
+
+    @Provides
+    @Singleton
+    DocumentLoader provideDocumentLoader(DefaultDocumentLoader defaultDocumentLoader,
+                                         Optional<WarcDocumentLoader> warcDocumentLoader) {
+        // Replayed crawls never fall back to the network, so that they are reproducible
+        return warcDocumentLoader.<DocumentLoader>map(loader -> loader).orElse(defaultDocumentLoader);
+    }
+
+    @Provides
+    @Singleton
+    Optional<WarcDocumentLoader> provideWarcDocumentLoader() {
+        if (warcPaths.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            WarcDocumentLoader loader = WarcDocumentLoader.open(warcPaths.stream().map(Path::of).toList(),
+                                                                maxBodySize);
+            log.info("Replaying {} archived URLs of {}", loader.getArchivedUrlCount(), warcPaths);
+            return Optional.of(loader);
+        } catch (IOException | RuntimeException e) {
+            throw new ApiException("Failed to index WARC archives " + warcPaths, e);
+        }
+    }
+
+    @Provides
+    @Singleton
+    Optional<ParseResultStore> provideParseResultStore() {
+        if (parseResultCachePath.isEmpty()) {
+            return Optional.empty();
+        }
+        // Results depend on the excluded words, so results counted with other exclusions are not reused
+        try {
+            return Optional.of(ParseResultStore.open(Path.of(parseResultCachePath), parseResultCacheMaxSize,
+                                                     fingerprint(excludedWords)));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to open parse result store {}, every page will be parsed", parseResultCachePath, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Describes the settings the cached results of a page depend on: the excluded words, the parse mode, the maximum
+     * body size and where pages are loaded from, so that a shared cache keeps results of other settings apart.
+     */
+    String cacheFingerprint() {
+        return fingerprint(excludedWords) + "\n" + parseMode + "\n" + maxBodySize + "\n"
+                + (warcPaths.isEmpty() ? "live" : "warc:" + String.join(",", warcPaths));
+    }
+
+    /**
+     * Describes the excluded words, which the word counts of every page depend on.
+     */
+    static String fingerprint(List<Pattern> excludedWords) {
+        return excludedWords.stream()
+                .map(pattern -> pattern.flags() + ":" + pattern.pattern())
+                .collect(Collectors.joining("\n"));
+    }
+
+    @Provides
+    @HtmlParseMode
+    ParseMode provideParseMode() {
+        return parseMode;
+    }
+
+    @Provides
+    @ParallelTextThreshold
+    int provideParallelTextThreshold() {
+        return parallelTextThreshold;
+    }
+
+    @Provides
+    @MaxParseCpuTime
+    Duration provideMaxParseCpuTime() {
+        return maxParseCpuTime;
+    }
+
+    @Provides
+    @ReuseParserState
+    boolean provideReuseParserState() {
+        return reuseParserState;
     }
 
     @Provides
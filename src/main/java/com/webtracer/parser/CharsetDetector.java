@@ -0,0 +1,118 @@
+package com.webtracer.parser;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The {@code CharsetDetector} class determines the character encoding of an HTML document from its first bytes,
+ * in the order used by browsers and JSoup:
+ * <ol>
+ *   <li>a byte order mark, which is consumed from the stream;</li>
+ *   <li>the charset declared by the {@code Content-Type} header of the response;</li>
+ *   <li>a {@code <meta charset>} or {@code <meta http-equiv="Content-Type">} tag within the first
+ *   {@value #PRESCAN_LENGTH} bytes;</li>
+ *   <li>UTF-8 otherwise.</li>
+ * </ol>
+ */
+@Slf4j
+final class CharsetDetector {
+
+    /**
+     * Number of bytes searched for a {@code <meta>} charset declaration.
+     */
+    static final int PRESCAN_LENGTH = 1024;
+
+    private static final Pattern META_CHARSET = Pattern.compile(
+            "<meta\\s[^>]*?charset\\s*=\\s*[\"']?\\s*([a-z0-9._:-]+)", Pattern.CASE_INSENSITIVE);
+
+    private CharsetDetector() {
+    }
+
+    /**
+     * Detects the charset of the document at the current position of {@code in}. The stream is left positioned
+     * after the byte order mark, if any, or unchanged otherwise.
+     *
+     * @param in              the document; must support {@link BufferedInputStream#mark(int)}.
+     * @param declaredCharset the charset declared by the transport, or {@code null} if none.
+     * @return the detected charset.
+     * @throws IOException if reading the first bytes fails.
+     */
+    static Charset detect(BufferedInputStream in, String declaredCharset) throws IOException {
+        Optional<Charset> byteOrderMark = byteOrderMark(peek(in, 3));
+        if (byteOrderMark.isPresent()) {
+            in.skipNBytes(byteOrderMarkLength(byteOrderMark.get()));
+            log.trace("Detected charset {} from byte order mark", byteOrderMark.get());
+            return byteOrderMark.get();
+        }
+
+        Optional<Charset> declared = forName(declaredCharset);
+        if (declared.isPresent()) {
+            return declared.get();
+        }
+
+        // Only wait for the first kilobyte of a slowly served document if the transport declared no charset
+        Matcher meta = META_CHARSET.matcher(new String(peek(in, PRESCAN_LENGTH), StandardCharsets.ISO_8859_1));
+        if (meta.find()) {
+            Optional<Charset> metaCharset = forName(meta.group(1));
+            if (metaCharset.isPresent()) {
+                log.trace("Detected charset {} from meta tag", metaCharset.get());
+                // A document read as ASCII-compatible bytes cannot actually be UTF-16
+                return metaCharset.get().name().startsWith("UTF-16") ? StandardCharsets.UTF_8 : metaCharset.get();
+            }
+        }
+
+        return StandardCharsets.UTF_8;
+    }
+
+    private static byte[] peek(BufferedInputStream in, int length) throws IOException {
+        in.mark(length);
+        byte[] head = in.readNBytes(length);
+        in.reset();
+        return head;
+    }
+
+    /**
+     * Detects a byte order mark at the start of the given bytes.
+     *
+     * @param head the first bytes of the document, at least three if it has as many.
+     * @return the charset of the byte order mark, or an empty {@code Optional} if there is none.
+     */
+    static Optional<Charset> byteOrderMark(byte[] head) {
+        if (head.length >= 3 && (head[0] & 0xFF) == 0xEF && (head[1] & 0xFF) == 0xBB && (head[2] & 0xFF) == 0xBF) {
+            return Optional.of(StandardCharsets.UTF_8);
+        }
+        if (head.length >= 2 && (head[0] & 0xFF) == 0xFE && (head[1] & 0xFF) == 0xFF) {
+            return Optional.of(StandardCharsets.UTF_16BE);
+        }
+        if (head.length >= 2 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xFE) {
+            return Optional.of(StandardCharsets.UTF_16LE);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the length of the byte order mark of a charset returned by {@link #byteOrderMark(byte[])}.
+     */
+    static int byteOrderMarkLength(Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8) ? 3 : 2;
+    }
+
+    private static Optional<Charset> forName(String charsetName) {
+        if (charsetName == null || charsetName.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Charset.forName(charsetName.strip()));
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring unsupported charset {}", charsetName);
+            return Optional.empty();
+        }
+    }
+}
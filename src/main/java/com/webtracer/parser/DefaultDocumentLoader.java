@@ -1,16 +1,24 @@
 package com.webtracer.parser;
 
 import com.webtracer.ApiException;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Connection;
 import org.jsoup.Jsoup;
+import org.jsoup.UnsupportedMimeTypeException;
 import org.jsoup.nodes.Document;
+import org.jsoup.nodes.TextNode;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Optional;
@@ -21,6 +29,22 @@ import java.util.Optional;
  * library to parse the content into a {@link Document} object and applies a configurable timeout for remote URIs.
  * This class is designed to handle different types of URIs, ensuring robust and flexible document loading
  * capabilities.
+ *
+ * <p>Remote responses are checked from their headers before their body is read: responses whose
+ * {@code Content-Type} cannot be parsed, or whose {@code Content-Length} exceeds the maximum body size, are
+ * abandoned without downloading them. The loader learns which hosts and path prefixes served non-HTML content and
+ * skips further URLs under them without a request.</p>
+ *
+ * <p>Remote responses declared as {@code text/plain} or {@code text/markdown} are not parsed as HTML: their text is
+ * wrapped in a document with a single text node. {@link #openDocumentStream(URI)} passes the declared
+ * {@code Content-Type} on, so that streaming parsers can choose a tokenizer for the {@link PageFormat}.</p>
+ *
+ * <p>With an {@link HttpResponseCache}, remote documents are served from the cache while their {@code max-age}
+ * lasts, and otherwise requested conditionally with the {@code ETag} and {@code Last-Modified} of the cached
+ * response, so that an unchanged document is answered with {@code 304 Not Modified} and read from the cache.</p>
+ *
+ * <p>Local files are read with a single {@link java.nio.channels.FileChannel} into a buffer reused by each thread,
+ * or mapped into memory if they are large, and decoded straight from that buffer; see {@link LocalFileContent}.</p>
  */
 @Getter
 @Slf4j
@@ -33,21 +57,77 @@ public final class DefaultDocumentLoader implements DocumentLoader {
     private final Duration parseTimeout;
 
     /**
-     * Constructs a new {@code DefaultDocumentLoader} with the specified timeout for parsing remote documents.
+     * The maximum number of bytes read from a document, or {@code 0} for no limit. Longer documents are truncated
+     * while they are read, so that an oversized response is never buffered in full.
+     */
+    private final long maxBodySize;
+
+    /**
+     * Default value of {@link #getMaxBodySize()}: 64 MiB.
+     */
+    public static final long DEFAULT_MAX_BODY_SIZE = 64L << 20;
+
+    private static final int HTTP_NOT_MODIFIED = 304;
+
+    /**
+     * The URLs learned to serve non-HTML content, shared by all requests of this loader.
+     */
+    @Getter(AccessLevel.NONE)
+    private final NonHtmlUrlRegistry nonHtmlUrls = new NonHtmlUrlRegistry();
+
+    /**
+     * The cache of remote responses, or {@code null} if responses are not cached.
+     */
+    private final HttpResponseCache responseCache;
+
+    /**
+     * Constructs a new {@code DefaultDocumentLoader} with the specified timeout for parsing remote documents and
+     * the default maximum body size.
      *
      * @param parseTimeout the maximum duration allowed for loading and parsing a remote document.
      */
     public DefaultDocumentLoader(Duration parseTimeout) {
+        this(parseTimeout, DEFAULT_MAX_BODY_SIZE);
+    }
+
+    /**
+     * Constructs a new {@code DefaultDocumentLoader} with the specified timeout for parsing remote documents and
+     * maximum body size.
+     *
+     * @param parseTimeout the maximum duration allowed for loading and parsing a remote document.
+     * @param maxBodySize  the maximum number of bytes read from a document, or {@code 0} for no limit.
+     * @throws IllegalArgumentException if {@code maxBodySize} is negative.
+     */
+    public DefaultDocumentLoader(Duration parseTimeout, long maxBodySize) {
+        this(parseTimeout, maxBodySize, null);
+    }
+
+    /**
+     * Constructs a new {@code DefaultDocumentLoader} that serves remote documents from the given cache when they
+     * have not been modified.
+     *
+     * @param parseTimeout  the maximum duration allowed for loading and parsing a remote document.
+     * @param maxBodySize   the maximum number of bytes read from a document, or {@code 0} for no limit.
+     * @param responseCache the cache of remote responses, or {@code null} to download every document.
+     * @throws IllegalArgumentException if {@code maxBodySize} is negative.
+     */
+    public DefaultDocumentLoader(Duration parseTimeout, long maxBodySize, HttpResponseCache responseCache) {
+        if (maxBodySize < 0) {
+            throw new IllegalArgumentException("maxBodySize must not be negative: " + maxBodySize);
+        }
         this.parseTimeout = parseTimeout;
+        this.maxBodySize = maxBodySize;
+        this.responseCache = responseCache;
     }
 
     /**
      * Loads a JSoup {@link Document} from the given {@link URI}.
      *
      * This method attempts to retrieve and parse the document located at the specified URI.
-     * It handles both local files and remote URLs. If the document cannot be loaded for any reason,
-     * an {@link ApiException} is thrown. The exception is propagated up the call stack and should be
-     * handled by the calling layer.
+     * It handles both local files and remote URLs. At most {@link #getMaxBodySize()} bytes are read; a document
+     * parsed from a truncated body is {@linkplain DocumentLoader#markTruncated(Document) marked} as such.
+     * If the document cannot be loaded for any reason, an {@link ApiException} is thrown. The exception is
+     * propagated up the call stack and should be handled by the calling layer.
      *
      * @param uri the {@link URI} of the document to be loaded.
      * @return an {@link Optional<Document>} containing the parsed document if successful.
@@ -60,21 +140,30 @@ public final class DefaultDocumentLoader implements DocumentLoader {
         try {
             if (isLocalUri(uri)) {
                 log.debug("The URI {} is identified as a local file URI", uri);
-                Path path = Path.of(uri.getPath());
+                Path path = localPath(uri);
 
-                if (!Files.exists(path)) {
-                    log.error("Local file does not exist: {}", path);
-                    throw new ApiException("Invalid URL: Local file does not exist");
+                try (LocalFileContent content = readLocal(path)) {
+                    if (content != null) {
+                        log.debug("Successfully loaded local file: {}", path);
+                        return Optional.of(parseLocal(content));
+                    }
                 }
-
-                try (InputStream in = Files.newInputStream(path)) {
+                try (LimitedInputStream in = new LimitedInputStream(Files.newInputStream(path), maxBodySize)) {
                     log.debug("Successfully loaded local file: {}", path);
-                    return Optional.of(Jsoup.parse(in, StandardCharsets.UTF_8.name(), ""));
+                    return Optional.of(parse(in, StandardCharsets.UTF_8.name(), ""));
                 }
 
             } else {
                 log.debug("The URI {} is identified as a remote URL", uri);
-                return Optional.of(Jsoup.parse(uri.toURL(), (int) parseTimeout.toMillis()));
+                RemoteDocument document = openRemote(uri);
+                try (LimitedInputStream in = new LimitedInputStream(document.body(), maxBodySize)) {
+                    boolean plainText = PageFormat.fromContentType(document.contentType())
+                            .map(PageFormat::isPlainText)
+                            .orElse(false);
+                    return Optional.of(plainText
+                                               ? parsePlainText(in, document.charset(), document.location())
+                                               : parse(in, document.charset(), document.location()));
+                }
             }
         } catch (IOException e) {
             log.error("Failed to load document from URI: {}", uri, e);
@@ -82,6 +171,247 @@ public final class DefaultDocumentLoader implements DocumentLoader {
         }
     }
 
+    /**
+     * Parses the content of a local file decoded straight from its buffer, in the charset of its byte order mark
+     * or as UTF-8, as JSoup decodes it when UTF-8 is given as the charset.
+     */
+    private Document parseLocal(LocalFileContent content) {
+        ByteBuffer bytes = content.content();
+        byte[] head = new byte[Math.min(3, bytes.remaining())];
+        bytes.get(head);
+        Optional<Charset> byteOrderMark = CharsetDetector.byteOrderMark(head);
+        Charset charset = byteOrderMark.orElse(StandardCharsets.UTF_8);
+        int skip = byteOrderMark.map(CharsetDetector::byteOrderMarkLength).orElse(0);
+
+        Document document = Jsoup.parse(content.decode(charset, skip), "");
+        if (content.isTruncated()) {
+            log.warn("Document exceeds the maximum body size of {} bytes and was truncated", maxBodySize);
+            DocumentLoader.markTruncated(document);
+        }
+        return document;
+    }
+
+    /**
+     * Parses an HTML document, marking it as truncated if the stream was.
+     */
+    static Document parse(LimitedInputStream in, String charsetName, String baseUri) throws IOException {
+        Document document = Jsoup.parse(in, charsetName, baseUri);
+        if (in.isTruncated()) {
+            DocumentLoader.markTruncated(document);
+        }
+        return document;
+    }
+
+    /**
+     * Wraps plain text in a document without parsing it as HTML, so that markup-like content such as {@code <b>}
+     * is counted as text and large text files do not pay for tree building.
+     */
+    static Document parsePlainText(LimitedInputStream in, String charsetName, String baseUri)
+            throws IOException {
+        Charset charset = charsetName == null ? StandardCharsets.UTF_8 : Charset.forName(charsetName);
+        Document document = Document.createShell(baseUri);
+        document.body().appendChild(new TextNode(new String(in.readAllBytes(), charset)));
+        if (in.isTruncated()) {
+            DocumentLoader.markTruncated(document);
+        }
+        return document;
+    }
+
+    /**
+     * Opens a remote document, from the response cache if it has not been modified.
+     */
+    private RemoteDocument openRemote(URI uri) throws IOException {
+        if (responseCache == null) {
+            Connection.Response response = execute(uri, null);
+            return new RemoteDocument(response.bodyStream(), response.charset(), response.contentType(),
+                                      response.url().toExternalForm());
+        }
+
+        HttpResponseCache.Entry cached = responseCache.get(uri.toString()).orElse(null);
+        if (cached != null && responseCache.isFresh(cached)) {
+            RemoteDocument document = openCached(cached);
+            if (document != null) {
+                log.debug("Serving {} from the response cache", uri);
+                responseCache.recordHit(cached);
+                return document;
+            }
+            cached = null;
+        }
+
+        Connection.Response response = execute(uri, cached);
+        Duration freshness = HttpResponseCache.freshness(response.header("Cache-Control"));
+        if (cached != null && response.statusCode() == HTTP_NOT_MODIFIED) {
+            RemoteDocument document = openCached(cached);
+            if (document != null) {
+                log.debug("{} has not been modified, serving it from the response cache", uri);
+                responseCache.recordRevalidation(cached, response.header("ETag"), response.header("Last-Modified"),
+                                                 freshness);
+                return document;
+            }
+            // The cached body was evicted meanwhile
+            response = execute(uri, null);
+            freshness = HttpResponseCache.freshness(response.header("Cache-Control"));
+        }
+
+        InputStream body = response.bodyStream();
+        if (freshness == null) {
+            responseCache.recordMiss();
+        } else {
+            HttpResponseCache.Entry metadata = HttpResponseCache.Entry.builder()
+                    .url(uri.toString())
+                    .location(response.url().toExternalForm())
+                    .contentType(response.contentType())
+                    .charset(response.charset())
+                    .etag(response.header("ETag"))
+                    .lastModified(response.header("Last-Modified"))
+                    .build();
+            body = responseCache.store(metadata, freshness, body);
+        }
+        return new RemoteDocument(body, response.charset(), response.contentType(),
+                                  response.url().toExternalForm());
+    }
+
+    private RemoteDocument openCached(HttpResponseCache.Entry cached) {
+        try {
+            return new RemoteDocument(responseCache.openBody(cached), cached.getCharset(), cached.getContentType(),
+                                      cached.getLocation());
+        } catch (IOException e) {
+            log.debug("Cached body of {} is no longer available", cached.getUrl(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Requests a remote document and checks the headers of the response, without reading its body.
+     *
+     * <p>If a cached response is given, the request is conditional on its validators, and may be answered with
+     * {@code 304 Not Modified} and no body.</p>
+     *
+     * <p>JSoup rejects content types it cannot parse before reading the body. The maximum body size is checked
+     * against the {@code Content-Length} header here and enforced again while the body is read, rather than by
+     * JSoup, which would silently truncate documents at its own default of 2 MB.</p>
+     *
+     * @throws ApiException if the URL is known to serve non-HTML content, or the declared length of the response
+     *                      exceeds the maximum body size.
+     */
+    private Connection.Response execute(URI uri, HttpResponseCache.Entry cached) throws IOException {
+        if (nonHtmlUrls.isKnownNonHtml(uri)) {
+            log.debug("Skipping {} without a request, as similar URLs served non-HTML content", uri);
+            throw new ApiException("Skipped URL of known non-HTML content: " + uri);
+        }
+
+        Connection.Response response;
+        try {
+            Connection connection = Jsoup.connect(uri.toString())
+                    .timeout((int) parseTimeout.toMillis())
+                    .maxBodySize(0);
+            if (cached != null && cached.getEtag() != null) {
+                connection.header("If-None-Match", cached.getEtag());
+            }
+            if (cached != null && cached.getLastModified() != null) {
+                connection.header("If-Modified-Since", cached.getLastModified());
+            }
+            response = connection.execute();
+        } catch (UnsupportedMimeTypeException e) {
+            log.info("Not downloading {} of type {}", uri, e.getMimeType());
+            nonHtmlUrls.recordNonHtml(uri, e.getMimeType());
+            throw e;
+        }
+        nonHtmlUrls.recordHtml(uri);
+
+        long contentLength = contentLength(response);
+        if (maxBodySize > 0 && contentLength > maxBodySize) {
+            log.warn("Not downloading {} of {} bytes, which exceeds the maximum body size of {} bytes", uri,
+                     contentLength, maxBodySize);
+            response.bodyStream().close();
+            throw new ApiException("Response exceeds the maximum body size: " + uri);
+        }
+        return response;
+    }
+
+    /**
+     * Returns the {@code Content-Length} declared by a response, or {@code -1} if none or an invalid one was declared.
+     */
+    private static long contentLength(Connection.Response response) {
+        String contentLength = response.header("Content-Length");
+        if (contentLength == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(contentLength.strip());
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring invalid Content-Length: {}", contentLength);
+            return -1;
+        }
+    }
+
+    /**
+     * Opens the document located at the given {@link URI} for reading, without parsing it.
+     *
+     * At most {@link #getMaxBodySize()} bytes are read. Remote documents are requested with the configured
+     * timeout, and the charset declared in their
+     * {@code Content-Type} header is passed on to the {@link DocumentStream}, which also detects byte order marks
+     * and {@code <meta>} charset declarations. The location of a remote document is the URL it was served from
+     * after redirects.
+     *
+     * @param uri the {@link URI} of the document to be opened.
+     * @return a {@link DocumentStream} reading the content of the document.
+     * @throws ApiException if the document cannot be opened due to an error (e.g., I/O error, invalid URI).
+     */
+    @Override
+    public DocumentStream openDocumentStream(URI uri) throws ApiException {
+        log.debug("Attempting to open document stream from URI: {}", uri);
+
+        try {
+            if (isLocalUri(uri)) {
+                Path path = localPath(uri);
+                LocalFileContent content = readLocal(path);
+                log.debug("Opened local file: {}", path);
+                return new DocumentStream(content == null ? Files.newInputStream(path) : content.stream(), null, uri,
+                                          maxBodySize);
+            }
+
+            RemoteDocument document = openRemote(uri);
+            log.debug("Opened remote document {} with declared charset {}", document.location(),
+                      document.charset());
+            return new DocumentStream(document.body(), document.charset(), new URI(document.location()),
+                                      maxBodySize, document.contentType());
+        } catch (IOException | URISyntaxException e) {
+            log.error("Failed to open document stream from URI: {}", uri, e);
+            throw new ApiException("Invalid URL", e);
+        }
+    }
+
+    private static Path localPath(URI uri) {
+        return Path.of(uri.getPath());
+    }
+
+    /**
+     * Reads a local file with a single channel, without checking whether it exists beforehand.
+     *
+     * @return the content of the file, or {@code null} if it is too large to be read at once and must be streamed.
+     * @throws ApiException if the file does not exist.
+     */
+    private LocalFileContent readLocal(Path path) throws ApiException, IOException {
+        try {
+            return LocalFileContent.read(path, maxBodySize);
+        } catch (NoSuchFileException e) {
+            log.error("Local file does not exist: {}", path);
+            throw new ApiException("Invalid URL: Local file does not exist");
+        }
+    }
+
+    /**
+     * The body and metadata of a remote document, downloaded or cached.
+     *
+     * @param body        the undecoded content of the document.
+     * @param charset     the charset declared in the {@code Content-Type}, or {@code null}.
+     * @param contentType the declared {@code Content-Type}, or {@code null}.
+     * @param location    the URL the document was served from, after following redirects.
+     */
+    private record RemoteDocument(InputStream body, String charset, String contentType, String location) {
+    }
+
     /**
      * Determines whether the given URI is a local file URI.
      *
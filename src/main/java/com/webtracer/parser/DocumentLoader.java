@@ -1,6 +1,7 @@
 package com.webtracer.parser;
 
 import com.webtracer.ApiException;
+import org.jsoup.nodes.Attributes;
 import org.jsoup.nodes.Document;
 
 import java.net.URI;
@@ -21,6 +22,11 @@ import java.util.Optional;
  */
 public interface DocumentLoader {
 
+    /**
+     * Key of the user data marking a {@link Document} that was parsed from a truncated body.
+     */
+    String TRUNCATED_USER_DATA_KEY = "webtracer.truncated";
+
     /**
      * Loads a JSoup {@link Document} from the given {@link URI}.
      * <p>
@@ -38,4 +44,41 @@ public interface DocumentLoader {
      */
     Optional<Document> loadDocument(URI uri) throws ApiException;
 
-}
\ No newline at end of file
+    /**
+     * Opens the document located at the given {@link URI} for reading, without parsing it.
+     * <p>
+     * This method is used by parsers in {@link ParseMode#STREAMING} mode, which read the document as it
+     * arrives instead of building a JSoup {@link Document}. The caller must close the returned stream.
+     * <p>
+     * Loaders that cannot stream documents keep the default implementation, which throws an
+     * {@link ApiException}.
+     *
+     * @param uri the {@link URI} of the document to be opened
+     * @return a {@link DocumentStream} reading the content of the document
+     * @throws ApiException if the document cannot be opened or streaming is not supported
+     */
+    default DocumentStream openDocumentStream(URI uri) throws ApiException {
+        throw new ApiException("Streaming is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Marks a document as parsed from a body that was truncated, e.g. because it exceeded the maximum body size.
+     *
+     * @param document the truncated document
+     */
+    static void markTruncated(Document document) {
+        document.attributes().userData(TRUNCATED_USER_DATA_KEY, Boolean.TRUE);
+    }
+
+    /**
+     * Checks whether a document was {@linkplain #markTruncated(Document) marked} as truncated by its loader.
+     *
+     * @param document the loaded document
+     * @return {@code true} if the document only holds a prefix of the loaded content
+     */
+    static boolean isTruncated(Document document) {
+        Attributes attributes = document.attributes();
+        return attributes != null && Boolean.TRUE.equals(attributes.userData(TRUNCATED_USER_DATA_KEY));
+    }
+
+}
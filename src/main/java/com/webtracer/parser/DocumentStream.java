@@ -0,0 +1,172 @@
+package com.webtracer.parser;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The {@code DocumentStream} class is an open, not yet parsed document returned by
+ * {@link DocumentLoader#openDocumentStream(URI)}.
+ *
+ * <p>The content can be read either as raw bytes with {@link #getBody()}, or decoded with {@link #getReader()}.
+ * Both are positioned after the byte order mark, if any; only one of them may be read. The stream must be closed
+ * once it has been read.</p>
+ *
+ * <p>A stream created with a maximum body size ends after that many bytes; {@link #isTruncated()} then tells
+ * whether the document had more content.</p>
+ */
+public final class DocumentStream implements AutoCloseable {
+
+    private final LimitedInputStream limitedBody;
+
+    private BufferedInputStream body;
+
+    private final String declaredCharset;
+
+    /**
+     * The location the document was loaded from, after following redirects. Relative links of a remote
+     * document are resolved against this location unless the document declares a {@code <base href>}.
+     */
+    @Getter
+    private final URI location;
+
+    /**
+     * The {@code Content-Type} declared by the transport, or {@code null} if none was declared, e.g. for local
+     * files.
+     */
+    @Getter
+    private final String contentType;
+
+    private Charset charset;
+
+    /**
+     * Creates a stream over the given document content.
+     *
+     * @param body            the undecoded content of the document.
+     * @param declaredCharset the charset declared by the transport, e.g. in a {@code Content-Type} header, or
+     *                        {@code null} if none was declared.
+     * @param location        the location the document was loaded from.
+     */
+    public DocumentStream(@NonNull InputStream body, String declaredCharset, @NonNull URI location) {
+        this(body, declaredCharset, location, 0);
+    }
+
+    /**
+     * Creates a stream over at most {@code maxBodySize} bytes of the given document content.
+     *
+     * @param body            the undecoded content of the document.
+     * @param declaredCharset the charset declared by the transport, e.g. in a {@code Content-Type} header, or
+     *                        {@code null} if none was declared.
+     * @param location        the location the document was loaded from.
+     * @param maxBodySize     the maximum number of bytes read from {@code body}, or {@code 0} for no limit.
+     */
+    public DocumentStream(@NonNull InputStream body, String declaredCharset, @NonNull URI location,
+                          long maxBodySize) {
+        this(body, declaredCharset, location, maxBodySize, null);
+    }
+
+    /**
+     * Creates a stream over at most {@code maxBodySize} bytes of the given document content of a declared type.
+     *
+     * @param body            the undecoded content of the document.
+     * @param declaredCharset the charset declared by the transport, e.g. in a {@code Content-Type} header, or
+     *                        {@code null} if none was declared.
+     * @param location        the location the document was loaded from.
+     * @param maxBodySize     the maximum number of bytes read from {@code body}, or {@code 0} for no limit.
+     * @param contentType     the {@code Content-Type} declared by the transport, or {@code null} if none was
+     *                        declared.
+     */
+    public DocumentStream(@NonNull InputStream body, String declaredCharset, @NonNull URI location,
+                          long maxBodySize, String contentType) {
+        this.contentType = contentType;
+        this.limitedBody = new LimitedInputStream(body, maxBodySize);
+        this.body = new BufferedInputStream(limitedBody);
+        this.declaredCharset = declaredCharset;
+        this.location = location;
+    }
+
+    /**
+     * Checks whether the document had more content than the maximum body size. Only meaningful once the stream
+     * has been read to its end.
+     *
+     * @return {@code true} if the content read is a truncated prefix of the document.
+     */
+    public boolean isTruncated() {
+        return limitedBody.isTruncated();
+    }
+
+    /**
+     * Returns the charset of the document, detected from its byte order mark, its declared charset or its
+     * {@code <meta>} tags, in that order, and UTF-8 otherwise.
+     *
+     * @return the charset of the document.
+     * @throws IOException if reading the start of the document fails.
+     */
+    public Charset getCharset() throws IOException {
+        if (charset == null) {
+            charset = CharsetDetector.detect(body, declaredCharset);
+        }
+        return charset;
+    }
+
+    /**
+     * Checks whether the content of the document is valid UTF-8, i.e. whether its charset is UTF-8 or US-ASCII.
+     *
+     * @return {@code true} if {@link #getBody()} returns UTF-8 bytes.
+     * @throws IOException if reading the start of the document fails.
+     */
+    public boolean isUtf8() throws IOException {
+        Charset detected = getCharset();
+        return detected.equals(StandardCharsets.UTF_8) || detected.equals(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Returns the undecoded content of the document, positioned after the byte order mark.
+     *
+     * @return the content of the document.
+     * @throws IOException if reading the start of the document fails.
+     */
+    public InputStream getBody() throws IOException {
+        getCharset();
+        return body;
+    }
+
+    /**
+     * Returns the content of the document decoded with its {@linkplain #getCharset() charset}.
+     *
+     * @return a reader over the content of the document.
+     * @throws IOException if reading the start of the document fails.
+     */
+    public Reader getReader() throws IOException {
+        return new InputStreamReader(body, getCharset());
+    }
+
+    /**
+     * Reads the rest of the document into memory, e.g. to hash it before it is parsed. Later reads of the body or
+     * the reader return the buffered content again.
+     *
+     * @return the content of the document after the byte order mark, which must not be modified.
+     * @throws IOException if reading the document fails.
+     */
+    public byte[] buffer() throws IOException {
+        getCharset();
+        byte[] content = body.readAllBytes();
+        body.close();
+        body = new BufferedInputStream(new ByteArrayInputStream(content));
+        return content;
+    }
+
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+}
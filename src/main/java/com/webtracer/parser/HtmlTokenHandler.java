@@ -0,0 +1,47 @@
+package com.webtracer.parser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * The {@code HtmlTokenHandler} interface receives the events reported by a {@link StreamingHtmlTokenizer}.
+ *
+ * <p>Events are reported in document order on the thread that runs the tokenizer.</p>
+ */
+public interface HtmlTokenHandler {
+
+    /**
+     * Receives a run of character data with character references already decoded.
+     *
+     * <p>A run ends at the next tag or comment, so words never span two runs. Long runs may be reported in several
+     * chunks, which are always split at whitespace.</p>
+     *
+     * @param text the character data; never empty.
+     */
+    void text(String text);
+
+    /**
+     * Receives a run of character data read from UTF-8 input that contains no character references, without
+     * decoding it. The same rules as for {@link #text(String)} apply; in particular runs are only ever split at
+     * ASCII whitespace, never inside a multi-byte sequence.
+     *
+     * <p>The array is reused by the tokenizer and is only valid during the call. The default implementation
+     * decodes the bytes and calls {@link #text(String)}.</p>
+     *
+     * @param utf8   the buffer holding the character data.
+     * @param offset the index of the first byte of the run.
+     * @param length the number of bytes of the run; never {@code 0}.
+     */
+    default void text(byte[] utf8, int offset, int length) {
+        text(new String(utf8, offset, length, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Receives a start tag.
+     *
+     * @param name       the lower-case name of the tag.
+     * @param attributes the attributes of the tag, keyed by lower-case name, with character references decoded.
+     *                   Only the first occurrence of a repeated attribute is kept.
+     */
+    void startTag(String name, Map<String, String> attributes);
+}
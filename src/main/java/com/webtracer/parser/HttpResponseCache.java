@@ -0,0 +1,729 @@
+package com.webtracer.parser;
+
+import com.webtracer.AppendOnlyLog;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The {@code HttpResponseCache} class keeps the bodies of remote documents on disk between crawls, so that a page
+ * that has not changed since the last crawl is not downloaded again.
+ *
+ * <p>Bodies are stored in a content-addressed directory, one file per distinct body named by its SHA-256 digest,
+ * so that URLs serving the same content share a file. The index maps each URL to its body and to the validators
+ * of the response, {@code ETag} and {@code Last-Modified}, which {@link DefaultDocumentLoader} sends back in a
+ * conditional request; a {@code 304 Not Modified} answer is served from the stored body. Responses whose
+ * {@code Cache-Control} grants a {@code max-age} are served without a request until they expire, and responses
+ * marked {@code no-store} are not kept.</p>
+ *
+ * <p>The index is an {@link AppendOnlyLog} of the entries, replayed when the cache is opened, the last record of a
+ * URL replacing the earlier ones. The total size of the stored bodies is bounded: once it exceeds the maximum size,
+ * the least recently used URLs are evicted. Serving a response from the cache only moves it to the most recently
+ * used end in memory; the index is not written on reads, and the order of use is persisted by rewriting the index
+ * in that order when the cache is closed after serving a hit, or when it is reopened holding more than twice as
+ * many records as entries. A crash loses the order of the hits since the cache was opened, not the entries.</p>
+ *
+ * <p>The cache counts the documents it served from its store without a request (hits), after a conditional
+ * request (revalidations) and those it had to download (misses), and logs the ratios when it is closed.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ */
+@Slf4j
+public final class HttpResponseCache implements Closeable {
+
+    /**
+     * Default maximum total size of the stored bodies: 1 GiB.
+     */
+    public static final long DEFAULT_MAX_SIZE = 1L << 30;
+
+    private static final String INDEX_FILE = "index";
+
+    private static final String BODIES_DIRECTORY = "bodies";
+
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private static final int MAGIC = 0x57544843;
+
+    private static final int VERSION = 1;
+
+    private static final int MAX_RECORD_SIZE = 1024 * 1024;
+
+    private static final byte PUT = 1;
+
+    private static final byte REMOVE = 2;
+
+    private final Path bodies;
+
+    private final long maxSize;
+
+    private final Clock clock;
+
+    private final AppendOnlyLog index;
+
+    /**
+     * Entries by URL, the least recently used first.
+     */
+    private final LinkedHashMap<String, Entry> entries;
+
+    /**
+     * Number of entries referring to each stored body.
+     */
+    private final Map<String, Integer> bodyReferences = new HashMap<>();
+
+    private long size;
+
+    private long hits;
+
+    private long revalidations;
+
+    private long misses;
+
+    /**
+     * Whether entries were used since the index was last written in the order of use.
+     */
+    private boolean accessOrderChanged;
+
+    private HttpResponseCache(Path directory, long maxSize, Clock clock, AppendOnlyLog index,
+                              LinkedHashMap<String, Entry> entries) throws IOException {
+        this.bodies = directory.resolve(BODIES_DIRECTORY);
+        this.maxSize = maxSize;
+        this.clock = clock;
+        this.index = index;
+        this.entries = entries;
+
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (Files.exists(bodyPath(entry.getBodyHash()))) {
+                reference(entry);
+            } else {
+                log.debug("Dropping cached response of {} whose body is missing", entry.getUrl());
+                iterator.remove();
+            }
+        }
+        deleteUnreferencedBodies();
+    }
+
+    /**
+     * Opens the cache kept in the given directory, creating the directory if it does not exist.
+     *
+     * @param directory the directory of the cache.
+     * @param maxSize   the maximum total size of the stored bodies, in bytes.
+     * @return the opened cache.
+     * @throws IOException if the directory cannot be read or written.
+     */
+    public static HttpResponseCache open(@NonNull Path directory, long maxSize) throws IOException {
+        return open(directory, maxSize, Clock.systemUTC());
+    }
+
+    static HttpResponseCache open(@NonNull Path directory, long maxSize, @NonNull Clock clock) throws IOException {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        Files.createDirectories(directory.resolve(BODIES_DIRECTORY));
+        Path indexFile = directory.resolve(INDEX_FILE);
+
+        LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        byte[] header = ByteBuffer.allocate(Integer.BYTES * 2).putInt(MAGIC).putInt(VERSION).array();
+        AppendOnlyLog index = AppendOnlyLog.open(indexFile, "HTTP response cache index", header, MAX_RECORD_SIZE,
+                                                 payload -> read(payload, entries));
+        try {
+            if (index.needsCompaction(entries.size())) {
+                index.compact(entries.values(), HttpResponseCache::encode);
+            }
+        } catch (IOException e) {
+            index.close();
+            throw e;
+        }
+        HttpResponseCache cache = new HttpResponseCache(directory, maxSize, clock, index, entries);
+        log.info("Opened HTTP response cache {} with {} URLs and {} bytes of bodies", directory, entries.size(),
+                 cache.size);
+        return cache;
+    }
+
+    /**
+     * Returns the cached response of the given URL, marking it as the most recently used.
+     *
+     * @param url the requested URL.
+     * @return the cached response, or empty if none is cached.
+     */
+    synchronized Optional<Entry> get(@NonNull String url) {
+        return Optional.ofNullable(entries.get(url));
+    }
+
+    /**
+     * Checks whether a cached response may be served without asking the server.
+     *
+     * @param entry the cached response.
+     * @return {@code true} if the freshness lifetime the server granted the response has not passed.
+     */
+    boolean isFresh(@NonNull Entry entry) {
+        return entry.getFreshUntil() != null && clock.instant().isBefore(entry.getFreshUntil());
+    }
+
+    /**
+     * Opens the stored body of a cached response.
+     *
+     * @param entry the cached response.
+     * @return the body, which the caller closes.
+     * @throws IOException if the body was evicted or cannot be read.
+     */
+    InputStream openBody(@NonNull Entry entry) throws IOException {
+        return Files.newInputStream(bodyPath(entry.getBodyHash()));
+    }
+
+    /**
+     * Records that a cached response was served without a request.
+     *
+     * @param entry the served response.
+     */
+    synchronized void recordHit(@NonNull Entry entry) {
+        hits++;
+        if (entries.get(entry.getUrl()) == entry) {
+            accessOrderChanged = true;
+        }
+    }
+
+    /**
+     * Records that the server confirmed a cached response is still valid, updating its validators.
+     *
+     * @param entry        the cached response.
+     * @param etag         the entity tag sent with the confirmation, or {@code null} to keep the cached one.
+     * @param lastModified the modification date sent with the confirmation, or {@code null} to keep the cached
+     *                     one.
+     * @param freshness    the freshness lifetime granted by the confirmation, or {@code null} for none.
+     */
+    synchronized void recordRevalidation(@NonNull Entry entry, String etag, String lastModified,
+                                         Duration freshness) {
+        revalidations++;
+        if (entries.get(entry.getUrl()) != entry) {
+            return;
+        }
+        Entry revalidated = entry.toBuilder()
+                .etag(etag == null ? entry.getEtag() : etag)
+                .lastModified(lastModified == null ? entry.getLastModified() : lastModified)
+                .freshUntil(freshness == null ? null : clock.instant().plus(freshness))
+                .build();
+        entries.put(entry.getUrl(), revalidated);
+        append(revalidated);
+    }
+
+    /**
+     * Records that a response was downloaded in full, and stores its body as it is read.
+     *
+     * <p>The body is stored once the returned stream has been read to its end and closed; a body that is only
+     * partly read, e.g. because it was truncated, is not stored.</p>
+     *
+     * @param response  the metadata of the response; its body hash and size are ignored.
+     * @param freshness the freshness lifetime granted by the response, or {@code null} for none.
+     * @param body      the body of the response.
+     * @return a stream reading the body, which the caller closes.
+     */
+    InputStream store(@NonNull Entry response, Duration freshness, @NonNull InputStream body) {
+        synchronized (this) {
+            misses++;
+        }
+        Entry metadata = response.toBuilder()
+                .freshUntil(freshness == null ? null : clock.instant().plus(freshness))
+                .build();
+        try {
+            Path temporary = Files.createTempFile(bodies, "body", TEMPORARY_SUFFIX);
+            return new StoringInputStream(body, metadata, temporary);
+        } catch (IOException e) {
+            log.warn("Failed to cache the response of {}", response.getUrl(), e);
+            return body;
+        }
+    }
+
+    /**
+     * Records that a response was downloaded in full without being stored.
+     */
+    synchronized void recordMiss() {
+        misses++;
+    }
+
+    /**
+     * Returns how many documents were served from the cache and downloaded since it was opened.
+     *
+     * @return the statistics of the cache.
+     */
+    public synchronized Stats getStats() {
+        return new Stats(hits, revalidations, misses);
+    }
+
+    /**
+     * Returns the number of cached URLs.
+     *
+     * @return the number of entries.
+     */
+    synchronized int entryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the total size of the stored bodies.
+     *
+     * @return the size in bytes.
+     */
+    synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Parses the {@code Cache-Control} header of a response.
+     *
+     * @param cacheControl the header value, or {@code null}.
+     * @return the freshness lifetime granted by {@code max-age}, {@link Duration#ZERO} if the response must be
+     * revalidated before each use, or {@code null} if it must not be stored.
+     */
+    static Duration freshness(String cacheControl) {
+        if (cacheControl == null) {
+            return Duration.ZERO;
+        }
+        Duration freshness = Duration.ZERO;
+        boolean noCache = false;
+        for (String directive : cacheControl.toLowerCase(Locale.ROOT).split(",")) {
+            directive = directive.strip();
+            if (directive.equals("no-store")) {
+                return null;
+            } else if (directive.equals("no-cache")) {
+                noCache = true;
+            } else if (directive.startsWith("max-age=")) {
+                try {
+                    freshness = Duration.ofSeconds(Math.max(0, Long.parseLong(
+                            directive.substring("max-age=".length()).replace("\"", ""))));
+                } catch (NumberFormatException e) {
+                    log.debug("Ignoring invalid Cache-Control max-age: {}", directive);
+                }
+            }
+        }
+        return noCache ? Duration.ZERO : freshness;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!index.isOpen()) {
+            return;
+        }
+        try {
+            if (accessOrderChanged) {
+                index.compact(entries.values(), HttpResponseCache::encode);
+            }
+        } finally {
+            index.close();
+        }
+        Stats stats = getStats();
+        if (stats.getRequests() > 0) {
+            log.info("HTTP response cache: {} documents, {} hits ({}%), {} revalidated ({}%), {} misses ({}%)",
+                     stats.getRequests(), stats.getHits(), percent(stats.getHitRatio()), stats.getRevalidations(),
+                     percent(stats.getRevalidationRatio()), stats.getMisses(), percent(stats.getMissRatio()));
+        }
+    }
+
+    private static String percent(double ratio) {
+        return String.format(Locale.ROOT, "%.1f", ratio * 100);
+    }
+
+    /**
+     * Adds a downloaded body to the store and its entry to the index, evicting the least recently used entries
+     * if the cache grows too large.
+     */
+    private synchronized void commit(Entry entry, Path temporary) throws IOException {
+        if (!index.isOpen() || entry.getBodySize() > maxSize) {
+            Files.deleteIfExists(temporary);
+            return;
+        }
+        Path body = bodyPath(entry.getBodyHash());
+        if (bodyReferences.containsKey(entry.getBodyHash())) {
+            Files.deleteIfExists(temporary);
+        } else {
+            Files.move(temporary, body, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        Entry replaced = entries.put(entry.getUrl(), entry);
+        reference(entry);
+        if (replaced != null) {
+            release(replaced);
+        }
+        append(entry);
+
+        Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+        while (size > maxSize && leastRecentlyUsed.hasNext()) {
+            Entry evicted = leastRecentlyUsed.next();
+            if (evicted == entry) {
+                continue;
+            }
+            leastRecentlyUsed.remove();
+            release(evicted);
+            appendRemoval(evicted.getUrl());
+            log.debug("Evicted the cached response of {}", evicted.getUrl());
+        }
+    }
+
+    private void reference(Entry entry) {
+        if (bodyReferences.merge(entry.getBodyHash(), 1, Integer::sum) == 1) {
+            size += entry.getBodySize();
+        }
+    }
+
+    private void release(Entry entry) {
+        if (bodyReferences.merge(entry.getBodyHash(), -1, Integer::sum) > 0) {
+            return;
+        }
+        bodyReferences.remove(entry.getBodyHash());
+        size -= entry.getBodySize();
+        try {
+            Files.deleteIfExists(bodyPath(entry.getBodyHash()));
+        } catch (IOException e) {
+            log.warn("Failed to delete cached body {}", entry.getBodyHash(), e);
+        }
+    }
+
+    private void deleteUnreferencedBodies() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(bodies)) {
+            for (Path file : files) {
+                if (!bodyReferences.containsKey(file.getFileName().toString())) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private Path bodyPath(String bodyHash) {
+        return bodies.resolve(bodyHash);
+    }
+
+    private void append(Entry entry) {
+        write(encode(entry));
+    }
+
+    private void appendRemoval(String url) {
+        byte[] encodedUrl = url.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(1 + Integer.BYTES + encodedUrl.length);
+        payload.put(REMOVE);
+        AppendOnlyLog.putString(payload, encodedUrl);
+        write(payload.array());
+    }
+
+    private void write(byte[] payload) {
+        try {
+            index.append(payload);
+        } catch (IOException e) {
+            log.warn("Failed to update the HTTP response cache index", e);
+        }
+    }
+
+    private static byte[] encode(Entry entry) {
+        byte[][] strings = {
+                entry.getUrl().getBytes(StandardCharsets.UTF_8),
+                entry.getLocation().getBytes(StandardCharsets.UTF_8),
+                orEmpty(entry.getContentType()),
+                orEmpty(entry.getCharset()),
+                orEmpty(entry.getEtag()),
+                orEmpty(entry.getLastModified()),
+                entry.getBodyHash().getBytes(StandardCharsets.UTF_8)
+        };
+        int payloadSize = 1 + Long.BYTES * 2;
+        for (byte[] string : strings) {
+            payloadSize += Integer.BYTES + string.length;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(payloadSize);
+        payload.put(PUT);
+        for (byte[] string : strings) {
+            AppendOnlyLog.putString(payload, string);
+        }
+        payload.putLong(entry.getBodySize());
+        payload.putLong(entry.getFreshUntil() == null ? Long.MIN_VALUE : entry.getFreshUntil().toEpochMilli());
+        return payload.array();
+    }
+
+    /**
+     * Applies the payload of a record to the entries.
+     */
+    private static void read(ByteBuffer payload, Map<String, Entry> entries) {
+        byte type = payload.get();
+        if (type == REMOVE) {
+            entries.remove(AppendOnlyLog.getString(payload));
+        } else if (type == PUT) {
+            Entry entry;
+            try {
+                entry = Entry.builder()
+                        .url(AppendOnlyLog.getString(payload))
+                        .location(AppendOnlyLog.getString(payload))
+                        .contentType(emptyToNull(AppendOnlyLog.getString(payload)))
+                        .charset(emptyToNull(AppendOnlyLog.getString(payload)))
+                        .etag(emptyToNull(AppendOnlyLog.getString(payload)))
+                        .lastModified(emptyToNull(AppendOnlyLog.getString(payload)))
+                        .bodyHash(AppendOnlyLog.getString(payload))
+                        .bodySize(payload.getLong())
+                        .freshUntil(freshUntil(payload.getLong()))
+                        .build();
+            } catch (NullPointerException e) {
+                throw new IllegalArgumentException("Incomplete cached response", e);
+            }
+            // Re-inserting moves the entry to the most recently used end
+            entries.remove(entry.getUrl());
+            entries.put(entry.getUrl(), entry);
+        } else {
+            throw new IllegalArgumentException("Unknown record type: " + type);
+        }
+    }
+
+    private static Instant freshUntil(long epochMilli) {
+        return epochMilli == Long.MIN_VALUE ? null : Instant.ofEpochMilli(epochMilli);
+    }
+
+    private static byte[] orEmpty(String string) {
+        return string == null ? new byte[0] : string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String emptyToNull(String string) {
+        return string.isEmpty() ? null : string;
+    }
+
+    /**
+     * A cached response.
+     */
+    @Value
+    @Builder(toBuilder = true)
+    static class Entry {
+
+        /**
+         * The requested URL.
+         */
+        @NonNull
+        String url;
+
+        /**
+         * The URL the response was served from, after following redirects.
+         */
+        @NonNull
+        String location;
+
+        /**
+         * The declared {@code Content-Type}, or {@code null}.
+         */
+        String contentType;
+
+        /**
+         * The charset declared in the {@code Content-Type}, or {@code null}.
+         */
+        String charset;
+
+        /**
+         * The {@code ETag} of the response, or {@code null}.
+         */
+        String etag;
+
+        /**
+         * The {@code Last-Modified} date of the response, as sent by the server, or {@code null}.
+         */
+        String lastModified;
+
+        /**
+         * The hexadecimal SHA-256 digest of the body, which names its file in the store.
+         */
+        String bodyHash;
+
+        long bodySize;
+
+        /**
+         * Until when the response may be served without a request, or {@code null} if it must be revalidated.
+         */
+        Instant freshUntil;
+    }
+
+    /**
+     * The numbers of documents the cache served and downloaded.
+     */
+    @Value
+    public static class Stats {
+
+        /**
+         * Documents served from the cache without a request.
+         */
+        long hits;
+
+        /**
+         * Documents served from the cache after the server confirmed they had not been modified.
+         */
+        long revalidations;
+
+        /**
+         * Documents downloaded in full.
+         */
+        long misses;
+
+        public long getRequests() {
+            return hits + revalidations + misses;
+        }
+
+        public double getHitRatio() {
+            return ratio(hits);
+        }
+
+        public double getRevalidationRatio() {
+            return ratio(revalidations);
+        }
+
+        public double getMissRatio() {
+            return ratio(misses);
+        }
+
+        private double ratio(long count) {
+            long requests = getRequests();
+            return requests == 0 ? 0 : (double) count / requests;
+        }
+    }
+
+    /**
+     * Copies a downloaded body to a temporary file and hashes it while it is read, and stores it once it has
+     * been read to its end.
+     */
+    private final class StoringInputStream extends FilterInputStream {
+
+        private final Entry metadata;
+
+        private final Path temporary;
+
+        private final MessageDigest digest;
+
+        private OutputStream copy;
+
+        private long length;
+
+        private boolean complete;
+
+        private StoringInputStream(InputStream body, Entry metadata, Path temporary) throws IOException {
+            super(body);
+            this.metadata = metadata;
+            this.temporary = temporary;
+            this.copy = Files.newOutputStream(temporary);
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not supported", e);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                complete = true;
+            } else {
+                copy(new byte[]{(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read < 0) {
+                complete = true;
+            } else {
+                copy(buffer, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes would be missing from the copy
+            stopCopying();
+            return super.skip(n);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                finish();
+            }
+        }
+
+        private void copy(byte[] buffer, int offset, int read) {
+            if (copy == null) {
+                return;
+            }
+            try {
+                copy.write(buffer, offset, read);
+                digest.update(buffer, offset, read);
+                length += read;
+            } catch (IOException e) {
+                log.warn("Failed to cache the response of {}", metadata.getUrl(), e);
+                stopCopying();
+            }
+        }
+
+        private void stopCopying() {
+            if (copy != null) {
+                closeQuietly();
+                copy = null;
+            }
+        }
+
+        private void finish() throws IOException {
+            if (copy == null) {
+                Files.deleteIfExists(temporary);
+                return;
+            }
+            closeQuietly();
+            copy = null;
+            if (!complete) {
+                Files.deleteIfExists(temporary);
+                return;
+            }
+            Entry entry = metadata.toBuilder()
+                    .bodyHash(HexFormat.of().formatHex(digest.digest()))
+                    .bodySize(length)
+                    .build();
+            try {
+                commit(entry, temporary);
+            } catch (IOException e) {
+                log.warn("Failed to cache the response of {}", entry.getUrl(), e);
+                Files.deleteIfExists(temporary);
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                copy.close();
+            } catch (IOException e) {
+                log.debug("Failed to close the cached copy of {}", metadata.getUrl(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.webtracer.parser;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The {@code LimitedInputStream} class reads at most a given number of bytes of an underlying stream and reports
+ * the end of the stream after them, so that an oversized response is never read, let alone buffered, in full.
+ *
+ * <p>Once the limit is reached, the stream checks whether the underlying stream had more content, in which case
+ * the document is {@linkplain #isTruncated() truncated}.</p>
+ */
+@Slf4j
+final class LimitedInputStream extends FilterInputStream {
+
+    private final long limit;
+
+    private long remaining;
+
+    private boolean truncated;
+
+    /**
+     * Creates a stream reading at most {@code limit} bytes of {@code in}.
+     *
+     * @param in    the underlying stream.
+     * @param limit the maximum number of bytes read, or {@code 0} to read the underlying stream in full.
+     */
+    LimitedInputStream(InputStream in, long limit) {
+        super(in);
+        this.limit = limit;
+        this.remaining = limit > 0 ? limit : Long.MAX_VALUE;
+    }
+
+    /**
+     * Checks whether the underlying stream had more content than the limit.
+     *
+     * @return {@code true} if the end of this stream is not the end of the underlying stream.
+     */
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining == 0) {
+            checkTruncated();
+            return -1;
+        }
+        int b = in.read();
+        if (b >= 0) {
+            remaining--;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (remaining == 0) {
+            checkTruncated();
+            return -1;
+        }
+        int read = in.read(b, off, (int) Math.min(len, remaining));
+        if (read > 0) {
+            remaining -= read;
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(Math.min(n, remaining));
+        remaining -= skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(in.available(), remaining);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void checkTruncated() throws IOException {
+        if (!truncated && in.read() >= 0) {
+            truncated = true;
+            log.warn("Document exceeds the maximum body size of {} bytes and was truncated", limit);
+        }
+    }
+}
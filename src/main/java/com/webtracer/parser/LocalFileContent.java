@@ -0,0 +1,212 @@
+package com.webtracer.parser;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The {@code LocalFileContent} class holds the content of a local file, read with a single {@link FileChannel}
+ * instead of through the buffers of a file input stream.
+ *
+ * <p>Files of up to {@value #MAPPING_THRESHOLD} bytes are read into a buffer that each thread reuses for every
+ * file it reads, so crawling a local mirror of many small pages does not allocate a buffer per page. Larger files
+ * are mapped into memory, which avoids copying them into the heap at all.</p>
+ *
+ * <p>At most the maximum body size is {@linkplain #content() exposed}, but one more byte is kept, if the file has
+ * it, so that a {@link LimitedInputStream} over the {@linkplain #stream() stream} recognizes the file as truncated.
+ * The content must be {@linkplain #close() closed} on the thread that read it once it has been read, which hands
+ * the buffer back to the thread; the content must not be used afterwards.</p>
+ */
+@Slf4j
+final class LocalFileContent implements AutoCloseable {
+
+    /**
+     * Size of the largest file read into the reused buffer of a thread; larger files are mapped.
+     */
+    static final int MAPPING_THRESHOLD = 1 << 20;
+
+    private static final int MIN_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The idle buffer of each thread, or {@code null} while it is in use.
+     */
+    private static final ThreadLocal<byte[]> BUFFER = new ThreadLocal<>();
+
+    private final ByteBuffer bytes;
+
+    private final boolean mapped;
+
+    private final int contentLength;
+
+    private final boolean truncated;
+
+    /**
+     * The reused buffer holding the bytes, or {@code null} if the file is mapped.
+     */
+    private byte[] buffer;
+
+    private LocalFileContent(ByteBuffer bytes, int contentLength, boolean truncated, byte[] buffer) {
+        this.bytes = bytes;
+        this.mapped = buffer == null;
+        this.contentLength = contentLength;
+        this.truncated = truncated;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Reads the content of a local file.
+     *
+     * @param path        the file.
+     * @param maxBodySize the maximum number of bytes exposed, or {@code 0} for no limit.
+     * @return the content, or {@code null} if the bytes to read do not fit into a single buffer; such files are to
+     * be streamed instead.
+     * @throws java.nio.file.NoSuchFileException if the file does not exist.
+     * @throws IOException                       if the file cannot be read.
+     */
+    static LocalFileContent read(Path path, long maxBodySize) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long limit = maxBodySize > 0 ? Math.min(size, maxBodySize) : size;
+            long length = Math.min(size, limit + 1);
+            if (length > Integer.MAX_VALUE) {
+                log.debug("{} is too large to be read at once, streaming it", path);
+                return null;
+            }
+
+            if (length > MAPPING_THRESHOLD) {
+                log.debug("Mapping {} bytes of {}", length, path);
+                ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+                return new LocalFileContent(mapped, (int) limit, size > limit, null);
+            }
+
+            byte[] buffer = acquireBuffer((int) length);
+            ByteBuffer target = ByteBuffer.wrap(buffer, 0, (int) length);
+            // The file may have shrunk since its size was read
+            while (target.hasRemaining() && channel.read(target) >= 0) {
+                log.trace("Read {} of {} bytes of {}", target.position(), length, path);
+            }
+            int read = target.position();
+            return new LocalFileContent(ByteBuffer.wrap(buffer, 0, read), (int) Math.min(read, limit),
+                                        read > limit, buffer);
+        }
+    }
+
+    /**
+     * Checks whether the file is longer than the maximum body size.
+     *
+     * @return {@code true} if the content is a truncated prefix of the file.
+     */
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Checks whether the file is mapped into memory rather than read into the buffer of the thread.
+     *
+     * @return {@code true} if the file is mapped.
+     */
+    boolean isMapped() {
+        return mapped;
+    }
+
+    /**
+     * Returns the content of the file, at most the maximum body size.
+     *
+     * @return a read-only view of the content, positioned at its start.
+     */
+    ByteBuffer content() {
+        return bytes.asReadOnlyBuffer().limit(bytes.position() + contentLength);
+    }
+
+    /**
+     * Decodes the content of the file, skipping the given number of bytes at its start, e.g. a byte order mark.
+     * Malformed input is replaced, as a decoding reader replaces it.
+     *
+     * @param charset the charset of the content.
+     * @param skip    the number of bytes to skip.
+     * @return the decoded content.
+     */
+    String decode(Charset charset, int skip) {
+        if (buffer != null) {
+            return new String(buffer, skip, contentLength - skip, charset);
+        }
+        ByteBuffer content = content();
+        return charset.decode(content.position(content.position() + skip)).toString();
+    }
+
+    /**
+     * Returns a stream over the bytes read, including the byte past the maximum body size of a truncated file.
+     *
+     * @return a stream that closes the content when it is closed.
+     */
+    InputStream stream() {
+        ByteBuffer remaining = bytes.duplicate();
+        return new InputStream() {
+            @Override
+            public int read() {
+                return remaining.hasRemaining() ? remaining.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (len == 0) {
+                    return 0;
+                }
+                if (!remaining.hasRemaining()) {
+                    return -1;
+                }
+                int read = Math.min(len, remaining.remaining());
+                remaining.get(b, off, read);
+                return read;
+            }
+
+            @Override
+            public long skip(long n) {
+                int skipped = (int) Math.max(0, Math.min(n, remaining.remaining()));
+                remaining.position(remaining.position() + skipped);
+                return skipped;
+            }
+
+            @Override
+            public int available() {
+                return remaining.remaining();
+            }
+
+            @Override
+            public void close() {
+                LocalFileContent.this.close();
+            }
+        };
+    }
+
+    /**
+     * Hands the buffer back to the calling thread, if it has no idle buffer.
+     */
+    @Override
+    public void close() {
+        if (buffer != null) {
+            if (BUFFER.get() == null) {
+                BUFFER.set(buffer);
+            }
+            buffer = null;
+        }
+    }
+
+    private static byte[] acquireBuffer(int length) {
+        byte[] buffer = BUFFER.get();
+        BUFFER.remove();
+        if (buffer == null || buffer.length < length) {
+            // Grown in powers of two, so that a thread reading ever larger files reallocates only a few times
+            int size = Math.min(MAPPING_THRESHOLD, Math.max(MIN_BUFFER_SIZE, Integer.highestOneBit(length) << 1));
+            log.trace("Allocating a {} byte file buffer for {}", size, Thread.currentThread().getName());
+            buffer = new byte[Math.max(size, length)];
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,130 @@
+package com.webtracer.parser;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code NonHtmlUrlRegistry} class learns which URLs served content that is not HTML, so that similar URLs can
+ * be skipped without a request.
+ *
+ * <p>URLs are grouped by host and path prefix:</p>
+ * <ul>
+ *   <li>an endpoint, i.e. the host and path without the query, is known to be non-HTML as soon as one of its URLs
+ *   served non-HTML content and none of them served HTML, so {@code /download?id=8} is skipped once
+ *   {@code /download?id=7} returned a PDF, but {@code /index.php?page=2} is still fetched after
+ *   {@code /index.php?action=export} returned a CSV if {@code /index.php?page=1} returned HTML;</li>
+ *   <li>a directory, i.e. the host and path up to the last {@code /}, is known to be non-HTML once
+ *   {@value #DIRECTORY_THRESHOLD} of its endpoints served non-HTML content and none of them served HTML.</li>
+ * </ul>
+ *
+ * <p>The registry is thread-safe and shared by all parsers of a crawl. Each of the non-HTML endpoints, the HTML
+ * endpoints and the directories is bounded by {@link #MAX_ENTRIES}; URLs seen after it is full are no longer
+ * learned.</p>
+ */
+@Slf4j
+final class NonHtmlUrlRegistry {
+
+    /**
+     * Number of distinct non-HTML endpoints after which a directory without HTML endpoints is skipped.
+     */
+    static final int DIRECTORY_THRESHOLD = 3;
+
+    /**
+     * Upper bound of the number of learned non-HTML endpoints, of HTML endpoints and of directories.
+     */
+    static final int MAX_ENTRIES = 100_000;
+
+    private final Set<String> nonHtmlEndpoints = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Endpoints that served HTML, which are never learned as non-HTML.
+     */
+    private final Set<String> htmlEndpoints = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Number of non-HTML endpoints per directory, or {@code -1} for directories that served HTML.
+     */
+    private final ConcurrentMap<String, AtomicInteger> directories = new ConcurrentHashMap<>();
+
+    /**
+     * Checks whether the URL is likely to serve non-HTML content, based on the URLs recorded so far.
+     *
+     * @param uri the URL to check.
+     * @return {@code true} if the URL can be skipped without a request.
+     */
+    boolean isKnownNonHtml(@NonNull URI uri) {
+        if (nonHtmlEndpoints.contains(endpoint(uri))) {
+            return true;
+        }
+        AtomicInteger nonHtmlCount = directories.get(directory(uri));
+        return nonHtmlCount != null && nonHtmlCount.get() >= DIRECTORY_THRESHOLD;
+    }
+
+    /**
+     * Records that the URL served content that is not HTML.
+     *
+     * @param uri      the requested URL.
+     * @param mimeType the content type of the response, for logging.
+     */
+    void recordNonHtml(@NonNull URI uri, String mimeType) {
+        String endpoint = endpoint(uri);
+        if (htmlEndpoints.contains(endpoint) || nonHtmlEndpoints.size() >= MAX_ENTRIES
+                || !nonHtmlEndpoints.add(endpoint)) {
+            return;
+        }
+        // recordHtml adds the endpoint before removing it, so one of both checks sees a concurrent HTML response
+        if (htmlEndpoints.contains(endpoint)) {
+            nonHtmlEndpoints.remove(endpoint);
+            return;
+        }
+        log.debug("Learned that {} serves {}", endpoint, mimeType);
+        AtomicInteger nonHtmlCount = directory(uri, new AtomicInteger());
+        if (nonHtmlCount != null) {
+            nonHtmlCount.updateAndGet(count -> count < 0 ? count : count + 1);
+        }
+    }
+
+    /**
+     * Records that the URL served HTML, so that neither its endpoint nor its directory is ever skipped as a whole.
+     *
+     * @param uri the requested URL.
+     */
+    void recordHtml(@NonNull URI uri) {
+        String endpoint = endpoint(uri);
+        if (htmlEndpoints.size() < MAX_ENTRIES) {
+            htmlEndpoints.add(endpoint);
+        }
+        if (nonHtmlEndpoints.remove(endpoint)) {
+            log.debug("Learned that {} also serves HTML", endpoint);
+        }
+        AtomicInteger nonHtmlCount = directory(uri, new AtomicInteger(-1));
+        if (nonHtmlCount != null) {
+            nonHtmlCount.set(-1);
+        }
+    }
+
+    private AtomicInteger directory(URI uri, AtomicInteger initialCount) {
+        String directory = directory(uri);
+        AtomicInteger count = directories.get(directory);
+        if (count == null && directories.size() < MAX_ENTRIES) {
+            count = directories.computeIfAbsent(directory, key -> initialCount);
+        }
+        return count;
+    }
+
+    private static String endpoint(URI uri) {
+        String path = uri.getRawPath();
+        return uri.getScheme() + "://" + uri.getRawAuthority() + (path == null || path.isEmpty() ? "/" : path);
+    }
+
+    private static String directory(URI uri) {
+        String endpoint = endpoint(uri);
+        return endpoint.substring(0, endpoint.lastIndexOf('/') + 1);
+    }
+}
@@ -0,0 +1,103 @@
+package com.webtracer.parser;
+
+import java.net.URI;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * The {@code PageFormat} enum identifies the format of a crawled page, so that each page is read by the cheapest
+ * parser able to extract its words and links.
+ *
+ * <p>The format is taken from the {@code Content-Type} of a response when one is declared, and from the extension
+ * of the URL otherwise, e.g. for local files.</p>
+ */
+public enum PageFormat {
+
+    /**
+     * An HTML page, parsed according to the configured {@link ParseMode}.
+     */
+    HTML,
+
+    /**
+     * An XHTML page. XHTML is well-formed, so it is always read by the {@link StreamingHtmlTokenizer}, without
+     * building a document tree.
+     */
+    XHTML,
+
+    /**
+     * A plain text page, read by the {@link PlainTextTokenizer} without any markup parsing.
+     */
+    PLAIN_TEXT,
+
+    /**
+     * A Markdown page, read by the {@link PlainTextTokenizer}, which also reports inline links, autolinks and
+     * link reference definitions.
+     */
+    MARKDOWN,
+
+    /**
+     * An XML document such as a sitemap, read by the {@link StreamingHtmlTokenizer}. The content of
+     * {@code <loc>} elements is a link rather than text.
+     */
+    XML;
+
+    /**
+     * Determines the format of a page from the path of its URL.
+     *
+     * @param uri the URL of the page.
+     * @return the format matching the extension of the path, or an empty {@link Optional} for paths without a known
+     * extension.
+     */
+    public static Optional<PageFormat> fromExtension(URI uri) {
+        String path = uri.getPath();
+        if (path == null) {
+            return Optional.empty();
+        }
+        String name = path.substring(path.lastIndexOf('/') + 1).toLowerCase(Locale.ROOT);
+        String extension = name.substring(name.lastIndexOf('.') + 1);
+        if (extension.equals(name)) {
+            return Optional.empty();
+        }
+        return switch (extension) {
+            case "html", "htm" -> Optional.of(HTML);
+            case "xhtml", "xht" -> Optional.of(XHTML);
+            case "txt", "text" -> Optional.of(PLAIN_TEXT);
+            case "md", "markdown" -> Optional.of(MARKDOWN);
+            case "xml" -> Optional.of(XML);
+            default -> Optional.empty();
+        };
+    }
+
+    /**
+     * Determines the format of a page from the value of a {@code Content-Type} header.
+     *
+     * @param contentType the content type, possibly with parameters, or {@code null} if none was declared.
+     * @return the format of the content type, or an empty {@link Optional} if the content type is missing or not
+     * one of the supported formats.
+     */
+    public static Optional<PageFormat> fromContentType(String contentType) {
+        if (contentType == null) {
+            return Optional.empty();
+        }
+        int parameters = contentType.indexOf(';');
+        String mimeType = (parameters < 0 ? contentType : contentType.substring(0, parameters))
+                .strip().toLowerCase(Locale.ROOT);
+        return switch (mimeType) {
+            case "text/html" -> Optional.of(HTML);
+            case "application/xhtml+xml" -> Optional.of(XHTML);
+            case "text/plain" -> Optional.of(PLAIN_TEXT);
+            case "text/markdown", "text/x-markdown" -> Optional.of(MARKDOWN);
+            case "application/xml", "text/xml" -> Optional.of(XML);
+            default -> Optional.empty();
+        };
+    }
+
+    /**
+     * Checks whether pages of this format are text without markup.
+     *
+     * @return {@code true} for {@link #PLAIN_TEXT} and {@link #MARKDOWN}.
+     */
+    public boolean isPlainText() {
+        return this == PLAIN_TEXT || this == MARKDOWN;
+    }
+}
@@ -17,4 +17,17 @@ public interface PageParser {
      */
     ParseResult parse() throws ApiException;
 
+    /**
+     * Parses a web page, extracting only the outputs selected by {@code projection}.
+     *
+     * <p>The default implementation ignores the projection and extracts everything.</p>
+     *
+     * @param projection the outputs the caller will read.
+     * @return a {@link ParseResult} object containing the results of the parsing operation. Outputs that are not
+     *         selected by the projection are empty.
+     */
+    default ParseResult parse(ParseProjection projection) throws ApiException {
+        return parse();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+package com.webtracer.parser;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+
+/**
+ * The {@code ParseBudget} class limits the CPU time spent parsing a single page, so that malformed or adversarial
+ * pages, such as massively nested tags, cannot pin a crawler worker.
+ *
+ * <p>A budget is started on the thread that parses the page. The parser calls {@link #checkpoint()} for each node
+ * or token it processes; once the CPU time of the thread since the start exceeds the limit, the checkpoint throws a
+ * {@link ParseBudgetExceededException}, and the parser keeps what it has counted so far. The CPU time is only read
+ * every {@value #CHECK_INTERVAL} checkpoints, so that checkpoints are cheap. If the JVM cannot measure the CPU time of
+ * a thread, the elapsed wall-clock time is used instead.</p>
+ *
+ * <p>This class is not thread-safe; a budget must only be used by the thread that started it.</p>
+ */
+@Slf4j
+public final class ParseBudget {
+
+    /**
+     * Number of checkpoints between two reads of the CPU time.
+     */
+    static final int CHECK_INTERVAL = 256;
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private static final ParseBudget UNLIMITED = new ParseBudget(Duration.ZERO);
+
+    private final long maxNanos;
+
+    private final boolean cpuTime;
+
+    private final long startNanos;
+
+    private int checkpoints;
+
+    /**
+     * Whether the budget has been exceeded.
+     */
+    @Getter
+    private boolean exceeded;
+
+    private ParseBudget(Duration maxTime) {
+        this.maxNanos = maxTime.toNanos();
+        this.cpuTime = maxNanos > 0 && THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported()
+                && THREAD_MX_BEAN.isThreadCpuTimeEnabled();
+        this.startNanos = maxNanos > 0 ? now() : 0;
+    }
+
+    /**
+     * Starts a budget for the current thread.
+     *
+     * @param maxCpuTime the CPU time the current thread may spend until the budget is exceeded, or
+     *                   {@link Duration#ZERO} for an unlimited budget.
+     * @return the started budget.
+     * @throws IllegalArgumentException if {@code maxCpuTime} is negative.
+     */
+    public static ParseBudget start(@NonNull Duration maxCpuTime) {
+        if (maxCpuTime.isNegative()) {
+            throw new IllegalArgumentException("maxCpuTime must not be negative: " + maxCpuTime);
+        }
+        return maxCpuTime.isZero() ? UNLIMITED : new ParseBudget(maxCpuTime);
+    }
+
+    /**
+     * Returns a budget that is never exceeded.
+     *
+     * @return the unlimited budget.
+     */
+    public static ParseBudget unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * Checks whether the budget is still available.
+     *
+     * @throws ParseBudgetExceededException if the CPU time spent since the start exceeds the budget.
+     */
+    public void checkpoint() {
+        if (maxNanos <= 0 || ++checkpoints % CHECK_INTERVAL != 0) {
+            return;
+        }
+        long spentNanos = now() - startNanos;
+        if (spentNanos > maxNanos) {
+            exceeded = true;
+            log.debug("Parse budget of {} ms exceeded after {} checkpoints", maxNanos / 1_000_000, checkpoints);
+            throw new ParseBudgetExceededException(Duration.ofNanos(maxNanos), Duration.ofNanos(spentNanos));
+        }
+    }
+
+    private long now() {
+        return cpuTime ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+}
@@ -0,0 +1,29 @@
+package com.webtracer.parser;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * {@code ParseBudgetExceededException} is thrown by {@link ParseBudget#checkpoint()} when parsing a page has taken
+ * more CPU time than its budget. Parsers catch it to stop parsing the page and keep what they have counted.
+ */
+@Getter
+public final class ParseBudgetExceededException extends RuntimeException {
+
+    /**
+     * The CPU time the page was allowed to take.
+     */
+    private final Duration budget;
+
+    /**
+     * The CPU time the page had taken when the budget was checked.
+     */
+    private final Duration spent;
+
+    public ParseBudgetExceededException(Duration budget, Duration spent) {
+        super("Parse budget of " + budget.toMillis() + " ms exceeded after " + spent.toMillis() + " ms");
+        this.budget = budget;
+        this.spent = spent;
+    }
+}
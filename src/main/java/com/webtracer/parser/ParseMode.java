@@ -0,0 +1,41 @@
+package com.webtracer.parser;
+
+/**
+ * The {@code ParseMode} enum selects how page parsers extract data from an HTML page.
+ */
+public enum ParseMode {
+
+    /**
+     * Parses the whole page into a JSoup {@link org.jsoup.nodes.Document} and traverses its nodes. The document
+     * tree is typically several times larger than the page itself.
+     */
+    DOM,
+
+    /**
+     * Reads the page with a {@link StreamingHtmlTokenizer} that reports text runs and tags while the input is read,
+     * without building a document tree. Memory per page stays constant regardless of the size of the page.
+     *
+     * <p>Pages are only parsed while they download if their content needs no hashing first. With the
+     * {@code "parseResultCachePath"} or {@code "incrementalCrawlPath"} settings, each page is read into memory and
+     * hashed before it is tokenized, so its memory is proportional to its size and its hyperlinks are only reported
+     * once it has been downloaded. The HTTP response cache does not buffer: it stores bodies as they are read.</p>
+     */
+    STREAMING,
+
+    /**
+     * Like {@link #STREAMING}, but tokenizes UTF-8 pages directly on their bytes: words are counted by their UTF-8
+     * bytes and a {@link String} is only created for the first occurrence of each word on a page. Pages in other
+     * charsets, detected from their byte order mark, {@code Content-Type} header or {@code <meta>} tags, are decoded
+     * as in {@link #STREAMING} mode.
+     */
+    STREAMING_BYTES;
+
+    /**
+     * Checks whether pages are read as they arrive, without building a document tree.
+     *
+     * @return {@code true} for the streaming modes.
+     */
+    public boolean isStreaming() {
+        return this != DOM;
+    }
+}
@@ -0,0 +1,43 @@
+package com.webtracer.parser;
+
+/**
+ * The {@code ParseProjection} enum selects which outputs a page parser produces, so that parsers can skip the work
+ * for outputs the caller will not read.
+ */
+public enum ParseProjection {
+
+    /**
+     * Extracts both the words and the hyperlinks of the page.
+     */
+    ALL,
+
+    /**
+     * Extracts only the words of the page. Hyperlinks are neither resolved nor collected, e.g. for pages at the
+     * maximum crawl depth, whose links are never followed.
+     */
+    WORDS,
+
+    /**
+     * Extracts only the hyperlinks of the page. Text is not split into words, e.g. for crawls that only map the
+     * link structure of a site.
+     */
+    LINKS;
+
+    /**
+     * Checks whether the words of the page are extracted.
+     *
+     * @return {@code true} for {@link #ALL} and {@link #WORDS}.
+     */
+    public boolean includesWords() {
+        return this != LINKS;
+    }
+
+    /**
+     * Checks whether the hyperlinks of the page are extracted.
+     *
+     * @return {@code true} for {@link #ALL} and {@link #LINKS}.
+     */
+    public boolean includesLinks() {
+        return this != WORDS;
+    }
+}
@@ -0,0 +1,145 @@
+package com.webtracer.parser;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The {@code PlainTextTokenizer} class reads plain text or Markdown from a {@link Reader} and reports it to an
+ * {@link HtmlTokenHandler}, without any markup parsing.
+ *
+ * <p>Plain text is reported in runs of at most about {@value #MAX_TEXT_RUN} characters, split at whitespace.
+ * Markdown is read line by line: inline links {@code [label](target)}, autolinks {@code <https://...>} and link
+ * reference definitions {@code [label]: target} are reported as {@code <a href>} start tags, so that handlers
+ * process them exactly like HTML anchors, and only their labels are reported as text. Image targets are dropped.
+ * Other Markdown syntax is reported as text; its punctuation does not form words.</p>
+ *
+ * <p>Instances are not thread-safe; use one tokenizer per document.</p>
+ */
+@Slf4j
+public final class PlainTextTokenizer {
+
+    /**
+     * Length after which a run of plain text is reported at the next whitespace character.
+     */
+    static final int MAX_TEXT_RUN = 8192;
+
+    /**
+     * An inline link or image with an optional title, or an autolink.
+     */
+    private static final Pattern MARKDOWN_LINK = Pattern.compile(
+            "(!?)\\[([^\\]]*)]\\(\\s*<?([^\\s()<>]+)>?(?:\\s+(?:\"[^\"]*\"|'[^']*'))?\\s*\\)"
+                    + "|<((?:https?|ftp)://[^\\s<>]+)>");
+
+    private static final Pattern LINK_REFERENCE_DEFINITION = Pattern.compile(
+            "^ {0,3}\\[[^\\]]+]:\\s*<?([^\\s<>]+)>?(?:\\s+.*)?$");
+
+    private final HtmlTokenHandler handler;
+
+    private final boolean markdown;
+
+    /**
+     * Creates a tokenizer reporting to the given handler.
+     *
+     * @param handler  the handler receiving text runs and links.
+     * @param markdown whether the input is Markdown rather than plain text.
+     */
+    public PlainTextTokenizer(@NonNull HtmlTokenHandler handler, boolean markdown) {
+        this.handler = handler;
+        this.markdown = markdown;
+    }
+
+    /**
+     * Reads the whole input and reports its text and, for Markdown, its links. The reader is not closed.
+     *
+     * @param reader the text to tokenize.
+     * @throws IOException if reading the input fails.
+     */
+    public void tokenize(@NonNull Reader reader) throws IOException {
+        if (markdown) {
+            tokenizeMarkdown(new BufferedReader(reader));
+        } else {
+            tokenizePlainText(reader);
+        }
+    }
+
+    private void tokenizePlainText(Reader reader) throws IOException {
+        char[] buffer = new char[MAX_TEXT_RUN * 2];
+        int length = 0;
+        int read;
+        while ((read = reader.read(buffer, length, buffer.length - length)) >= 0) {
+            length += read;
+            if (length < MAX_TEXT_RUN) {
+                continue;
+            }
+            int end = lastWhitespace(buffer, length);
+            if (end < 0) {
+                if (length < buffer.length) {
+                    continue;
+                }
+                // A single word longer than the buffer is reported in pieces
+                end = length;
+            }
+            handler.text(new String(buffer, 0, end));
+            System.arraycopy(buffer, end, buffer, 0, length - end);
+            length -= end;
+        }
+        if (length > 0) {
+            handler.text(new String(buffer, 0, length));
+        }
+    }
+
+    private static int lastWhitespace(char[] buffer, int length) {
+        for (int i = length - 1; i > 0; i--) {
+            if (Character.isWhitespace(buffer[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void tokenizeMarkdown(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            Matcher definition = LINK_REFERENCE_DEFINITION.matcher(line);
+            if (definition.matches()) {
+                link(definition.group(1));
+                continue;
+            }
+
+            Matcher link = MARKDOWN_LINK.matcher(line);
+            int start = 0;
+            while (link.find()) {
+                text(line.substring(start, link.start()));
+                if (link.group(4) != null) {
+                    link(link.group(4));
+                    text(link.group(4));
+                } else {
+                    if (link.group(1).isEmpty()) {
+                        link(link.group(3));
+                    }
+                    text(link.group(2));
+                }
+                start = link.end();
+            }
+            text(line.substring(start) + "\n");
+        }
+    }
+
+    private void text(String text) {
+        if (!text.isEmpty()) {
+            handler.text(text);
+        }
+    }
+
+    private void link(String target) {
+        log.trace("Found Markdown link {}", target);
+        handler.startTag("a", Map.of("href", target));
+    }
+}
@@ -0,0 +1,728 @@
+package com.webtracer.parser;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.parser.Parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@code StreamingHtmlTokenizer} class reads HTML from a {@link Reader} or {@link InputStream} and reports
+ * text runs and start tags to an {@link HtmlTokenHandler} while the input is read, without building a document
+ * tree.
+ *
+ * <p>The tokenizer follows the tokenization rules of the HTML specification closely enough to split the input at
+ * the same places as JSoup does:</p>
+ * <ul>
+ *   <li>a text run ends at every tag, comment, doctype or CDATA section, so text on either side of a tag is
+ *   reported separately;</li>
+ *   <li>the content of {@code <script>} and {@code <style>} elements is skipped;</li>
+ *   <li>the content of {@code <title>} and {@code <textarea>} elements is reported as text with character
+ *   references decoded, and the content of {@code <xmp>}, {@code <iframe>}, {@code <noembed>},
+ *   {@code <noframes>}, {@code <plaintext>} and CDATA sections is reported as is;</li>
+ *   <li>end tags and comments are not reported.</li>
+ * </ul>
+ *
+ * <p>Input is read in fixed-size chunks, so the memory used by the tokenizer does not depend on the size of the
+ * input:</p>
+ * <ul>
+ *   <li>text runs longer than {@value #MAX_TEXT_RUN} characters are reported in several pieces split at whitespace.
+ *   A word that would make a run reach twice that length is carried over to the next piece, and only a single word
+ *   longer than that is itself reported in several pieces;</li>
+ *   <li>a start tag keeps at most {@value #MAX_TAG_LENGTH} characters of its name and of the names and values of
+ *   its attributes. Attributes that do not fit are dropped, and a tag whose name does not fit is not reported.</li>
+ * </ul>
+ *
+ * <p>The tree construction stage of a full parser is not performed: misnested markup is not repaired, which does
+ * not affect the text and tags that are reported.</p>
+ *
+ * <p>UTF-8 input can also be tokenized without decoding it with {@link #tokenize(InputStream)}. All characters that
+ * delimit markup are ASCII, and the bytes of a multi-byte UTF-8 sequence are never ASCII, so the same state
+ * machine runs on bytes. Text runs without character references are then reported as byte slices, and only tag
+ * and attribute names and values are decoded.</p>
+ *
+ * <p>Instances are not thread-safe; use one tokenizer per document.</p>
+ */
+@Slf4j
+public final class StreamingHtmlTokenizer {
+
+    /**
+     * Length after which a text run is reported at the next whitespace character.
+     */
+    static final int MAX_TEXT_RUN = 8192;
+
+    /**
+     * Length at which a text run is reported even if it does not end at whitespace.
+     */
+    private static final int TEXT_RUN_CAPACITY = MAX_TEXT_RUN * 2;
+
+    /**
+     * Maximum number of characters of the name, attribute names and attribute values of a start tag.
+     */
+    static final int MAX_TAG_LENGTH = 32_768;
+
+    /**
+     * Maximum length of a character reference, which is never split across text runs.
+     */
+    private static final int MAX_CHARACTER_REFERENCE = 40;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final Set<String> SKIPPED_ELEMENTS = Set.of("script", "style");
+
+    private static final Set<String> ESCAPABLE_RAW_TEXT_ELEMENTS = Set.of("title", "textarea");
+
+    private static final Set<String> RAW_TEXT_ELEMENTS = Set.of("xmp", "iframe", "noembed", "noframes");
+
+    private static final String CDATA_OPEN = "[CDATA[";
+
+    private enum State {
+        DATA, TAG_OPEN, END_TAG_OPEN, TAG_NAME, BEFORE_ATTRIBUTE_NAME, ATTRIBUTE_NAME, AFTER_ATTRIBUTE_NAME,
+        BEFORE_ATTRIBUTE_VALUE, ATTRIBUTE_VALUE_DOUBLE_QUOTED, ATTRIBUTE_VALUE_SINGLE_QUOTED,
+        ATTRIBUTE_VALUE_UNQUOTED, AFTER_ATTRIBUTE_VALUE, SELF_CLOSING_START_TAG, MARKUP_DECLARATION,
+        MARKUP_DECLARATION_DASH, CDATA_SECTION_OPEN, CDATA_SECTION, COMMENT, BOGUS_COMMENT, RAW_TEXT,
+        RAW_TEXT_LESS_THAN, RAW_TEXT_END_TAG, PLAINTEXT
+    }
+
+    private final HtmlTokenHandler handler;
+
+    private final Buffers buffers;
+
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * Text run being read from UTF-8 input, used instead of {@link #text}.
+     */
+    private byte[] textBytes;
+
+    private int textBytesLength;
+
+    /**
+     * Whether the input consists of UTF-8 bytes, each passed to {@link #consume(char)} as a {@code char} in the
+     * range {@code 0-255}.
+     */
+    private boolean utf8Input;
+
+    private final StringBuilder tagName = new StringBuilder();
+
+    private final StringBuilder attributeName = new StringBuilder();
+
+    private final StringBuilder attributeValue = new StringBuilder();
+
+    private Map<String, String> attributes;
+
+    /**
+     * Number of characters kept so far of the name and attributes of the current tag.
+     */
+    private int tagLength;
+
+    /**
+     * Whether the name of the current tag did not fit in {@link #MAX_TAG_LENGTH}.
+     */
+    private boolean tagNameOverflow;
+
+    /**
+     * Whether the name or value of the current attribute did not fit in {@link #MAX_TAG_LENGTH}.
+     */
+    private boolean attributeOverflow;
+
+    private State state = State.DATA;
+
+    private boolean endTag;
+
+    /**
+     * Whether character references in the current text run are decoded when it is reported.
+     */
+    private boolean decodeText = true;
+
+    /**
+     * Whether the content of the current raw text element is reported.
+     */
+    private boolean reportRawText;
+
+    private String rawTextEndTag;
+
+    /**
+     * Number of characters matched so far of the end tag name or CDATA opening sequence being read.
+     */
+    private int matched;
+
+    /**
+     * Number of consecutive {@code '-'} or {@code ']'} characters just read in a comment or CDATA section.
+     */
+    private int closingCharacters;
+
+    /**
+     * Creates a tokenizer reporting to the given handler.
+     *
+     * @param handler the handler receiving text runs and start tags.
+     */
+    public StreamingHtmlTokenizer(@NonNull HtmlTokenHandler handler) {
+        this(handler, new Buffers());
+    }
+
+    /**
+     * Creates a tokenizer reporting to the given handler that reads into the given buffers, so that a worker
+     * tokenizing many documents one after another does not allocate them for every document.
+     *
+     * @param handler the handler receiving text runs and start tags.
+     * @param buffers the buffers to read into; must not be used by another tokenizer at the same time.
+     */
+    public StreamingHtmlTokenizer(@NonNull HtmlTokenHandler handler, @NonNull Buffers buffers) {
+        this.handler = handler;
+        this.buffers = buffers;
+    }
+
+    /**
+     * Reads the given input to its end, reporting text runs and start tags to the handler. The reader is not
+     * closed.
+     *
+     * @param reader the HTML to tokenize.
+     * @throws IOException if reading fails.
+     */
+    public void tokenize(@NonNull Reader reader) throws IOException {
+        utf8Input = false;
+        char[] buffer = buffers.chars();
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                consume(buffer[i]);
+            }
+        }
+        finish();
+    }
+
+    /**
+     * Reads the given UTF-8 input to its end, reporting text runs and start tags to the handler. Text runs without
+     * character references are reported with {@link HtmlTokenHandler#text(byte[], int, int)}. The stream is not
+     * closed.
+     *
+     * @param in the HTML to tokenize, encoded as UTF-8.
+     * @throws IOException if reading fails.
+     */
+    public void tokenize(@NonNull InputStream in) throws IOException {
+        utf8Input = true;
+        textBytes = buffers.textBytes();
+        byte[] buffer = buffers.bytes();
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                consume((char) (buffer[i] & 0xFF));
+            }
+        }
+        finish();
+    }
+
+    private void consume(char c) {
+        switch (state) {
+            case DATA -> {
+                if (c == '<') {
+                    state = State.TAG_OPEN;
+                } else {
+                    appendText(c);
+                }
+            }
+            case TAG_OPEN -> {
+                if (isAsciiLetter(c)) {
+                    beginTag(false, c);
+                } else if (c == '/') {
+                    state = State.END_TAG_OPEN;
+                } else if (c == '!') {
+                    flushText();
+                    state = State.MARKUP_DECLARATION;
+                } else if (c == '?') {
+                    flushText();
+                    state = State.BOGUS_COMMENT;
+                } else {
+                    appendText('<');
+                    state = State.DATA;
+                    consume(c);
+                }
+            }
+            case END_TAG_OPEN -> {
+                if (isAsciiLetter(c)) {
+                    beginTag(true, c);
+                } else if (c == '>') {
+                    // "</>" is dropped without ending the text run
+                    state = State.DATA;
+                } else {
+                    flushText();
+                    state = State.BOGUS_COMMENT;
+                }
+            }
+            case TAG_NAME -> {
+                if (isWhitespace(c)) {
+                    state = State.BEFORE_ATTRIBUTE_NAME;
+                } else if (c == '/') {
+                    state = State.SELF_CLOSING_START_TAG;
+                } else if (c == '>') {
+                    emitTag();
+                } else {
+                    appendTagName(c);
+                }
+            }
+            case BEFORE_ATTRIBUTE_NAME -> {
+                if (c == '/') {
+                    state = State.SELF_CLOSING_START_TAG;
+                } else if (c == '>') {
+                    emitTag();
+                } else if (!isWhitespace(c)) {
+                    appendAttribute(attributeName, lowerCase(c));
+                    state = State.ATTRIBUTE_NAME;
+                }
+            }
+            case ATTRIBUTE_NAME -> {
+                if (isWhitespace(c)) {
+                    state = State.AFTER_ATTRIBUTE_NAME;
+                } else if (c == '/') {
+                    addAttribute();
+                    state = State.SELF_CLOSING_START_TAG;
+                } else if (c == '=') {
+                    state = State.BEFORE_ATTRIBUTE_VALUE;
+                } else if (c == '>') {
+                    addAttribute();
+                    emitTag();
+                } else {
+                    appendAttribute(attributeName, lowerCase(c));
+                }
+            }
+            case AFTER_ATTRIBUTE_NAME -> {
+                if (c == '/') {
+                    addAttribute();
+                    state = State.SELF_CLOSING_START_TAG;
+                } else if (c == '=') {
+                    state = State.BEFORE_ATTRIBUTE_VALUE;
+                } else if (c == '>') {
+                    addAttribute();
+                    emitTag();
+                } else if (!isWhitespace(c)) {
+                    addAttribute();
+                    appendAttribute(attributeName, lowerCase(c));
+                    state = State.ATTRIBUTE_NAME;
+                }
+            }
+            case BEFORE_ATTRIBUTE_VALUE -> {
+                if (c == '"') {
+                    state = State.ATTRIBUTE_VALUE_DOUBLE_QUOTED;
+                } else if (c == '\'') {
+                    state = State.ATTRIBUTE_VALUE_SINGLE_QUOTED;
+                } else if (c == '>') {
+                    addAttribute();
+                    emitTag();
+                } else if (!isWhitespace(c)) {
+                    state = State.ATTRIBUTE_VALUE_UNQUOTED;
+                    consume(c);
+                }
+            }
+            case ATTRIBUTE_VALUE_DOUBLE_QUOTED -> endQuotedValue(c, '"');
+            case ATTRIBUTE_VALUE_SINGLE_QUOTED -> endQuotedValue(c, '\'');
+            case ATTRIBUTE_VALUE_UNQUOTED -> {
+                if (isWhitespace(c)) {
+                    addAttribute();
+                    state = State.BEFORE_ATTRIBUTE_NAME;
+                } else if (c == '>') {
+                    addAttribute();
+                    emitTag();
+                } else {
+                    appendAttribute(attributeValue, c);
+                }
+            }
+            case AFTER_ATTRIBUTE_VALUE, SELF_CLOSING_START_TAG -> {
+                if (c == '>') {
+                    emitTag();
+                } else if (c == '/') {
+                    state = State.SELF_CLOSING_START_TAG;
+                } else {
+                    state = State.BEFORE_ATTRIBUTE_NAME;
+                    consume(c);
+                }
+            }
+            case MARKUP_DECLARATION -> {
+                if (c == '-') {
+                    state = State.MARKUP_DECLARATION_DASH;
+                } else if (c == CDATA_OPEN.charAt(0)) {
+                    matched = 1;
+                    state = State.CDATA_SECTION_OPEN;
+                } else {
+                    state = State.BOGUS_COMMENT;
+                    consume(c);
+                }
+            }
+            case MARKUP_DECLARATION_DASH -> {
+                if (c == '-') {
+                    // Counting the opening dashes also ends the empty comments "<!-->" and "<!--->"
+                    closingCharacters = 2;
+                    state = State.COMMENT;
+                } else {
+                    state = State.BOGUS_COMMENT;
+                    consume(c);
+                }
+            }
+            case CDATA_SECTION_OPEN -> {
+                if (c != CDATA_OPEN.charAt(matched)) {
+                    state = State.BOGUS_COMMENT;
+                    consume(c);
+                } else if (++matched == CDATA_OPEN.length()) {
+                    closingCharacters = 0;
+                    decodeText = false;
+                    state = State.CDATA_SECTION;
+                }
+            }
+            case CDATA_SECTION -> {
+                if (c == ']') {
+                    closingCharacters++;
+                } else if (c == '>' && closingCharacters >= 2) {
+                    appendRepeated(']', closingCharacters - 2);
+                    flushText();
+                    decodeText = true;
+                    state = State.DATA;
+                } else {
+                    appendRepeated(']', closingCharacters);
+                    closingCharacters = 0;
+                    appendText(c);
+                }
+            }
+            case COMMENT -> {
+                if (c == '-') {
+                    closingCharacters++;
+                } else if (c == '>' && closingCharacters >= 2) {
+                    state = State.DATA;
+                } else {
+                    closingCharacters = 0;
+                }
+            }
+            case BOGUS_COMMENT -> {
+                if (c == '>') {
+                    state = State.DATA;
+                }
+            }
+            case RAW_TEXT -> {
+                if (c == '<') {
+                    state = State.RAW_TEXT_LESS_THAN;
+                } else {
+                    appendRawText(c);
+                }
+            }
+            case RAW_TEXT_LESS_THAN -> {
+                if (c == '/') {
+                    matched = 0;
+                    state = State.RAW_TEXT_END_TAG;
+                } else {
+                    appendRawText('<');
+                    state = State.RAW_TEXT;
+                    consume(c);
+                }
+            }
+            case RAW_TEXT_END_TAG -> {
+                if (matched < rawTextEndTag.length() && lowerCase(c) == rawTextEndTag.charAt(matched)) {
+                    matched++;
+                } else if (matched == rawTextEndTag.length() && (isWhitespace(c) || c == '/' || c == '>')) {
+                    flushText();
+                    decodeText = true;
+                    endTag = true;
+                    attributes = null;
+                    tagName.setLength(0);
+                    tagName.append(rawTextEndTag);
+                    tagLength = tagName.length();
+                    tagNameOverflow = false;
+                    state = State.TAG_NAME;
+                    consume(c);
+                } else {
+                    appendRawText('<');
+                    appendRawText('/');
+                    for (int i = 0; i < matched; i++) {
+                        appendRawText(rawTextEndTag.charAt(i));
+                    }
+                    state = State.RAW_TEXT;
+                    consume(c);
+                }
+            }
+            case PLAINTEXT -> appendText(c);
+        }
+    }
+
+    private void finish() {
+        switch (state) {
+            case TAG_OPEN -> appendText('<');
+            case END_TAG_OPEN -> {
+                appendText('<');
+                appendText('/');
+            }
+            case CDATA_SECTION -> appendRepeated(']', closingCharacters);
+            case RAW_TEXT_LESS_THAN -> appendRawText('<');
+            case RAW_TEXT_END_TAG -> {
+                appendRawText('<');
+                appendRawText('/');
+                for (int i = 0; i < matched; i++) {
+                    appendRawText(rawTextEndTag.charAt(i));
+                }
+            }
+            default -> {
+                // An unterminated tag or comment is dropped
+            }
+        }
+        flushText();
+        state = State.DATA;
+        decodeText = true;
+    }
+
+    private void beginTag(boolean isEndTag, char first) {
+        flushText();
+        endTag = isEndTag;
+        attributes = isEndTag ? null : new HashMap<>();
+        tagName.setLength(0);
+        tagName.append(lowerCase(first));
+        tagLength = 1;
+        tagNameOverflow = false;
+        state = State.TAG_NAME;
+    }
+
+    private void appendTagName(char c) {
+        if (tagLength < MAX_TAG_LENGTH) {
+            tagName.append(lowerCase(c));
+            tagLength++;
+        } else {
+            tagNameOverflow = true;
+        }
+    }
+
+    private void appendAttribute(StringBuilder nameOrValue, char c) {
+        if (tagLength < MAX_TAG_LENGTH) {
+            nameOrValue.append(c);
+            tagLength++;
+        } else {
+            attributeOverflow = true;
+        }
+    }
+
+    private void endQuotedValue(char c, char quote) {
+        if (c == quote) {
+            addAttribute();
+            state = State.AFTER_ATTRIBUTE_VALUE;
+        } else {
+            appendAttribute(attributeValue, c);
+        }
+    }
+
+    private void addAttribute() {
+        if (attributeOverflow) {
+            log.debug("Dropping attribute {} longer than {} characters", decode(attributeName), MAX_TAG_LENGTH);
+            attributeOverflow = false;
+        } else if (attributes != null && !attributeName.isEmpty()) {
+            String value = decode(attributeValue);
+            if (value.indexOf('&') >= 0) {
+                value = Parser.unescapeEntities(value, true);
+            }
+            attributes.putIfAbsent(decode(attributeName), value);
+        }
+        attributeName.setLength(0);
+        attributeValue.setLength(0);
+    }
+
+    private void emitTag() {
+        state = State.DATA;
+        if (endTag) {
+            return;
+        }
+        if (tagNameOverflow) {
+            log.debug("Dropping tag with a name longer than {} characters", MAX_TAG_LENGTH);
+            attributes = null;
+            return;
+        }
+
+        String name = decode(tagName);
+        log.trace("Start tag: {}", name);
+        handler.startTag(name, attributes);
+        attributes = null;
+
+        if (name.equals("plaintext")) {
+            decodeText = false;
+            state = State.PLAINTEXT;
+        } else if (SKIPPED_ELEMENTS.contains(name) || ESCAPABLE_RAW_TEXT_ELEMENTS.contains(name)
+                || RAW_TEXT_ELEMENTS.contains(name)) {
+            rawTextEndTag = name;
+            reportRawText = !SKIPPED_ELEMENTS.contains(name);
+            decodeText = ESCAPABLE_RAW_TEXT_ELEMENTS.contains(name);
+            state = State.RAW_TEXT;
+        }
+    }
+
+    private void appendRawText(char c) {
+        if (reportRawText) {
+            appendText(c);
+        }
+    }
+
+    private void appendRepeated(char c, int count) {
+        for (int i = 0; i < count; i++) {
+            appendText(c);
+        }
+    }
+
+    private void appendText(char c) {
+        int length;
+        if (utf8Input) {
+            textBytes[textBytesLength++] = (byte) c;
+            length = textBytesLength;
+        } else {
+            text.append(c);
+            length = text.length();
+        }
+        // Character references never contain whitespace, and whitespace is never part of a multi-byte
+        // UTF-8 sequence, so splitting here never cuts either in half
+        if (length >= MAX_TEXT_RUN && isWhitespace(c)) {
+            flushText();
+        } else if (length == TEXT_RUN_CAPACITY) {
+            flushText(splitPoint(length));
+        }
+    }
+
+    /**
+     * Finds where to split a full text run: after its last whitespace, so that the word being read is carried over
+     * to the next run, or, within a single word, before any character reference or UTF-8 sequence that would be cut
+     * in half.
+     */
+    private int splitPoint(int length) {
+        for (int i = length - 1; i > 0; i--) {
+            if (isWhitespace(textAt(i))) {
+                return i + 1;
+            }
+        }
+        int end = length;
+        if (decodeText) {
+            for (int i = length - 1; i >= length - MAX_CHARACTER_REFERENCE && textAt(i) != ';'; i--) {
+                if (textAt(i) == '&') {
+                    end = i;
+                    break;
+                }
+            }
+        }
+        if (utf8Input) {
+            int lead = end - 1;
+            while (lead > 0 && (textBytes[lead] & 0xC0) == 0x80) {
+                lead--;
+            }
+            int first = textBytes[lead] & 0xFF;
+            int sequenceLength = first < 0xC0 ? 1 : first < 0xE0 ? 2 : first < 0xF0 ? 3 : 4;
+            if (lead + sequenceLength > end) {
+                end = lead;
+            }
+        } else if (Character.isHighSurrogate(text.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private char textAt(int index) {
+        return utf8Input ? (char) (textBytes[index] & 0xFF) : text.charAt(index);
+    }
+
+    private void flushText() {
+        flushText(utf8Input ? textBytesLength : text.length());
+    }
+
+    /**
+     * Reports the first characters of the current text run and keeps the rest for the next run.
+     *
+     * @param end the number of characters or UTF-8 bytes to report.
+     */
+    private void flushText(int end) {
+        if (end == 0) {
+            return;
+        }
+        String run;
+        if (utf8Input) {
+            if (!decodeText || !containsAmpersand(textBytes, end)) {
+                handler.text(textBytes, 0, end);
+                run = "";
+            } else {
+                run = new String(textBytes, 0, end, StandardCharsets.UTF_8);
+            }
+            textBytesLength -= end;
+            System.arraycopy(textBytes, end, textBytes, 0, textBytesLength);
+        } else {
+            run = text.substring(0, end);
+            text.delete(0, end);
+        }
+
+        if (decodeText && run.indexOf('&') >= 0) {
+            run = Parser.unescapeEntities(run, false);
+        }
+        if (!run.isEmpty()) {
+            handler.text(run);
+        }
+    }
+
+    /**
+     * Converts a tag name, attribute name or attribute value read from the input to a string, decoding it if the
+     * input is UTF-8.
+     */
+    private String decode(StringBuilder units) {
+        String value = units.toString();
+        return utf8Input ? new String(value.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8) : value;
+    }
+
+    private char lowerCase(char c) {
+        if (!utf8Input) {
+            return Character.toLowerCase(c);
+        }
+        // Bytes above 127 are parts of multi-byte sequences, not characters
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static boolean containsAmpersand(byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] == '&') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    /**
+     * The read buffers of a tokenizer, allocated on first use and reusable by the tokenizers of later documents.
+     */
+    public static final class Buffers {
+
+        private char[] chars;
+
+        private byte[] bytes;
+
+        private byte[] textBytes;
+
+        private char[] chars() {
+            if (chars == null) {
+                chars = new char[BUFFER_SIZE];
+            }
+            return chars;
+        }
+
+        private byte[] bytes() {
+            if (bytes == null) {
+                bytes = new byte[BUFFER_SIZE];
+            }
+            return bytes;
+        }
+
+        private byte[] textBytes() {
+            if (textBytes == null) {
+                textBytes = new byte[TEXT_RUN_CAPACITY];
+            }
+            return textBytes;
+        }
+    }
+}
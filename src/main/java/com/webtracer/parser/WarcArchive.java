@@ -0,0 +1,866 @@
+package com.webtracer.parser;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * The {@code WarcArchive} class indexes the records of WARC files, the format web archives are recorded in, and
+ * reads archived responses back by their URL.
+ *
+ * <p>The index maps the target URL of every {@code response} and {@code resource} record to the file and offset
+ * of the record. It is built once when the archive is opened, by streaming each file from its start to its end
+ * without keeping the content of the records, one task per file and the files in parallel. Compressed
+ * {@code .warc.gz} files are inflated gzip member by member, and a record is located by the offset of the member
+ * it starts in, so that reading it inflates that member only. WARC writers compress every record as a member of
+ * its own; a file compressed as a whole is still read correctly, but each record is then inflated from the start
+ * of the file. When a URL was captured more than once, the capture latest in the order of the files, and of the
+ * records within a file, is served.</p>
+ *
+ * <p>The files are kept open and read with positional reads, so that any number of threads may read records
+ * concurrently. The archive must be closed once the crawl is over.</p>
+ */
+@Slf4j
+final class WarcArchive implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    private static final Pattern CHARSET = Pattern.compile("(?i)\\bcharset\\s*=\\s*\"?([^\";\\s]+)");
+
+    private final List<Path> files;
+
+    private final FileChannel[] channels;
+
+    private final Map<String, Location> index;
+
+    private WarcArchive(List<Path> files, FileChannel[] channels, Map<String, Location> index) {
+        this.files = files;
+        this.channels = channels;
+        this.index = index;
+    }
+
+    /**
+     * Opens the given WARC files and indexes their records, in parallel across the files.
+     *
+     * @param paths       the {@code .warc} or {@code .warc.gz} files, or directories whose such files are opened in
+     *                    the order of their names.
+     * @param parallelism the maximum number of files indexed at the same time.
+     * @return the indexed archive.
+     * @throws IOException if no file is given, or a file cannot be read or is not a valid WARC file.
+     */
+    static WarcArchive open(List<Path> paths, int parallelism) throws IOException {
+        List<Path> files = listFiles(paths);
+        if (files.isEmpty()) {
+            throw new IOException("No WARC files found in " + paths);
+        }
+
+        long start = System.nanoTime();
+        List<Map<String, Location>> fileIndexes;
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, Math.min(parallelism, files.size())));
+        try {
+            fileIndexes = pool.submit(() -> IntStream.range(0, files.size())
+                    .parallel()
+                    .mapToObj(file -> indexFile(file, files.get(file)))
+                    .toList()).join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+
+        // Merged in file order, so that later captures of a URL replace earlier ones
+        Map<String, Location> index = new HashMap<>();
+        fileIndexes.forEach(index::putAll);
+        log.info("Indexed {} archived URLs of {} WARC files in {} ms", index.size(), files.size(),
+                 (System.nanoTime() - start) / 1_000_000);
+
+        FileChannel[] channels = new FileChannel[files.size()];
+        try {
+            for (int file = 0; file < channels.length; file++) {
+                channels[file] = FileChannel.open(files.get(file), StandardOpenOption.READ);
+            }
+        } catch (IOException e) {
+            closeAll(channels);
+            throw e;
+        }
+        return new WarcArchive(files, channels, Map.copyOf(index));
+    }
+
+    /**
+     * Returns the number of URLs whose responses are archived.
+     *
+     * @return the number of indexed URLs.
+     */
+    int size() {
+        return index.size();
+    }
+
+    /**
+     * Reads the archived response of a URL. A URL with a fragment is looked up without it, and the URL of a host
+     * without a path also with the root path.
+     *
+     * @param uri the URL of the response.
+     * @return the response, whose body must be closed, or an empty {@link Optional} if the URL is not archived.
+     * @throws IOException if the record cannot be read or is malformed.
+     */
+    Optional<ArchivedResponse> read(URI uri) throws IOException {
+        Location location = lookup(uri);
+        if (location == null) {
+            log.debug("{} is not archived", uri);
+            return Optional.empty();
+        }
+
+        InputStream in = openRecord(location);
+        try {
+            if (readVersionLine(in) == null) {
+                throw new EOFException("No WARC record at offset " + location.offset() + " of "
+                                               + files.get(location.file()));
+            }
+            Map<String, String> warcHeaders = readHeaders(in);
+            InputStream block = new BlockInputStream(in, contentLength(warcHeaders));
+            if ("resource".equals(warcHeaders.get("warc-type"))) {
+                String contentType = warcHeaders.get("content-type");
+                return Optional.of(new ArchivedResponse(uri, 200, contentType, charset(contentType), null, block));
+            }
+
+            String statusLine = readLine(block);
+            Map<String, String> httpHeaders = readHeaders(block);
+            String contentType = httpHeaders.get("content-type");
+            return Optional.of(new ArchivedResponse(uri, status(statusLine), contentType, charset(contentType),
+                                                    httpHeaders.get("location"), decodeBody(block, httpHeaders)));
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeAll(channels);
+    }
+
+    private Location lookup(URI uri) {
+        String url = uri.toString();
+        Location location = index.get(url);
+        int fragment = url.indexOf('#');
+        if (location == null && fragment >= 0) {
+            url = url.substring(0, fragment);
+            location = index.get(url);
+        }
+        if (location == null && uri.getHost() != null && (uri.getRawPath() == null || uri.getRawPath().isEmpty())
+                && uri.getRawQuery() == null) {
+            location = index.get(url + "/");
+        }
+        return location;
+    }
+
+    private InputStream openRecord(Location location) throws IOException {
+        InputStream raw = new PositionalInputStream(channels[location.file()], location.offset());
+        if (!isCompressed(files.get(location.file()))) {
+            return new BufferedInputStream(raw, BUFFER_SIZE);
+        }
+        InputStream in = new BufferedInputStream(new GZIPInputStream(raw, BUFFER_SIZE), BUFFER_SIZE);
+        in.skipNBytes(location.inner());
+        return in;
+    }
+
+    /**
+     * Streams a WARC file from its start to its end and indexes its records.
+     */
+    private static Map<String, Location> indexFile(int file, Path path) {
+        Map<String, Location> index = new HashMap<>();
+        int records = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             ScanInput in = isCompressed(path) ? new GzipMemberInput(channel) : new PlainInput(channel)) {
+            while (in.hasMore()) {
+                long offset = in.recordOffset();
+                long inner = in.innerOffset();
+                String versionLine = readLine(in);
+                if (versionLine == null || versionLine.isEmpty()) {
+                    // The blank lines ending the previous record
+                    continue;
+                }
+                if (!versionLine.startsWith("WARC/")) {
+                    throw new IOException("Expected a WARC record at offset " + offset + " of " + path + " but found: "
+                                                  + versionLine);
+                }
+                Map<String, String> headers = readHeaders(in);
+                long length = contentLength(headers);
+                in.skipNBytes(length);
+                records++;
+
+                String type = headers.get("warc-type");
+                String target = headers.get("warc-target-uri");
+                if (target != null && length > 0 && ("response".equals(type) || "resource".equals(type))) {
+                    index.put(targetUri(target), new Location(file, offset, inner));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to index " + path, e);
+        }
+        log.debug("Indexed {} URLs of {} records of {}", index.size(), records, path);
+        return index;
+    }
+
+    private static List<Path> listFiles(List<Path> paths) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path path : paths) {
+            if (!Files.isDirectory(path)) {
+                files.add(path);
+                continue;
+            }
+            List<Path> archived = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(path)) {
+                for (Path entry : entries) {
+                    String name = entry.getFileName().toString().toLowerCase(Locale.ROOT);
+                    if (name.endsWith(".warc") || name.endsWith(".warc.gz")) {
+                        archived.add(entry);
+                    }
+                }
+            }
+            archived.sort(null);
+            files.addAll(archived);
+        }
+        return files;
+    }
+
+    private static boolean isCompressed(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz");
+    }
+
+    /**
+     * Reads the line starting a record, skipping the blank lines ending the previous one.
+     *
+     * @return the version line, or {@code null} at the end of the stream.
+     */
+    private static String readVersionLine(InputStream in) throws IOException {
+        String line;
+        do {
+            line = readLine(in);
+        } while (line != null && line.isEmpty());
+        if (line != null && !line.startsWith("WARC/")) {
+            throw new IOException("Expected a WARC record but found: " + line);
+        }
+        return line;
+    }
+
+    /**
+     * Reads header fields up to the blank line ending them, with lower-case names. Folded lines are joined and the
+     * first of repeated fields is kept.
+     */
+    private static Map<String, String> readHeaders(InputStream in) throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        String name = null;
+        for (String line = readLine(in); line != null && !line.isEmpty(); line = readLine(in)) {
+            if ((line.charAt(0) == ' ' || line.charAt(0) == '\t') && name != null) {
+                headers.put(name, headers.get(name) + " " + line.strip());
+                continue;
+            }
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                log.debug("Ignoring malformed header line: {}", line);
+                continue;
+            }
+            name = line.substring(0, colon).strip().toLowerCase(Locale.ROOT);
+            headers.putIfAbsent(name, line.substring(colon + 1).strip());
+        }
+        return headers;
+    }
+
+    /**
+     * Reads a line ended by {@code LF} or {@code CRLF}, decoded as UTF-8.
+     *
+     * @return the line without its end, or {@code null} at the end of the stream.
+     */
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        int b = in.read();
+        if (b < 0) {
+            return null;
+        }
+        while (b >= 0 && b != '\n') {
+            if (line.size() == MAX_LINE_LENGTH) {
+                throw new IOException("Header line longer than " + MAX_LINE_LENGTH + " bytes");
+            }
+            line.write(b);
+            b = in.read();
+        }
+        byte[] bytes = line.toByteArray();
+        int length = bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1 : bytes.length;
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static long contentLength(Map<String, String> headers) throws IOException {
+        String contentLength = headers.get("content-length");
+        try {
+            long length = Long.parseLong(contentLength);
+            if (length < 0) {
+                throw new IOException("Negative Content-Length of WARC record: " + contentLength);
+            }
+            return length;
+        } catch (NumberFormatException e) {
+            throw new IOException("Missing or invalid Content-Length of WARC record: " + contentLength, e);
+        }
+    }
+
+    /**
+     * Strips the angle brackets the WARC 1.0 specification put around target URIs in its examples, which some
+     * writers copied.
+     */
+    private static String targetUri(String target) {
+        return target.startsWith("<") && target.endsWith(">") ? target.substring(1, target.length() - 1) : target;
+    }
+
+    private static int status(String statusLine) throws IOException {
+        String[] parts = statusLine == null ? new String[0] : statusLine.split(" ", 3);
+        try {
+            if (parts.length >= 2 && parts[0].startsWith("HTTP/")) {
+                return Integer.parseInt(parts[1]);
+            }
+        } catch (NumberFormatException e) {
+            log.debug("Invalid status code in: {}", statusLine);
+        }
+        throw new IOException("Archived response has no HTTP status line: " + statusLine);
+    }
+
+    /**
+     * Returns the charset declared in a {@code Content-Type}, or {@code null} if none or an unsupported one is
+     * declared.
+     */
+    private static String charset(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        Matcher matcher = CHARSET.matcher(contentType);
+        if (!matcher.find()) {
+            return null;
+        }
+        try {
+            return Charset.isSupported(matcher.group(1)) ? matcher.group(1) : null;
+        } catch (IllegalCharsetNameException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Removes the transfer and content encodings of an archived body, as recorded on the wire.
+     */
+    private static InputStream decodeBody(InputStream body, Map<String, String> headers) throws IOException {
+        String transferEncoding = headers.getOrDefault("transfer-encoding", "").toLowerCase(Locale.ROOT);
+        if (transferEncoding.contains("chunked")) {
+            body = new ChunkedInputStream(body);
+        }
+        String contentEncoding = headers.getOrDefault("content-encoding", "").strip().toLowerCase(Locale.ROOT);
+        return switch (contentEncoding) {
+            case "", "identity" -> body;
+            case "gzip", "x-gzip" -> new GZIPInputStream(body, BUFFER_SIZE);
+            case "deflate" -> new InflaterInputStream(body);
+            default -> throw new IOException("Unsupported Content-Encoding of archived response: " + contentEncoding);
+        };
+    }
+
+    private static void closeAll(FileChannel[] channels) throws IOException {
+        IOException failure = null;
+        for (FileChannel channel : channels) {
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * An archived response.
+     *
+     * @param location    the URL the response was archived for.
+     * @param status      the HTTP status code, {@code 200} for a {@code resource} record.
+     * @param contentType the declared {@code Content-Type}, or {@code null}.
+     * @param charset     the supported charset declared in the {@code Content-Type}, or {@code null}.
+     * @param redirect    the {@code Location} header, or {@code null}.
+     * @param body        the body, without transfer and content encodings.
+     */
+    record ArchivedResponse(URI location, int status, String contentType, String charset, String redirect,
+                            InputStream body) implements Closeable {
+
+        @Override
+        public void close() throws IOException {
+            body.close();
+        }
+    }
+
+    /**
+     * The position of a record: the file, the offset of the record or of the gzip member it starts in, and the
+     * offset of the record within the inflated member.
+     */
+    private record Location(int file, long offset, long inner) {
+    }
+
+    /**
+     * Reads a shared file channel from a given position without moving the position of the channel.
+     */
+    private static final class PositionalInputStream extends InputStream {
+
+        private final FileChannel channel;
+
+        private long position;
+
+        PositionalInputStream(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int read = channel.read(ByteBuffer.wrap(b, off, len), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+    }
+
+    /**
+     * Reads the block of a record, which ends after its declared length.
+     */
+    private static final class BlockInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        BlockInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining == 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (remaining == 0) {
+                return -1;
+            }
+            int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    /**
+     * Removes the chunked transfer encoding of a body. Chunk extensions and trailers are ignored.
+     */
+    private static final class ChunkedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        private boolean last;
+
+        ChunkedInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (remaining == 0 && !nextChunk()) {
+                return -1;
+            }
+            int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read < 0) {
+                throw new EOFException("Chunked body ended within a chunk");
+            }
+            remaining -= read;
+            return read;
+        }
+
+        private boolean nextChunk() throws IOException {
+            if (last) {
+                return false;
+            }
+            String line = readLine(in);
+            if (line != null && line.isEmpty()) {
+                // The line ending the previous chunk
+                line = readLine(in);
+            }
+            if (line == null) {
+                throw new EOFException("Chunked body ended without its last chunk");
+            }
+            int extension = line.indexOf(';');
+            try {
+                remaining = Long.parseLong((extension < 0 ? line : line.substring(0, extension)).strip(), 16);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid chunk size: " + line, e);
+            }
+            last = remaining == 0;
+            return !last;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Streams a file while the records are indexed, buffering it and reporting the location of the next byte.
+     */
+    private abstract static class ScanInput extends InputStream {
+
+        final byte[] buffer = new byte[BUFFER_SIZE];
+
+        int position;
+
+        int limit;
+
+        /**
+         * Refills the buffer once it has been read.
+         *
+         * @return {@code false} at the end of the file.
+         */
+        abstract boolean fill() throws IOException;
+
+        /**
+         * Returns the offset in the file of the record starting at the next byte.
+         */
+        abstract long recordOffset();
+
+        /**
+         * Returns the offset of the next byte within the inflated member it belongs to, or {@code 0} for an
+         * uncompressed file.
+         */
+        abstract long innerOffset();
+
+        final boolean hasMore() throws IOException {
+            return position < limit || fill();
+        }
+
+        @Override
+        public final int read() throws IOException {
+            return hasMore() ? buffer[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public final int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!hasMore()) {
+                return -1;
+            }
+            int read = Math.min(len, limit - position);
+            System.arraycopy(buffer, position, b, off, read);
+            position += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0;
+            while (skipped < n && hasMore()) {
+                int step = (int) Math.min(n - skipped, limit - position);
+                position += step;
+                skipped += step;
+            }
+            return skipped;
+        }
+    }
+
+    /**
+     * Streams an uncompressed file, skipping the content of records without reading it.
+     */
+    private static final class PlainInput extends ScanInput {
+
+        private final FileChannel channel;
+
+        /**
+         * The offset in the file of the start of the buffer.
+         */
+        private long bufferOffset;
+
+        PlainInput(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        boolean fill() throws IOException {
+            bufferOffset += limit;
+            position = 0;
+            limit = Math.max(0, channel.read(ByteBuffer.wrap(buffer), bufferOffset));
+            return limit > 0;
+        }
+
+        @Override
+        long recordOffset() {
+            return bufferOffset + position;
+        }
+
+        @Override
+        long innerOffset() {
+            return 0;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long buffered = Math.min(n, limit - position);
+            position += (int) buffered;
+            if (buffered < n) {
+                // Continue reading after the skipped bytes rather than reading through them
+                bufferOffset += limit + (n - buffered);
+                position = 0;
+                limit = 0;
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Streams a gzip file member by member, keeping the offset in the file of the member being inflated.
+     */
+    private static final class GzipMemberInput extends ScanInput {
+
+        private static final int FHCRC = 2;
+        private static final int FEXTRA = 4;
+        private static final int FNAME = 8;
+        private static final int FCOMMENT = 16;
+
+        private final FileChannel channel;
+
+        private final ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE).flip();
+
+        private final Inflater inflater = new Inflater(true);
+
+        /**
+         * The offset in the file of the start of the input buffer.
+         */
+        private long inputOffset;
+
+        /**
+         * The offset in the file of the member being inflated.
+         */
+        private long memberOffset;
+
+        /**
+         * The offset within the inflated member of the start of the buffer.
+         */
+        private long bufferInner;
+
+        private boolean inMember;
+
+        GzipMemberInput(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        boolean fill() throws IOException {
+            bufferInner += limit;
+            position = 0;
+            limit = 0;
+            while (limit == 0) {
+                if (!inMember || inflater.finished()) {
+                    if (inMember) {
+                        // The CRC-32 and size trailer of the finished member
+                        skipRaw(8);
+                    }
+                    if (!startMember()) {
+                        return false;
+                    }
+                }
+                limit = inflate();
+            }
+            return true;
+        }
+
+        private int inflate() throws IOException {
+            try {
+                while (true) {
+                    if (inflater.needsInput()) {
+                        if (!refill()) {
+                            throw new EOFException("Gzip member at offset " + memberOffset + " is truncated");
+                        }
+                        inflater.setInput(input);
+                    }
+                    int inflated = inflater.inflate(buffer);
+                    if (inflated > 0 || inflater.finished()) {
+                        return inflated;
+                    }
+                    if (inflater.needsDictionary()) {
+                        throw new ZipException("Gzip member at offset " + memberOffset + " needs a dictionary");
+                    }
+                }
+            } catch (DataFormatException e) {
+                throw new ZipException("Invalid gzip member at offset " + memberOffset + ": " + e.getMessage());
+            }
+        }
+
+        /**
+         * Reads the header of the next member.
+         *
+         * @return {@code false} at the end of the file.
+         */
+        private boolean startMember() throws IOException {
+            long offset = inputOffset + input.position();
+            int id1 = readRaw();
+            if (id1 < 0) {
+                inMember = false;
+                return false;
+            }
+            if (id1 != 0x1F || readRaw() != 0x8B || readRaw() != 8) {
+                throw new ZipException("No gzip member at offset " + offset);
+            }
+            int flags = readRaw();
+            // Modification time, extra flags and operating system
+            skipRaw(6);
+            if ((flags & FEXTRA) != 0) {
+                skipRaw(readRaw() | readRaw() << 8);
+            }
+            if ((flags & FNAME) != 0) {
+                skipString();
+            }
+            if ((flags & FCOMMENT) != 0) {
+                skipString();
+            }
+            if ((flags & FHCRC) != 0) {
+                skipRaw(2);
+            }
+            inflater.reset();
+            inflater.setInput(input);
+            memberOffset = offset;
+            bufferInner = 0;
+            inMember = true;
+            return true;
+        }
+
+        private boolean refill() throws IOException {
+            if (input.hasRemaining()) {
+                return true;
+            }
+            inputOffset += input.limit();
+            input.clear();
+            int read = channel.read(input, inputOffset);
+            input.flip();
+            return read > 0;
+        }
+
+        private int readRaw() throws IOException {
+            return refill() ? input.get() & 0xFF : -1;
+        }
+
+        private void skipRaw(int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                if (readRaw() < 0) {
+                    throw new EOFException("Gzip member at offset " + memberOffset + " is truncated");
+                }
+            }
+        }
+
+        private void skipString() throws IOException {
+            for (int b = readRaw(); b != 0; b = readRaw()) {
+                if (b < 0) {
+                    throw new EOFException("Gzip header at offset " + memberOffset + " is truncated");
+                }
+            }
+        }
+
+        @Override
+        long recordOffset() {
+            return memberOffset;
+        }
+
+        @Override
+        long innerOffset() {
+            return bufferInner + position;
+        }
+
+        @Override
+        public void close() {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.webtracer.parser;
+
+import com.webtracer.ApiException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.nodes.Document;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * The {@code WarcDocumentLoader} class is a {@link DocumentLoader} replaying the responses recorded in WARC
+ * archives instead of requesting them, so that a crawl runs against a recorded snapshot of the web at the speed of
+ * the disk, without any network access, and gives the same result every time it is repeated.
+ *
+ * <p>The archives are indexed by URL when the loader is opened; see {@link WarcArchive}. A URL that was not
+ * archived fails to load, as an unreachable page does. Archived redirects are followed within the archive, and
+ * responses with any other status than {@code 2xx} fail to load. As with {@link DefaultDocumentLoader}, responses of
+ * a content type that is neither text nor XML are not parsed, {@code text/plain} and {@code text/markdown} are
+ * wrapped in a document with a single text node, and at most the maximum body size is read.</p>
+ *
+ * <p>The loader must be {@linkplain #close() closed} once the crawl is over.</p>
+ */
+@Slf4j
+public final class WarcDocumentLoader implements DocumentLoader, Closeable {
+
+    /**
+     * The maximum number of archived redirects followed from a URL.
+     */
+    static final int MAX_REDIRECTS = 10;
+
+    private final WarcArchive archive;
+
+    /**
+     * The maximum number of bytes read from a document, or {@code 0} for no limit.
+     */
+    @Getter
+    private final long maxBodySize;
+
+    WarcDocumentLoader(WarcArchive archive, long maxBodySize) {
+        if (maxBodySize < 0) {
+            throw new IllegalArgumentException("maxBodySize must not be negative: " + maxBodySize);
+        }
+        this.archive = archive;
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * Opens the given WARC archives and indexes their records, using a thread per available processor to index
+     * several files at the same time.
+     *
+     * @param paths       the {@code .warc} or {@code .warc.gz} files, or directories holding them.
+     * @param maxBodySize the maximum number of bytes read from a document, or {@code 0} for no limit.
+     * @return the loader replaying the archives.
+     * @throws IOException              if no archive is found, or an archive cannot be read or is malformed.
+     * @throws IllegalArgumentException if {@code maxBodySize} is negative.
+     */
+    public static WarcDocumentLoader open(List<Path> paths, long maxBodySize) throws IOException {
+        return new WarcDocumentLoader(WarcArchive.open(paths, Runtime.getRuntime().availableProcessors()),
+                                      maxBodySize);
+    }
+
+    /**
+     * Returns the number of URLs whose responses are archived.
+     *
+     * @return the number of URLs the loader can replay.
+     */
+    public int getArchivedUrlCount() {
+        return archive.size();
+    }
+
+    /**
+     * Loads a JSoup {@link Document} from the response archived for the given {@link URI}.
+     *
+     * @param uri the {@link URI} of the document to be loaded.
+     * @return an {@link Optional<Document>} containing the parsed document.
+     * @throws ApiException if the URL is not archived, its archived response is not a parseable document, or the
+     *                      archive cannot be read.
+     */
+    @Override
+    public Optional<Document> loadDocument(URI uri) throws ApiException {
+        log.debug("Replaying document of URI: {}", uri);
+
+        try (WarcArchive.ArchivedResponse response = replay(uri);
+             LimitedInputStream in = new LimitedInputStream(response.body(), maxBodySize)) {
+            boolean plainText = PageFormat.fromContentType(response.contentType())
+                    .map(PageFormat::isPlainText)
+                    .orElse(false);
+            String location = response.location().toString();
+            return Optional.of(plainText
+                                       ? DefaultDocumentLoader.parsePlainText(in, response.charset(), location)
+                                       : DefaultDocumentLoader.parse(in, response.charset(), location));
+        } catch (IOException e) {
+            log.error("Failed to replay document of URI: {}", uri, e);
+            throw new ApiException("Invalid archived record", e);
+        }
+    }
+
+    /**
+     * Opens the response archived for the given {@link URI} for reading, without parsing it. The location of the
+     * document is the URL of the response served after following archived redirects.
+     *
+     * @param uri the {@link URI} of the document to be opened.
+     * @return a {@link DocumentStream} reading the archived content of the document.
+     * @throws ApiException if the URL is not archived, its archived response is not a parseable document, or the
+     *                      archive cannot be read.
+     */
+    @Override
+    public DocumentStream openDocumentStream(URI uri) throws ApiException {
+        log.debug("Replaying document stream of URI: {}", uri);
+
+        try {
+            WarcArchive.ArchivedResponse response = replay(uri);
+            return new DocumentStream(response.body(), response.charset(), response.location(), maxBodySize,
+                                      response.contentType());
+        } catch (IOException e) {
+            log.error("Failed to replay document stream of URI: {}", uri, e);
+            throw new ApiException("Invalid archived record", e);
+        }
+    }
+
+    /**
+     * Reads the archived response of a URL, following archived redirects.
+     *
+     * @throws ApiException if no successful response of a parseable content type is archived for the URL.
+     */
+    private WarcArchive.ArchivedResponse replay(URI uri) throws IOException {
+        URI current = uri;
+        for (int redirects = 0; ; redirects++) {
+            Optional<WarcArchive.ArchivedResponse> archived = archive.read(current);
+            if (archived.isEmpty()) {
+                throw new ApiException("URL is not archived: " + current);
+            }
+            WarcArchive.ArchivedResponse response = archived.get();
+            int status = response.status();
+
+            if (status >= 300 && status < 400 && response.redirect() != null) {
+                response.close();
+                if (redirects == MAX_REDIRECTS) {
+                    throw new ApiException("Too many archived redirects from " + uri);
+                }
+                try {
+                    current = current.resolve(response.redirect());
+                } catch (IllegalArgumentException e) {
+                    throw new ApiException("Invalid archived redirect from " + current + ": " + response.redirect());
+                }
+                log.debug("Following archived redirect to {}", current);
+                continue;
+            }
+
+            if (status < 200 || status >= 300) {
+                response.close();
+                throw new ApiException("Archived response of " + current + " has status " + status);
+            }
+            if (!isParseable(response.contentType())) {
+                response.close();
+                log.info("Not replaying {} of type {}", current, response.contentType());
+                throw new ApiException("Archived response of " + current + " is not a parseable document");
+            }
+            return response;
+        }
+    }
+
+    /**
+     * Checks whether a content type is one JSoup accepts: text, XML or XHTML. Responses without a content type are
+     * parsed as HTML.
+     */
+    private static boolean isParseable(String contentType) {
+        if (contentType == null) {
+            return true;
+        }
+        String mimeType = contentType.split(";", 2)[0].strip().toLowerCase(Locale.ROOT);
+        return mimeType.isEmpty() || mimeType.startsWith("text/") || mimeType.equals("application/xml")
+                || mimeType.endsWith("+xml");
+    }
+
+    /**
+     * Closes the archive files.
+     */
+    @Override
+    public void close() throws IOException {
+        archive.close();
+    }
+}
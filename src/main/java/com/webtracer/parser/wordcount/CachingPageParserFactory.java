@@ -0,0 +1,110 @@
+package com.webtracer.parser.wordcount;
+
+import com.webtracer.parser.AbstractPageParserFactory;
+import com.webtracer.parser.PageParser;
+import com.webtracer.parser.ParseMode;
+import com.webtracer.parser.ParseProjection;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.function.Consumer;
+
+/**
+ * The {@code CachingPageParserFactory} class decorates another {@link AbstractPageParserFactory} of
+ * {@link WordCountPageParser}s with an {@link InMemoryParseResultCache}, so that pages parsed recently are neither
+ * fetched nor parsed again while their results are cached.
+ *
+ * <p>The parsers created by this factory first look up the result of their page in the cache. On a hit, the cached
+ * result is returned and its hyperlinks are passed to the link listener, in the order they were found; the page is
+ * not requested. On a miss, the page is parsed by a parser of the decorated factory, and a copy of its result is
+ * offered to the cache, which decides whether to keep it. The result returned on a miss is the result of the
+ * decorated parser, so a view over per-worker tables must still be released by the caller.</p>
+ */
+@Slf4j
+@RequiredArgsConstructor
+public final class CachingPageParserFactory implements AbstractPageParserFactory {
+
+    /**
+     * The factory creating the parsers that parse pages whose results are not cached.
+     */
+    @NonNull
+    private final AbstractPageParserFactory delegate;
+
+    /**
+     * The cache of recent parse results, which may be shared by several factories.
+     */
+    @Getter
+    @NonNull
+    private final InMemoryParseResultCache cache;
+
+    /**
+     * Describes the configuration of the decorated factory that results depend on, such as the excluded words,
+     * the parse mode, the maximum body size and the document loader; results cached under another fingerprint are
+     * never served.
+     */
+    @NonNull
+    private final String fingerprint;
+
+    /**
+     * Creates a parser for the given URL that takes its result from the cache if it is there.
+     *
+     * @param url the URL of the web page to be parsed.
+     * @return a parser whose results are cached.
+     * @throws IllegalStateException if the decorated factory does not create {@link WordCountPageParser}s.
+     */
+    @Override
+    public WordCountPageParser createParserInstance(@NonNull String url) {
+        PageParser parser = delegate.createParserInstance(url);
+        if (!(parser instanceof WordCountPageParser wordCountParser)) {
+            throw new IllegalStateException("Cannot cache the results of " + parser.getClass().getName());
+        }
+        return new CachingPageParser(url, wordCountParser);
+    }
+
+    @RequiredArgsConstructor
+    private final class CachingPageParser implements WordCountPageParser {
+
+        private final String url;
+
+        private final WordCountPageParser parser;
+
+        @Override
+        public WordCountParseResult parse() {
+            return parse(ParseProjection.ALL);
+        }
+
+        @Override
+        public WordCountParseResult parse(@NonNull ParseProjection projection) {
+            return parse(projection, link -> {
+            });
+        }
+
+        @Override
+        public WordCountParseResult parse(@NonNull ParseProjection projection,
+                                          @NonNull Consumer<String> linkListener) {
+            WordCountParseResult cached = cache.get(fingerprint, url, projection);
+            if (cached != null) {
+                log.debug("Serving the result of {} from the in-memory cache", url);
+                cached.getHyperLinkList().forEach(linkListener);
+                return cached;
+            }
+            WordCountParseResult result = parser.parse(projection, linkListener);
+            cache.put(fingerprint, url, projection, result);
+            return result;
+        }
+
+        @Override
+        public PageRevision parseRevision(@NonNull ParseProjection projection,
+                                          @NonNull Consumer<String> linkListener, ContentDigest previousDigest) {
+            // Cached results carry no digest, so revisions are always read from the page
+            return parser.parseRevision(projection, linkListener, previousDigest);
+        }
+
+        @Override
+        public ParseMode getParseMode() {
+            return parser.getParseMode();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.webtracer.parser.wordcount;
+
+import lombok.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The first 128 bits of the SHA-256 digest of the content of a page and of everything else its parse result
+ * depends on, such as its location and content type. Two reads of a page with the same digest yield the same
+ * word counts and links.
+ *
+ * @param high the first 64 bits of the digest.
+ * @param low  the next 64 bits of the digest.
+ */
+public record ContentDigest(long high, long low) {
+
+    /**
+     * Computes the digest of a page.
+     *
+     * @param content the bytes of the page.
+     * @param context everything else the result of the page depends on, e.g. its location and content type.
+     * @return the digest of the page.
+     */
+    public static ContentDigest of(byte @NonNull [] content, @NonNull String context) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+        digest.update(context.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(content);
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+        return new ContentDigest(hash.getLong(), hash.getLong());
+    }
+}
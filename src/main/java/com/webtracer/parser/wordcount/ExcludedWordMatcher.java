@@ -0,0 +1,286 @@
+package com.webtracer.parser.wordcount;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * The {@code ExcludedWordMatcher} class decides whether a token extracted from a page matches any of the
+ * configured {@code excludedWords} patterns. It is an optimized replacement for evaluating every pattern
+ * against every token occurrence.
+ *
+ * <p>When compiled, each pattern is classified by its shape:</p>
+ * <ul>
+ *   <li>Length patterns such as {@code ^.{1,3}$}, {@code .+} or {@code .{5,}} become plain code point length
+ *       checks.</li>
+ *   <li>Literal patterns and literal alternations such as {@code ^(the|and|of)$} become hash set lookups.</li>
+ *   <li>All remaining patterns without flags are combined into a single alternation, so only one
+ *       {@link Matcher} is created per evaluation. Patterns with flags or back-references are kept as is.</li>
+ * </ul>
+ *
+ * <p>The include/exclude decision is cached per distinct token, so each unique token is evaluated once for
+ * the lifetime of the matcher, which is shared by all parsers created by a single factory. The cache is
+ * bounded by {@link #MAX_CACHED_DECISIONS}; tokens seen after the cache is full are evaluated directly.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ */
+@Slf4j
+final class ExcludedWordMatcher {
+
+    /**
+     * Upper bound of the number of cached decisions, protecting the heap on crawls with unbounded vocabularies.
+     */
+    static final int MAX_CACHED_DECISIONS = 1 << 20;
+
+    /**
+     * Pattern recognizing the length shapes {@code .{n}}, {@code .{n,}} and {@code .{n,m}}.
+     */
+    private static final Pattern LENGTH_SHAPE = Pattern.compile("\\.\\{(\\d+)(,(\\d*))?}");
+
+    /**
+     * Pattern detecting numbered or named back-references, which cannot be safely combined into an alternation.
+     */
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\([1-9]|k<)");
+
+    /**
+     * Characters with a special meaning in a regular expression; alternatives containing none of them are literals.
+     */
+    private static final String REGEX_META_CHARACTERS = "\\^$.|?*+()[]{}";
+
+    private static final ExcludedWordMatcher EMPTY = new ExcludedWordMatcher(new int[0][], Set.of(), List.of());
+
+    /**
+     * Inclusive code point length ranges, each stored as {@code {min, max}}.
+     */
+    private final int[][] lengthRanges;
+
+    private final Set<String> literals;
+
+    private final List<Pattern> regexPatterns;
+
+    private final ConcurrentMap<String, Boolean> decisions = new ConcurrentHashMap<>();
+
+    private ExcludedWordMatcher(int[][] lengthRanges, Set<String> literals, List<Pattern> regexPatterns) {
+        this.lengthRanges = lengthRanges;
+        this.literals = literals;
+        this.regexPatterns = regexPatterns;
+    }
+
+    /**
+     * Returns a matcher that does not exclude any token.
+     *
+     * @return an empty {@code ExcludedWordMatcher}.
+     */
+    static ExcludedWordMatcher none() {
+        return EMPTY;
+    }
+
+    /**
+     * Compiles the given exclusion patterns into an {@code ExcludedWordMatcher}.
+     *
+     * @param patterns the configured exclusion patterns; a token is excluded if it fully matches any of them.
+     * @return a matcher equivalent to evaluating {@code patterns} with {@link Matcher#matches()}.
+     * @throws NullPointerException if {@code patterns} is {@code null}.
+     */
+    static ExcludedWordMatcher compile(@NonNull List<Pattern> patterns) {
+        if (patterns.isEmpty()) {
+            return EMPTY;
+        }
+
+        List<int[]> lengthRanges = new ArrayList<>();
+        Set<String> literals = new HashSet<>();
+        List<Pattern> combinable = new ArrayList<>();
+        List<Pattern> standalone = new ArrayList<>();
+
+        for (Pattern pattern : patterns) {
+            if (pattern.flags() != 0) {
+                standalone.add(pattern);
+                continue;
+            }
+
+            String body = stripAnchors(pattern.pattern());
+            int[] lengthRange = parseLengthRange(body);
+            if (lengthRange != null) {
+                lengthRanges.add(lengthRange);
+                continue;
+            }
+
+            List<String> alternatives = parseLiteralAlternatives(body);
+            if (alternatives != null) {
+                literals.addAll(alternatives);
+                continue;
+            }
+
+            if (BACK_REFERENCE.matcher(pattern.pattern()).find()) {
+                standalone.add(pattern);
+            } else {
+                combinable.add(pattern);
+            }
+        }
+
+        List<Pattern> regexPatterns = new ArrayList<>();
+        if (combinable.size() == 1) {
+            regexPatterns.add(combinable.get(0));
+        } else if (!combinable.isEmpty()) {
+            regexPatterns.add(Pattern.compile(combinable.stream()
+                                                      .map(p -> "(?:" + p.pattern() + ")")
+                                                      .collect(Collectors.joining("|"))));
+        }
+        regexPatterns.addAll(standalone);
+
+        log.debug("Compiled {} excluded word patterns into {} length checks, {} literals and {} regular expressions",
+                  patterns.size(), lengthRanges.size(), literals.size(), regexPatterns.size());
+
+        return new ExcludedWordMatcher(lengthRanges.toArray(new int[0][]), Set.copyOf(literals),
+                                       List.copyOf(regexPatterns));
+    }
+
+    /**
+     * Determines whether the given token is excluded from the word count.
+     *
+     * @param token the raw token, as split from the text of a page.
+     * @return {@code true} if the token matches any exclusion pattern, {@code false} otherwise.
+     */
+    boolean isExcluded(String token) {
+        if (this == EMPTY) {
+            return false;
+        }
+
+        Boolean cached = decisions.get(token);
+        if (cached != null) {
+            return cached;
+        }
+
+        boolean excluded = evaluate(token);
+        if (decisions.size() < MAX_CACHED_DECISIONS) {
+            decisions.putIfAbsent(token, excluded);
+        }
+        return excluded;
+    }
+
+    /**
+     * Evaluates the token against the compiled rules, cheapest checks first.
+     */
+    private boolean evaluate(String token) {
+        if (lengthRanges.length > 0 && !containsLineTerminator(token)) {
+            int length = token.codePointCount(0, token.length());
+            for (int[] range : lengthRanges) {
+                if (length >= range[0] && length <= range[1]) {
+                    return true;
+                }
+            }
+        }
+
+        if (literals.contains(token)) {
+            return true;
+        }
+
+        for (Pattern pattern : regexPatterns) {
+            if (pattern.matcher(token).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes a leading {@code ^} and a trailing unescaped {@code $}. Both are redundant under
+     * {@link Matcher#matches()}.
+     */
+    private static String stripAnchors(String source) {
+        String body = source;
+        if (body.startsWith("^")) {
+            body = body.substring(1);
+        }
+        if (body.endsWith("$") && !body.endsWith("\\$")) {
+            body = body.substring(0, body.length() - 1);
+        }
+        return body;
+    }
+
+    /**
+     * Recognizes {@code .{n}}, {@code .{n,}}, {@code .{n,m}}, {@code .+} and {@code .*}.
+     *
+     * @return the inclusive {@code {min, max}} code point range, or {@code null} if the body has another shape.
+     */
+    private static int[] parseLengthRange(String body) {
+        switch (body) {
+            case ".+":
+                return new int[]{1, Integer.MAX_VALUE};
+            case ".*":
+                return new int[]{0, Integer.MAX_VALUE};
+            case ".":
+                return new int[]{1, 1};
+            default:
+                break;
+        }
+
+        Matcher matcher = LENGTH_SHAPE.matcher(body);
+        if (!matcher.matches()) {
+            return null;
+        }
+
+        try {
+            int min = Integer.parseInt(matcher.group(1));
+            int max;
+            if (matcher.group(2) == null) {
+                max = min;
+            } else if (matcher.group(3).isEmpty()) {
+                max = Integer.MAX_VALUE;
+            } else {
+                max = Integer.parseInt(matcher.group(3));
+            }
+            return new int[]{min, max};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Recognizes a literal or an alternation of literals, optionally wrapped in a single group.
+     *
+     * @return the literal alternatives, or {@code null} if any part of the body is not a literal.
+     */
+    private static List<String> parseLiteralAlternatives(String body) {
+        String inner = body;
+        if (inner.startsWith("(?:") && inner.endsWith(")")) {
+            inner = inner.substring(3, inner.length() - 1);
+        } else if (inner.startsWith("(") && !inner.startsWith("(?") && inner.endsWith(")")) {
+            inner = inner.substring(1, inner.length() - 1);
+        }
+
+        List<String> alternatives = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= inner.length(); i++) {
+            if (i == inner.length() || inner.charAt(i) == '|') {
+                alternatives.add(inner.substring(start, i));
+                start = i + 1;
+            } else if (REGEX_META_CHARACTERS.indexOf(inner.charAt(i)) >= 0) {
+                return null;
+            }
+        }
+        return alternatives;
+    }
+
+    /**
+     * Checks for characters that {@code .} does not match without {@link Pattern#DOTALL}.
+     */
+    private static boolean containsLineTerminator(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,504 @@
+package com.webtracer.parser.wordcount;
+
+import com.webtracer.parser.ParseProjection;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The {@code InMemoryParseResultCache} class keeps the results of recently parsed pages in memory, keyed by the
+ * canonical URL of the page, the projection it was parsed with and a fingerprint of the parser configuration, so
+ * that a long-lived process crawling the same pages again, or a crawl reaching a page under another spelling of its
+ * URL, does not fetch and parse it again, while crawl jobs configured differently never share results.
+ *
+ * <p>The cache is bounded by the estimated size of the results it holds rather than by their number, and each
+ * result expires once it has been cached for longer than its time to live. Eviction follows W-TinyLFU:</p>
+ * <ul>
+ *   <li>new results enter a small LRU window of about {@value #WINDOW_PERCENT}% of the maximum size, which absorbs
+ *   bursts of pages that are requested once;</li>
+ *   <li>a result leaving the window is only admitted into the main cache if it has been requested more often than
+ *   the result it would evict, according to a count-min sketch of recent requests whose counters are halved
+ *   periodically, so that one-off pages do not evict popular ones;</li>
+ *   <li>the main cache is a segmented LRU: admitted results are on probation until they are requested again, and
+ *   results requested again are protected, up to {@value #PROTECTED_PERCENT}% of the main cache.</li>
+ * </ul>
+ *
+ * <p>Only results that own their data are cached; results of truncated pages and empty results, which include
+ * pages that failed to load, are not cached. Cached results are immutable and may be shared by any number of
+ * callers.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ */
+@Slf4j
+public final class InMemoryParseResultCache {
+
+    /**
+     * Default time to live of a cached result: 1 hour.
+     */
+    public static final Duration DEFAULT_TTL = Duration.ofHours(1);
+
+    /**
+     * Share of the maximum size taken by the admission window, in percent.
+     */
+    static final int WINDOW_PERCENT = 1;
+
+    /**
+     * Share of the main cache taken by the protected segment, in percent.
+     */
+    static final int PROTECTED_PERCENT = 80;
+
+    /**
+     * Estimated size of a cached result without its words and links: the key, the entry, the result and its
+     * collections.
+     */
+    private static final int ENTRY_OVERHEAD = 160;
+
+    /**
+     * Estimated size of a word without its characters: its map entry, its string and its boxed count.
+     */
+    private static final int WORD_OVERHEAD = 80;
+
+    /**
+     * Estimated size of a link without its characters: its list slot and its string.
+     */
+    private static final int LINK_OVERHEAD = 48;
+
+    private final long maxSize;
+
+    private final long windowMaxSize;
+
+    private final long protectedMaxSize;
+
+    private final Duration ttl;
+
+    private final Clock clock;
+
+    private final FrequencySketch sketch;
+
+    private final Map<Key, Node> nodes = new HashMap<>();
+
+    private final LinkedHashMap<Key, Node> window = new LinkedHashMap<>();
+
+    private final LinkedHashMap<Key, Node> probation = new LinkedHashMap<>();
+
+    private final LinkedHashMap<Key, Node> protectedSegment = new LinkedHashMap<>();
+
+    private long windowSize;
+
+    private long probationSize;
+
+    private long protectedSize;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private long rejections;
+
+    /**
+     * Creates a cache holding results of at most the given estimated total size.
+     *
+     * @param maxSize the maximum estimated size of the cached results, in bytes.
+     * @param ttl     how long a result is served from the cache after it was cached.
+     */
+    public InMemoryParseResultCache(long maxSize, @NonNull Duration ttl) {
+        this(maxSize, ttl, Clock.systemUTC());
+    }
+
+    InMemoryParseResultCache(long maxSize, @NonNull Duration ttl, @NonNull Clock clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The maximum size must be positive: " + maxSize);
+        }
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("The time to live must be positive: " + ttl);
+        }
+        this.maxSize = maxSize;
+        this.windowMaxSize = maxSize * WINDOW_PERCENT / 100;
+        this.protectedMaxSize = (maxSize - windowMaxSize) * PROTECTED_PERCENT / 100;
+        this.ttl = ttl;
+        this.clock = clock;
+        // About one counter per kilobyte of results, which is fewer bytes than the smallest result takes
+        this.sketch = new FrequencySketch((int) Math.min(Math.max(maxSize / 1024, 256), 1 << 20));
+        log.debug("Created in-memory parse result cache of {} bytes with a time to live of {} s", maxSize,
+                  ttl.toSeconds());
+    }
+
+    /**
+     * Returns the cached result of a page, counting the request towards the popularity of the page whether or not
+     * the result is cached.
+     *
+     * @param fingerprint describes the parser configuration the result depends on, e.g. the excluded words.
+     * @param url         the URL of the page.
+     * @param projection  the projection the page is parsed with.
+     * @return the cached result, or {@code null} if the result is not cached or has expired.
+     */
+    public WordCountParseResult get(@NonNull String fingerprint, @NonNull String url,
+                                    @NonNull ParseProjection projection) {
+        Key key = new Key(fingerprint, canonicalUrl(url), projection);
+        Instant now = clock.instant();
+        synchronized (this) {
+            sketch.increment(key.hashCode());
+            Node node = nodes.get(key);
+            if (node == null) {
+                misses++;
+                return null;
+            }
+            if (node.isExpired(now)) {
+                remove(node);
+                misses++;
+                return null;
+            }
+            hits++;
+            switch (node.segment) {
+                case WINDOW -> moveToTail(window, node);
+                case PROTECTED -> moveToTail(protectedSegment, node);
+                case PROBATION -> promote(node);
+            }
+            return node.result;
+        }
+    }
+
+    /**
+     * Caches a copy of the result of a page, unless the result is truncated, empty or larger than the cache.
+     *
+     * @param fingerprint describes the parser configuration the result depends on, e.g. the excluded words.
+     * @param url         the URL of the page.
+     * @param projection  the projection the page was parsed with.
+     * @param result      the result of the page, which may be a view that is released later.
+     */
+    public void put(@NonNull String fingerprint, @NonNull String url, @NonNull ParseProjection projection,
+                    @NonNull WordCountParseResult result) {
+        if (result.isTruncated()
+                || (result.getWordFrequencyMap().isEmpty() && result.getHyperLinkList().isEmpty())) {
+            return;
+        }
+        long weight = weigh(result);
+        if (weight > maxSize - windowMaxSize) {
+            log.debug("Not caching the result of {} of {} bytes", url, weight);
+            return;
+        }
+
+        Key key = new Key(fingerprint, canonicalUrl(url), projection);
+        WordCountParseResult copy = new WordCountParseResult(Map.copyOf(result.getWordFrequencyMap()),
+                                                             List.copyOf(result.getHyperLinkList()), false);
+        Node node = new Node(key, copy, weight, clock.instant().plus(ttl));
+        synchronized (this) {
+            Node replaced = nodes.get(key);
+            if (replaced != null) {
+                remove(replaced);
+            }
+            nodes.put(key, node);
+            window.put(key, node);
+            windowSize += weight;
+
+            while (windowSize > windowMaxSize && !window.isEmpty()) {
+                Node candidate = window.values().iterator().next();
+                window.remove(candidate.key);
+                windowSize -= candidate.weight;
+                admit(candidate);
+            }
+        }
+    }
+
+    /**
+     * Returns how often results were served from the cache since it was created.
+     *
+     * @return the statistics of the cache.
+     */
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, rejections);
+    }
+
+    /**
+     * Returns the number of cached results, including expired results not evicted yet.
+     *
+     * @return the number of entries.
+     */
+    synchronized int entryCount() {
+        return nodes.size();
+    }
+
+    /**
+     * Returns the estimated total size of the cached results.
+     *
+     * @return the size in bytes.
+     */
+    synchronized long size() {
+        return windowSize + probationSize + protectedSize;
+    }
+
+    /**
+     * Moves a candidate leaving the window into probation if there is room for it, or if it is more popular than
+     * every result it has to evict; otherwise the candidate is dropped.
+     */
+    private void admit(Node candidate) {
+        long mainMaxSize = maxSize - windowMaxSize;
+        int candidateFrequency = sketch.frequency(candidate.key.hashCode());
+        Instant now = clock.instant();
+        while (probationSize + protectedSize + candidate.weight > mainMaxSize) {
+            Node victim = eldest(probation.isEmpty() ? protectedSegment : probation);
+            if (!victim.isExpired(now) && sketch.frequency(victim.key.hashCode()) >= candidateFrequency) {
+                nodes.remove(candidate.key);
+                rejections++;
+                return;
+            }
+            remove(victim);
+            evictions++;
+        }
+        candidate.segment = Segment.PROBATION;
+        probation.put(candidate.key, candidate);
+        probationSize += candidate.weight;
+    }
+
+    /**
+     * Moves a result requested again from probation to the protected segment, demoting the least recently used
+     * protected results back to probation if the segment overflows.
+     */
+    private void promote(Node node) {
+        probation.remove(node.key);
+        probationSize -= node.weight;
+        node.segment = Segment.PROTECTED;
+        protectedSegment.put(node.key, node);
+        protectedSize += node.weight;
+
+        while (protectedSize > protectedMaxSize) {
+            Node demoted = eldest(protectedSegment);
+            protectedSegment.remove(demoted.key);
+            protectedSize -= demoted.weight;
+            demoted.segment = Segment.PROBATION;
+            probation.put(demoted.key, demoted);
+            probationSize += demoted.weight;
+        }
+    }
+
+    private void remove(Node node) {
+        nodes.remove(node.key);
+        switch (node.segment) {
+            case WINDOW -> {
+                window.remove(node.key);
+                windowSize -= node.weight;
+            }
+            case PROBATION -> {
+                probation.remove(node.key);
+                probationSize -= node.weight;
+            }
+            case PROTECTED -> {
+                protectedSegment.remove(node.key);
+                protectedSize -= node.weight;
+            }
+        }
+    }
+
+    private static void moveToTail(LinkedHashMap<Key, Node> segment, Node node) {
+        segment.remove(node.key);
+        segment.put(node.key, node);
+    }
+
+    private static Node eldest(LinkedHashMap<Key, Node> segment) {
+        return segment.values().iterator().next();
+    }
+
+    /**
+     * Estimates the memory taken by a cached result.
+     */
+    static long weigh(WordCountParseResult result) {
+        long weight = ENTRY_OVERHEAD;
+        for (String word : result.getWordFrequencyMap().keySet()) {
+            weight += WORD_OVERHEAD + word.length();
+        }
+        for (String link : result.getHyperLinkList()) {
+            weight += LINK_OVERHEAD + link.length();
+        }
+        return weight;
+    }
+
+    /**
+     * Returns the canonical form of a URL: its scheme and host in lower case, without the default port of its
+     * scheme and without a fragment, and with {@code /} as the path of an empty path. URLs that cannot be parsed
+     * are only stripped of their fragment.
+     *
+     * @param url the URL to canonicalize.
+     * @return the canonical URL.
+     */
+    static String canonicalUrl(String url) {
+        int fragment = url.indexOf('#');
+        String withoutFragment = fragment < 0 ? url : url.substring(0, fragment);
+        URI uri;
+        try {
+            uri = new URI(withoutFragment).normalize();
+        } catch (URISyntaxException e) {
+            return withoutFragment;
+        }
+        if (uri.getScheme() == null || uri.getHost() == null) {
+            return uri.toString();
+        }
+
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        int port = uri.getPort();
+        if ((scheme.equals("http") && port == 80) || (scheme.equals("https") && port == 443)) {
+            port = -1;
+        }
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+
+        StringBuilder canonical = new StringBuilder(withoutFragment.length()).append(scheme).append("://");
+        if (uri.getRawUserInfo() != null) {
+            canonical.append(uri.getRawUserInfo()).append('@');
+        }
+        canonical.append(uri.getHost().toLowerCase(Locale.ROOT));
+        if (port >= 0) {
+            canonical.append(':').append(port);
+        }
+        canonical.append(path);
+        if (uri.getRawQuery() != null) {
+            canonical.append('?').append(uri.getRawQuery());
+        }
+        return canonical.toString();
+    }
+
+    /**
+     * Identifies a cached result. Results of parsers configured differently, e.g. excluding other words, are kept
+     * apart, so that a cache shared by several crawl jobs never serves the counts of another configuration.
+     */
+    private record Key(String fingerprint, String url, ParseProjection projection) {
+    }
+
+    private enum Segment {
+        WINDOW, PROBATION, PROTECTED
+    }
+
+    private static final class Node {
+
+        private final Key key;
+
+        private final WordCountParseResult result;
+
+        private final long weight;
+
+        private final Instant expiresAt;
+
+        private Segment segment = Segment.WINDOW;
+
+        private Node(Key key, WordCountParseResult result, long weight, Instant expiresAt) {
+            this.key = key;
+            this.result = result;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(Instant now) {
+            return !now.isBefore(expiresAt);
+        }
+    }
+
+    /**
+     * A count-min sketch of how often keys were requested recently, with four rows of saturating 4-bit counters.
+     * All counters are halved once as many increments as ten times the width of a row have been counted, so that
+     * the popularity of pages that are no longer requested fades.
+     */
+    static final class FrequencySketch {
+
+        private static final int DEPTH = 4;
+
+        private static final int MAX_COUNT = 15;
+
+        private static final int[] SEEDS = {0x97CB3127, 0xB492B66F, 0x9AE16A3B, 0x2FE4A4A9};
+
+        private final byte[] counters;
+
+        private final int width;
+
+        private final int sampleSize;
+
+        private int additions;
+
+        FrequencySketch(int minWidth) {
+            this.width = Integer.highestOneBit(Math.max(minWidth - 1, 1)) << 1;
+            this.counters = new byte[DEPTH * width];
+            this.sampleSize = 10 * width;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int row = 0; row < DEPTH; row++) {
+                int index = index(hash, row);
+                if (counters[index] < MAX_COUNT) {
+                    counters[index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(int hash) {
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < DEPTH; row++) {
+                frequency = Math.min(frequency, counters[index(hash, row)]);
+            }
+            return frequency;
+        }
+
+        private void reset() {
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] >>= 1;
+            }
+            additions /= 2;
+        }
+
+        private int index(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * 0x9E3779B9;
+            h ^= h >>> 16;
+            return row * width + (h & (width - 1));
+        }
+    }
+
+    /**
+     * The numbers of results the cache served and dropped.
+     */
+    @Value
+    public static class Stats {
+
+        /**
+         * Requests answered with a cached result.
+         */
+        long hits;
+
+        /**
+         * Requests for results that were not cached or had expired.
+         */
+        long misses;
+
+        /**
+         * Results evicted from the main cache to admit more popular ones.
+         */
+        long evictions;
+
+        /**
+         * Results leaving the admission window that were not admitted into the main cache.
+         */
+        long rejections;
+
+        public long getRequests() {
+            return hits + misses;
+        }
+
+        public double getHitRatio() {
+            long requests = getRequests();
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.webtracer.parser.wordcount;
+
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+/**
+ * The outcome of {@link WordCountPageParser#parseRevision}: the digest of the content that was read, and the
+ * result of parsing it, unless the content was unchanged and was therefore not parsed.
+ */
+@Value
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class PageRevision {
+
+    /**
+     * The digest of the content of the page, or {@code null} if the page could not be read or the parser does not
+     * compute digests.
+     */
+    ContentDigest digest;
+
+    /**
+     * The result of the page, or {@code null} if its content was unchanged.
+     */
+    WordCountParseResult result;
+
+    /**
+     * Creates the revision of a page that was parsed.
+     *
+     * @param digest the digest of the content of the page, or {@code null} if it is unknown.
+     * @param result the result of the page.
+     * @return the revision.
+     */
+    public static PageRevision changed(ContentDigest digest, @NonNull WordCountParseResult result) {
+        return new PageRevision(digest, result);
+    }
+
+    /**
+     * Creates the revision of a page whose content has the digest it had before, and which was not parsed.
+     *
+     * @param digest the digest of the content of the page.
+     * @return the revision.
+     */
+    public static PageRevision unchanged(@NonNull ContentDigest digest) {
+        return new PageRevision(digest, null);
+    }
+
+    /**
+     * Checks whether the content of the page was unchanged, in which case the page was not parsed.
+     *
+     * @return {@code true} if the earlier result of the page still applies.
+     */
+    public boolean isUnchanged() {
+        return result == null;
+    }
+}
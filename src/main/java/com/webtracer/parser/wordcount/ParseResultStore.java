@@ -0,0 +1,453 @@
+package com.webtracer.parser.wordcount;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * The {@code ParseResultStore} class keeps the {@link WordCountParseResult}s of pages on disk, keyed by a hash of
+ * the page content, so that a page whose content has not changed since an earlier crawl is not parsed again.
+ *
+ * <p>The key of a result is a SHA-256 digest of the bytes of the page and of everything else its result depends
+ * on: the location links are resolved against, the declared {@code Content-Type}, the outputs requested and the
+ * configuration of the store, such as the excluded words. Results are stored in a compact binary form: words and
+ * their counts as length-prefixed UTF-8 with variable-length integers, and links in document order, each sharing
+ * the longest common prefix with the previous link.</p>
+ *
+ * <p>The store is append-only and bounded. Its results are split in two generations, each a file of half the
+ * maximum size mapped into memory. Results are appended to the current generation; once it is full, it becomes
+ * the previous generation, replacing the former previous one, and a new current generation is started. Results
+ * found in the previous generation are copied to the current one, so that the results of pages that keep being
+ * crawled survive while the others age out. A record cut short by a crash ends its generation when the store is
+ * reopened.</p>
+ *
+ * <p>This class is thread-safe: lookups read the mapped files without locking, and appends are serialized.</p>
+ */
+@Slf4j
+public final class ParseResultStore {
+
+    /**
+     * Default maximum size of the store: 256 MiB.
+     */
+    public static final long DEFAULT_MAX_SIZE = 256L << 20;
+
+    /**
+     * Smallest size of a generation, so that a small maximum size still holds a few results.
+     */
+    static final int MIN_GENERATION_SIZE = 64 * 1024;
+
+    private static final String CURRENT_FILE = "current.log";
+
+    private static final String PREVIOUS_FILE = "previous.log";
+
+    private static final int MAGIC = 0x57545052;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * Size of the length and checksum preceding the payload of each record.
+     */
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private static final int KEY_SIZE = 16;
+
+    private final Path directory;
+
+    private final int generationSize;
+
+    private final byte[] fingerprint;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private volatile Generation current;
+
+    private volatile Generation previous;
+
+    private ParseResultStore(Path directory, int generationSize, byte[] fingerprint, Generation current,
+                             Generation previous) {
+        this.directory = directory;
+        this.generationSize = generationSize;
+        this.fingerprint = fingerprint;
+        this.current = current;
+        this.previous = previous;
+    }
+
+    /**
+     * Opens the store kept in the given directory, creating the directory if it does not exist.
+     *
+     * @param directory   the directory of the store.
+     * @param maxSize     the maximum size of the store on disk, in bytes.
+     * @param fingerprint describes the parser configuration the results depend on, e.g. the excluded words;
+     *                    results stored with another fingerprint are never returned.
+     * @return the opened store.
+     * @throws IOException if the directory cannot be read or written.
+     */
+    public static ParseResultStore open(@NonNull Path directory, long maxSize, @NonNull String fingerprint)
+            throws IOException {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        int generationSize = (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_GENERATION_SIZE, maxSize / 2));
+        Files.createDirectories(directory);
+        Generation current = Generation.open(directory.resolve(CURRENT_FILE), generationSize);
+        Generation previous = Files.exists(directory.resolve(PREVIOUS_FILE))
+                ? Generation.open(directory.resolve(PREVIOUS_FILE), generationSize)
+                : null;
+        log.info("Opened parse result store {} with {} results", directory,
+                 current.offsets.size() + (previous == null ? 0 : previous.offsets.size()));
+        return new ParseResultStore(directory, generationSize, fingerprint.getBytes(StandardCharsets.UTF_8),
+                                    current, previous);
+    }
+
+    /**
+     * Computes the key of the result of a page.
+     *
+     * @param content the bytes of the page.
+     * @param context everything else the result depends on, e.g. the location and the requested outputs.
+     * @return the key of the result.
+     */
+    Key key(byte @NonNull [] content, @NonNull String context) {
+        MessageDigest digest = sha256();
+        digest.update(fingerprint);
+        digest.update((byte) 0);
+        digest.update(context.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(content);
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+        return new Key(hash.getLong(), hash.getLong());
+    }
+
+    /**
+     * Adds the stored result of a page to a result builder, passing each of its links to the listener.
+     *
+     * @param key          the key of the result.
+     * @param builder      receives the word counts and links of the result.
+     * @param linkListener receives each link of the result, in document order.
+     * @return {@code true} if the result was found, {@code false} if the page must be parsed.
+     */
+    boolean replay(@NonNull Key key, WordCountParseResult.@NonNull Builder builder,
+                   @NonNull Consumer<String> linkListener) {
+        Generation generation = current;
+        Integer offset = generation.offsets.get(key);
+        if (offset == null) {
+            generation = previous;
+            offset = generation == null ? null : generation.offsets.get(key);
+        }
+        if (offset == null) {
+            misses.incrementAndGet();
+            return false;
+        }
+
+        ByteBuffer record = generation.record(offset);
+        if (!isIntact(record)) {
+            log.warn("Ignoring a corrupt parse result in {}", directory);
+            misses.incrementAndGet();
+            return false;
+        }
+        decode(record.duplicate(), builder, linkListener);
+        if (generation != current) {
+            append(key, record);
+        }
+        hits.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Stores the result of a page.
+     *
+     * @param key    the key of the result.
+     * @param result the result; truncated results are not stored.
+     */
+    void put(@NonNull Key key, @NonNull WordCountParseResult result) {
+        if (result.isTruncated() || current.offsets.containsKey(key)) {
+            return;
+        }
+        ByteBuffer record = encode(key, result);
+        if (record.remaining() > (generationSize - HEADER_SIZE) / 4) {
+            log.debug("Not storing a parse result of {} bytes", record.remaining());
+            return;
+        }
+        append(key, record);
+    }
+
+    /**
+     * Returns the number of lookups that found a stored result.
+     *
+     * @return the number of hits.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of lookups that found no stored result.
+     *
+     * @return the number of misses.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Appends an encoded record to the current generation, starting a new generation if it is full.
+     */
+    private synchronized void append(Key key, ByteBuffer record) {
+        if (current.offsets.containsKey(key)) {
+            return;
+        }
+        try {
+            if (!current.fits(record.remaining())) {
+                rotate();
+            }
+            if (current.fits(record.remaining())) {
+                current.append(key, record);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to store a parse result in {}", directory, e);
+        }
+    }
+
+    /**
+     * Makes the current generation the previous one, dropping the former previous generation. Readers still using
+     * a dropped generation keep reading its mapping.
+     */
+    private void rotate() throws IOException {
+        log.debug("Starting a new generation of the parse result store {}", directory);
+        Path currentFile = directory.resolve(CURRENT_FILE);
+        Files.move(currentFile, directory.resolve(PREVIOUS_FILE), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+        previous = current;
+        current = Generation.open(currentFile, generationSize);
+    }
+
+    /**
+     * Encodes a record: the header, the key, the words with their counts, then the links front-coded against the
+     * previous link.
+     */
+    private static ByteBuffer encode(Key key, WordCountParseResult result) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
+        writeLong(payload, key.high());
+        writeLong(payload, key.low());
+
+        Map<String, Integer> words = result.getWordFrequencyMap();
+        writeVarInt(payload, words.size());
+        for (Map.Entry<String, Integer> word : words.entrySet()) {
+            byte[] encoded = word.getKey().getBytes(StandardCharsets.UTF_8);
+            writeVarInt(payload, encoded.length);
+            payload.write(encoded, 0, encoded.length);
+            writeVarInt(payload, word.getValue());
+        }
+
+        List<String> links = result.getHyperLinkList();
+        writeVarInt(payload, links.size());
+        byte[] previousLink = new byte[0];
+        for (String link : links) {
+            byte[] encoded = link.getBytes(StandardCharsets.UTF_8);
+            int shared = Arrays.mismatch(previousLink, encoded);
+            if (shared < 0) {
+                shared = encoded.length;
+            }
+            writeVarInt(payload, shared);
+            writeVarInt(payload, encoded.length - shared);
+            payload.write(encoded, shared, encoded.length - shared);
+            previousLink = encoded;
+        }
+
+        byte[] bytes = payload.toByteArray();
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes);
+        return ByteBuffer.allocate(RECORD_HEADER_SIZE + bytes.length)
+                .putInt(bytes.length)
+                .putInt((int) checksum.getValue())
+                .put(bytes)
+                .flip();
+    }
+
+    private static boolean isIntact(ByteBuffer record) {
+        CRC32 checksum = new CRC32();
+        checksum.update(record.slice(RECORD_HEADER_SIZE, record.remaining() - RECORD_HEADER_SIZE));
+        return (int) checksum.getValue() == record.getInt(4);
+    }
+
+    private static void decode(ByteBuffer record, WordCountParseResult.Builder builder,
+                               Consumer<String> linkListener) {
+        record.position(RECORD_HEADER_SIZE + KEY_SIZE);
+        int wordCount = readVarInt(record);
+        for (int i = 0; i < wordCount; i++) {
+            String word = readString(record, readVarInt(record));
+            builder.addWord(word, readVarInt(record));
+        }
+
+        int linkCount = readVarInt(record);
+        byte[] link = new byte[0];
+        for (int i = 0; i < linkCount; i++) {
+            int shared = readVarInt(record);
+            int suffixLength = readVarInt(record);
+            if (shared > link.length || suffixLength > record.remaining()) {
+                throw new IllegalArgumentException("Corrupt link encoding");
+            }
+            link = Arrays.copyOf(link, shared + suffixLength);
+            record.get(link, shared, suffixLength);
+            String decoded = new String(link, StandardCharsets.UTF_8);
+            if (!builder.containsLink(decoded)) {
+                builder.addLink(decoded);
+                linkListener.accept(decoded);
+            }
+        }
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Variable-length integer too long");
+    }
+
+    private static String readString(ByteBuffer in, int length) {
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * The first 128 bits of the SHA-256 digest of a page and its parse context.
+     */
+    record Key(long high, long low) {
+    }
+
+    /**
+     * A memory-mapped file of records, with the offsets of the records it holds.
+     */
+    private static final class Generation {
+
+        private final MappedByteBuffer buffer;
+
+        private final Map<Key, Integer> offsets = new ConcurrentHashMap<>();
+
+        /**
+         * Offset of the next record; written only by appends, which are serialized by the store.
+         */
+        private int end = HEADER_SIZE;
+
+        private Generation(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * Maps the given file, creating it if it does not exist, and indexes the records it holds.
+         */
+        static Generation open(Path file, int size) throws IOException {
+            MappedByteBuffer buffer;
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+                randomAccessFile.setLength(size);
+                buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+            Generation generation = new Generation(buffer);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                buffer.putInt(0, MAGIC).putInt(4, VERSION);
+                // A file of another format is overwritten from the start
+                buffer.putInt(HEADER_SIZE, 0);
+                return generation;
+            }
+            generation.index();
+            return generation;
+        }
+
+        /**
+         * Reads the records from the start of the file, up to the first incomplete or corrupt record.
+         */
+        private void index() {
+            while (buffer.capacity() - end >= RECORD_HEADER_SIZE + KEY_SIZE) {
+                int payloadSize = buffer.getInt(end);
+                if (payloadSize < KEY_SIZE || payloadSize > buffer.capacity() - end - RECORD_HEADER_SIZE) {
+                    break;
+                }
+                if (!isIntact(buffer.slice(end, RECORD_HEADER_SIZE + payloadSize))) {
+                    break;
+                }
+                offsets.put(new Key(buffer.getLong(end + RECORD_HEADER_SIZE),
+                                    buffer.getLong(end + RECORD_HEADER_SIZE + Long.BYTES)), end);
+                end += RECORD_HEADER_SIZE + payloadSize;
+            }
+        }
+
+        boolean fits(int recordSize) {
+            return buffer.capacity() - end >= recordSize;
+        }
+
+        void append(Key key, ByteBuffer record) {
+            int offset = end;
+            int size = record.remaining();
+            byte[] bytes = new byte[size];
+            record.duplicate().get(bytes);
+            buffer.put(offset, bytes);
+            end += size;
+            if (buffer.capacity() - end >= Integer.BYTES) {
+                // Ends the log here if the file held older records after this one
+                buffer.putInt(end, 0);
+            }
+            offsets.put(key, offset);
+        }
+
+        /**
+         * Returns a view of the record at the given offset.
+         */
+        ByteBuffer record(int offset) {
+            return buffer.slice(offset, RECORD_HEADER_SIZE + buffer.getInt(offset));
+        }
+    }
+}
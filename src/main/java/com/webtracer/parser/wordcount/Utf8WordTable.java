@@ -0,0 +1,154 @@
+package com.webtracer.parser.wordcount;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * The {@code Utf8WordTable} class counts the tokens of a single page by their UTF-8 bytes, so that a token only
+ * becomes a {@link String} the first time it is seen on the page.
+ *
+ * <p>Tokens are hashed in place in the buffer they were read into and looked up in an open-addressing table. The
+ * bytes of each distinct token are copied once into a shared byte arena; repeated tokens only increment a counter.
+ * {@link #forEach(ObjIntConsumer)} then decodes each distinct token exactly once.</p>
+ *
+ * <p>This class is not thread-safe; it is used by a single parser.</p>
+ */
+final class Utf8WordTable {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Number of distinct tokens above which {@link #clear()} drops the tables rather than clearing them.
+     */
+    static final int MAX_RETAINED_SIZE = 1 << 14;
+
+    private byte[] arena = new byte[4096];
+
+    private int arenaLength;
+
+    private int[] offsets = new int[INITIAL_CAPACITY];
+
+    private int[] lengths = new int[INITIAL_CAPACITY];
+
+    private int[] hashes = new int[INITIAL_CAPACITY];
+
+    private int[] counts = new int[INITIAL_CAPACITY];
+
+    /**
+     * Index of the token in each slot plus one, or {@code 0} for an empty slot.
+     */
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+    private int size;
+
+    /**
+     * Counts one occurrence of the token held in {@code bytes[offset, offset + length)}.
+     *
+     * @param bytes  the buffer holding the token.
+     * @param offset the index of the first byte of the token.
+     * @param length the number of bytes of the token.
+     */
+    void add(byte[] bytes, int offset, int length) {
+        int hash = hash(bytes, offset, length);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int index = slots[slot] - 1;
+            if (index < 0) {
+                slots[slot] = insert(bytes, offset, length, hash) + 1;
+                if (size * 2 > slots.length) {
+                    rehash();
+                }
+                return;
+            }
+            if (hashes[index] == hash && lengths[index] == length
+                    && Arrays.equals(arena, offsets[index], offsets[index] + length, bytes, offset, offset + length)) {
+                counts[index]++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of distinct tokens counted.
+     *
+     * @return the number of distinct tokens.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes all tokens, keeping the tables for the next page unless they grew beyond
+     * {@value #MAX_RETAINED_SIZE} distinct tokens.
+     */
+    void clear() {
+        if (size > MAX_RETAINED_SIZE) {
+            arena = new byte[4096];
+            offsets = new int[INITIAL_CAPACITY];
+            lengths = new int[INITIAL_CAPACITY];
+            hashes = new int[INITIAL_CAPACITY];
+            counts = new int[INITIAL_CAPACITY];
+            slots = new int[INITIAL_CAPACITY * 2];
+        } else if (size > 0) {
+            Arrays.fill(slots, 0);
+        }
+        size = 0;
+        arenaLength = 0;
+    }
+
+    /**
+     * Passes each distinct token, decoded from UTF-8, with its number of occurrences to {@code action}.
+     *
+     * @param action receives each token and its count.
+     */
+    void forEach(ObjIntConsumer<String> action) {
+        for (int index = 0; index < size; index++) {
+            action.accept(new String(arena, offsets[index], lengths[index], StandardCharsets.UTF_8), counts[index]);
+        }
+    }
+
+    private int insert(byte[] bytes, int offset, int length, int hash) {
+        if (size == offsets.length) {
+            int capacity = size * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        if (arenaLength + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaLength + length));
+        }
+        System.arraycopy(bytes, offset, arena, arenaLength, length);
+
+        int index = size++;
+        offsets[index] = arenaLength;
+        lengths[index] = length;
+        hashes[index] = hash;
+        counts[index] = 1;
+        arenaLength += length;
+        return index;
+    }
+
+    private void rehash() {
+        int[] rehashed = new int[slots.length * 2];
+        int mask = rehashed.length - 1;
+        for (int index = 0; index < size; index++) {
+            int slot = hashes[index] & mask;
+            while (rehashed[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            rehashed[slot] = index + 1;
+        }
+        slots = rehashed;
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        int hash = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        // Spread the high bits, as the slot is taken from the low bits
+        return hash ^ (hash >>> 16);
+    }
+}
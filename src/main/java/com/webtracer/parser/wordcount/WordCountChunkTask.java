@@ -0,0 +1,48 @@
+package com.webtracer.parser.wordcount;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * The {@code WordCountChunkTask} class counts the words of a chunk of the text of a large page, so that the text of
+ * a single page can be counted by several workers of a {@link java.util.concurrent.ForkJoinPool}.
+ *
+ * <p>A chunk is a list of texts, each of which is processed exactly as the content of a single text node. Forked
+ * from a crawler worker, the task is queued on the pool of the crawl, where idle workers can steal it; forked from
+ * any other thread, it runs on the common pool. The word counts of all chunks are merged by the
+ * {@link WordCountNodeProcessor} that forked them.</p>
+ */
+@RequiredArgsConstructor
+@Slf4j
+final class WordCountChunkTask extends RecursiveTask<Map<String, Integer>> {
+
+    /**
+     * The texts of the chunk, in document order.
+     */
+    @NonNull
+    private final List<String> texts;
+
+    /**
+     * Extracts the words of a single text, passing each word to the given consumer.
+     */
+    @NonNull
+    private final BiConsumer<String, Consumer<String>> wordExtractor;
+
+    @Override
+    protected Map<String, Integer> compute() {
+        Map<String, Integer> wordCounts = new HashMap<>();
+        for (String text : texts) {
+            wordExtractor.accept(text, word -> wordCounts.merge(word, 1, Integer::sum));
+        }
+        log.trace("Counted {} distinct words in a chunk of {} texts", wordCounts.size(), texts.size());
+        return wordCounts;
+    }
+}
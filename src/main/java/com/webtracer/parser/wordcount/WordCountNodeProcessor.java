@@ -1,18 +1,26 @@
 package com.webtracer.parser.wordcount;
 
 import com.webtracer.parser.NodeProcessor;
+import com.webtracer.parser.ParseBudget;
+import com.webtracer.parser.ParseProjection;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.jsoup.internal.StringUtil;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
 import org.jsoup.nodes.TextNode;
 import org.jsoup.select.Evaluator;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 /**
@@ -26,12 +34,19 @@ import java.util.regex.Pattern;
  * <p> Example usage:
  * <pre>
  *     WordCountParseResult.Builder builder = new WordCountParseResult.Builder();
- *     WordCountNodeProcessor processor = new WordCountNodeProcessor(excludePatterns, builder, pageUri);
+ *     WordCountNodeProcessor processor = new WordCountNodeProcessor(excludedWordMatcher, builder, pageUri);
  *     document.traverse(processor::processNode);
  *     WordCountParseResult result = processor.getResult();
  * </pre>
  * </p>
  *
+ * <p> Once a page has yielded more text than the parallel text threshold, further text is gathered into chunks
+ * of about {@link #CHUNK_LENGTH} characters that are counted by {@link WordCountChunkTask}s, so that the words
+ * of a very large page are counted by several workers. Smaller pages are always counted on the calling thread.</p>
+ *
+ * <p> A {@link ParseProjection} limits the outputs to words or hyperlinks only: text of a links-only projection is
+ * not split into words, and hyperlinks of a words-only projection are neither resolved nor collected.</p>
+ *
  * <p> The class is not designed to be used independently; rather, it is a utility component
  * within a broader HTML parsing framework.</p>
  */
@@ -50,10 +65,15 @@ final class WordCountNodeProcessor implements NodeProcessor {
     private static final Pattern NON_WORD_PATTERN = Pattern.compile("\\W");
 
     /**
-     * List of patterns to exclude certain words from the word count. For example, patterns to exclude numbers.
+     * Number of characters of text counted by a single {@link WordCountChunkTask}.
+     */
+    static final int CHUNK_LENGTH = 1 << 17;
+
+    /**
+     * Compiled exclusion patterns deciding which words are left out of the word count, for example numbers.
      */
     @NonNull
-    private final List<Pattern> excludeWordPatterns;
+    private final ExcludedWordMatcher excludedWordMatcher;
 
     /**
      * Builder object used to accumulate the results, including word frequencies and hyperlinks.
@@ -67,20 +87,133 @@ final class WordCountNodeProcessor implements NodeProcessor {
     @NonNull
     private final URI pageUri;
 
+    /**
+     * Receives each distinct hyperlink as soon as it is found, before the rest of the page is processed.
+     */
+    @NonNull
+    private final Consumer<String> linkListener;
+
+    /**
+     * Number of characters of text of the page counted on the calling thread before the remaining text is
+     * counted in parallel chunks, or {@code 0} to always count on the calling thread.
+     */
+    private final int parallelTextThreshold;
+
+    /**
+     * The CPU time budget of the page, checked for each node, text run and hyperlink.
+     */
+    @NonNull
+    private final ParseBudget parseBudget;
+
+    /**
+     * The outputs extracted from the page. Text is not split into words unless words are selected, and hyperlinks
+     * are not resolved unless links are selected.
+     */
+    @NonNull
+    private final ParseProjection projection;
+
+    /**
+     * Tokens of UTF-8 text runs, counted by their bytes until the result is built.
+     */
+    private Utf8WordTable utf8Tokens;
+
+    /**
+     * Number of characters of text processed so far.
+     */
+    private long textLength;
+
+    /**
+     * Texts gathered for the next chunk, and their total number of characters.
+     */
+    private List<String> pendingTexts = new ArrayList<>();
+    private int pendingLength;
+
+    /**
+     * Chunks forked so far, merged when the result is built.
+     */
+    private final List<WordCountChunkTask> chunkTasks = new ArrayList<>();
+
+    /**
+     * Creates a processor that only collects hyperlinks into the result builder.
+     *
+     * @param excludedWordMatcher The matcher deciding which words are left out of the word count.
+     * @param resultBuilder       The builder accumulating word frequencies and hyperlinks.
+     * @param pageUri             The URI of the page being processed.
+     */
+    WordCountNodeProcessor(ExcludedWordMatcher excludedWordMatcher, WordCountParseResult.Builder resultBuilder,
+                           URI pageUri) {
+        this(excludedWordMatcher, resultBuilder, pageUri, link -> {
+        });
+    }
+
+    /**
+     * Creates a processor that counts all text on the calling thread.
+     *
+     * @param excludedWordMatcher The matcher deciding which words are left out of the word count.
+     * @param resultBuilder       The builder accumulating word frequencies and hyperlinks.
+     * @param pageUri             The URI of the page being processed.
+     * @param linkListener        Receives each distinct hyperlink as soon as it is found.
+     */
+    WordCountNodeProcessor(ExcludedWordMatcher excludedWordMatcher, WordCountParseResult.Builder resultBuilder,
+                           URI pageUri, Consumer<String> linkListener) {
+        this(excludedWordMatcher, resultBuilder, pageUri, linkListener, 0);
+    }
+
+    /**
+     * Creates a processor with an unlimited parse budget.
+     *
+     * @param excludedWordMatcher   The matcher deciding which words are left out of the word count.
+     * @param resultBuilder         The builder accumulating word frequencies and hyperlinks.
+     * @param pageUri               The URI of the page being processed.
+     * @param linkListener          Receives each distinct hyperlink as soon as it is found.
+     * @param parallelTextThreshold Number of characters of text counted on the calling thread before the rest of
+     *                              the text is counted in parallel chunks, or {@code 0} to never count in parallel.
+     */
+    WordCountNodeProcessor(ExcludedWordMatcher excludedWordMatcher, WordCountParseResult.Builder resultBuilder,
+                           URI pageUri, Consumer<String> linkListener, int parallelTextThreshold) {
+        this(excludedWordMatcher, resultBuilder, pageUri, linkListener, parallelTextThreshold,
+             ParseBudget.unlimited());
+    }
+
+    /**
+     * Creates a processor extracting both words and hyperlinks.
+     *
+     * @param excludedWordMatcher   The matcher deciding which words are left out of the word count.
+     * @param resultBuilder         The builder accumulating word frequencies and hyperlinks.
+     * @param pageUri               The URI of the page being processed.
+     * @param linkListener          Receives each distinct hyperlink as soon as it is found.
+     * @param parallelTextThreshold Number of characters of text counted on the calling thread before the rest of
+     *                              the text is counted in parallel chunks, or {@code 0} to never count in parallel.
+     * @param parseBudget           The CPU time budget of the page.
+     */
+    WordCountNodeProcessor(ExcludedWordMatcher excludedWordMatcher, WordCountParseResult.Builder resultBuilder,
+                           URI pageUri, Consumer<String> linkListener, int parallelTextThreshold,
+                           ParseBudget parseBudget) {
+        this(excludedWordMatcher, resultBuilder, pageUri, linkListener, parallelTextThreshold, parseBudget,
+             ParseProjection.ALL);
+    }
+
     /**
      * Processes a node in the HTML document. Depending on the type of node, it delegates to either
      * {@link #processTextNode(TextNode)} for text nodes or {@link #processElement(Element)} for elements.
      *
+     * <p>Each call checks the parse budget, so that a traversal of a pathological document can be aborted.</p>
+     *
      * @param node  The node being processed.
      * @param depth The depth of the node in the document tree (unused in this implementation).
      */
     @Override
     public void processNode(Node node, int depth) {
         log.trace("Processing node at depth {}: {}", depth, node.nodeName());
+        parseBudget.checkpoint();
         if (node instanceof TextNode textNode) {
-            processTextNode(textNode);
+            if (projection.includesWords()) {
+                processTextNode(textNode);
+            }
         } else if (node instanceof Element element) {
-            processElement(element);
+            if (projection.includesLinks()) {
+                processElement(element);
+            }
         }
     }
 
@@ -92,18 +225,198 @@ final class WordCountNodeProcessor implements NodeProcessor {
      */
     @Override
     public void processTextNode(TextNode textNode) {
-        String text = textNode.text().strip();
+        processText(textNode.getWholeText());
+    }
+
+    /**
+     * Processes a run of text to extract words, exactly as if it were the content of a text node. Used by the
+     * streaming parser, which reports text runs without building text nodes. Checks the parse budget.
+     *
+     * @param wholeText The text to process, with character references decoded and whitespace not normalized.
+     */
+    void processText(String wholeText) {
+        parseBudget.checkpoint();
+        if (!projection.includesWords()) {
+            return;
+        }
+        textLength += wholeText.length();
+        if (parallelTextThreshold <= 0 || textLength <= parallelTextThreshold) {
+            extractWords(wholeText, word -> {
+                log.trace("Adding word to result: {}", word);
+                resultBuilder.addWord(word);
+            });
+        } else if (wholeText.length() > CHUNK_LENGTH) {
+            forkPendingChunk();
+            splitAtWhitespace(StringUtil.normaliseWhitespace(wholeText)).forEach(this::addToChunk);
+        } else {
+            addToChunk(wholeText);
+        }
+    }
+
+    /**
+     * Extracts the words of a text node, passing each word that is not excluded to {@code wordConsumer}. Safe to
+     * call from several threads.
+     *
+     * @param wholeText    The text of the node, with whitespace not normalized.
+     * @param wordConsumer Receives each word of the text, in order.
+     */
+    void extractWords(String wholeText, Consumer<String> wordConsumer) {
+        String text = StringUtil.normaliseWhitespace(wholeText).strip();
         log.trace("Processing text node: {}", text);
 
         Arrays.stream(WHITESPACE_PATTERN.split(text))
-                .filter(s -> !s.isBlank())
-                .filter(s -> excludeWordPatterns.stream().noneMatch(p -> p.matcher(s).matches()))
-                .map(s -> NON_WORD_PATTERN.matcher(s).replaceAll(""))
-                .map(String::toLowerCase)
-                .forEach(word -> {
-                    log.trace("Adding word to result: {}", word);
-                    resultBuilder.addWord(word);
-                });
+                .map(this::toWord)
+                .filter(Objects::nonNull)
+                .forEach(wordConsumer);
+    }
+
+    private void addToChunk(String text) {
+        pendingTexts.add(text);
+        pendingLength += text.length();
+        if (pendingLength >= CHUNK_LENGTH) {
+            forkPendingChunk();
+        }
+    }
+
+    private void forkPendingChunk() {
+        if (pendingTexts.isEmpty()) {
+            return;
+        }
+        log.trace("Forking a chunk of {} characters of {}", pendingLength, pageUri);
+        WordCountChunkTask chunkTask = new WordCountChunkTask(pendingTexts, this::extractWords);
+        chunkTask.fork();
+        chunkTasks.add(chunkTask);
+        pendingTexts = new ArrayList<>();
+        pendingLength = 0;
+    }
+
+    /**
+     * Splits a text with normalized whitespace into parts of about {@link #CHUNK_LENGTH} characters, which yield the
+     * same words as the whole text when each part is processed as a separate text node. A part therefore only
+     * ends at a space whose neighbours would not be removed by {@link String#strip()}.
+     */
+    static List<String> splitAtWhitespace(String normalizedText) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        int end = CHUNK_LENGTH;
+        while (end < normalizedText.length()) {
+            int space = normalizedText.indexOf(' ', end);
+            if (space < 0) {
+                break;
+            }
+            if (!Character.isWhitespace(normalizedText.charAt(space - 1))
+                    && space + 1 < normalizedText.length()
+                    && !Character.isWhitespace(normalizedText.charAt(space + 1))) {
+                parts.add(normalizedText.substring(start, space));
+                start = space + 1;
+                end = start + CHUNK_LENGTH;
+            } else {
+                end = space + 1;
+            }
+        }
+        parts.add(normalizedText.substring(start));
+        return parts;
+    }
+
+    /**
+     * Processes a run of UTF-8 encoded text, exactly as if it were the content of a text node. Tokens are counted
+     * by their bytes and only decoded once per distinct token, when the result is built.
+     *
+     * <p>Runs where decoding could change how the text is split into tokens, i.e. runs containing non-breaking
+     * spaces or invisible characters, or starting or ending with characters that Java considers whitespace, are
+     * decoded and processed by {@link #processText(String)} instead.</p>
+     *
+     * @param utf8   The buffer holding the text; only read during the call.
+     * @param offset The index of the first byte of the text.
+     * @param length The number of bytes of the text.
+     */
+    void processUtf8Text(byte[] utf8, int offset, int length) {
+        parseBudget.checkpoint();
+        if (!projection.includesWords()) {
+            return;
+        }
+        int end = offset + length;
+        if (requiresDecoding(utf8, offset, end)) {
+            processText(new String(utf8, offset, length, StandardCharsets.UTF_8));
+            return;
+        }
+
+        if (utf8Tokens == null) {
+            utf8Tokens = new Utf8WordTable();
+        }
+        int position = offset;
+        while (position < end) {
+            while (position < end && isAsciiSeparator(utf8[position])) {
+                position++;
+            }
+            int start = position;
+            while (position < end && !isAsciiSeparator(utf8[position])) {
+                position++;
+            }
+            if (position > start) {
+                utf8Tokens.add(utf8, start, position - start);
+            }
+        }
+    }
+
+    /**
+     * Turns a whitespace-separated token into the word that is counted for it.
+     *
+     * @return the word, or {@code null} if the token is blank or excluded.
+     */
+    private String toWord(String token) {
+        if (token.isBlank() || excludedWordMatcher.isExcluded(token)) {
+            return null;
+        }
+        return NON_WORD_PATTERN.matcher(token).replaceAll("").toLowerCase();
+    }
+
+    /**
+     * Checks whether splitting the bytes at ASCII whitespace could give other tokens than
+     * {@link #processText(String)}, which first normalizes and strips the decoded text.
+     */
+    private static boolean requiresDecoding(byte[] utf8, int offset, int end) {
+        int first = offset;
+        while (first < end && isAsciiSeparator(utf8[first])) {
+            first++;
+        }
+        int last = end - 1;
+        while (last >= first && isAsciiSeparator(utf8[last])) {
+            last--;
+        }
+        if (first > last) {
+            return false;
+        }
+        if (mayBeStripped(utf8[first]) || mayBeStripped(utf8[last])) {
+            return true;
+        }
+
+        for (int i = first; i < last; i++) {
+            int unit = utf8[i] & 0xFF;
+            int next = utf8[i + 1] & 0xFF;
+            // U+00A0 no-break space and U+00AD soft hyphen, or U+200B zero width space
+            if ((unit == 0xC2 && (next == 0xA0 || next == 0xAD))
+                    || (unit == 0xE2 && next == 0x80 && i + 2 <= last && (utf8[i + 2] & 0xFF) == 0x8B)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a byte may belong to a character that {@link String#strip()} removes, i.e. a control
+     * character between {@code 0x1C} and {@code 0x1F} or a non-ASCII character.
+     */
+    private static boolean mayBeStripped(byte unit) {
+        return unit < 0 || (unit >= 0x1C && unit <= 0x1F);
+    }
+
+    /**
+     * Checks whether a byte separates tokens: whitespace as normalized by JSoup, plus the vertical tab, which
+     * {@link #WHITESPACE_PATTERN} also matches.
+     */
+    private static boolean isAsciiSeparator(byte unit) {
+        return unit == ' ' || unit == '\t' || unit == '\n' || unit == '\r' || unit == '\f' || unit == 0x0B;
     }
 
     /**
@@ -116,9 +429,30 @@ final class WordCountNodeProcessor implements NodeProcessor {
     public void processElement(Element element) {
         log.trace("Processing element: {}", element.tagName());
         if (element.is(new Evaluator.Tag("a")) && element.hasAttr("href")) {
-            String link = resolveLink(element);
-            log.trace("Resolved hyperlink: {}", link);
+            addLink(resolveLink(element));
+        }
+    }
+
+    /**
+     * Processes the {@code href} attribute of an anchor, exactly as if it belonged to an anchor element of a
+     * document with the given base URI. Used by the streaming parser, which reports tags without building elements.
+     *
+     * @param href    The value of the {@code href} attribute.
+     * @param baseUri The base URI of the document, used to resolve links of remote pages.
+     */
+    void processLink(String href, String baseUri) {
+        parseBudget.checkpoint();
+        if (!projection.includesLinks()) {
+            return;
+        }
+        addLink(resolveHref(href, baseUri));
+    }
+
+    private void addLink(String link) {
+        log.trace("Resolved hyperlink: {}", link);
+        if (!resultBuilder.containsLink(link)) {
             resultBuilder.addLink(link);
+            linkListener.accept(link);
         }
     }
 
@@ -131,8 +465,10 @@ final class WordCountNodeProcessor implements NodeProcessor {
      */
     @Override
     public String resolveLink(Element element) {
-        String href = element.attr("href");
+        return resolveHref(element.attr("href"), element.baseUri());
+    }
 
+    private String resolveHref(String href, String baseUri) {
         if (href.startsWith("http://") || href.startsWith("https://")) {
             log.trace("Returning fully qualified URL: {}", href);
             return href;
@@ -146,7 +482,7 @@ final class WordCountNodeProcessor implements NodeProcessor {
             log.trace("Resolved local file URL: {}", resolvedLink);
             return resolvedLink;
         } else {
-            String resolvedLink = element.attr("abs:href");
+            String resolvedLink = StringUtil.resolve(baseUri, href);
             log.trace("Resolved remote URL: {}", resolvedLink);
             return resolvedLink;
         }
@@ -172,7 +508,56 @@ final class WordCountNodeProcessor implements NodeProcessor {
      */
     @Override
     public WordCountParseResult getResult() {
+        mergeCounts();
         log.debug("Building final WordCountParseResult");
         return resultBuilder.build();
     }
+
+    /**
+     * Returns the final result after processing all nodes as a view over the result builder, without copying it.
+     *
+     * @param releaseAction called when the view is {@linkplain WordCountParseResult#release() released}.
+     * @return The final result as a view over the result builder.
+     */
+    WordCountParseResult getResultView(Runnable releaseAction) {
+        mergeCounts();
+        return resultBuilder.buildView(releaseAction);
+    }
+
+    /**
+     * Counts UTF-8 text runs in the given table instead of allocating a table for the page.
+     *
+     * @param table an empty table.
+     * @return this processor.
+     */
+    WordCountNodeProcessor withUtf8WordTable(@NonNull Utf8WordTable table) {
+        utf8Tokens = table;
+        return this;
+    }
+
+    /**
+     * Merges the word counts of forked chunks and of UTF-8 text runs into the result builder.
+     */
+    private void mergeCounts() {
+        if (!chunkTasks.isEmpty() || !pendingTexts.isEmpty()) {
+            forkPendingChunk();
+            log.debug("Merging word counts of {} chunks of {}", chunkTasks.size(), pageUri);
+            for (WordCountChunkTask chunkTask : chunkTasks) {
+                for (Map.Entry<String, Integer> wordCount : chunkTask.join().entrySet()) {
+                    resultBuilder.addWord(wordCount.getKey(), wordCount.getValue());
+                }
+            }
+            chunkTasks.clear();
+        }
+        if (utf8Tokens != null) {
+            log.debug("Decoding {} distinct UTF-8 tokens", utf8Tokens.size());
+            utf8Tokens.forEach((token, count) -> {
+                String word = toWord(token);
+                if (word != null) {
+                    resultBuilder.addWord(word, count);
+                }
+            });
+            utf8Tokens = null;
+        }
+    }
 }
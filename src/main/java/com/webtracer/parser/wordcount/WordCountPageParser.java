@@ -1,6 +1,10 @@
 package com.webtracer.parser.wordcount;
 
 import com.webtracer.parser.PageParser;
+import com.webtracer.parser.ParseMode;
+import com.webtracer.parser.ParseProjection;
+
+import java.util.function.Consumer;
 
 /**
  * The WordCountPageParser interface extends the {@link PageParser} interface,
@@ -11,7 +15,7 @@ import com.webtracer.parser.PageParser;
  * interface will provide the logic for parsing web pages and returning the results
  * as a {@link WordCountParseResult}.
  */
-interface WordCountPageParser extends PageParser {
+public interface WordCountPageParser extends PageParser {
 
     /**
      * Parses a web page and extracts word count data along with hyperlinks.
@@ -22,4 +26,50 @@ interface WordCountPageParser extends PageParser {
     @Override
     WordCountParseResult parse();
 
+    /**
+     * Parses a web page and extracts only the word count data or hyperlinks selected by {@code projection}.
+     *
+     * @param projection the outputs the caller will read.
+     * @return a {@link WordCountParseResult} object whose word frequency map or list of hyperlinks is empty if the
+     *         projection does not select it.
+     */
+    @Override
+    WordCountParseResult parse(ParseProjection projection);
+
+    /**
+     * Parses a web page, extracting only the outputs selected by {@code projection} and passing each distinct
+     * hyperlink to {@code linkListener}, on the calling thread and before this method returns.
+     *
+     * @param projection   the outputs the caller will read.
+     * @param linkListener receives each distinct hyperlink of the page, in document order.
+     * @return a {@link WordCountParseResult} object whose word frequency map or list of hyperlinks is empty if the
+     *         projection does not select it.
+     */
+    WordCountParseResult parse(ParseProjection projection, Consumer<String> linkListener);
+
+    /**
+     * Reads a web page and parses it like {@link #parse(ParseProjection, Consumer)}, unless the digest of its
+     * content equals {@code previousDigest}. An unchanged page is not parsed and its hyperlinks are not passed to
+     * the listener, as the result of its earlier parse still applies.
+     *
+     * <p>Parsers that do not compute digests parse every page and return revisions without a digest.</p>
+     *
+     * @param projection     the outputs the caller will read.
+     * @param linkListener   receives each distinct hyperlink of a changed page, in document order.
+     * @param previousDigest the digest of the page when it was last parsed, or {@code null} to parse it anyway.
+     * @return the digest of the page read and, unless it is unchanged, its result.
+     */
+    default PageRevision parseRevision(ParseProjection projection, Consumer<String> linkListener,
+                                       ContentDigest previousDigest) {
+        return PageRevision.changed(null, parse(projection, linkListener));
+    }
+
+    /**
+     * Returns how the parser reads pages. Parsers in a streaming mode pass hyperlinks to the listener of
+     * {@link #parse(ParseProjection, Consumer)} while the page is still being read.
+     *
+     * @return the parse mode of the parser.
+     */
+    ParseMode getParseMode();
+
 }
\ No newline at end of file
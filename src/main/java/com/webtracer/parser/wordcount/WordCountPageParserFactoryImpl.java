@@ -3,15 +3,24 @@ package com.webtracer.parser.wordcount;
 import com.google.inject.Inject;
 import com.webtracer.di.annotation.ExcludedUrls;
 import com.webtracer.di.annotation.ExcludedWords;
+import com.webtracer.di.annotation.HtmlParseMode;
+import com.webtracer.di.annotation.MaxParseCpuTime;
+import com.webtracer.di.annotation.ParallelTextThreshold;
+import com.webtracer.di.annotation.ReuseParserState;
 import com.webtracer.parser.AbstractPageParserFactory;
 import com.webtracer.parser.DefaultDocumentLoader;
 import com.webtracer.parser.DocumentLoader;
+import com.webtracer.parser.PageFormat;
+import com.webtracer.parser.ParseMode;
 import lombok.NonNull;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 import java.util.regex.Pattern;
 
 /**
@@ -20,17 +29,38 @@ import java.util.regex.Pattern;
  * the creation of parsers that count words on web pages while excluding certain patterns from being processed.
  *
  * <p>The factory is initialized with a list of {@link Pattern} objects that define the URLs or content patterns to be
- * excluded from the parsing process. Additionally, it uses a {@link DocumentLoader} to fetch and load the documents
+ * excluded from the parsing process. The patterns are compiled once into an {@link ExcludedWordMatcher} shared by all
+ * parsers created by this factory, so the exclusion decision for a distinct word is made once per crawl. Additionally, it uses a {@link DocumentLoader} to fetch and load the documents
  * (web pages) that will be parsed.
  *
+ * <p>The factory dispatches each page to the cheapest reader for its {@link PageFormat}: pages whose URL ends with a
+ * plain text, Markdown, XHTML or XML extension are always streamed by the matching tokenizer instead of being parsed
+ * as HTML. The {@code Content-Type} of the response refines that choice once the page is requested.
+ *
  * <p>This implementation leverages the Abstract Factory pattern, allowing the creation of specialized parser instances
  * without tying the client code to the specifics of the parser's construction.
  */
 @Slf4j
 public final class WordCountPageParserFactoryImpl implements AbstractPageParserFactory {
 
-    private final List<Pattern> excludedPatterns;
+    private final ExcludedWordMatcher excludedWordMatcher;
     private final DocumentLoader documentLoader;
+    private final ParseMode parseMode;
+    private final int parallelTextThreshold;
+    private final Duration maxParseCpuTime;
+    private final boolean reuseParserState;
+    private final ParseResultStore parseResultStore;
+
+    /**
+     * Constructs a {@code WordCountPageParserFactoryImpl} with the specified exclusion patterns and crawl timeout,
+     * creating parsers that parse pages into JSoup documents.
+     *
+     * @param excludedWords a list of {@link Pattern} objects representing the URL patterns or content patterns
+     *                         that should be excluded from parsing.
+     */
+    public WordCountPageParserFactoryImpl(List<Pattern> excludedWords, DefaultDocumentLoader documentLoader) {
+        this(excludedWords, documentLoader, ParseMode.DOM);
+    }
 
     /**
      * Constructs a {@code WordCountPageParserFactoryImpl} with the specified exclusion patterns and crawl timeout.
@@ -38,16 +68,90 @@ public final class WordCountPageParserFactoryImpl implements AbstractPageParserF
      *
      * @param excludedWords a list of {@link Pattern} objects representing the URL patterns or content patterns
      *                         that should be excluded from parsing.
+     * @param parseMode     whether created parsers build a JSoup document or stream the page.
+     */
+    public WordCountPageParserFactoryImpl(List<Pattern> excludedWords, DefaultDocumentLoader documentLoader,
+                                          ParseMode parseMode) {
+        this(excludedWords, documentLoader, parseMode, WordCountPageParserImpl.DEFAULT_PARALLEL_TEXT_THRESHOLD,
+             WordCountPageParserImpl.DEFAULT_MAX_PARSE_CPU_TIME);
+    }
+
+    /**
+     * Constructs a {@code WordCountPageParserFactoryImpl} with the specified exclusion patterns and crawl timeout.
+     * The {@link DefaultDocumentLoader} is used internally to handle the document loading process.
+     *
+     * @param excludedWords         a list of {@link Pattern} objects representing the URL patterns or content
+     *                              patterns that should be excluded from parsing.
+     * @param parseMode             whether created parsers build a JSoup document or stream the page.
+     * @param parallelTextThreshold number of characters of text of a page after which the rest of its text is
+     *                              counted in parallel chunks, or {@code 0} to never count a page in parallel.
+     * @param maxParseCpuTime       the CPU time a parser may spend on a page before it stops and keeps what it
+     *                              has counted, or {@link Duration#ZERO} for no limit.
+     */
+    public WordCountPageParserFactoryImpl(List<Pattern> excludedWords, DefaultDocumentLoader documentLoader,
+                                          ParseMode parseMode, int parallelTextThreshold,
+                                          Duration maxParseCpuTime) {
+        this(excludedWords, documentLoader, parseMode, parallelTextThreshold, maxParseCpuTime, false);
+    }
+
+    /**
+     * Constructs a {@code WordCountPageParserFactoryImpl} with the specified exclusion patterns and crawl timeout.
+     * The {@link DefaultDocumentLoader} is used internally to handle the document loading process.
+     *
+     * @param excludedWords         a list of {@link Pattern} objects representing the URL patterns or content
+     *                              patterns that should be excluded from parsing.
+     * @param parseMode             whether created parsers build a JSoup document or stream the page.
+     * @param parallelTextThreshold number of characters of text of a page after which the rest of its text is
+     *                              counted in parallel chunks, or {@code 0} to never count a page in parallel.
+     * @param maxParseCpuTime       the CPU time a parser may spend on a page before it stops and keeps what it
+     *                              has counted, or {@link Duration#ZERO} for no limit.
+     * @param reuseParserState      whether created parsers count pages in tables reused by the worker thread and
+     *                              return views of them that must be released.
+     */
+    public WordCountPageParserFactoryImpl(List<Pattern> excludedWords, DefaultDocumentLoader documentLoader,
+                                          ParseMode parseMode, int parallelTextThreshold,
+                                          Duration maxParseCpuTime, boolean reuseParserState) {
+        this(excludedWords, documentLoader, parseMode, parallelTextThreshold, maxParseCpuTime, reuseParserState,
+             Optional.empty());
+    }
+
+    /**
+     * Constructs a {@code WordCountPageParserFactoryImpl} whose parsers take the results of unchanged pages from a
+     * {@link ParseResultStore}.
+     *
+     * @param excludedWords         a list of {@link Pattern} objects representing the URL patterns or content
+     *                              patterns that should be excluded from parsing.
+     * @param parseMode             whether created parsers build a JSoup document or stream the page.
+     * @param parallelTextThreshold number of characters of text of a page after which the rest of its text is
+     *                              counted in parallel chunks, or {@code 0} to never count a page in parallel.
+     * @param maxParseCpuTime       the CPU time a parser may spend on a page before it stops and keeps what it
+     *                              has counted, or {@link Duration#ZERO} for no limit.
+     * @param reuseParserState      whether created parsers count pages in tables reused by the worker thread and
+     *                              return views of them that must be released.
+     * @param parseResultStore      the store of the results of earlier parses, or empty to parse every page.
      */
     @Inject
     public WordCountPageParserFactoryImpl(
             @ExcludedWords List<Pattern> excludedWords,
-            DefaultDocumentLoader documentLoader) {
-        this.excludedPatterns = excludedWords;
+            DocumentLoader documentLoader,
+            @HtmlParseMode ParseMode parseMode,
+            @ParallelTextThreshold int parallelTextThreshold,
+            @MaxParseCpuTime Duration maxParseCpuTime,
+            @ReuseParserState boolean reuseParserState,
+            Optional<ParseResultStore> parseResultStore) {
+        this.excludedWordMatcher = ExcludedWordMatcher.compile(excludedWords);
         this.documentLoader = documentLoader;
+        this.parseMode = parseMode;
+        this.parallelTextThreshold = parallelTextThreshold;
+        this.maxParseCpuTime = maxParseCpuTime;
+        this.reuseParserState = reuseParserState;
+        this.parseResultStore = parseResultStore.orElse(null);
 
-        log.debug("WordCountPageParserFactoryImpl initialized with {} exclusion patterns and a crawl ",
-                  excludedWords.size());
+        log.debug("WordCountPageParserFactoryImpl initialized with {} exclusion patterns, parse mode {}, "
+                          + "parallel text threshold {}, max parse CPU time {} ms, parser state reuse {} and "
+                          + "parse result store {}",
+                  excludedWords.size(), parseMode, parallelTextThreshold, maxParseCpuTime.toMillis(),
+                  reuseParserState, parseResultStore.isPresent());
     }
 
     /**
@@ -63,9 +167,31 @@ public final class WordCountPageParserFactoryImpl implements AbstractPageParserF
     @Override
     public WordCountPageParserImpl createParserInstance(@NonNull final String url) {
         log.debug("Creating WordCountPageParserImpl for URL: {}", url);
-        WordCountPageParserImpl parser = new WordCountPageParserImpl(url, excludedPatterns, documentLoader);
+        WordCountPageParserImpl parser = WordCountPageParserImpl.builder()
+                .pageUri(url)
+                .excludedWordMatcher(excludedWordMatcher)
+                .documentLoader(documentLoader)
+                .parseMode(parseMode)
+                .parallelTextThreshold(parallelTextThreshold)
+                .maxParseCpuTime(maxParseCpuTime)
+                .pageFormat(pageFormatOf(url))
+                .reuseParserState(reuseParserState)
+                .parseResultStore(parseResultStore)
+                .build();
         log.debug("Created WordCountPageParserImpl for URL: {}", url);
         return parser;
     }
 
+    /**
+     * Determines the format of the page from the extension of its URL, or returns {@code null} if it is unknown.
+     */
+    private static PageFormat pageFormatOf(String url) {
+        try {
+            return PageFormat.fromExtension(new URI(url)).orElse(null);
+        } catch (URISyntaxException e) {
+            log.debug("Cannot determine the format of the page from the invalid URL: {}", url);
+            return null;
+        }
+    }
+
 }
@@ -3,18 +3,30 @@ package com.webtracer.parser.wordcount;
 import com.webtracer.ApiException;
 import com.webtracer.UrlValidatorUtil;
 import com.webtracer.parser.DocumentLoader;
+import com.webtracer.parser.DocumentStream;
+import com.webtracer.parser.PageFormat;
+import com.webtracer.parser.ParseBudget;
+import com.webtracer.parser.ParseBudgetExceededException;
+import com.webtracer.parser.ParseMode;
+import com.webtracer.parser.ParseProjection;
+import com.webtracer.parser.PlainTextTokenizer;
+import com.webtracer.parser.StreamingHtmlTokenizer;
 import lombok.AccessLevel;
+import lombok.Builder;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
+import org.jsoup.nodes.TextNode;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.List;
+import java.time.Duration;
 import java.util.Optional;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
 
 /**
  * A concrete implementation of {@link WordCountPageParser} that can handle both local and remote
@@ -22,9 +34,38 @@ import java.util.regex.Pattern;
  *
  * <p> Utilizes the JSoup library for HTML parsing. This class acts as an adapter around JSoup's
  * API, as JSoup does not resolve relative hyperlinks correctly when parsing local HTML files.</p>
+ *
+ * <p> In {@link ParseMode#STREAMING} mode the page is not parsed into a JSoup document. It is read
+ * through a {@link StreamingHtmlTokenizer} instead, which yields the same words and hyperlinks while
+ * keeping memory per page constant. In {@link ParseMode#STREAMING_BYTES} mode UTF-8 pages are
+ * tokenized on their bytes, without decoding them into strings first.</p>
+ *
+ * <p> The words of pages with more than {@link #getParallelTextThreshold()} characters of text are counted in
+ * parallel chunks on the pool the parser runs on, so that a single huge page does not keep one worker busy while
+ * the others are idle.</p>
+ *
+ * <p> Parsing a page stops once it has taken more than {@link #getMaxParseCpuTime()} of CPU time, or once the
+ * document loader has read its maximum body size. The result then holds what was counted until then and is
+ * {@linkplain WordCountParseResult#isTruncated() marked as truncated}.</p>
+ *
+ * <p> Pages are read according to their {@link PageFormat}, taken from the {@code Content-Type} of the response
+ * or from {@link #getPageFormat()}: plain text and Markdown are read by a {@link PlainTextTokenizer} without any
+ * HTML parsing, and XML documents such as sitemaps report the content of their {@code <loc>} elements as
+ * hyperlinks.</p>
+ *
+ * <p> With {@link #isReuseParserState()}, the tables a page is counted in are kept by the worker thread and reused
+ * for its next page, and the result is a view over them rather than an immutable copy. The caller drains the
+ * result, e.g. into the aggregate word counts of a crawl, and then {@linkplain WordCountParseResult#release()
+ * releases} it.</p>
+ *
+ * <p> With a {@link #getParseResultStore() parse result store}, the page is read into memory and hashed before it is
+ * parsed. If the store holds the result of the same content, the result is taken from the store and the page is
+ * neither parsed into a JSoup document nor tokenized; otherwise the buffered page is parsed as usual and its
+ * result is stored.</p>
  */
 @Getter
 @RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+@Builder(access = AccessLevel.PACKAGE)
 @Slf4j
 public final class WordCountPageParserImpl implements WordCountPageParser {
 
@@ -32,11 +73,61 @@ public final class WordCountPageParserImpl implements WordCountPageParser {
     private final String pageUri;
 
     @NonNull
-    private final List<Pattern> excludeWordPatterns;
+    private final ExcludedWordMatcher excludedWordMatcher;
 
     @NonNull
     private final DocumentLoader documentLoader;
 
+    /**
+     * Whether the page is parsed into a JSoup document or streamed through a {@link StreamingHtmlTokenizer}.
+     */
+    @NonNull
+    @Builder.Default
+    private final ParseMode parseMode = ParseMode.DOM;
+
+    /**
+     * Number of characters of text of a page after which its remaining text is counted in parallel chunks, or
+     * {@code 0} to count every page on the calling thread.
+     */
+    @Builder.Default
+    private final int parallelTextThreshold = DEFAULT_PARALLEL_TEXT_THRESHOLD;
+
+    /**
+     * Default value of {@link #getParallelTextThreshold()}: one million characters, about 1 MB of plain text.
+     */
+    public static final int DEFAULT_PARALLEL_TEXT_THRESHOLD = 1 << 20;
+
+    /**
+     * The CPU time the parser may spend on a page, including building its JSoup document in
+     * {@link ParseMode#DOM} mode, or {@link Duration#ZERO} for no limit.
+     */
+    @NonNull
+    @Builder.Default
+    private final Duration maxParseCpuTime = DEFAULT_MAX_PARSE_CPU_TIME;
+
+    /**
+     * Default value of {@link #getMaxParseCpuTime()}: 5 seconds.
+     */
+    public static final Duration DEFAULT_MAX_PARSE_CPU_TIME = Duration.ofSeconds(5);
+
+    /**
+     * The format of the page as known before it is requested, e.g. from the extension of its URL, or {@code null}
+     * if it is unknown. Pages of a known format other than {@link PageFormat#HTML} are always streamed, and the
+     * {@code Content-Type} of a streamed response takes precedence over this format.
+     */
+    private final PageFormat pageFormat;
+
+    /**
+     * Whether the parser accumulates the result in tables kept by the calling worker thread and returns a view of
+     * them rather than a copy. Such results must be {@linkplain WordCountParseResult#release() released} once they
+     * have been drained.
+     */
+    private final boolean reuseParserState;
+
+    /**
+     * The store of the results of earlier parses, keyed by page content, or {@code null} if every page is parsed.
+     */
+    private final ParseResultStore parseResultStore;
 
     /**
      * Parses the HTML page specified by {@code pageUri} and returns a {@link WordCountParseResult}
@@ -46,42 +137,310 @@ public final class WordCountPageParserImpl implements WordCountPageParser {
      */
     @Override
     public WordCountParseResult parse() {
+        return parse(ParseProjection.ALL);
+    }
+
+    /**
+     * Parses the HTML page specified by {@code pageUri}, extracting only the outputs selected by
+     * {@code projection}. Text of a {@link ParseProjection#LINKS} projection is not split into words, and
+     * hyperlinks of a {@link ParseProjection#WORDS} projection are neither resolved nor collected.
+     *
+     * @param projection the outputs the caller will read
+     * @return the result of parsing the HTML page, with empty word frequencies or hyperlinks if the projection
+     * does not select them
+     */
+    @Override
+    public WordCountParseResult parse(@NonNull ParseProjection projection) {
+        return parse(projection, link -> {
+        });
+    }
+
+    /**
+     * Parses the HTML page specified by {@code pageUri}, passing each distinct hyperlink to {@code linkListener}
+     * as soon as it is found.
+     *
+     * @param linkListener receives each distinct hyperlink of the page, in document order
+     * @return the result of parsing the HTML page, including word frequencies and hyperlinks
+     * @see #parse(ParseProjection, Consumer)
+     */
+    public WordCountParseResult parse(@NonNull Consumer<String> linkListener) {
+        return parse(ParseProjection.ALL, linkListener);
+    }
+
+    /**
+     * Parses the HTML page specified by {@code pageUri}, extracting only the outputs selected by
+     * {@code projection} and passing each distinct hyperlink to {@code linkListener} as soon as it is found.
+     *
+     * <p>In the streaming modes the listener is called while the page is still being read, so a
+     * crawler can start fetching linked pages before a large or slowly served page has been fully downloaded.
+     * In {@link ParseMode#DOM} mode the whole page is loaded first. In both modes the listener is called on the
+     * calling thread, before this method returns.</p>
+     *
+     * @param projection   the outputs the caller will read
+     * @param linkListener receives each distinct hyperlink of the page, in document order
+     * @return the result of parsing the HTML page, with empty word frequencies or hyperlinks if the projection
+     * does not select them
+     */
+    @Override
+    public WordCountParseResult parse(@NonNull ParseProjection projection, @NonNull Consumer<String> linkListener) {
+        return parsePage(projection, linkListener, false, null).getResult();
+    }
+
+    /**
+     * Reads the page specified by {@code pageUri} into memory and computes the digest of its content, and parses
+     * it like {@link #parse(ParseProjection, Consumer)} unless the digest equals {@code previousDigest}.
+     *
+     * @param projection     the outputs the caller will read
+     * @param linkListener   receives each distinct hyperlink of a changed page, in document order
+     * @param previousDigest the digest of the page when it was last parsed, or {@code null} to parse it anyway
+     * @return the digest of the page and, unless it is unchanged, its result; the digest is {@code null} if the
+     * page could not be loaded
+     */
+    @Override
+    public PageRevision parseRevision(@NonNull ParseProjection projection, @NonNull Consumer<String> linkListener,
+                                      ContentDigest previousDigest) {
+        return parsePage(projection, linkListener, true, previousDigest);
+    }
+
+    private PageRevision parsePage(ParseProjection projection, Consumer<String> linkListener, boolean digesting,
+                                   ContentDigest previousDigest) {
         log.debug("Starting to parse the page: {}", pageUri);
 
         Optional<URI> uriOpt = parseURI(pageUri);
         if (uriOpt.isEmpty()) {
             log.warn("Failed to parse URI: {}", pageUri);
-            return new WordCountParseResult.Builder().build();
+            return PageRevision.changed(null, new WordCountParseResult.Builder().build());
         }
 
         URI uri = uriOpt.get();
         log.debug("Parsed URI: {}", uri);
 
+        ParserWorkspace workspace = reuseParserState ? ParserWorkspace.acquire() : null;
+        try {
+            WordCountParseResult.Builder resultBuilder = workspace == null
+                    ? new WordCountParseResult.Builder()
+                    : workspace.getResultBuilder();
+            WordCountNodeProcessor nodeProcessor = new WordCountNodeProcessor(
+                    excludedWordMatcher, resultBuilder, uri, linkListener, parallelTextThreshold,
+                    ParseBudget.start(maxParseCpuTime), projection);
+            if (workspace != null) {
+                nodeProcessor.withUtf8WordTable(workspace.getUtf8Tokens());
+            }
+
+            boolean streaming = parseMode.isStreaming() || (pageFormat != null && pageFormat != PageFormat.HTML);
+            StreamingHtmlTokenizer.Buffers tokenizerBuffers = workspace == null
+                    ? new StreamingHtmlTokenizer.Buffers()
+                    : workspace.getTokenizerBuffers();
+            BufferedParse bufferedParse = null;
+            boolean loaded;
+            if (parseResultStore != null || digesting) {
+                bufferedParse = parseBuffered(uri, projection, linkListener, streaming, nodeProcessor,
+                                              resultBuilder, tokenizerBuffers, digesting, previousDigest);
+                loaded = bufferedParse.loaded();
+            } else {
+                loaded = streaming
+                        ? parseStream(uri, nodeProcessor, resultBuilder, tokenizerBuffers)
+                        : parseDocument(uri, nodeProcessor, resultBuilder);
+            }
+            if (!loaded || (bufferedParse != null && bufferedParse.unchanged())) {
+                if (workspace != null) {
+                    workspace.release();
+                }
+                return loaded
+                        ? PageRevision.unchanged(bufferedParse.digest())
+                        : PageRevision.changed(null, new WordCountParseResult.Builder().build());
+            }
+            WordCountParseResult result = workspace == null
+                    ? nodeProcessor.getResult()
+                    : nodeProcessor.getResultView(workspace.releaseAction());
+            if (bufferedParse != null && bufferedParse.keyToStore() != null) {
+                parseResultStore.put(bufferedParse.keyToStore(), result);
+            }
+            return PageRevision.changed(bufferedParse == null ? null : bufferedParse.digest(), result);
+        } catch (RuntimeException e) {
+            if (workspace != null) {
+                workspace.release();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Loads the page into a JSoup document and traverses it.
+     *
+     * @return {@code false} if the page could not be loaded.
+     */
+    private boolean parseDocument(URI uri, WordCountNodeProcessor nodeProcessor,
+                                  WordCountParseResult.Builder resultBuilder) {
         Optional<Document> documentOpt;
 
         try {
             documentOpt = documentLoader.loadDocument(uri);
         } catch (ApiException e) {
             log.warn("Failed to load document: {}", uri, e);
-            return new WordCountParseResult.Builder().build();
+            return false;
         }
 
         if (documentOpt.isEmpty()) {
             log.warn("Failed to load document from URI: {}", uri);
-            return new WordCountParseResult.Builder().build();
+            return false;
         }
 
         Document document = documentOpt.get();
         log.debug("Loaded document from URI: {}", uri);
 
-        WordCountParseResult.Builder resultBuilder = new WordCountParseResult.Builder();
-        WordCountNodeProcessor nodeProcessor = new WordCountNodeProcessor(excludeWordPatterns, resultBuilder, uri);
+        if (DocumentLoader.isTruncated(document)) {
+            log.warn("Counting only the first part of the truncated page: {}", pageUri);
+            resultBuilder.markTruncated();
+        }
+        traverse(document, nodeProcessor, resultBuilder);
+        return true;
+    }
 
-        // Traverse the document and process each node, builder accessed by single thread
-        document.traverse(nodeProcessor::processNode);
+    private void traverse(Document document, WordCountNodeProcessor nodeProcessor,
+                          WordCountParseResult.Builder resultBuilder) {
+        try {
+            // Traverse the document and process each node, builder accessed by single thread
+            document.traverse(nodeProcessor::processNode);
+        } catch (ParseBudgetExceededException e) {
+            log.warn("Stopped parsing the page: {}: {}", pageUri, e.getMessage());
+            resultBuilder.markTruncated();
+        }
 
         log.debug("Finished parsing the page: {}", pageUri);
-        return nodeProcessor.getResult();
+    }
+
+    /**
+     * Reads the page into memory and, if requested, computes the digest of its content and stops if it equals the
+     * previous digest. Otherwise takes its result from the parse result store, if any, or parses it in the
+     * configured mode.
+     *
+     * @return whether the page was loaded and whether it was unchanged, its digest, and the key its result is to
+     * be stored under, if it was parsed.
+     */
+    private BufferedParse parseBuffered(URI uri, ParseProjection projection, Consumer<String> linkListener,
+                                        boolean streaming, WordCountNodeProcessor nodeProcessor,
+                                        WordCountParseResult.Builder resultBuilder,
+                                        StreamingHtmlTokenizer.Buffers tokenizerBuffers, boolean digesting,
+                                        ContentDigest previousDigest) {
+        ContentDigest digest = null;
+        try (DocumentStream documentStream = documentLoader.openDocumentStream(uri)) {
+            byte[] content = documentStream.buffer();
+            if (digesting) {
+                digest = ContentDigest.of(content, documentStream.getLocation() + "\n"
+                        + documentStream.getContentType());
+                if (digest.equals(previousDigest) && !documentStream.isTruncated()) {
+                    log.debug("Skipping unchanged page {}", pageUri);
+                    return new BufferedParse(true, true, digest, null);
+                }
+            }
+            PageFormat format = PageFormat.fromContentType(documentStream.getContentType())
+                    .orElse(pageFormat == null ? PageFormat.HTML : pageFormat);
+            ParseResultStore.Key key = null;
+            if (parseResultStore != null) {
+                key = parseResultStore.key(
+                        content, documentStream.getLocation() + "\n" + documentStream.getContentType() + "\n"
+                                + format + "\n" + projection + "\n" + (streaming ? parseMode : ParseMode.DOM));
+                if (parseResultStore.replay(key, resultBuilder, linkListener)) {
+                    log.debug("Took the result of unchanged page {} from the parse result store", pageUri);
+                    return new BufferedParse(true, false, digest, null);
+                }
+            }
+
+            if (streaming) {
+                tokenize(documentStream, format, nodeProcessor, tokenizerBuffers);
+            } else {
+                // Built like the document loader builds it, so that the result is the same as without buffering
+                String location = documentStream.getLocation().toString();
+                Document document;
+                if (format.isPlainText()) {
+                    document = Document.createShell(location);
+                    document.body().appendChild(new TextNode(new String(content, documentStream.getCharset())));
+                } else {
+                    document = Jsoup.parse(documentStream.getBody(), documentStream.getCharset().name(), location);
+                }
+                traverse(document, nodeProcessor, resultBuilder);
+            }
+            if (documentStream.isTruncated()) {
+                log.warn("Counted only the first part of the truncated page: {}", pageUri);
+                resultBuilder.markTruncated();
+            }
+            return new BufferedParse(true, false, digest, key);
+        } catch (ParseBudgetExceededException e) {
+            log.warn("Stopped parsing the page: {}: {}", pageUri, e.getMessage());
+            resultBuilder.markTruncated();
+            return new BufferedParse(true, false, digest, null);
+        } catch (ApiException | IOException e) {
+            log.warn("Failed to load document: {}", uri, e);
+            return new BufferedParse(false, false, null, null);
+        }
+    }
+
+    /**
+     * Streams the page through the tokenizer for its format.
+     *
+     * @return {@code false} if the page could not be opened or read.
+     */
+    private boolean parseStream(URI uri, WordCountNodeProcessor nodeProcessor,
+                                WordCountParseResult.Builder resultBuilder,
+                                StreamingHtmlTokenizer.Buffers tokenizerBuffers) {
+        try (DocumentStream documentStream = documentLoader.openDocumentStream(uri)) {
+            log.debug("Streaming document from URI: {}", documentStream.getLocation());
+            PageFormat format = PageFormat.fromContentType(documentStream.getContentType())
+                    .orElse(pageFormat == null ? PageFormat.HTML : pageFormat);
+            tokenize(documentStream, format, nodeProcessor, tokenizerBuffers);
+            if (documentStream.isTruncated()) {
+                log.warn("Counted only the first part of the truncated page: {}", pageUri);
+                resultBuilder.markTruncated();
+            }
+        } catch (ParseBudgetExceededException e) {
+            log.warn("Stopped parsing the page: {}: {}", pageUri, e.getMessage());
+            resultBuilder.markTruncated();
+        } catch (ApiException | IOException e) {
+            log.warn("Failed to stream document: {}", uri, e);
+            return false;
+        }
+
+        log.debug("Finished streaming the page: {}", pageUri);
+        return true;
+    }
+
+    private void tokenize(DocumentStream documentStream, PageFormat format, WordCountNodeProcessor nodeProcessor,
+                          StreamingHtmlTokenizer.Buffers tokenizerBuffers) throws IOException {
+        log.debug("Reading {} as {}", documentStream.getLocation(), format);
+        switch (format) {
+            case PLAIN_TEXT, MARKDOWN -> {
+                WordCountTokenHandler tokenHandler = new WordCountTokenHandler(nodeProcessor,
+                                                                               documentStream.getLocation());
+                new PlainTextTokenizer(tokenHandler, format == PageFormat.MARKDOWN)
+                        .tokenize(documentStream.getReader());
+            }
+            case XML -> {
+                XmlTokenHandler tokenHandler = new XmlTokenHandler(nodeProcessor, documentStream.getLocation());
+                new StreamingHtmlTokenizer(tokenHandler, tokenizerBuffers).tokenize(documentStream.getReader());
+            }
+            case HTML, XHTML -> {
+                WordCountTokenHandler tokenHandler = new WordCountTokenHandler(nodeProcessor,
+                                                                               documentStream.getLocation());
+                StreamingHtmlTokenizer tokenizer = new StreamingHtmlTokenizer(tokenHandler, tokenizerBuffers);
+                if (parseMode == ParseMode.STREAMING_BYTES && documentStream.isUtf8()) {
+                    tokenizer.tokenize(documentStream.getBody());
+                } else {
+                    log.debug("Decoding document {} as {}", documentStream.getLocation(),
+                              documentStream.getCharset());
+                    tokenizer.tokenize(documentStream.getReader());
+                }
+            }
+        }
+    }
+
+    /**
+     * The outcome of {@link #parseBuffered}: whether the page was loaded, whether it was unchanged and not parsed,
+     * the digest of its content if it was computed, and the key to store its result under, or {@code null} if its
+     * result was taken from the store or must not be stored.
+     */
+    private record BufferedParse(boolean loaded, boolean unchanged, ContentDigest digest,
+                                 ParseResultStore.Key keyToStore) {
     }
 
     /**
@@ -14,10 +14,14 @@ import java.util.*;
  * <p>This class is immutable and should be instantiated using the nested {@link Builder} class.
  * The {@code Builder} class allows for the incremental construction of a {@code WordCountParseResult}
  * by tracking word counts and hyperlinks as they are found during parsing.</p>
+ *
+ * <p>Parsers that reuse their state return results that are read-only views over per-worker tables rather than
+ * copies. Such a result must be {@linkplain #release() released} once its word counts have been drained and its
+ * hyperlinks followed, and must not be used afterwards.</p>
  */
 @Getter
 @Slf4j
-@RequiredArgsConstructor
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 public final class WordCountParseResult implements ParseResult {
 
     /**
@@ -34,6 +38,41 @@ public final class WordCountParseResult implements ParseResult {
     @NonNull
     private final List<String> hyperLinkList;
 
+    /**
+     * Whether only part of the page was parsed, because the page exceeded the maximum body size or its parse
+     * budget. The word counts and hyperlinks then only cover the part of the page parsed before that.
+     */
+    private final boolean truncated;
+
+    /**
+     * Returns the tables backing a view result to the worker they were borrowed from, or {@code null} for a
+     * result that owns its data.
+     */
+    @Getter(AccessLevel.NONE)
+    private final Runnable releaseAction;
+
+    /**
+     * Creates a result that owns its data.
+     *
+     * @param wordFrequencyMap the word frequencies of the page.
+     * @param hyperLinkList    the distinct hyperlinks of the page.
+     * @param truncated        whether only part of the page was parsed.
+     */
+    public WordCountParseResult(@NonNull Map<String, Integer> wordFrequencyMap, @NonNull List<String> hyperLinkList,
+                                boolean truncated) {
+        this(wordFrequencyMap, hyperLinkList, truncated, null);
+    }
+
+    /**
+     * Releases the per-worker tables backing this result, if any, so that the next page parsed by the same worker
+     * reuses them. Does nothing for results that own their data, and for results already released.
+     */
+    public void release() {
+        if (releaseAction != null) {
+            releaseAction.run();
+        }
+    }
+
     /**
      * The {@code Builder} class facilitates the construction of {@link WordCountParseResult} instances.
      * It accumulates word counts and hyperlinks during the parsing of an HTML document, allowing for
@@ -41,8 +80,16 @@ public final class WordCountParseResult implements ParseResult {
      */
     @Slf4j
     public static final class Builder {
-        private final Map<String, Integer> wordFrequencyMap = new HashMap<>();
-        private final Set<String> hyperlinkList = new HashSet<>();
+        /**
+         * Number of distinct words or hyperlinks above which {@link #reset()} replaces a collection rather than
+         * clearing it, so that a single huge page does not make clearing every later page expensive.
+         */
+        static final int MAX_RETAINED_SIZE = 1 << 14;
+
+        private Map<String, Integer> wordFrequencyMap = new HashMap<>();
+        private Set<String> hyperlinkSet = new HashSet<>();
+        private List<String> hyperlinkList = new ArrayList<>();
+        private boolean truncated;
 
         /**
          * Adds a word to the word frequency map or increments its count if it already exists.
@@ -58,6 +105,20 @@ public final class WordCountParseResult implements ParseResult {
             return this;
         }
 
+        /**
+         * Adds the given number of occurrences of a word to the word frequency map.
+         *
+         * @param word  the word to be added or whose count should be increased.
+         * @param count the number of occurrences to add.
+         * @throws NullPointerException if the word is {@code null}.
+         * @return this {@code Builder} instance, allowing for method chaining.
+         */
+        public Builder addWord(@NonNull String word, int count) {
+            wordFrequencyMap.merge(word, count, Integer::sum);
+            log.trace("Added word: {} {} times (current count: {})", word, count, wordFrequencyMap.get(word));
+            return this;
+        }
+
         /**
          * Adds a hyperlink to the set of hyperlinks found during parsing.
          * Duplicate links are not added again.
@@ -67,7 +128,8 @@ public final class WordCountParseResult implements ParseResult {
          * @return this {@code Builder} instance, allowing for method chaining.
          */
         public Builder addLink(@NonNull String link) {
-            if (hyperlinkList.add(link)) {
+            if (hyperlinkSet.add(link)) {
+                hyperlinkList.add(link);
                 log.trace("Added hyperlink: {}", link);
             } else {
                 log.trace("Hyperlink already exists, not adding: {}", link);
@@ -75,6 +137,26 @@ public final class WordCountParseResult implements ParseResult {
             return this;
         }
 
+        /**
+         * Checks whether a hyperlink has already been added.
+         *
+         * @param link the hyperlink to look up.
+         * @return {@code true} if the link has been added before.
+         */
+        public boolean containsLink(@NonNull String link) {
+            return hyperlinkSet.contains(link);
+        }
+
+        /**
+         * Marks the result as covering only part of the page.
+         *
+         * @return this {@code Builder} instance, allowing for method chaining.
+         */
+        public Builder markTruncated() {
+            truncated = true;
+            return this;
+        }
+
         /**
          * Builds a {@link WordCountParseResult} instance from the current state of the builder.
          * The word frequency map is made unmodifiable, and the hyperlinks are stored in an unmodifiable list.
@@ -83,11 +165,46 @@ public final class WordCountParseResult implements ParseResult {
          */
         public WordCountParseResult build() {
             log.debug("Building WordCountParseResult with {} words and {} hyperlinks",
-                      wordFrequencyMap.size(), hyperlinkList.size());
+                      wordFrequencyMap.size(), hyperlinkSet.size());
             return new WordCountParseResult(
                     Collections.unmodifiableMap(wordFrequencyMap),
-                    hyperlinkList.stream().toList()
+                    List.copyOf(hyperlinkList),
+                    truncated
             );
         }
+
+        /**
+         * Builds a {@link WordCountParseResult} that is a read-only view over the current state of the builder,
+         * without copying it. The view reflects later changes to the builder, so the builder must not be used
+         * until the view has been released.
+         *
+         * @param releaseAction called when the view is {@linkplain WordCountParseResult#release() released}.
+         * @return a view of the accumulated data.
+         */
+        WordCountParseResult buildView(@NonNull Runnable releaseAction) {
+            log.debug("Building a view of {} words and {} hyperlinks", wordFrequencyMap.size(),
+                      hyperlinkList.size());
+            return new WordCountParseResult(Collections.unmodifiableMap(wordFrequencyMap),
+                                            Collections.unmodifiableList(hyperlinkList), truncated, releaseAction);
+        }
+
+        /**
+         * Clears the builder, so that it can accumulate the result of another page.
+         */
+        void reset() {
+            if (wordFrequencyMap.size() > MAX_RETAINED_SIZE) {
+                wordFrequencyMap = new HashMap<>();
+            } else {
+                wordFrequencyMap.clear();
+            }
+            if (hyperlinkSet.size() > MAX_RETAINED_SIZE) {
+                hyperlinkSet = new HashSet<>();
+                hyperlinkList = new ArrayList<>();
+            } else {
+                hyperlinkSet.clear();
+                hyperlinkList.clear();
+            }
+            truncated = false;
+        }
     }
 }
@@ -0,0 +1,68 @@
+package com.webtracer.parser.wordcount;
+
+import com.webtracer.parser.HtmlTokenHandler;
+import com.webtracer.parser.StreamingHtmlTokenizer;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.internal.StringUtil;
+
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * The {@code WordCountTokenHandler} class adapts the events of a {@link StreamingHtmlTokenizer} to a
+ * {@link WordCountNodeProcessor}, so that streamed pages produce the same words and hyperlinks as pages parsed
+ * into a JSoup document.
+ *
+ * <p>Like JSoup, the handler resolves relative links of remote pages against the first {@code <base href>} of the
+ * page, or against the location the page was loaded from if it declares none.</p>
+ */
+@Slf4j
+final class WordCountTokenHandler implements HtmlTokenHandler {
+
+    private final WordCountNodeProcessor nodeProcessor;
+
+    private String baseUri;
+
+    private boolean baseUriFromDocument;
+
+    /**
+     * Creates a handler forwarding to the given processor.
+     *
+     * @param nodeProcessor the processor collecting words and hyperlinks.
+     * @param location      the location the page was loaded from.
+     */
+    WordCountTokenHandler(@NonNull WordCountNodeProcessor nodeProcessor, @NonNull URI location) {
+        this.nodeProcessor = nodeProcessor;
+        this.baseUri = location.toString();
+    }
+
+    @Override
+    public void text(String text) {
+        nodeProcessor.processText(text);
+    }
+
+    @Override
+    public void text(byte[] utf8, int offset, int length) {
+        nodeProcessor.processUtf8Text(utf8, offset, length);
+    }
+
+    @Override
+    public void startTag(String name, Map<String, String> attributes) {
+        String href = attributes.get("href");
+        if (href == null) {
+            return;
+        }
+
+        if (name.equals("a")) {
+            nodeProcessor.processLink(href, baseUri);
+        } else if (name.equals("base") && !baseUriFromDocument) {
+            String resolved = StringUtil.resolve(baseUri, href);
+            if (!resolved.isEmpty()) {
+                log.trace("Using base URI {} declared by the page", resolved);
+                baseUri = resolved;
+                baseUriFromDocument = true;
+            }
+        }
+    }
+}
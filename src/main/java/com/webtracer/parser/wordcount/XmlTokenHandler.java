@@ -0,0 +1,67 @@
+package com.webtracer.parser.wordcount;
+
+import com.webtracer.parser.HtmlTokenHandler;
+import com.webtracer.parser.StreamingHtmlTokenizer;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@code XmlTokenHandler} class adapts the events of a {@link StreamingHtmlTokenizer} reading an XML document,
+ * such as a sitemap, to a {@link WordCountNodeProcessor}.
+ *
+ * <p>The content of {@code <loc>} elements, including namespaced ones such as {@code <image:loc>}, is processed as
+ * a hyperlink rather than as text, and the content of the sitemap metadata elements {@code <lastmod>},
+ * {@code <changefreq>} and {@code <priority>} is ignored. The text of all other elements is counted like the text
+ * of an HTML page. Relative links are resolved against the location the document was loaded from.</p>
+ */
+@Slf4j
+final class XmlTokenHandler implements HtmlTokenHandler {
+
+    private static final String LINK_ELEMENT = "loc";
+
+    private static final Set<String> IGNORED_ELEMENTS = Set.of("lastmod", "changefreq", "priority");
+
+    private final WordCountNodeProcessor nodeProcessor;
+
+    private final String baseUri;
+
+    /**
+     * The local name of the element whose first text run has not been read yet, or {@code null} once it has.
+     */
+    private String currentElement;
+
+    /**
+     * Creates a handler forwarding to the given processor.
+     *
+     * @param nodeProcessor the processor collecting words and hyperlinks.
+     * @param location      the location the document was loaded from.
+     */
+    XmlTokenHandler(@NonNull WordCountNodeProcessor nodeProcessor, @NonNull URI location) {
+        this.nodeProcessor = nodeProcessor;
+        this.baseUri = location.toString();
+    }
+
+    @Override
+    public void text(String text) {
+        String element = currentElement;
+        currentElement = null;
+        if (LINK_ELEMENT.equals(element)) {
+            String link = text.strip();
+            if (!link.isEmpty()) {
+                log.trace("Found sitemap location {}", link);
+                nodeProcessor.processLink(link, baseUri);
+            }
+        } else if (element == null || !IGNORED_ELEMENTS.contains(element)) {
+            nodeProcessor.processText(text);
+        }
+    }
+
+    @Override
+    public void startTag(String name, Map<String, String> attributes) {
+        currentElement = name.substring(name.indexOf(':') + 1);
+    }
+}
@@ -0,0 +1,104 @@
+package com.webtracer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AppendOnlyLogTest {
+
+    private static final byte[] HEADER = ByteBuffer.allocate(8).putInt(0x57545453).putInt(1).array();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void givenAppendedRecords_whenReopened_thenRecordsAreReplayedInOrder() throws IOException {
+        Path file = directory.resolve("test.log");
+        try (AppendOnlyLog log = AppendOnlyLog.open(file, "test log", HEADER, 1024, payload -> fail())) {
+            assertTrue(log.append(bytes("a")));
+            assertTrue(log.append(bytes("b")));
+        }
+
+        assertEquals(List.of("a", "b"), replay(file, HEADER));
+    }
+
+    @Test
+    void givenCorruptRecord_whenReopened_thenItAndLaterRecordsAreDroppedAndLogRemainsWritable() throws IOException {
+        Path file = directory.resolve("test.log");
+        try (AppendOnlyLog log = AppendOnlyLog.open(file, "test log", HEADER, 1024, payload -> fail())) {
+            log.append(bytes("a"));
+            log.append(bytes("b"));
+            log.append(bytes("c"));
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            // Flips a byte of the payload of the second record
+            channel.write(ByteBuffer.wrap(new byte[]{'x'}), HEADER.length + 9 + 8);
+        }
+
+        try (AppendOnlyLog log = AppendOnlyLog.open(file, "test log", HEADER, 1024, payload -> { })) {
+            log.append(bytes("d"));
+        }
+
+        assertEquals(List.of("a", "d"), replay(file, HEADER));
+    }
+
+    @Test
+    void givenOtherHeader_whenOpened_thenRecordsAreDiscarded() throws IOException {
+        Path file = directory.resolve("test.log");
+        try (AppendOnlyLog log = AppendOnlyLog.open(file, "test log", HEADER, 1024, payload -> fail())) {
+            log.append(bytes("a"));
+        }
+        byte[] otherVersion = ByteBuffer.allocate(8).putInt(0x57545453).putInt(2).array();
+
+        assertEquals(List.of(), replay(file, otherVersion));
+        assertEquals(List.of(), replay(file, HEADER));
+    }
+
+    @Test
+    void givenFileOfAnotherKind_whenOpened_thenIOExceptionIsThrown() throws IOException {
+        Path file = directory.resolve("test.log");
+        Files.writeString(file, "not a log");
+
+        assertThrows(IOException.class, () -> AppendOnlyLog.open(file, "test log", HEADER, 1024, payload -> { }));
+    }
+
+    @Test
+    void givenReplacedRecords_whenCompacted_thenOnlyLiveRecordsRemain() throws IOException {
+        Path file = directory.resolve("test.log");
+        try (AppendOnlyLog log = AppendOnlyLog.open(file, "test log", HEADER, 1024, payload -> fail())) {
+            for (int i = 0; i < 5; i++) {
+                log.append(bytes("a"));
+            }
+            assertTrue(log.needsCompaction(2));
+
+            log.compact(List.of("a", "b"), AppendOnlyLogTest::bytes);
+
+            assertFalse(log.needsCompaction(1));
+            log.append(bytes("c"));
+        }
+
+        assertEquals(List.of("a", "b", "c"), replay(file, HEADER));
+    }
+
+    private static List<String> replay(Path file, byte[] header) throws IOException {
+        List<String> records = new ArrayList<>();
+        AppendOnlyLog.open(file, "test log", header, 1024,
+                           payload -> records.add(StandardCharsets.UTF_8.decode(payload).toString())).close();
+        return records;
+    }
+
+    private static byte[] bytes(String string) {
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+}
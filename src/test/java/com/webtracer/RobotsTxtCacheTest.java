@@ -0,0 +1,263 @@
+package com.webtracer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RobotsTxtCacheTest {
+
+    private static final String ROBOTS_TXT = """
+            User-agent: OtherBot
+            Disallow: /
+
+            User-agent: *
+            Allow: /private/public
+            Disallow: /private # members only
+            """;
+
+    private final MutableClock clock = new MutableClock();
+
+    private RobotsTxtCache cache(RobotsTxtCache.RobotsTxtFetcher fetcher, int maxHosts) {
+        return new RobotsTxtCache(RobotsTxtCache.DEFAULT_USER_AGENT, clock, Duration.ofHours(1),
+                                  Duration.ofMinutes(1), maxHosts, fetcher, Runnable::run, null);
+    }
+
+    @Test
+    void givenRobotsTxt_whenIsAllowed_thenRulesOfMatchingUserAgentAreApplied() {
+        RobotsTxtCache cache = cache((uri, etag) -> ok(ROBOTS_TXT), 10);
+
+        assertTrue(cache.isAllowed(URI.create("https://example.com/index.html")));
+        assertFalse(cache.isAllowed(URI.create("https://example.com/private/page.html")));
+        assertTrue(cache.isAllowed(URI.create("https://example.com/private/public/page.html")));
+        assertTrue(cache.isAllowed(URI.create("https://example.com")));
+        assertTrue(cache.isAllowed(URI.create("https://example.com/robots.txt")));
+    }
+
+    @Test
+    void givenNonHttpUrl_whenIsAllowed_thenAllowedWithoutFetching() {
+        RobotsTxtCache cache = cache((uri, etag) -> fail("Fetched " + uri), 10);
+
+        assertTrue(cache.isAllowed(URI.create("file:///tmp/page.html")));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void givenConcurrentCallersForSameHost_whenIsAllowed_thenRobotsTxtIsFetchedOnce() throws Exception {
+        AtomicInteger fetches = new AtomicInteger();
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch fetchAllowed = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            RobotsTxtCache cache = new RobotsTxtCache(RobotsTxtCache.DEFAULT_USER_AGENT, clock, Duration.ofHours(1),
+                                                      Duration.ofMinutes(1), 10, (uri, etag) -> {
+                fetches.incrementAndGet();
+                fetchStarted.countDown();
+                await(fetchAllowed);
+                return ok(ROBOTS_TXT);
+            }, executor, null);
+
+            List<CompletableFuture<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                results.add(cache.isAllowedAsync(URI.create("https://example.com/private/" + i)));
+            }
+            assertTrue(fetchStarted.await(5, TimeUnit.SECONDS));
+            // A host whose rules are being fetched does not block other hosts
+            assertTrue(cache.isAllowed(URI.create("file:///other")));
+            fetchAllowed.countDown();
+
+            for (CompletableFuture<Boolean> result : results) {
+                assertFalse(result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, fetches.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void givenExpiredRules_whenIsAllowed_thenRulesAreRefreshed() {
+        List<String> contents = new ArrayList<>(List.of(ROBOTS_TXT, "User-agent: *\nDisallow: /"));
+        RobotsTxtCache cache = cache((uri, etag) -> ok(contents.remove(0)), 10);
+        URI page = URI.create("https://example.com/index.html");
+        assertTrue(cache.isAllowed(page));
+
+        clock.advance(Duration.ofMinutes(59));
+        assertTrue(cache.isAllowed(page));
+        clock.advance(Duration.ofMinutes(1));
+        // The refresh runs on the calling thread here, so the new rules apply from the next call
+        cache.isAllowed(page);
+
+        assertFalse(cache.isAllowed(page));
+        assertTrue(contents.isEmpty());
+    }
+
+    @Test
+    void givenFailedFetch_whenNegativeTtlExpires_thenRobotsTxtIsFetchedAgain() {
+        AtomicInteger fetches = new AtomicInteger();
+        RobotsTxtCache cache = cache((uri, etag) -> {
+            if (fetches.incrementAndGet() == 1) {
+                throw new IOException("Connection refused");
+            }
+            return ok("User-agent: *\nDisallow: /");
+        }, 10);
+        URI page = URI.create("https://example.com/index.html");
+
+        assertTrue(cache.isAllowed(page));
+        clock.advance(Duration.ofSeconds(30));
+        assertTrue(cache.isAllowed(page));
+        assertEquals(1, fetches.get());
+
+        clock.advance(Duration.ofSeconds(30));
+        cache.isAllowed(page);
+
+        assertFalse(cache.isAllowed(page));
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void givenMissingRobotsTxt_whenIsAllowed_thenAllPathsAreAllowedForTheFullTtl() {
+        AtomicInteger fetches = new AtomicInteger();
+        RobotsTxtCache cache = cache((uri, etag) -> {
+            fetches.incrementAndGet();
+            return RobotsTxtCache.RobotsTxtResponse.missing();
+        }, 10);
+
+        assertTrue(cache.isAllowed(URI.create("https://example.com/private")));
+        clock.advance(Duration.ofMinutes(30));
+        assertTrue(cache.isAllowed(URI.create("https://example.com/private")));
+
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void givenMoreHostsThanCapacity_whenIsAllowed_thenLeastRecentlyUsedHostIsEvicted() {
+        List<String> fetched = new ArrayList<>();
+        RobotsTxtCache cache = cache((uri, etag) -> {
+            fetched.add(uri.getHost());
+            return ok(ROBOTS_TXT);
+        }, 2);
+
+        cache.isAllowed(URI.create("https://a.com/"));
+        cache.isAllowed(URI.create("https://b.com/"));
+        cache.isAllowed(URI.create("https://a.com/"));
+        cache.isAllowed(URI.create("https://c.com/"));
+        cache.isAllowed(URI.create("https://a.com/"));
+        cache.isAllowed(URI.create("https://b.com/"));
+
+        assertEquals(2, cache.size());
+        assertEquals(List.of("a.com", "b.com", "c.com", "b.com"), fetched);
+    }
+
+    @Test
+    void givenStoredRules_whenIsAllowedInNewRun_thenStoredRulesApplyWithoutFetching(@TempDir Path directory)
+            throws IOException {
+        Path file = directory.resolve("robots.store");
+        try (RobotsTxtStore store = RobotsTxtStore.open(file)) {
+            RobotsTxtCache cache = new RobotsTxtCache(RobotsTxtCache.DEFAULT_USER_AGENT, clock, Duration.ofHours(1),
+                                                      Duration.ofMinutes(1), 10,
+                                                      (uri, etag) -> ok(ROBOTS_TXT + "Crawl-delay: 2\n"),
+                                                      Runnable::run, store);
+            assertFalse(cache.isAllowed(URI.create("https://example.com/private/page.html")));
+        }
+
+        try (RobotsTxtStore store = RobotsTxtStore.open(file)) {
+            RobotsTxtCache cache = new RobotsTxtCache(RobotsTxtCache.DEFAULT_USER_AGENT, clock, Duration.ofHours(1),
+                                                      Duration.ofMinutes(1), 10,
+                                                      (uri, etag) -> fail("Fetched " + uri), Runnable::run, store);
+
+            assertEquals(1, cache.size());
+            assertFalse(cache.isAllowed(URI.create("https://example.com/private/page.html")));
+            assertTrue(cache.isAllowed(URI.create("https://example.com/private/public/page.html")));
+            assertEquals(Optional.of(Duration.ofSeconds(2)),
+                         cache.getCrawlDelay(URI.create("https://example.com/")));
+        }
+    }
+
+    @Test
+    void givenExpiredStoredRules_whenNotModified_thenRulesAreRevalidatedWithTheirETag(@TempDir Path directory)
+            throws IOException {
+        Path file = directory.resolve("robots.store");
+        try (RobotsTxtStore store = RobotsTxtStore.open(file)) {
+            store.put(new RobotsTxtStore.HostRecord("https://example.com", clock.instant(), "\"v1\"",
+                                                    new RobotsTxtRules.Builder().disallow("/private").build()));
+        }
+        clock.advance(Duration.ofHours(2));
+
+        List<String> sentETags = new ArrayList<>();
+        try (RobotsTxtStore store = RobotsTxtStore.open(file)) {
+            RobotsTxtCache cache = new RobotsTxtCache(RobotsTxtCache.DEFAULT_USER_AGENT, clock, Duration.ofHours(1),
+                                                      Duration.ofMinutes(1), 10, (uri, etag) -> {
+                sentETags.add(etag);
+                return RobotsTxtCache.RobotsTxtResponse.notModified();
+            }, Runnable::run, store);
+            URI page = URI.create("https://example.com/private");
+
+            // Stale rules are served while they are revalidated
+            assertFalse(cache.isAllowed(page));
+            assertFalse(cache.isAllowed(page));
+
+            assertEquals(List.of("\"v1\""), sentETags);
+            assertEquals(clock.instant(), store.records().get(0).getFetchedAt());
+            assertEquals("\"v1\"", store.records().get(0).getEtag());
+        }
+    }
+
+    private static RobotsTxtCache.RobotsTxtResponse ok(String content) {
+        return RobotsTxtCache.RobotsTxtResponse.ok(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.webtracer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RobotsTxtParserTest {
+
+    private static RobotsTxtRules parse(String robotsTxt) throws IOException {
+        return RobotsTxtParser.parse(new StringReader(robotsTxt), "WebTracer");
+    }
+
+    @Test
+    void givenGroupNamingCrawler_whenParse_thenOnlyItsRulesApply() throws IOException {
+        RobotsTxtRules rules = parse("""
+                User-agent: *
+                Disallow: /
+
+                User-agent: webtracer
+                Disallow: /private
+                """);
+
+        assertTrue(rules.isAllowed("/public"));
+        assertFalse(rules.isAllowed("/private/page"));
+    }
+
+    @Test
+    void givenGroupNamingCrawlerWithoutRules_whenParse_thenWildcardGroupDoesNotApply() throws IOException {
+        RobotsTxtRules rules = parse("""
+                User-agent: *
+                Disallow: /
+
+                User-agent: WebTracer
+                """);
+
+        assertTrue(rules.isAllowed("/page"));
+    }
+
+    @Test
+    void givenSeveralUserAgentsAndSplitGroups_whenParse_thenMatchingGroupsAreCombined() throws IOException {
+        RobotsTxtRules rules = parse("""
+                User-agent: OtherBot
+                User-agent: WebTracer
+                Disallow: /a
+                Sitemap: https://example.com/sitemap.xml
+                Disallow: /b
+
+                User-agent: OtherBot
+                Disallow: /c
+
+                user-agent: WEBTRACER
+                disallow: /d # not for us
+                """);
+
+        assertFalse(rules.isAllowed("/a"));
+        assertFalse(rules.isAllowed("/b"));
+        assertTrue(rules.isAllowed("/c"));
+        assertFalse(rules.isAllowed("/d"));
+    }
+
+    @Test
+    void givenCommentsAndMalformedLines_whenParse_thenTheyAreIgnored() throws IOException {
+        RobotsTxtRules rules = parse("""
+                # Disallow: /commented
+                User-agent: *
+                Disallow /missing-colon
+                Crawl-delay: 10
+                Disallow: /*.pdf$\r
+                Disallow:
+                """);
+
+        assertTrue(rules.isAllowed("/commented"));
+        assertTrue(rules.isAllowed("/missing-colon"));
+        assertFalse(rules.isAllowed("/doc.pdf"));
+        assertEquals(1, rules.size());
+    }
+
+    @Test
+    void givenNoGroups_whenParse_thenEverythingIsAllowed() throws IOException {
+        RobotsTxtRules rules = parse("<html><body>Not a robots.txt file</body></html>");
+
+        assertTrue(rules.isAllowed("/"));
+        assertEquals(0, rules.size());
+    }
+
+    @Test
+    void givenCrawlDelays_whenParse_thenDelayOfApplicableGroupIsKept() throws IOException {
+        RobotsTxtRules rules = parse("""
+                User-agent: *
+                Crawl-delay: 10
+
+                User-agent: WebTracer
+                Crawl-delay: 1.5
+                Disallow: /private
+                """);
+        RobotsTxtRules wildcardRules = parse("""
+                User-agent: *
+                Crawl-delay: 10
+                """);
+        RobotsTxtRules invalidRules = parse("""
+                User-agent: *
+                Crawl-delay: soon
+                Crawl-delay: 3600
+                """);
+
+        assertEquals(Optional.of(Duration.ofMillis(1500)), rules.crawlDelay());
+        assertEquals(Optional.of(Duration.ofSeconds(10)), wildcardRules.crawlDelay());
+        assertEquals(Optional.empty(), invalidRules.crawlDelay());
+    }
+}
@@ -0,0 +1,96 @@
+package com.webtracer;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+/**
+ * Compares the time and allocation of deciding paths against robots.txt files with thousands of rules, using the
+ * compiled {@link RobotsTxtRules} trie and a linear scan over the rule prefixes as {@code RobotsTxtCache} used to
+ * do.
+ *
+ * <p>This is a plain {@code main} program rather than a test, so that it is not executed by the build. Run it
+ * from the IDE or with {@code java -cp target/classes:target/test-classes:<dependencies> ...}.</p>
+ */
+class RobotsTxtRulesBenchmark {
+
+    private static final int LOOKUPS = 20_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        System.out.printf("%8s %10s %14s %16s%n", "rules", "matcher", "time[ns/path]", "allocated[B/path]");
+        for (int ruleCount : List.of(100, 1_000, 10_000)) {
+            Random random = new Random(ruleCount);
+            List<String> allowed = new ArrayList<>();
+            List<String> disallowed = new ArrayList<>();
+            StringBuilder robotsTxt = new StringBuilder("User-agent: *\n");
+            for (int i = 0; i < ruleCount; i++) {
+                String prefix = "/" + Integer.toString(random.nextInt(ruleCount), 36) + "/";
+                if (random.nextInt(4) == 0) {
+                    allowed.add(prefix + "public");
+                    robotsTxt.append("Allow: ").append(prefix).append("public\n");
+                } else {
+                    disallowed.add(prefix + "private");
+                    robotsTxt.append("Disallow: ").append(prefix).append("private\n");
+                }
+            }
+            // Wildcard rules are only understood by the trie
+            robotsTxt.append("Disallow: /*.pdf$\nDisallow: /*?sessionid=\n");
+
+            String[] paths = new String[1024];
+            for (int i = 0; i < paths.length; i++) {
+                String section = Integer.toString(random.nextInt(ruleCount * 2), 36);
+                paths[i] = "/" + section + "/" + (random.nextBoolean() ? "private" : "public") + "/page" + i
+                        + ".html";
+            }
+
+            RobotsTxtRules trie = RobotsTxtParser.parse(new StringReader(robotsTxt.toString()), "WebTracer");
+            measure(ruleCount, "trie", trie::isAllowed, paths);
+            measure(ruleCount, "linear", path -> {
+                for (String allow : allowed) {
+                    if (path.startsWith(allow)) return true;
+                }
+                for (String disallow : disallowed) {
+                    if (path.startsWith(disallow)) return false;
+                }
+                return true;
+            }, paths);
+        }
+    }
+
+    private static void measure(int ruleCount, String matcher, Predicate<String> isAllowed, String[] paths) {
+        int allowedPaths = 0;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            allowedPaths += run(isAllowed, paths);
+        }
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            allowedPaths += run(isAllowed, paths);
+        }
+        double nanos = (double) (System.nanoTime() - start) / MEASURED_ROUNDS / LOOKUPS;
+        double allocated = (double) (allocatedBytes() - allocatedBefore) / MEASURED_ROUNDS / LOOKUPS;
+        System.out.printf("%8d %10s %14.1f %16.2f%s%n", ruleCount, matcher, nanos, allocated,
+                          allowedPaths < 0 ? "!" : "");
+    }
+
+    private static int run(Predicate<String> isAllowed, String[] paths) {
+        int allowedPaths = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            if (isAllowed.test(paths[i & (paths.length - 1)])) {
+                allowedPaths++;
+            }
+        }
+        return allowedPaths;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,120 @@
+package com.webtracer;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RobotsTxtRulesTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            // Longest matching pattern wins
+            "/p, /, /page, true",
+            "/, /p, /page, false",
+            // Allow wins over disallow with a pattern of the same length
+            "/page, /page, /page.html, true",
+            // Wildcards match any sequence of characters
+            "/*.html, /, /dir/page.html, true",
+            "/x, /*.php, /dir/index.php?id=1, false",
+            "/x, /*.php, /dir/index.html, true",
+            // A trailing $ anchors the pattern at the end of the path
+            "/x, /*.php$, /index.php, false",
+            "/x, /*.php$, /index.php?id=1, true",
+            "/x, /dir/$, /dir/, false",
+            "/x, /dir/$, /dir/page, true",
+            // Wildcards do not make a pattern shorter
+            "/fish*, /fish, /fish.html, true",
+            "/a*b*c, /a, /a-b-c, true",
+            "/a*b*c, /a, /a-c-b, false",
+    })
+    void givenAllowAndDisallowRule_whenIsAllowed_thenRfc9309PrecedenceApplies(String allow, String disallow,
+                                                                               String path, boolean allowed) {
+        RobotsTxtRules rules = new RobotsTxtRules.Builder().allow(allow).disallow(disallow).build();
+
+        assertEquals(allowed, rules.isAllowed(path));
+    }
+
+    @Test
+    void givenNoMatchingRule_whenIsAllowed_thenPathIsAllowed() {
+        RobotsTxtRules rules = new RobotsTxtRules.Builder().disallow("/private").disallow("").build();
+
+        assertTrue(rules.isAllowed("/public"));
+        assertTrue(rules.isAllowed("/"));
+        assertEquals(1, rules.size());
+    }
+
+    @Test
+    void givenEverythingDisallowed_whenIsAllowedForRobotsTxt_thenRobotsTxtIsAllowed() {
+        RobotsTxtRules rules = new RobotsTxtRules.Builder().disallow("/").build();
+
+        assertTrue(rules.isAllowed("/robots.txt"));
+        assertFalse(rules.isAllowed("/robots.txt.bak"));
+    }
+
+    @Test
+    void givenThousandsOfRules_whenIsAllowed_thenEachPathIsDecidedByItsLongestRule() {
+        RobotsTxtRules.Builder builder = new RobotsTxtRules.Builder().disallow("/");
+        for (int i = 0; i < 5_000; i++) {
+            builder.allow("/section" + i + "/");
+            builder.disallow("/section" + i + "/private");
+        }
+        RobotsTxtRules rules = builder.build();
+
+        assertEquals(10_001, rules.size());
+        assertTrue(rules.isAllowed("/section4999/page"));
+        assertFalse(rules.isAllowed("/section4999/private/page"));
+        assertFalse(rules.isAllowed("/section5000/page"));
+    }
+
+    @Test
+    void givenPatternWithManyWildcards_whenIsAllowedForLongPath_thenPathIsDecidedInLinearTime() {
+        RobotsTxtRules rules = new RobotsTxtRules.Builder().disallow("/*a*a*a*a*a*a*a*a*a*a*ab").build();
+        String path = "/" + "a".repeat(10_000);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertTrue(rules.isAllowed(path));
+            assertFalse(rules.isAllowed(path + "b"));
+            assertFalse(rules.isAllowed(path + "b/page"));
+        });
+    }
+
+    @Test
+    void givenRandomWildcardPatterns_whenIsAllowed_thenPathsMatchAsTheEquivalentRegularExpressions() {
+        Random random = new Random(42);
+        for (int round = 0; round < 2_000; round++) {
+            RobotsTxtRules.Builder builder = new RobotsTxtRules.Builder();
+            List<String> regexes = new ArrayList<>();
+            for (int rule = 0; rule < 1 + random.nextInt(4); rule++) {
+                String pattern = "/" + randomString(random, "ab*", 1 + random.nextInt(6))
+                        + (random.nextBoolean() ? "$" : "");
+                builder.disallow(pattern);
+                boolean anchored = pattern.endsWith("$");
+                String body = anchored ? pattern.substring(0, pattern.length() - 1) : pattern;
+                regexes.add(body.replace("*", ".*") + (anchored ? "" : ".*"));
+            }
+            RobotsTxtRules rules = builder.build();
+
+            for (int lookup = 0; lookup < 5; lookup++) {
+                String path = "/" + randomString(random, "ab", random.nextInt(12));
+                boolean disallowed = regexes.stream().anyMatch(regex -> Pattern.matches(regex, path));
+                assertEquals(!disallowed, rules.isAllowed(path), regexes + " " + path);
+            }
+        }
+    }
+
+    private static String randomString(Random random, String alphabet, int length) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,112 @@
+package com.webtracer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RobotsTxtStoreTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void givenStoredRecords_whenReopened_thenRulesAndMetadataAreRestored() throws IOException {
+        Path file = directory.resolve("robots.store");
+        RobotsTxtRules rules = new RobotsTxtRules.Builder()
+                .disallow("/private")
+                .allow("/private/public$")
+                .disallow("/*.pdf")
+                .crawlDelay(Duration.ofMillis(2500))
+                .build();
+        try (RobotsTxtStore store = RobotsTxtStore.open(file)) {
+            store.put(new RobotsTxtStore.HostRecord("https://example.com", NOW, "\"abc\"", rules));
+            store.put(new RobotsTxtStore.HostRecord("http://other.org:8080", NOW.plusSeconds(1), null,
+                                                    RobotsTxtRules.ALLOW_ALL));
+        }
+
+        try (RobotsTxtStore store = RobotsTxtStore.open(file)) {
+            List<RobotsTxtStore.HostRecord> records = store.records();
+
+            assertEquals(2, records.size());
+            RobotsTxtStore.HostRecord example = records.get(0);
+            assertEquals("https://example.com", example.getHostKey());
+            assertEquals(NOW, example.getFetchedAt());
+            assertEquals("\"abc\"", example.getEtag());
+            assertEquals(rules.rules(), example.getRules().rules());
+            assertEquals(Optional.of(Duration.ofMillis(2500)), example.getRules().crawlDelay());
+            assertFalse(example.getRules().isAllowed("/private/page"));
+            assertTrue(example.getRules().isAllowed("/private/public"));
+            assertFalse(example.getRules().isAllowed("/docs/file.pdf"));
+
+            RobotsTxtStore.HostRecord other = records.get(1);
+            assertNull(other.getEtag());
+            assertEquals(0, other.getRules().size());
+            assertEquals(Optional.empty(), other.getRules().crawlDelay());
+        }
+    }
+
+    @Test
+    void givenSeveralRecordsOfHost_whenReopened_thenLastRecordWinsAndLogIsCompacted() throws IOException {
+        Path file = directory.resolve("robots.store");
+        try (RobotsTxtStore store = RobotsTxtStore.open(file)) {
+            for (int i = 0; i < 10; i++) {
+                store.put(new RobotsTxtStore.HostRecord("https://example.com", NOW.plusSeconds(i), "\"" + i + "\"",
+                                                        new RobotsTxtRules.Builder().disallow("/" + i).build()));
+            }
+        }
+        long logSize = Files.size(file);
+
+        try (RobotsTxtStore store = RobotsTxtStore.open(file)) {
+            List<RobotsTxtStore.HostRecord> records = store.records();
+
+            assertEquals(1, records.size());
+            assertEquals("\"9\"", records.get(0).getEtag());
+            assertFalse(records.get(0).getRules().isAllowed("/9"));
+            assertTrue(records.get(0).getRules().isAllowed("/8"));
+        }
+        assertTrue(Files.size(file) < logSize);
+    }
+
+    @Test
+    void givenTruncatedLastRecord_whenReopened_thenEarlierRecordsAreKeptAndStoreIsWritable() throws IOException {
+        Path file = directory.resolve("robots.store");
+        try (RobotsTxtStore store = RobotsTxtStore.open(file)) {
+            store.put(new RobotsTxtStore.HostRecord("https://a.com", NOW, null, RobotsTxtRules.ALLOW_ALL));
+            store.put(new RobotsTxtStore.HostRecord("https://b.com", NOW, null, RobotsTxtRules.ALLOW_ALL));
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (RobotsTxtStore store = RobotsTxtStore.open(file)) {
+            assertEquals(List.of("https://a.com"),
+                         store.records().stream().map(RobotsTxtStore.HostRecord::getHostKey).toList());
+            store.put(new RobotsTxtStore.HostRecord("https://c.com", NOW, null, RobotsTxtRules.ALLOW_ALL));
+        }
+        try (RobotsTxtStore store = RobotsTxtStore.open(file)) {
+            assertEquals(List.of("https://a.com", "https://c.com"),
+                         store.records().stream().map(RobotsTxtStore.HostRecord::getHostKey).toList());
+        }
+    }
+
+    @Test
+    void givenFileThatIsNotAStore_whenOpen_thenIOExceptionIsThrown() throws IOException {
+        Path file = directory.resolve("robots.store");
+        Files.writeString(file, "User-agent: *\nDisallow: /\n");
+
+        assertThrows(IOException.class, () -> RobotsTxtStore.open(file));
+    }
+}
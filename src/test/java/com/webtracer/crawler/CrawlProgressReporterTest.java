@@ -0,0 +1,93 @@
+package com.webtracer.crawler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrawlProgressReporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    static class ProgressCrawlResult extends CrawlResult {
+        ProgressCrawlResult(int totalUrlsVisited) {
+            super(totalUrlsVisited);
+        }
+    }
+
+    static class ProgressCrawler implements GenericWebCrawler {
+        private final AtomicInteger visited = new AtomicInteger();
+
+        @Override
+        public CrawlResult crawl(List<String> initialUrls) {
+            return new ProgressCrawlResult(visited.get());
+        }
+
+        @Override
+        public Optional<ProgressCrawlResult> snapshot() {
+            return Optional.of(new ProgressCrawlResult(visited.incrementAndGet()));
+        }
+    }
+
+    @Test
+    void givenCrawlerWithProgress_whenReport_thenFileHoldsLatestSnapshot() throws IOException {
+        Path outputPath = tempDir.resolve("progress.json");
+
+        try (CrawlProgressReporter reporter =
+                     new CrawlProgressReporter(new ProgressCrawler(), Duration.ofSeconds(1), outputPath)) {
+            reporter.report();
+            reporter.report();
+        }
+
+        JsonNode report = new ObjectMapper().readTree(outputPath.toFile());
+        assertEquals(2, report.get("totalUrlsVisited").asInt());
+        try (var files = Files.list(tempDir)) {
+            assertEquals(List.of(outputPath), files.toList());
+        }
+    }
+
+    @Test
+    void givenCrawlerWithoutProgress_whenReport_thenNothingIsWritten() {
+        Path outputPath = tempDir.resolve("progress.json");
+        GenericWebCrawler crawler = initialUrls -> new ProgressCrawlResult(0);
+
+        try (CrawlProgressReporter reporter = new CrawlProgressReporter(crawler, Duration.ofSeconds(1), outputPath)) {
+            reporter.report();
+        }
+
+        assertFalse(Files.exists(outputPath));
+    }
+
+    @Test
+    void givenStartedReporter_whenIntervalElapses_thenReportsPeriodically() throws Exception {
+        Path outputPath = tempDir.resolve("progress.json");
+
+        try (CrawlProgressReporter reporter =
+                     new CrawlProgressReporter(new ProgressCrawler(), Duration.ofMillis(20), outputPath)) {
+            reporter.start();
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (!Files.exists(outputPath) && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+
+        assertTrue(Files.exists(outputPath));
+    }
+
+    @Test
+    void givenNonPositiveInterval_whenCreated_thenShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> new CrawlProgressReporter(new ProgressCrawler(), Duration.ZERO, null));
+    }
+}
@@ -0,0 +1,63 @@
+package com.webtracer.crawler.linkgraph;
+
+import com.google.inject.Guice;
+import com.webtracer.config.WebCrawlerConfig;
+import com.webtracer.di.module.CrawlerModule;
+import com.webtracer.parser.ParseMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinkGraphWebCrawlerIntegrationTest {
+
+    private static String resource(String name) {
+        return Path.of("src/test/resources", name).toUri().toString();
+    }
+
+    private static LinkGraphWebCrawler createCrawler(int maxDepth, ParseMode parseMode) {
+        WebCrawlerConfig config = WebCrawlerConfig.builder()
+                .maxDepth(maxDepth)
+                .timeout(Duration.ofSeconds(10))
+                .excludedUrls(List.of())
+                .concurrencyLevel(4)
+                .throttleDelayMillis(0)
+                .parseMode(parseMode)
+                .build();
+        return Guice.createInjector(new CrawlerModule(config)).getInstance(LinkGraphWebCrawler.class);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ParseMode.class)
+    void whenCrawlingStartingFromIndex_thenLinksOfAllPagesAreMapped(ParseMode parseMode) {
+        LinkGraphWebCrawler crawler = createCrawler(10, parseMode);
+        LinkGraphResult result = crawler.crawl(List.of(resource("index.html")));
+
+        assertEquals(5, result.getTotalUrlsVisited());
+        assertEquals(result.getTotalUrlsVisited(), crawler.snapshot().orElseThrow().getTotalUrlsVisited());
+        assertEquals(Map.of(
+                resource("index.html"), List.of(resource("section1.html"), resource("section2.html")),
+                resource("section1.html"), List.of(resource("index.html"), resource("subsection1a.html"),
+                                                   resource("subsection1b.html")),
+                resource("section2.html"), List.of(resource("index.html")),
+                resource("subsection1a.html"), List.of(resource("section1.html")),
+                resource("subsection1b.html"), List.of(resource("section1.html"))
+        ), result.getLinks());
+    }
+
+    @ParameterizedTest
+    @EnumSource(ParseMode.class)
+    void givenMaximumDepth_whenCrawling_thenLinksOfLastLevelAreMappedButNotFollowed(ParseMode parseMode) {
+        LinkGraphResult result = createCrawler(2, parseMode).crawl(List.of(resource("index.html")));
+
+        assertEquals(3, result.getTotalUrlsVisited());
+        assertEquals(List.of(resource("index.html"), resource("subsection1a.html"), resource("subsection1b.html")),
+                     result.getLinks().get(resource("section1.html")));
+        assertFalse(result.getLinks().containsKey(resource("subsection1a.html")));
+    }
+}
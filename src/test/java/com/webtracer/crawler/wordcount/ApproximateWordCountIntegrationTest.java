@@ -0,0 +1,82 @@
+package com.webtracer.crawler.wordcount;
+
+import com.google.inject.Guice;
+import com.webtracer.config.WebCrawlerConfig;
+import com.webtracer.di.module.CrawlerModule;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Validates the approximate word counts of every crawler against the exact counts of the same crawl.
+ */
+class ApproximateWordCountIntegrationTest {
+
+    private static final List<Class<? extends WordCountWebCrawler>> CRAWLERS = List.of(
+            SequentialWebCrawler.class, RecursiveActionWebCrawler.class, RecursiveTaskWebCrawler.class
+    );
+
+    private static final List<String> STARTING_URLS = List.of(
+            Path.of("src/test/resources/index.html").toUri().toString(),
+            Path.of("src/test/resources/large.html").toUri().toString(),
+            Path.of("src/test/resources/complex.html").toUri().toString()
+    );
+
+    @Test
+    void givenSketchLargerThanVocabulary_whenCrawling_thenResultMatchesExactCrawl() {
+        for (Class<? extends WordCountWebCrawler> crawler : CRAWLERS) {
+            WordCountResult exact = crawl(crawler, 10, 0);
+            WordCountResult approximate = crawl(crawler, 10, 10_000);
+
+            assertEquals(exact.getTotalUrlsVisited(), approximate.getTotalUrlsVisited());
+            assertEquals(List.copyOf(exact.getWordFrequencyMap().entrySet()),
+                         List.copyOf(approximate.getWordFrequencyMap().entrySet()), crawler.getSimpleName());
+            assertTrue(exact.getWordFrequencyErrorBounds().isEmpty());
+            approximate.getWordFrequencyErrorBounds().values().forEach(bound -> assertEquals(0, bound));
+        }
+    }
+
+    @Test
+    void givenSmallSketch_whenCrawling_thenReportedCountsBracketExactCounts() {
+        for (Class<? extends WordCountWebCrawler> crawler : CRAWLERS) {
+            Map<String, Integer> exactCounts = crawl(crawler, Integer.MAX_VALUE, 0).getWordFrequencyMap();
+            long total = exactCounts.values().stream().mapToLong(Integer::longValue).sum();
+            int capacity = 16;
+
+            WordCountResult approximate = crawl(crawler, capacity, capacity);
+            Map<String, Integer> bounds = approximate.getWordFrequencyErrorBounds();
+
+            assertEquals(approximate.getWordFrequencyMap().keySet(), bounds.keySet());
+            approximate.getWordFrequencyMap().forEach((word, count) -> {
+                int trueCount = exactCounts.getOrDefault(word, 0);
+                assertTrue(trueCount <= count, crawler.getSimpleName() + " underestimated " + word);
+                assertTrue(count - bounds.get(word) <= trueCount, crawler.getSimpleName() + " bound of " + word);
+            });
+            exactCounts.forEach((word, count) -> {
+                if (count > total / capacity) {
+                    assertTrue(approximate.getWordFrequencyMap().containsKey(word),
+                               crawler.getSimpleName() + " missed heavy hitter " + word);
+                }
+            });
+        }
+    }
+
+    private static WordCountResult crawl(Class<? extends WordCountWebCrawler> crawler, int popularWordCount,
+                                         int sketchCapacity) {
+        WebCrawlerConfig config = WebCrawlerConfig.builder()
+                .maxDepth(10)
+                .popularWordCount(popularWordCount)
+                .timeout(Duration.ofSeconds(10))
+                .concurrencyLevel(4)
+                .throttleDelayMillis(0)
+                .sketchCapacity(sketchCapacity)
+                .build();
+
+        return Guice.createInjector(new CrawlerModule(config)).getInstance(crawler).crawl(STARTING_URLS);
+    }
+}
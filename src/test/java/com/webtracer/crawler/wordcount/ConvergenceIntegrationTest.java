@@ -0,0 +1,89 @@
+package com.webtracer.crawler.wordcount;
+
+import com.google.inject.Guice;
+import com.webtracer.config.WebCrawlerConfig;
+import com.webtracer.di.module.CrawlerModule;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares crawls that stop once the top words converged with full crawls of a generated site.
+ */
+@Slf4j
+class ConvergenceIntegrationTest {
+
+    private static final int PAGES = 63;
+    private static final int POPULAR_WORD_COUNT = 3;
+
+    @TempDir
+    static Path site;
+
+    /**
+     * Generates a binary tree of pages sharing the same dominant words, with a few page-specific words each.
+     */
+    @BeforeAll
+    static void generateSite() throws IOException {
+        for (int page = 0; page < PAGES; page++) {
+            StringBuilder html = new StringBuilder("<html><body><p>");
+            html.append("alpha ".repeat(10)).append("beta ".repeat(6)).append("gamma ".repeat(4));
+            html.append("page").append(page).append(" filler").append(page % 7).append("</p>");
+            for (int child = 2 * page + 1; child <= 2 * page + 2 && child < PAGES; child++) {
+                html.append("<a href=\"page").append(child).append(".html\">next</a>");
+            }
+            html.append("</body></html>");
+            Files.writeString(site.resolve("page" + page + ".html"), html);
+        }
+    }
+
+    @Test
+    void givenStableTopWords_whenCrawlingWithConvergence_thenStopsEarlyWithSameRanking() {
+        for (Class<? extends WordCountWebCrawler> crawler : List.of(
+                SequentialWebCrawler.class, RecursiveActionWebCrawler.class, RecursiveTaskWebCrawler.class)) {
+            WordCountResult full = crawl(crawler, 0);
+            WordCountResult converged = crawl(crawler, 5);
+
+            log.info("{}: full crawl visited {} pages, converged crawl visited {}, avoiding {} fetches by pruning {} " +
+                             "frontier URLs; full ranking {}, converged ranking {}",
+                     crawler.getSimpleName(), full.getTotalUrlsVisited(), converged.getTotalUrlsVisited(),
+                     full.getTotalUrlsVisited() - converged.getTotalUrlsVisited(), converged.getPrunedFrontierUrls(),
+                     full.getWordFrequencyMap(), converged.getWordFrequencyMap());
+
+            assertEquals(PAGES, full.getTotalUrlsVisited());
+            assertFalse(full.isConverged());
+            assertEquals(0, full.getPrunedFrontierUrls());
+
+            assertTrue(converged.isConverged(), crawler.getSimpleName());
+            assertTrue(converged.getPrunedFrontierUrls() > 0, crawler.getSimpleName());
+            assertTrue(converged.getTotalUrlsVisited() + converged.getPrunedFrontierUrls() <= PAGES,
+                       crawler.getSimpleName());
+            assertEquals(List.copyOf(full.getWordFrequencyMap().keySet()),
+                         List.copyOf(converged.getWordFrequencyMap().keySet()), crawler.getSimpleName());
+            converged.getWordFrequencyMap().forEach(
+                    (word, count) -> assertTrue(count <= full.getWordFrequencyMap().get(word)));
+        }
+    }
+
+    private static WordCountResult crawl(Class<? extends WordCountWebCrawler> crawler, int convergencePages) {
+        WebCrawlerConfig config = WebCrawlerConfig.builder()
+                .maxDepth(10)
+                .popularWordCount(POPULAR_WORD_COUNT)
+                .timeout(Duration.ofSeconds(30))
+                .concurrencyLevel(2)
+                .throttleDelayMillis(0)
+                .convergencePages(convergencePages)
+                .build();
+
+        String index = site.resolve("page0.html").toUri().toString();
+        return Guice.createInjector(new CrawlerModule(config)).getInstance(crawler).crawl(List.of(index));
+    }
+}
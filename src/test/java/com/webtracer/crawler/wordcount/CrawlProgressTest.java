@@ -0,0 +1,152 @@
+package com.webtracer.crawler.wordcount;
+
+import com.webtracer.parser.ParseProjection;
+import com.webtracer.parser.wordcount.ContentDigest;
+import com.webtracer.parser.wordcount.PageRevision;
+import com.webtracer.parser.wordcount.WordCountPageParser;
+import com.webtracer.parser.wordcount.WordCountParseResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CrawlProgressTest {
+
+    @Test
+    void givenStableRanking_whenPagesAreRecorded_thenConvergesAfterConfiguredPages() {
+        CrawlProgress progress = new CrawlProgress(new WordCountTable(), 2, 3);
+
+        progress.recordPage(Map.of("apple", 3, "banana", 2));
+        progress.recordPage(Map.of("apple", 3, "cat", 1));
+        progress.recordPage(Map.of("apple", 1));
+        assertFalse(progress.isConverged());
+
+        progress.recordPage(Map.of("banana", 1));
+        assertTrue(progress.isConverged());
+        assertTrue(progress.snapshot().isConverged());
+    }
+
+    @Test
+    void givenRankingChange_whenPagesAreRecorded_thenStabilityCountRestarts() {
+        CrawlProgress progress = new CrawlProgress(new WordCountTable(), 2, 2);
+
+        progress.recordPage(Map.of("apple", 3, "banana", 2));
+        progress.recordPage(Map.of("apple", 1));
+        progress.recordPage(Map.of("banana", 5));
+        progress.recordPage(Map.of("banana", 1));
+        assertFalse(progress.isConverged());
+
+        progress.recordPage(Map.of("banana", 1));
+        assertTrue(progress.isConverged());
+    }
+
+    @Test
+    void givenFewerWordsThanPopularWordCount_whenPagesAreRecorded_thenNeverConverges() {
+        CrawlProgress progress = new CrawlProgress(new WordCountTable(), 3, 1);
+
+        for (int i = 0; i < 5; i++) {
+            progress.recordPage(Map.of("apple", 1, "banana", 1));
+        }
+
+        assertFalse(progress.isConverged());
+    }
+
+    @Test
+    void givenConvergenceDisabled_whenPagesAreRecorded_thenNeverConverges() {
+        CrawlProgress progress = new CrawlProgress(new WordCountTable(), 1);
+
+        for (int i = 0; i < 5; i++) {
+            progress.recordPage(Map.of("apple", 1));
+        }
+
+        assertFalse(progress.isConverged());
+    }
+
+    @Test
+    void givenPrunedUrls_whenRecorded_thenCountsDistinctUrls() {
+        CrawlProgress progress = new CrawlProgress(new WordCountTable(), 1, 1);
+
+        progress.recordPrunedUrl("http://example.com/a");
+        progress.recordPrunedUrl("http://example.com/a");
+        progress.recordPrunedUrl("http://example.com/b");
+
+        assertEquals(2, progress.prunedFrontierUrls());
+    }
+
+    @Test
+    void givenTruncatedPage_whenRecorded_thenCountedAndReportedInSnapshot() {
+        CrawlProgress progress = new CrawlProgress(new WordCountTable(), 2);
+
+        progress.recordPage("http://example.com/full", new WordCountParseResult.Builder().addWord("apple").build());
+        progress.recordPage("http://example.com/huge", new WordCountParseResult.Builder().addWord("apple")
+                .markTruncated().build());
+
+        WordCountResult snapshot = progress.snapshot();
+        assertEquals(Map.of("apple", 2), snapshot.getWordFrequencyMap());
+        assertEquals(List.of("http://example.com/huge"), snapshot.getTruncatedPages());
+    }
+
+    @Test
+    void givenUnchangedPage_whenParsedIncrementally_thenStoredResultIsReusedWithoutCountingAgain(@TempDir Path directory)
+            throws IOException {
+        ContentDigest digest = ContentDigest.of("<p>apple</p>".getBytes(StandardCharsets.UTF_8), "page");
+        try (PageCountStore store = PageCountStore.open(directory.resolve("pages.bin"), "test")) {
+            store.put(PageCountStore.PageRecord.of("http://example.com/", digest, ParseProjection.ALL,
+                                                   new WordCountParseResult(Map.of("apple", 2),
+                                                                            List.of("http://example.com/a"), false)));
+            CrawlProgress progress = new CrawlProgress(new WordCountTable(), 5, 0, store);
+            WordCountPageParser parser = mock(WordCountPageParser.class);
+            when(parser.parseRevision(eq(ParseProjection.ALL), any(), eq(digest)))
+                    .thenReturn(PageRevision.unchanged(digest));
+            List<String> links = new ArrayList<>();
+
+            WordCountParseResult result = progress.parsePage("http://example.com/", parser, ParseProjection.ALL,
+                                                             links::add);
+            progress.complete();
+
+            assertEquals(Map.of("apple", 2), result.getWordFrequencyMap());
+            assertEquals(List.of("http://example.com/a"), links);
+            assertEquals(Map.of("apple", 2), progress.snapshot().getWordFrequencyMap());
+            verify(parser, never()).parse(any(ParseProjection.class), any());
+        }
+    }
+
+    @Test
+    void givenChangedAndRemovedPages_whenParsedIncrementally_thenAggregateIsUpdatedByTheirDifference(
+            @TempDir Path directory) throws IOException {
+        ContentDigest oldDigest = ContentDigest.of("old".getBytes(StandardCharsets.UTF_8), "page");
+        ContentDigest newDigest = ContentDigest.of("new".getBytes(StandardCharsets.UTF_8), "page");
+        try (PageCountStore store = PageCountStore.open(directory.resolve("pages.bin"), "test")) {
+            store.put(PageCountStore.PageRecord.of("http://example.com/", oldDigest, ParseProjection.ALL,
+                                                   new WordCountParseResult(Map.of("apple", 2, "pear", 1),
+                                                                            List.of(), false)));
+            store.put(PageCountStore.PageRecord.of("http://example.com/gone", oldDigest, ParseProjection.ALL,
+                                                   new WordCountParseResult(Map.of("apple", 1, "plum", 4),
+                                                                            List.of(), false)));
+            WordCountTable wordCounts = new WordCountTable();
+            CrawlProgress progress = new CrawlProgress(wordCounts, 5, 0, store);
+            WordCountPageParser parser = mock(WordCountPageParser.class);
+            when(parser.parseRevision(eq(ParseProjection.ALL), any(), eq(oldDigest)))
+                    .thenReturn(PageRevision.changed(newDigest, new WordCountParseResult(
+                            Map.of("apple", 1, "fig", 3), List.of(), false)));
+
+            progress.parsePage("http://example.com/", parser, ParseProjection.ALL, null);
+            progress.complete();
+
+            assertEquals(Map.of("fig", 3, "apple", 1), wordCounts.top(5));
+            assertEquals(List.of("http://example.com/"), store.pages().stream()
+                    .map(PageCountStore.PageRecord::getUrl).toList());
+            assertEquals(newDigest, store.get("http://example.com/").getDigest());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.webtracer.crawler.wordcount;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.webtracer.config.WebCrawlerConfig;
+import com.webtracer.di.module.CrawlerModule;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares incremental recrawls of a changing generated site with full crawls of the same site.
+ */
+class IncrementalCrawlIntegrationTest {
+
+    private static final int PAGES = 31;
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @ValueSource(classes = {SequentialWebCrawler.class, RecursiveActionWebCrawler.class,
+            RecursiveTaskWebCrawler.class})
+    void givenChangedAddedAndRemovedPages_whenRecrawledIncrementally_thenResultMatchesFullCrawl(
+            Class<? extends WordCountWebCrawler> crawler) throws IOException {
+        Path site = Files.createDirectory(directory.resolve("site"));
+        Path store = directory.resolve("pages.bin");
+        for (int page = 0; page < PAGES; page++) {
+            writePage(site, page, "stable", List.of(2 * page + 1, 2 * page + 2));
+        }
+
+        WordCountResult first = crawl(crawler, site, store);
+        assertEquals(crawl(crawler, site, null).getWordFrequencyMap(), first.getWordFrequencyMap());
+
+        // An unchanged recrawl keeps the result
+        assertEquals(first.getWordFrequencyMap(), crawl(crawler, site, store).getWordFrequencyMap());
+
+        // Change a page, drop the subtree of page 2 and link a new page from page 1
+        writePage(site, 3, "changed changed", List.of(7, 8));
+        writePage(site, 2, "stable", List.of());
+        writePage(site, 1, "stable", List.of(3, 4, PAGES));
+        writePage(site, PAGES, "added", List.of());
+
+        WordCountResult full = crawl(crawler, site, null);
+        WordCountResult incremental = crawl(crawler, site, store);
+        assertEquals(full.getWordFrequencyMap(), incremental.getWordFrequencyMap(), crawler.getSimpleName());
+        assertEquals(full.getTotalUrlsVisited(), incremental.getTotalUrlsVisited(), crawler.getSimpleName());
+        assertEquals(2, incremental.getWordFrequencyMap().get("changed"));
+        assertTrue(incremental.getWordFrequencyMap().containsKey("added"));
+        assertFalse(incremental.getWordFrequencyMap().containsKey("page6"));
+
+        // The next recrawl starts from the updated store
+        assertEquals(full.getWordFrequencyMap(), crawl(crawler, site, store).getWordFrequencyMap());
+    }
+
+    private static void writePage(Path site, int page, String words, List<Integer> children) throws IOException {
+        StringBuilder html = new StringBuilder("<html><body><p>");
+        html.append("alpha ".repeat(5)).append(words).append(" page").append(page).append("</p>");
+        for (int child : children) {
+            if (child <= PAGES) {
+                html.append("<a href=\"page").append(child).append(".html\">next</a>");
+            }
+        }
+        html.append("</body></html>");
+        Files.writeString(site.resolve("page" + page + ".html"), html);
+    }
+
+    private static WordCountResult crawl(Class<? extends WordCountWebCrawler> crawler, Path site, Path store)
+            throws IOException {
+        WebCrawlerConfig config = WebCrawlerConfig.builder()
+                .maxDepth(10)
+                .popularWordCount(100)
+                .timeout(Duration.ofSeconds(30))
+                .concurrencyLevel(2)
+                .throttleDelayMillis(0)
+                .incrementalCrawlPath(store == null ? "" : store.toString())
+                .build();
+
+        Injector injector = Guice.createInjector(new CrawlerModule(config));
+        Optional<PageCountStore> pageCountStore =
+                injector.getInstance(Key.get(new TypeLiteral<Optional<PageCountStore>>() {
+                }));
+        assertEquals(store != null, pageCountStore.isPresent());
+        try {
+            String index = site.resolve("page0.html").toUri().toString();
+            return injector.getInstance(crawler).crawl(List.of(index));
+        } finally {
+            if (pageCountStore.isPresent()) {
+                pageCountStore.get().close();
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.webtracer.crawler.wordcount;
+
+import com.google.inject.Guice;
+import com.webtracer.ApiException;
+import com.webtracer.config.WebCrawlerConfig;
+import com.webtracer.di.module.CrawlerModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the ingest of a generated local mirror with a crawl following the links of the same mirror.
+ */
+class MirrorIngestIntegrationTest {
+
+    private static final int SECTIONS = 4;
+    private static final int PAGES_PER_SECTION = 25;
+
+    @TempDir
+    Path mirror;
+
+    /**
+     * Generates an index linking to the first page of each section, where each page links to the next one, a page
+     * and a directory linked with a fragment and a trailing slash, and a few files that are not linked or not HTML.
+     */
+    @BeforeEach
+    void generateMirror() throws IOException {
+        StringBuilder index = new StringBuilder("<html><body><p>home alpha</p>");
+        for (int section = 0; section < SECTIONS; section++) {
+            Path directory = Files.createDirectories(mirror.resolve("section" + section).resolve("pages"));
+            index.append("<a href=\"section").append(section).append("/pages/page0.html\">start</a>");
+            for (int page = 0; page < PAGES_PER_SECTION; page++) {
+                StringBuilder html = new StringBuilder("<html><body><p>");
+                html.append("alpha ".repeat(3)).append("beta ".repeat(section + 1)).append("page").append(page);
+                html.append("</p>");
+                if (page + 1 < PAGES_PER_SECTION) {
+                    html.append("<a href=\"page").append(page + 1).append(".html\">next</a>");
+                }
+                Files.writeString(directory.resolve("page" + page + ".html"), html.append("</body></html>"));
+            }
+        }
+        index.append("<a href=\"section3/about.html#team\">about</a><a href=\"section1/\">overview</a>");
+        Files.writeString(mirror.resolve("index.html"), index.append("</body></html>"));
+        Files.writeString(mirror.resolve("section3").resolve("about.html"), "<p>about alpha</p>");
+        Files.writeString(mirror.resolve("section1").resolve("index.html"), "<p>overview alpha</p>");
+        Files.writeString(mirror.resolve("section0").resolve("orphan.htm"), "<p>orphan alpha</p>");
+        Files.writeString(mirror.resolve("section1").resolve("notes.txt"), "gamma gamma gamma");
+        Files.write(mirror.resolve("section1").resolve("image.png"), new byte[]{1, 2, 3});
+        Files.createDirectories(mirror.resolve("section2").resolve("excluded"));
+        Files.writeString(mirror.resolve("section2").resolve("excluded").resolve("page.html"), "<p>delta</p>");
+    }
+
+    @Test
+    void givenMirror_whenIngested_thenSameCountsAsCrawlFollowingLinksPlusUnreachedPages() throws ApiException {
+        WordCountResult crawled = crawl(RecursiveActionWebCrawler.class, mirror.resolve("index.html"), false);
+        WordCountResult ingested = crawl(MirrorIngestWebCrawler.class, mirror, false);
+
+        assertEquals(SECTIONS * PAGES_PER_SECTION + 4, ingested.getTotalUrlsVisited());
+        assertEquals(crawled.getWordFrequencyMap().get("beta"), ingested.getWordFrequencyMap().get("beta"));
+        assertEquals(crawled.getWordFrequencyMap().get("alpha") + 3, ingested.getWordFrequencyMap().get("alpha"));
+        assertEquals(1, ingested.getWordFrequencyMap().get("orphan"));
+        assertFalse(ingested.getWordFrequencyMap().containsKey("gamma"));
+        assertFalse(ingested.getWordFrequencyMap().containsKey("delta"));
+        assertTrue(ingested.getOrphanPages().isEmpty());
+    }
+
+    @Test
+    void givenOrphanReport_whenIngested_thenOnlyUnlinkedPagesAreReported() throws ApiException {
+        WordCountResult ingested = crawl(MirrorIngestWebCrawler.class, mirror, true);
+
+        assertEquals(List.of(mirror.resolve("section0").resolve("orphan.htm").toUri().toString()),
+                     ingested.getOrphanPages());
+    }
+
+    @Test
+    void givenStartingPage_whenIngested_thenItsDirectoryIsIngestedAndItIsNotAnOrphan() throws ApiException {
+        Path page = mirror.resolve("section2").resolve("pages").resolve("page0.html");
+
+        WordCountResult ingested = crawl(MirrorIngestWebCrawler.class, page, true);
+
+        assertEquals(PAGES_PER_SECTION, ingested.getTotalUrlsVisited());
+        assertEquals(List.of(), ingested.getOrphanPages());
+    }
+
+    @Test
+    void givenRemoteUrl_whenIngested_thenApiExceptionIsThrown() {
+        assertThrows(ApiException.class, () -> Guice.createInjector(new CrawlerModule(config(false)))
+                .getInstance(MirrorIngestWebCrawler.class).crawl(List.of("https://example.com/")));
+    }
+
+    private static WordCountResult crawl(Class<? extends WordCountWebCrawler> crawler, Path start,
+                                         boolean reportOrphanPages) throws ApiException {
+        return Guice.createInjector(new CrawlerModule(config(reportOrphanPages))).getInstance(crawler)
+                .crawl(List.of(start.toUri().toString()));
+    }
+
+    private static WebCrawlerConfig config(boolean reportOrphanPages) {
+        return WebCrawlerConfig.builder()
+                .maxDepth(PAGES_PER_SECTION + 2)
+                .popularWordCount(100)
+                .timeout(Duration.ofSeconds(30))
+                .concurrencyLevel(4)
+                .throttleDelayMillis(0)
+                .excludedUrls(List.of(Pattern.compile(".*/excluded/.*")))
+                .reportOrphanPages(reportOrphanPages)
+                .build();
+    }
+}
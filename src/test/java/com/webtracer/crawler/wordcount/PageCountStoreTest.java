@@ -0,0 +1,110 @@
+package com.webtracer.crawler.wordcount;
+
+import com.webtracer.parser.ParseProjection;
+import com.webtracer.parser.wordcount.ContentDigest;
+import com.webtracer.parser.wordcount.WordCountParseResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCountStoreTest {
+
+    private static final ContentDigest DIGEST = ContentDigest.of("<p>page</p>".getBytes(StandardCharsets.UTF_8),
+                                                                 "https://example.com/");
+
+    private static final WordCountParseResult RESULT = new WordCountParseResult(
+            Map.of("zażółć", 2, "gęślą", 1, "word", 1_000_000),
+            List.of("https://example.com/a", "https://example.com/żółw", "https://other.org/"),
+            false);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void givenStoredPages_whenReopened_thenCountsLinksAndDigestsAreRestored() throws IOException {
+        Path file = directory.resolve("pages.bin");
+        try (PageCountStore store = PageCountStore.open(file, "test")) {
+            store.put(PageCountStore.PageRecord.of("https://example.com/", DIGEST, ParseProjection.ALL, RESULT));
+            store.put(PageCountStore.PageRecord.of("https://example.com/a", null, ParseProjection.WORDS, RESULT));
+        }
+
+        try (PageCountStore reopened = PageCountStore.open(file, "test")) {
+            PageCountStore.PageRecord page = reopened.get("https://example.com/");
+            assertEquals(2, reopened.pages().size());
+            assertEquals(DIGEST, page.getDigest());
+            assertEquals(ParseProjection.ALL, page.getProjection());
+            assertEquals(RESULT.getWordFrequencyMap(), page.getWordCounts());
+            assertEquals(RESULT.getHyperLinkList(), page.getLinks());
+            assertTrue(page.isReusableFor(ParseProjection.WORDS));
+
+            PageCountStore.PageRecord withoutDigest = reopened.get("https://example.com/a");
+            assertNull(withoutDigest.getDigest());
+            assertFalse(withoutDigest.isReusableFor(ParseProjection.WORDS));
+        }
+    }
+
+    @Test
+    void givenReplacedAndRemovedPages_whenReopened_thenOnlyLatestRecordsRemain() throws IOException {
+        Path file = directory.resolve("pages.bin");
+        WordCountParseResult changed = new WordCountParseResult(Map.of("changed", 1), List.of(), false);
+        try (PageCountStore store = PageCountStore.open(file, "test")) {
+            store.put(PageCountStore.PageRecord.of("https://example.com/", DIGEST, ParseProjection.ALL, RESULT));
+            store.put(PageCountStore.PageRecord.of("https://example.com/a", DIGEST, ParseProjection.ALL, RESULT));
+            store.put(PageCountStore.PageRecord.of("https://example.com/", DIGEST, ParseProjection.ALL, changed));
+            store.remove("https://example.com/a");
+        }
+
+        try (PageCountStore reopened = PageCountStore.open(file, "test")) {
+            assertEquals(1, reopened.pages().size());
+            assertEquals(Map.of("changed", 1), reopened.get("https://example.com/").getWordCounts());
+            assertNull(reopened.get("https://example.com/a"));
+        }
+    }
+
+    @Test
+    void givenOtherFingerprint_whenOpened_thenStoredPagesAreDiscarded() throws IOException {
+        Path file = directory.resolve("pages.bin");
+        try (PageCountStore store = PageCountStore.open(file, "test")) {
+            store.put(PageCountStore.PageRecord.of("https://example.com/", DIGEST, ParseProjection.ALL, RESULT));
+        }
+
+        try (PageCountStore reopened = PageCountStore.open(file, "other exclusions")) {
+            assertTrue(reopened.pages().isEmpty());
+        }
+        try (PageCountStore reopened = PageCountStore.open(file, "test")) {
+            assertTrue(reopened.pages().isEmpty());
+        }
+    }
+
+    @Test
+    void givenRecordCutShort_whenOpened_thenEarlierRecordsSurviveAndStoreRemainsWritable() throws IOException {
+        Path file = directory.resolve("pages.bin");
+        try (PageCountStore store = PageCountStore.open(file, "test")) {
+            store.put(PageCountStore.PageRecord.of("https://example.com/", DIGEST, ParseProjection.ALL, RESULT));
+            store.put(PageCountStore.PageRecord.of("https://example.com/a", DIGEST, ParseProjection.ALL, RESULT));
+        }
+        long size = Files.size(file);
+        try (var channel = Files.newByteChannel(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 5);
+        }
+
+        try (PageCountStore reopened = PageCountStore.open(file, "test")) {
+            assertEquals(1, reopened.pages().size());
+            assertNotNull(reopened.get("https://example.com/"));
+            reopened.put(PageCountStore.PageRecord.of("https://example.com/b", DIGEST, ParseProjection.ALL, RESULT));
+        }
+        try (PageCountStore reopened = PageCountStore.open(file, "test")) {
+            assertEquals(2, reopened.pages().size());
+            assertNotNull(reopened.get("https://example.com/b"));
+        }
+    }
+}
@@ -1,20 +1,29 @@
 package com.webtracer.crawler.wordcount;
 
 import com.webtracer.ApiException;
+import com.webtracer.RobotsTxtCache;
 import com.webtracer.crawler.DomainThrottler;
 import com.webtracer.parser.AbstractPageParserFactory;
+import com.webtracer.parser.ParseMode;
+import com.webtracer.parser.ParseProjection;
+import com.webtracer.parser.wordcount.WordCountPageParser;
 import com.webtracer.parser.wordcount.WordCountPageParserImpl;
 import com.webtracer.parser.wordcount.WordCountParseResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.net.URI;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -30,6 +39,7 @@ class RecursiveActionWebCrawlerTest {
     private List<Pattern> excludedUrls;
     private List<String> initialPages;
     private DomainThrottler domainThrottler;
+    private RobotsTxtCache robotsTxtCache;
 
     @BeforeEach
     void setUp() {
@@ -42,6 +52,8 @@ class RecursiveActionWebCrawlerTest {
         excludedUrls = List.of(Pattern.compile(".*exclude.*"));
         initialPages = List.of("http://example.com");
         domainThrottler = mock(DomainThrottler.class);
+        robotsTxtCache = mock(RobotsTxtCache.class);
+        when(robotsTxtCache.isAllowed(any(URI.class))).thenReturn(true);
 
         crawler = new RecursiveActionWebCrawler(
                 clock,
@@ -51,7 +63,11 @@ class RecursiveActionWebCrawlerTest {
                 concurrencyLevel,
                 maximumDepth,
                 excludedUrls,
-                domainThrottler
+                domainThrottler,
+                0,
+                0,
+                robotsTxtCache,
+                Optional.empty()
         );
     }
 
@@ -66,7 +82,7 @@ class RecursiveActionWebCrawlerTest {
                 .build();
 
         when(parserFactory.createParserInstance(anyString())).thenReturn(mock(WordCountPageParserImpl.class));
-        when(((WordCountPageParserImpl) parserFactory.createParserInstance(anyString())).parse()).thenReturn(mockParseResult);
+        when(((WordCountPageParserImpl) parserFactory.createParserInstance(anyString())).parse(any(ParseProjection.class))).thenReturn(mockParseResult);
 
         WordCountResult result = crawler.crawl(initialPages);
 
@@ -105,7 +121,7 @@ class RecursiveActionWebCrawlerTest {
                 .build();
 
         when(parserFactory.createParserInstance(anyString())).thenReturn(mock(WordCountPageParserImpl.class));
-        when(((WordCountPageParserImpl) parserFactory.createParserInstance(anyString())).parse()).thenReturn(mockParseResult);
+        when(((WordCountPageParserImpl) parserFactory.createParserInstance(anyString())).parse(any(ParseProjection.class))).thenReturn(mockParseResult);
 
         crawler = new RecursiveActionWebCrawler(
                 clock,
@@ -115,7 +131,11 @@ class RecursiveActionWebCrawlerTest {
                 concurrencyLevel,
                 1,  // max depth set to 1
                 excludedUrls,
-                domainThrottler
+                domainThrottler,
+                0,
+                0,
+                robotsTxtCache,
+                Optional.empty()
         );
         WordCountResult result = crawler.crawl(initialPages);
 
@@ -139,7 +159,7 @@ class RecursiveActionWebCrawlerTest {
                 .build();
 
         when(parserFactory.createParserInstance(anyString())).thenReturn(mock(WordCountPageParserImpl.class));
-        when(((WordCountPageParserImpl) parserFactory.createParserInstance(anyString())).parse()).thenReturn(mockParseResult);
+        when(((WordCountPageParserImpl) parserFactory.createParserInstance(anyString())).parse(any(ParseProjection.class))).thenReturn(mockParseResult);
 
         WordCountResult result = crawler.crawl(initialPages);
 
@@ -162,11 +182,36 @@ class RecursiveActionWebCrawlerTest {
                 .build();
 
         when(parserFactory.createParserInstance(anyString())).thenReturn(mock(WordCountPageParserImpl.class));
-        when(((WordCountPageParserImpl) parserFactory.createParserInstance(anyString())).parse()).thenReturn(mockParseResult);
+        when(((WordCountPageParserImpl) parserFactory.createParserInstance(anyString())).parse(any(ParseProjection.class))).thenReturn(mockParseResult);
 
         assertDoesNotThrow(() -> crawler.crawl(initialPages));
 
         verify(parserFactory, times(2)).createParserInstance(anyString());
         verify(domainThrottler, times(1)).acquire(anyString());
     }
+
+    @Test
+    void givenStreamingParseFailingAfterALink_whenCrawling_thenForkedSubtaskIsJoinedBeforeTheFailurePropagates() {
+        when(clock.instant()).thenReturn(Instant.now());
+        WordCountPageParser failingParser = mock(WordCountPageParser.class);
+        when(failingParser.getParseMode()).thenReturn(ParseMode.STREAMING);
+        when(failingParser.parse(any(ParseProjection.class), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<String>>getArgument(1).accept("http://example.com/linked");
+            throw new IllegalStateException("malformed page");
+        });
+        AtomicBoolean linkedPageParsed = new AtomicBoolean();
+        WordCountPageParser linkedParser = mock(WordCountPageParser.class);
+        when(linkedParser.getParseMode()).thenReturn(ParseMode.STREAMING);
+        when(linkedParser.parse(any(ParseProjection.class), any())).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            linkedPageParsed.set(true);
+            return new WordCountParseResult.Builder().addWord("linked").build();
+        });
+        when(parserFactory.createParserInstance("http://example.com")).thenReturn(failingParser);
+        when(parserFactory.createParserInstance("http://example.com/linked")).thenReturn(linkedParser);
+
+        assertThrows(IllegalStateException.class, () -> crawler.crawl(initialPages));
+
+        assertTrue(linkedPageParsed.get());
+    }
 }
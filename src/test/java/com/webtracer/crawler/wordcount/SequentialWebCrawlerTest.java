@@ -1,6 +1,7 @@
 package com.webtracer.crawler.wordcount;
 
 import com.webtracer.RobotsTxtCache;
+import com.webtracer.parser.ParseProjection;
 import com.webtracer.parser.wordcount.WordCountPageParserFactoryImpl;
 import com.webtracer.parser.wordcount.WordCountPageParserImpl;
 import com.webtracer.parser.wordcount.WordCountParseResult;
@@ -19,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.regex.Pattern;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -49,7 +51,8 @@ class SequentialWebCrawlerTest {
         int maxDepth = 2;
         excludedUrls = new ArrayList<>();
 
-        crawler = new SequentialWebCrawler(clock, crawlTimeout, maxDepth, popularWordCount, excludedUrls, parserFactory, robotsTxtCache);
+        crawler = new SequentialWebCrawler(clock, parserFactory, crawlTimeout, popularWordCount, maxDepth, excludedUrls, 0, 0,
+                                           robotsTxtCache, Optional.empty());
     }
 
     @Test
@@ -59,7 +62,7 @@ class SequentialWebCrawlerTest {
         Instant now = Instant.now();
         when(clock.instant()).thenReturn(now);
         when(parserFactory.createParserInstance(url)).thenReturn(pageParser);
-        when(pageParser.parse()).thenReturn(parseResult);
+        when(pageParser.parse(any(ParseProjection.class))).thenReturn(parseResult);
         when(parseResult.getWordFrequencyMap()).thenReturn(Map.of("example", 1));
         when(parseResult.getHyperLinkList()).thenReturn(Collections.emptyList());
         when(robotsTxtCache.isAllowed(any(URI.class))).thenReturn(true);
@@ -75,7 +78,7 @@ class SequentialWebCrawlerTest {
         // Verify
         verify(clock, times(2)).instant();
         verify(parserFactory, times(1)).createParserInstance(url);
-        verify(pageParser, times(1)).parse();
+        verify(pageParser, times(1)).parse(any(ParseProjection.class));
     }
 
     @Test
@@ -87,7 +90,7 @@ class SequentialWebCrawlerTest {
         when(clock.instant()).thenReturn(now);
         when(parserFactory.createParserInstance(url)).thenReturn(pageParser);
         when(parserFactory.createParserInstance(linkedUrl)).thenReturn(pageParser);
-        when(pageParser.parse()).thenReturn(parseResult);
+        when(pageParser.parse(any(ParseProjection.class))).thenReturn(parseResult);
         when(parseResult.getWordFrequencyMap()).thenReturn(Map.of("example", 1));
         when(parseResult.getHyperLinkList()).thenReturn(List.of(linkedUrl));
         when(robotsTxtCache.isAllowed(any(URI.class))).thenReturn(true);
@@ -104,7 +107,9 @@ class SequentialWebCrawlerTest {
         verify(clock, times(3)).instant();
         verify(parserFactory, times(1)).createParserInstance(url);
         verify(parserFactory, times(1)).createParserInstance(linkedUrl);
-        verify(pageParser, times(2)).parse();
+        verify(pageParser, times(2)).parse(any(ParseProjection.class));
+        verify(pageParser).parse(ParseProjection.ALL);
+        verify(pageParser).parse(ParseProjection.WORDS);
     }
 
     @Test
@@ -115,7 +120,7 @@ class SequentialWebCrawlerTest {
         Instant timeout = now.plusSeconds(5);
         when(clock.instant()).thenReturn(now).thenReturn(timeout);
         when(parserFactory.createParserInstance(url)).thenReturn(pageParser);
-        when(pageParser.parse()).thenReturn(parseResult);
+        when(pageParser.parse(any(ParseProjection.class))).thenReturn(parseResult);
         when(parseResult.getWordFrequencyMap()).thenReturn(Map.of("example", 1));
         when(parseResult.getHyperLinkList()).thenReturn(Collections.emptyList());
         when(robotsTxtCache.isAllowed(any(URI.class))).thenReturn(true);
@@ -131,7 +136,7 @@ class SequentialWebCrawlerTest {
         // Verify
         verify(clock, times(2)).instant();
         verify(parserFactory, times(1)).createParserInstance(url);
-        verify(pageParser, times(1)).parse();
+        verify(pageParser, times(1)).parse(any(ParseProjection.class));
     }
 
     @Test
@@ -153,7 +158,7 @@ class SequentialWebCrawlerTest {
         // Verify
         verify(clock, times(2)).instant();
         verify(parserFactory, times(0)).createParserInstance(url);
-        verify(pageParser, times(0)).parse();
+        verify(pageParser, times(0)).parse(any(ParseProjection.class));
     }
 
     @Test
@@ -163,7 +168,7 @@ class SequentialWebCrawlerTest {
         Instant now = Instant.now();
         when(clock.instant()).thenReturn(now);
         when(parserFactory.createParserInstance(url)).thenReturn(pageParser);
-        when(pageParser.parse()).thenReturn(parseResult);
+        when(pageParser.parse(any(ParseProjection.class))).thenReturn(parseResult);
         when(parseResult.getWordFrequencyMap()).thenReturn(Map.of("example", 1));
         when(parseResult.getHyperLinkList()).thenReturn(List.of(url));
         when(robotsTxtCache.isAllowed(any(URI.class))).thenReturn(true);
@@ -179,7 +184,7 @@ class SequentialWebCrawlerTest {
         // Verify
         verify(clock, times(3)).instant();
         verify(parserFactory, times(1)).createParserInstance(url);
-        verify(pageParser, times(1)).parse();
+        verify(pageParser, times(1)).parse(any(ParseProjection.class));
     }
 
     @Test
@@ -199,7 +204,7 @@ class SequentialWebCrawlerTest {
         // Verify
         verify(clock, times(1)).instant();
         verify(parserFactory, times(0)).createParserInstance(anyString());
-        verify(pageParser, times(0)).parse();
+        verify(pageParser, times(0)).parse(any(ParseProjection.class));
     }
 
     @Test
@@ -211,7 +216,7 @@ class SequentialWebCrawlerTest {
         when(clock.instant()).thenReturn(now);
         when(parserFactory.createParserInstance(url1)).thenReturn(pageParser);
         when(parserFactory.createParserInstance(url2)).thenReturn(pageParser);
-        when(pageParser.parse()).thenReturn(parseResult);
+        when(pageParser.parse(any(ParseProjection.class))).thenReturn(parseResult);
         when(parseResult.getWordFrequencyMap()).thenReturn(Map.of("example", 1));
         when(parseResult.getHyperLinkList()).thenReturn(Collections.emptyList());
         when(robotsTxtCache.isAllowed(any(URI.class))).thenReturn(true);
@@ -228,7 +233,7 @@ class SequentialWebCrawlerTest {
         verify(clock, times(3)).instant();
         verify(parserFactory, times(1)).createParserInstance(url1);
         verify(parserFactory, times(1)).createParserInstance(url2);
-        verify(pageParser, times(2)).parse();
+        verify(pageParser, times(2)).parse(any(ParseProjection.class));
     }
 
     @Test
@@ -241,7 +246,7 @@ class SequentialWebCrawlerTest {
         when(clock.instant()).thenReturn(now);
         when(parserFactory.createParserInstance(url1)).thenReturn(pageParser);
         when(parserFactory.createParserInstance(url2)).thenReturn(pageParser);
-        when(pageParser.parse()).thenReturn(parseResult);
+        when(pageParser.parse(any(ParseProjection.class))).thenReturn(parseResult);
         when(parseResult.getWordFrequencyMap()).thenReturn(Map.of("example", 1));
         when(parseResult.getHyperLinkList()).thenReturn(Collections.emptyList());
         when(robotsTxtCache.isAllowed(any(URI.class))).thenReturn(true);
@@ -258,7 +263,7 @@ class SequentialWebCrawlerTest {
         verify(clock, times(3)).instant();
         verify(parserFactory, times(1)).createParserInstance(url1);
         verify(parserFactory, times(1)).createParserInstance(url2);
-        verify(pageParser, times(2)).parse();
+        verify(pageParser, times(2)).parse(any(ParseProjection.class));
     }
 
     @Test
@@ -269,7 +274,7 @@ class SequentialWebCrawlerTest {
         Instant now = Instant.now();
         when(clock.instant()).thenReturn(now);
         when(parserFactory.createParserInstance(url)).thenReturn(pageParser);
-        when(pageParser.parse()).thenReturn(parseResult);
+        when(pageParser.parse(any(ParseProjection.class))).thenReturn(parseResult);
         when(parseResult.getWordFrequencyMap()).thenReturn(Map.of(
                 "example", 5,
                 "test", 3,
@@ -295,6 +300,40 @@ class SequentialWebCrawlerTest {
         // Verify
         verify(clock, times(2)).instant();
         verify(parserFactory, times(1)).createParserInstance(url);
-        verify(pageParser, times(1)).parse();
+        verify(pageParser, times(1)).parse(any(ParseProjection.class));
+    }
+
+    @Test
+    void givenRunningCrawl_whenSnapshotIsTaken_thenReturnsProgressSoFar() throws IOException {
+        // Given
+        String url1 = "http://example.com";
+        String url2 = "http://example.org";
+        Instant now = Instant.now();
+        List<Optional<WordCountResult>> snapshots = new ArrayList<>();
+        when(clock.instant()).thenReturn(now);
+        when(parserFactory.createParserInstance(anyString())).thenReturn(pageParser);
+        when(pageParser.parse(any(ParseProjection.class))).thenAnswer(invocation -> {
+            snapshots.add(crawler.snapshot());
+            return parseResult;
+        });
+        when(parseResult.getWordFrequencyMap()).thenReturn(Map.of("example", 2, "test", 1));
+        when(parseResult.getHyperLinkList()).thenReturn(Collections.emptyList());
+        when(robotsTxtCache.isAllowed(any(URI.class))).thenReturn(true);
+        assertTrue(crawler.snapshot().isEmpty());
+
+        // When
+        WordCountResult result = crawler.crawl(List.of(url1, url2));
+
+        // Then
+        assertEquals(0, snapshots.get(0).orElseThrow().getTotalUrlsVisited());
+        assertTrue(snapshots.get(0).orElseThrow().getWordFrequencyMap().isEmpty());
+        assertEquals(1, snapshots.get(1).orElseThrow().getTotalUrlsVisited());
+        assertEquals(List.of("example", "test"),
+                     List.copyOf(snapshots.get(1).orElseThrow().getWordFrequencyMap().keySet()));
+
+        WordCountResult finalSnapshot = crawler.snapshot().orElseThrow();
+        assertEquals(result.getTotalUrlsVisited(), finalSnapshot.getTotalUrlsVisited());
+        assertEquals(List.copyOf(result.getWordFrequencyMap().entrySet()),
+                     List.copyOf(finalSnapshot.getWordFrequencyMap().entrySet()));
     }
 }
@@ -0,0 +1,112 @@
+package com.webtracer.crawler.wordcount;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingSketchTest {
+
+    @Test
+    void givenFewerWordsThanCapacity_whenTop_thenCountsAreExact() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(10);
+        sketch.addAll(Map.of("apple", 2, "banana", 3));
+        sketch.addAll(Map.of("apple", 1, "cat", 1));
+
+        assertEquals(List.of(Map.entry("banana", 3), Map.entry("apple", 3), Map.entry("cat", 1)),
+                     List.copyOf(sketch.top(3).entrySet()));
+        assertEquals(Map.of("apple", 0, "banana", 0, "cat", 0), sketch.errorBounds(List.of("apple", "banana", "cat")));
+    }
+
+    @Test
+    void givenFullSketch_whenNewWordArrives_thenReplacesMinimumAndInheritsItsCount() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        sketch.add("apple", 5);
+        sketch.add("banana", 2);
+        sketch.add("cat", 1);
+
+        assertEquals(Map.of("apple", 5, "cat", 3), sketch.top(2));
+        assertEquals(Map.of("cat", 2), sketch.errorBounds(List.of("banana", "cat")));
+    }
+
+    @Test
+    void givenZipfianStream_whenSketched_thenCountsStayWithinGuaranteedBounds() {
+        Random random = new Random(7);
+        int capacity = 200;
+        SpaceSavingSketch sketch = new SpaceSavingSketch(capacity);
+        Map<String, Integer> exact = new HashMap<>();
+        long total = 0;
+
+        for (int page = 0; page < 2_000; page++) {
+            Map<String, Integer> pageCounts = new HashMap<>();
+            for (int i = 0; i < 50; i++) {
+                // Rank r is drawn with probability proportional to 1 / r
+                int rank = (int) Math.floor(Math.pow(10_000, random.nextDouble()));
+                pageCounts.merge("word" + rank, 1, Integer::sum);
+            }
+            pageCounts.forEach((word, count) -> exact.merge(word, count, Integer::sum));
+            total += 50;
+            sketch.addAll(pageCounts);
+        }
+
+        long maximumError = total / capacity;
+        assertEquals(maximumError, sketch.maximumError());
+        Map<String, Integer> top = sketch.top(capacity);
+        Map<String, Integer> bounds = sketch.errorBounds(top.keySet());
+        assertEquals(capacity, top.size());
+        top.forEach((word, count) -> {
+            int trueCount = exact.getOrDefault(word, 0);
+            assertTrue(trueCount <= count, "Count of " + word + " must not be underestimated");
+            assertTrue(count - bounds.get(word) <= trueCount, "Error bound of " + word + " must hold");
+            assertTrue(bounds.get(word) <= maximumError);
+        });
+        exact.forEach((word, count) -> {
+            if (count > maximumError) {
+                assertTrue(top.containsKey(word), "Heavy hitter " + word + " must be monitored");
+            }
+        });
+
+        Map<String, Integer> exactTop = WordCountUtil.sort(exact, 5);
+        assertEquals(exactTop.keySet(), sketch.top(5).keySet());
+    }
+
+    @Test
+    void givenConcurrentPages_whenSketched_thenNoOccurrenceIsLost() throws Exception {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(1_000);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    sketch.addAll(Map.of("common", 1, "w" + (i % 100), 2));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        Map<String, Integer> top = sketch.top(101);
+        assertEquals(4_000, top.get("common"));
+        assertEquals(80, top.get("w0"));
+        assertEquals(101, top.size());
+    }
+
+    @Test
+    void givenNonPositiveCapacity_whenCreated_thenShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new SpaceSavingSketch(0));
+        assertThrows(IllegalArgumentException.class, () -> WordCountAggregator.create(-1));
+    }
+}
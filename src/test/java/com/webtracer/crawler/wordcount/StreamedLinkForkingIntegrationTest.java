@@ -0,0 +1,154 @@
+package com.webtracer.crawler.wordcount;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.webtracer.RobotsTxtCache;
+import com.webtracer.crawler.DomainThrottler;
+import com.webtracer.parser.DefaultDocumentLoader;
+import com.webtracer.parser.ParseMode;
+import com.webtracer.parser.wordcount.WordCountPageParserFactoryImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that in streaming mode linked pages are fetched while a slowly served page is still being downloaded.
+ *
+ * <p>The slow page sends its hyperlink first, then holds back the rest of its body until the linked page has been
+ * requested, or until {@link #HOLD_BACK} has elapsed.</p>
+ */
+@Slf4j
+class StreamedLinkForkingIntegrationTest {
+
+    private static final Duration HOLD_BACK = Duration.ofSeconds(1);
+
+    private HttpServer server;
+    private CountDownLatch linkedPageRequested;
+    private AtomicBoolean overlapped;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        linkedPageRequested = new CountDownLatch(1);
+        overlapped = new AtomicBoolean();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext("/slow", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write("<html><body><p>slow page</p><a href=\"/linked\">linked</a>".getBytes(StandardCharsets.UTF_8));
+                body.flush();
+                overlapped.set(linkedPageRequested.await(HOLD_BACK.toMillis(), TimeUnit.MILLISECONDS));
+                body.write("<p>rest of the slow page</p></body></html>".getBytes(StandardCharsets.UTF_8));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.createContext("/linked", exchange -> {
+            linkedPageRequested.countDown();
+            respond(exchange, "<html><body><p>linked page</p></body></html>");
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void givenStreamingMode_whenCrawlingSlowPage_thenLinkedPageIsFetchedBeforeSlowPageCompletes() {
+        for (WordCountWebCrawler crawler : List.of(recursiveActionCrawler(ParseMode.STREAMING),
+                                                   recursiveTaskCrawler(ParseMode.STREAMING),
+                                                   recursiveActionCrawler(ParseMode.STREAMING_BYTES))) {
+            linkedPageRequested = new CountDownLatch(1);
+            long start = System.nanoTime();
+
+            WordCountResult result = crawler.crawl(List.of(slowPageUrl()));
+
+            log.info("{} in streaming mode took {} ms", crawler.getClass().getSuperclass().getSimpleName(),
+                     TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            assertTrue(overlapped.get(), "the linked page should be requested while the slow page is downloading");
+            assertExpectedResult(result);
+        }
+    }
+
+    @Test
+    void givenDomMode_whenCrawlingSlowPage_thenLinkedPageIsFetchedAfterSlowPageCompletes() {
+        long start = System.nanoTime();
+
+        WordCountResult result = recursiveActionCrawler(ParseMode.DOM).crawl(List.of(slowPageUrl()));
+
+        log.info("RecursiveActionWebCrawler in DOM mode took {} ms",
+                 TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        assertFalse(overlapped.get());
+        assertExpectedResult(result);
+    }
+
+    private static void assertExpectedResult(WordCountResult result) {
+        assertEquals(2, result.getTotalUrlsVisited());
+        assertEquals(Map.of("page", 3, "slow", 2, "linked", 2), result.getWordFrequencyMap());
+    }
+
+    private String slowPageUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/slow";
+    }
+
+    private static WordCountPageParserFactoryImpl parserFactory(ParseMode parseMode) {
+        return new WordCountPageParserFactoryImpl(List.of(), new DefaultDocumentLoader(Duration.ofSeconds(10)),
+                                                  parseMode);
+    }
+
+    /**
+     * Creates a crawler with two worker threads, so that the linked page can be fetched while one worker is
+     * still reading the slow page, even on a single-core machine.
+     */
+    private static RecursiveActionWebCrawler recursiveActionCrawler(ParseMode parseMode) {
+        return new RecursiveActionWebCrawler(Clock.systemUTC(), parserFactory(parseMode), Duration.ofSeconds(30), 3,
+                                             2, 3, List.of(), new DomainThrottler(0), 0, 0,
+                                             new RobotsTxtCache(RobotsTxtCache.DEFAULT_USER_AGENT), Optional.empty()) {
+            @Override
+            public int getMaxConcurrencyLevel() {
+                return 2;
+            }
+        };
+    }
+
+    private static RecursiveTaskWebCrawler recursiveTaskCrawler(ParseMode parseMode) {
+        return new RecursiveTaskWebCrawler(Clock.systemUTC(), parserFactory(parseMode), Duration.ofSeconds(30), 3,
+                                           2, 3, List.of(), new DomainThrottler(0), 0, 0,
+                                           new RobotsTxtCache(RobotsTxtCache.DEFAULT_USER_AGENT), Optional.empty()) {
+            @Override
+            public int getMaxConcurrencyLevel() {
+                return 2;
+            }
+        };
+    }
+
+    private static void respond(HttpExchange exchange, String html) throws IOException {
+        byte[] body = html.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
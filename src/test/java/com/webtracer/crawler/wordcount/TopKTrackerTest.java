@@ -0,0 +1,81 @@
+package com.webtracer.crawler.wordcount;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKTrackerTest {
+
+    @Test
+    void givenIncreasingTotals_whenOffered_thenSnapshotMatchesFullSortAfterEveryUpdate() {
+        Random random = new Random(3);
+        TopKTracker tracker = new TopKTracker(5);
+        Map<String, Integer> totals = new HashMap<>();
+
+        for (int i = 0; i < 5_000; i++) {
+            String word = "w" + (int) Math.floor(Math.pow(300, random.nextDouble()));
+            int total = totals.merge(word, 1 + random.nextInt(3), Integer::sum);
+            tracker.offer(word, total);
+
+            assertEquals(List.copyOf(WordCountUtil.sort(totals, 5).entrySet()),
+                         List.copyOf(tracker.snapshot().entrySet()), "After update " + i);
+        }
+    }
+
+    @Test
+    void givenStaleTotal_whenOffered_thenKeepsNewerTotal() {
+        TopKTracker tracker = new TopKTracker(2);
+        tracker.offer("apple", 5);
+        tracker.offer("apple", 3);
+
+        assertEquals(Map.of("apple", 5), tracker.snapshot());
+    }
+
+    @Test
+    void givenZeroCapacity_whenOffered_thenSnapshotIsEmpty() {
+        TopKTracker tracker = new TopKTracker(0);
+        tracker.offer("apple", 5);
+
+        assertTrue(tracker.snapshot().isEmpty());
+    }
+
+    @Test
+    void givenConcurrentPages_whenMergedThroughTable_thenSnapshotMatchesFinalRanking() throws Exception {
+        WordCountTable table = new WordCountTable();
+        TopKTracker tracker = new TopKTracker(10);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int seed = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                for (int page = 0; page < 500; page++) {
+                    Map<String, Integer> pageCounts = new HashMap<>();
+                    for (int i = 0; i < 20; i++) {
+                        pageCounts.merge("w" + random.nextInt(100), 1, Integer::sum);
+                    }
+                    table.addAll(pageCounts, tracker::offer);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(List.copyOf(WordCountUtil.sort(table, 10).entrySet()),
+                     List.copyOf(tracker.snapshot().entrySet()));
+    }
+}
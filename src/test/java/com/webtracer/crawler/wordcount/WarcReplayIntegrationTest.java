@@ -0,0 +1,112 @@
+package com.webtracer.crawler.wordcount;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.webtracer.config.WebCrawlerConfig;
+import com.webtracer.di.module.CrawlerModule;
+import com.webtracer.parser.WarcDocumentLoader;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Crawls a generated site recorded in WARC archives, without network access, with every crawl engine.
+ */
+class WarcReplayIntegrationTest {
+
+    private static final String SITE = "http://replay.example.com";
+
+    private static final int PAGES = 10;
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @ValueSource(classes = {SequentialWebCrawler.class, RecursiveActionWebCrawler.class,
+            RecursiveTaskWebCrawler.class})
+    void givenArchivedSite_whenReplayed_thenArchivedPagesAreCountedFollowingRobotsTxtAndRedirects(
+            Class<? extends WordCountWebCrawler> crawler) throws IOException {
+        ByteArrayOutputStream pages = new ByteArrayOutputStream();
+        for (int page = 0; page < PAGES; page++) {
+            String next = page + 1 < PAGES ? "<a href=\"page" + (page + 1) + ".html\">next</a>" : "";
+            pages.writeBytes(gzip(response("/page" + page + ".html", "200 OK", "Content-Type: text/html\r\n",
+                                           "<p>alpha beta</p>" + next)));
+        }
+        Files.write(directory.resolve("1-pages.warc.gz"), pages.toByteArray());
+        Files.write(directory.resolve("2-site.warc"), concat(
+                response("/robots.txt", "200 OK", "Content-Type: text/plain\r\n",
+                         "User-agent: *\nDisallow: /private/\n"),
+                response("/", "200 OK", "Content-Type: text/html; charset=UTF-8\r\n",
+                         "<p>alpha home</p><a href=\"/page0.html\">next</a><a href=\"/private/secret.html\">next</a>"
+                                 + "<a href=\"/moved\">next</a><a href=\"/unarchived.html\">next</a>"),
+                response("/private/secret.html", "200 OK", "Content-Type: text/html\r\n", "<p>alpha secret</p>"),
+                response("/moved", "301 Moved Permanently", "Location: " + SITE + "/target.html\r\n", ""),
+                response("/target.html", "200 OK", "Content-Type: text/html\r\n", "<p>alpha target</p>")));
+
+        Map<String, Integer> first = crawl(crawler);
+
+        assertEquals(PAGES + 2, first.get("alpha"), crawler.getSimpleName());
+        assertEquals(PAGES, first.get("beta"));
+        assertEquals(PAGES - 1 + 4, first.get("next"));
+        assertEquals(1, first.get("target"));
+        assertFalse(first.containsKey("secret"));
+        assertEquals(first, crawl(crawler));
+    }
+
+    private Map<String, Integer> crawl(Class<? extends WordCountWebCrawler> crawler) {
+        Injector injector = Guice.createInjector(new CrawlerModule(WebCrawlerConfig.builder()
+                                                                           .maxDepth(PAGES + 2)
+                                                                           .popularWordCount(100)
+                                                                           .timeout(Duration.ofSeconds(30))
+                                                                           .concurrencyLevel(4)
+                                                                           .throttleDelayMillis(0)
+                                                                           .warcPaths(List.of(directory.toString()))
+                                                                           .build()));
+        try (WarcDocumentLoader loader = injector.getInstance(
+                Key.get(new TypeLiteral<Optional<WarcDocumentLoader>>() {})).orElseThrow()) {
+            assertEquals(PAGES + 5, loader.getArchivedUrlCount());
+            return injector.getInstance(crawler).crawl(List.of(SITE + "/")).getWordFrequencyMap();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static byte[] response(String path, String status, String headers, String body) {
+        byte[] block = ("HTTP/1.1 " + status + "\r\n" + headers + "\r\n" + body).getBytes(StandardCharsets.UTF_8);
+        String warcHeaders = "WARC/1.0\r\nWARC-Type: response\r\nWARC-Target-URI: " + SITE + path + "\r\n"
+                + "Content-Type: application/http; msgtype=response\r\nContent-Length: " + block.length + "\r\n\r\n";
+        return concat(warcHeaders.getBytes(StandardCharsets.UTF_8), block,
+                      "\r\n\r\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+}
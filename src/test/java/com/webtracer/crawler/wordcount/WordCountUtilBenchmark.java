@@ -0,0 +1,85 @@
+package com.webtracer.crawler.wordcount;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the bounded-heap top-K selection of {@link WordCountUtil} with the full parallel sort it replaced.
+ *
+ * <p>This is a plain {@code main} program rather than a test, so that it is not executed by the build. Run it
+ * from the IDE or with {@code java -cp target/classes:target/test-classes:<dependencies> ...}. The largest
+ * size can be passed as the first argument (defaults to {@code 10_000_000}).</p>
+ */
+class WordCountUtilBenchmark {
+
+    private static final int POPULAR_WORD_COUNT = 100;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        System.out.printf("cores=%d, popularWordCount=%d%n", Runtime.getRuntime().availableProcessors(),
+                          POPULAR_WORD_COUNT);
+        System.out.printf("%12s %14s %14s %14s%n", "n", "fullSort[ms]", "heapMap[ms]", "heapTable[ms]");
+
+        for (int size = 1_000; size <= maxSize; size *= 10) {
+            Map<String, Integer> wordCounts = wordCounts(size);
+            WordCountTable table = new WordCountTable();
+            wordCounts.forEach(table::add);
+
+            Map<String, Integer> expected = fullSort(wordCounts, POPULAR_WORD_COUNT);
+            if (!expected.equals(WordCountUtil.sort(wordCounts, POPULAR_WORD_COUNT))
+                    || !expected.equals(WordCountUtil.sort(table, POPULAR_WORD_COUNT))) {
+                throw new IllegalStateException("Top-K selection differs from the full sort for n = " + size);
+            }
+
+            int rounds = size >= 1_000_000 ? 1 : MEASURED_ROUNDS;
+            double fullSort = measure(rounds, () -> fullSort(wordCounts, POPULAR_WORD_COUNT));
+            double heapMap = measure(rounds, () -> WordCountUtil.sort(wordCounts, POPULAR_WORD_COUNT));
+            double heapTable = measure(rounds, () -> WordCountUtil.sort(table, POPULAR_WORD_COUNT));
+            System.out.printf("%12d %14.2f %14.2f %14.2f%n", size, fullSort, heapMap, heapTable);
+        }
+    }
+
+    /**
+     * The selection used before the bounded heap: a parallel sort of all entries followed by a limit.
+     */
+    private static Map<String, Integer> fullSort(Map<String, Integer> wordCounts, int popularWordCount) {
+        return wordCounts.entrySet().parallelStream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+                                .thenComparing(entry -> entry.getKey().length(),
+                                               Comparator.reverseOrder())
+                                .thenComparing(Map.Entry::getKey))
+                .limit(popularWordCount)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    private static double measure(int rounds, Runnable selection) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            selection.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            selection.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / rounds;
+    }
+
+    /**
+     * Generates word counts with a Zipf-like distribution, so that most words share the same small counts.
+     */
+    private static Map<String, Integer> wordCounts(int size) {
+        Random random = new Random(size);
+        Map<String, Integer> wordCounts = new HashMap<>(size * 2);
+        for (int rank = 1; wordCounts.size() < size; rank++) {
+            String digits = Long.toString(random.nextLong() & Long.MAX_VALUE, 36);
+            String word = digits.substring(0, Math.min(digits.length(), 3 + random.nextInt(8)));
+            wordCounts.putIfAbsent(word, Math.max(1, 1_000_000 / rank));
+        }
+        return wordCounts;
+    }
+}
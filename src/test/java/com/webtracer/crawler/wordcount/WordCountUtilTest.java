@@ -2,7 +2,8 @@ package com.webtracer.crawler.wordcount;
 
 import org.junit.jupiter.api.Test;
 
-import java.util.Map;
+import java.util.*;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -72,6 +73,77 @@ class WordCountUtilTest {
 
     @Test
     void givenNullWordCounts_whenSortIsCalled_thenShouldThrowNullPointerException() {
-        assertThrows(NullPointerException.class, () -> WordCountUtil.sort(null, 3));
+        assertThrows(NullPointerException.class, () -> WordCountUtil.sort((Map<String, Integer>) null, 3));
+    }
+
+    @Test
+    void givenWordCountTable_whenSortIsCalled_thenShouldMatchMapOrdering() {
+        Map<String, Integer> input = Map.of("apple", 2, "banana", 2, "cat", 2, "dog", 5, "eel", 1, "fig", 2);
+        WordCountTable table = new WordCountTable();
+        input.forEach(table::add);
+
+        assertEquals(List.copyOf(WordCountUtil.sort(input, 3).entrySet()),
+                     List.copyOf(WordCountUtil.sort(table, 3).entrySet()));
+        assertEquals(List.of("dog", "banana", "apple"), List.copyOf(WordCountUtil.sort(table, 3).keySet()));
+    }
+
+    @Test
+    void givenEmptyWordCountTable_whenSortIsCalled_thenShouldReturnEmptyMap() {
+        assertTrue(WordCountUtil.sort(new WordCountTable(), 3).isEmpty());
+    }
+
+    @Test
+    void givenLargeWordCountsWithTies_whenSortIsCalled_thenShouldMatchFullSort() {
+        Map<String, Integer> input = randomWordCounts(WordCountUtil.PARALLEL_THRESHOLD + 1_000);
+        WordCountTable table = new WordCountTable();
+        input.forEach(table::add);
+
+        for (int popularWordCount : new int[]{0, 1, 10, 100, 1_000}) {
+            List<Map.Entry<String, Integer>> expected = fullSort(input, popularWordCount);
+
+            assertEquals(expected, List.copyOf(WordCountUtil.sort(input, popularWordCount).entrySet()));
+            assertEquals(expected, List.copyOf(WordCountUtil.sort(table, popularWordCount).entrySet()));
+        }
+    }
+
+    @Test
+    void givenNonAsciiWordsWithSameLength_whenTableSortIsCalled_thenShouldUseStringOrdering() {
+        Map<String, Integer> input = Map.of("zürich", 1, "zurich", 1, "日本語語語", 1, "\uD83D\uDE00abcd", 1, "\uFFFDabcde", 1);
+        WordCountTable table = new WordCountTable();
+        input.forEach(table::add);
+
+        assertEquals(List.copyOf(WordCountUtil.sort(input, 5).entrySet()),
+                     List.copyOf(WordCountUtil.sort(table, 5).entrySet()));
+    }
+
+    @Test
+    void givenNegativePopularWordCount_whenSortIsCalled_thenShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> WordCountUtil.sort(Map.of("apple", 1), -1));
+        assertThrows(IllegalArgumentException.class, () -> WordCountUtil.sort(new WordCountTable(), -1));
+    }
+
+    private static Map<String, Integer> randomWordCounts(int size) {
+        Random random = new Random(42);
+        Map<String, Integer> wordCounts = new HashMap<>();
+        while (wordCounts.size() < size) {
+            // Few distinct counts and lengths so that most ranking decisions fall through to the tie-breakers
+            StringBuilder word = new StringBuilder();
+            int length = 3 + random.nextInt(4);
+            for (int i = 0; i < length; i++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            wordCounts.put(word.toString(), 1 + random.nextInt(5));
+        }
+        return wordCounts;
+    }
+
+    private static List<Map.Entry<String, Integer>> fullSort(Map<String, Integer> wordCounts, int limit) {
+        return wordCounts.entrySet().stream()
+                .sorted(Comparator.comparing(Map.Entry<String, Integer>::getValue).reversed()
+                                .thenComparing(entry -> entry.getKey().length(), Comparator.reverseOrder())
+                                .thenComparing(Map.Entry::getKey))
+                .limit(limit)
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
     }
 }
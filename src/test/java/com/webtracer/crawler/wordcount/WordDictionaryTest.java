@@ -0,0 +1,92 @@
+package com.webtracer.crawler.wordcount;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WordDictionaryTest {
+
+    @Test
+    void givenNewWords_whenIdOf_thenAssignsDenseIdsInInsertionOrder() {
+        WordDictionary dictionary = new WordDictionary();
+
+        assertEquals(0, dictionary.idOf("apple"));
+        assertEquals(1, dictionary.idOf("banana"));
+        assertEquals(0, dictionary.idOf("apple"));
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    void givenNonAsciiWords_whenResolved_thenRoundTripsThroughUtf8() {
+        WordDictionary dictionary = new WordDictionary();
+        List<String> words = List.of("zürich", "日本語", "😀smile", "a\uD800b", "");
+
+        List<Integer> ids = words.stream().map(dictionary::idOf).toList();
+
+        for (int i = 0; i < words.size(); i++) {
+            assertEquals(ids.get(i), dictionary.idOf(words.get(i)));
+        }
+        assertEquals("zürich", dictionary.word(ids.get(0)));
+        assertEquals("日本語", dictionary.word(ids.get(1)));
+        assertEquals("😀smile", dictionary.word(ids.get(2)));
+        assertEquals("", dictionary.word(ids.get(4)));
+        assertNotEquals(dictionary.idOf("zurich"), dictionary.idOf("zürich"));
+    }
+
+    @Test
+    void givenManyWords_whenTableAndSlabsGrow_thenAllWordsRemainResolvable() {
+        WordDictionary dictionary = new WordDictionary();
+        String longWord = "x".repeat(WordDictionary.SLAB_SIZE + 10);
+
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals(i, dictionary.idOf("word" + i));
+        }
+        int longId = dictionary.idOf(longWord);
+
+        assertEquals(100_001, dictionary.size());
+        assertEquals("word12345", dictionary.word(12_345));
+        assertEquals(longWord, dictionary.word(longId));
+        assertEquals(99_999, dictionary.idOf("word99999"));
+    }
+
+    @Test
+    void givenConcurrentInsertions_whenIdOf_thenEachWordGetsExactlyOneId() throws Exception {
+        WordDictionary dictionary = new WordDictionary();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        Set<String> assignments = ConcurrentHashMap.newKeySet();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    String word = "w" + i;
+                    assignments.add(word + "=" + dictionary.idOf(word));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(20_000, dictionary.size());
+        assertEquals(20_000, assignments.size());
+    }
+
+    @Test
+    void givenUnknownId_whenWord_thenShouldThrowIndexOutOfBoundsException() {
+        WordDictionary dictionary = new WordDictionary();
+
+        assertThrows(IndexOutOfBoundsException.class, () -> dictionary.word(0));
+    }
+}
@@ -4,6 +4,7 @@ import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.ProvisionException;
+import com.webtracer.RobotsTxtCache;
 import com.webtracer.config.WebCrawlerConfig;
 import com.webtracer.crawler.DomainThrottler;
 import com.webtracer.crawler.GenericWebCrawler;
@@ -142,4 +143,14 @@ class CrawlerModuleTest {
         // Verify the delay is correctly set
         assertEquals(config.getThrottleDelayMillis(), delayBetweenRequests);
     }
+
+    @Test
+    void givenCrawlerModule_whenCrawlersAreInjected_thenTheyShareOneRobotsTxtCache() throws NoSuchFieldException, IllegalAccessException {
+        GenericWebCrawler crawler = injector.getInstance(Key.get(GenericWebCrawler.class));
+
+        Field cacheField = SequentialWebCrawler.class.getDeclaredField("robotsTxtCache");
+        cacheField.setAccessible(true);
+
+        assertSame(injector.getInstance(RobotsTxtCache.class), cacheField.get(crawler));
+    }
 }
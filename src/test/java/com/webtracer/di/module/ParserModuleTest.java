@@ -5,16 +5,24 @@ import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.webtracer.di.annotation.WordCountFactory;
 import com.webtracer.parser.AbstractPageParserFactory;
+import com.webtracer.parser.ParseProjection;
+import com.webtracer.parser.wordcount.CachingPageParserFactory;
+import com.webtracer.parser.wordcount.InMemoryParseResultCache;
+import com.webtracer.parser.wordcount.WordCountPageParser;
 import com.webtracer.parser.wordcount.WordCountPageParserFactoryImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
-import static org.junit.jupiter.api.Assertions.assertInstanceOf;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.*;
 
 class ParserModuleTest {
 
@@ -41,4 +49,45 @@ class ParserModuleTest {
         assertInstanceOf(WordCountPageParserFactoryImpl.class, factory);
     }
 
+    @Test
+    void givenDocumentCacheSize_whenInjected_thenShouldDecorateFactoryWithCache() {
+        ParserModule parserModule = ParserModule.builder()
+                .excludedWords(List.of())
+                .parseTimeout(Duration.ofSeconds(5))
+                .documentCacheMaxSize(1 << 20)
+                .build();
+
+        AbstractPageParserFactory factory = Guice.createInjector(parserModule)
+                .getInstance(Key.get(AbstractPageParserFactory.class, WordCountFactory.class));
+
+        assertInstanceOf(CachingPageParserFactory.class, factory);
+    }
+
+    @Test
+    void givenSharedDocumentCache_whenJobsExcludeDifferentWords_thenEachJobCountsWithItsOwnExclusions(
+            @TempDir Path directory) throws IOException {
+        String page = Files.writeString(directory.resolve("page.html"), "<p>alpha beta beta</p>").toUri().toString();
+        InMemoryParseResultCache sharedCache = new InMemoryParseResultCache(1 << 20, Duration.ofMinutes(1));
+
+        Map<String, Integer> withoutAlpha = parse(sharedCache, "alpha", page);
+        Map<String, Integer> withoutBeta = parse(sharedCache, "beta", page);
+
+        assertEquals(Map.of("beta", 2), withoutAlpha);
+        assertEquals(Map.of("alpha", 1), withoutBeta);
+        assertEquals(Map.of("beta", 2), parse(sharedCache, "alpha", page));
+        assertEquals(1, sharedCache.getStats().getHits());
+    }
+
+    private static Map<String, Integer> parse(InMemoryParseResultCache sharedCache, String excludedWord,
+                                              String page) {
+        ParserModule parserModule = ParserModule.builder()
+                .excludedWords(List.of(Pattern.compile(excludedWord)))
+                .parseTimeout(Duration.ofSeconds(5))
+                .documentCache(sharedCache)
+                .build();
+        AbstractPageParserFactory factory = Guice.createInjector(parserModule)
+                .getInstance(Key.get(AbstractPageParserFactory.class, WordCountFactory.class));
+        return ((WordCountPageParser) factory.createParserInstance(page)).parse(ParseProjection.WORDS)
+                .getWordFrequencyMap();
+    }
 }
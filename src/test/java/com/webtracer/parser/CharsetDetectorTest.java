@@ -0,0 +1,84 @@
+package com.webtracer.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CharsetDetectorTest {
+
+    private static BufferedInputStream stream(byte[] bytes) {
+        return new BufferedInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    private static byte[] concat(byte[] prefix, byte[] content) {
+        byte[] bytes = new byte[prefix.length + content.length];
+        System.arraycopy(prefix, 0, bytes, 0, prefix.length);
+        System.arraycopy(content, 0, bytes, prefix.length, content.length);
+        return bytes;
+    }
+
+    @Test
+    void givenUtf8ByteOrderMark_whenDetect_thenUtf8AndMarkIsConsumed() throws IOException {
+        BufferedInputStream in = stream(concat(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF},
+                                               "<p>x</p>".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(StandardCharsets.UTF_8, CharsetDetector.detect(in, "ISO-8859-1"));
+        assertEquals("<p>x</p>", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void givenUtf16ByteOrderMark_whenDetect_thenUtf16() throws IOException {
+        BufferedInputStream in = stream(concat(new byte[]{(byte) 0xFF, (byte) 0xFE},
+                                               "<p>x</p>".getBytes(StandardCharsets.UTF_16LE)));
+
+        assertEquals(StandardCharsets.UTF_16LE, CharsetDetector.detect(in, null));
+        assertEquals("<p>x</p>", new String(in.readAllBytes(), StandardCharsets.UTF_16LE));
+    }
+
+    @Test
+    void givenDeclaredCharsetAndMetaTag_whenDetect_thenDeclaredCharsetWins() throws IOException {
+        BufferedInputStream in = stream("<meta charset=\"windows-1252\">".getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(StandardCharsets.ISO_8859_1, CharsetDetector.detect(in, "ISO-8859-1"));
+    }
+
+    @Test
+    void givenMetaCharset_whenDetect_thenMetaCharsetAndStreamIsUnchanged() throws IOException {
+        byte[] html = "<html><head><META CHARSET='iso-8859-2'></head></html>".getBytes(StandardCharsets.US_ASCII);
+        BufferedInputStream in = stream(html);
+
+        assertEquals(Charset.forName("ISO-8859-2"), CharsetDetector.detect(in, null));
+        assertArrayEquals(html, in.readAllBytes());
+    }
+
+    @Test
+    void givenMetaHttpEquiv_whenDetect_thenCharsetFromContent() throws IOException {
+        BufferedInputStream in = stream(
+                "<meta http-equiv=\"Content-Type\" content=\"text/html; charset=windows-1250\">"
+                        .getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(Charset.forName("windows-1250"), CharsetDetector.detect(in, null));
+    }
+
+    @Test
+    void givenMetaDeclaringUtf16_whenDetect_thenUtf8() throws IOException {
+        BufferedInputStream in = stream("<meta charset=\"utf-16\">".getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(StandardCharsets.UTF_8, CharsetDetector.detect(in, null));
+    }
+
+    @Test
+    void givenNoDeclarationOrUnknownCharset_whenDetect_thenUtf8() throws IOException {
+        assertEquals(StandardCharsets.UTF_8,
+                     CharsetDetector.detect(stream("<p>plain</p>".getBytes(StandardCharsets.US_ASCII)), null));
+        assertEquals(StandardCharsets.UTF_8,
+                     CharsetDetector.detect(stream("<meta charset=\"no-such-charset\">".getBytes(StandardCharsets.US_ASCII)),
+                                            "also-unknown"));
+    }
+}
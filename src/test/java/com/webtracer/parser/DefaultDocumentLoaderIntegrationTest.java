@@ -0,0 +1,184 @@
+package com.webtracer.parser;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.webtracer.ApiException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.jsoup.nodes.Document;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that {@link DefaultDocumentLoader} abandons non-HTML and oversized responses based on their headers,
+ * skips URLs it learned to serve non-HTML content without requesting them, and serves unchanged documents from its
+ * {@link HttpResponseCache}.
+ */
+class DefaultDocumentLoaderIntegrationTest {
+
+    private static final int MAX_BODY_SIZE = 1_000;
+
+    private HttpServer server;
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final AtomicInteger notModified = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/download", exchange -> respond(exchange, "application/pdf", new byte[100_000]));
+        server.createContext("/big", exchange -> respond(exchange, "text/html",
+                                                         "<p>big</p>".repeat(10_000).getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/page", exchange -> respond(exchange, "text/html; charset=UTF-8",
+                                                          "<p>small page</p>".getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/notes", exchange -> respond(exchange, "text/plain; charset=UTF-8",
+                                                           "if a <b> c".getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/versioned", exchange -> {
+            exchange.getResponseHeaders().set("ETag", "\"v1\"");
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            respond(exchange, "text/html", "<p>versioned page</p>".getBytes(StandardCharsets.UTF_8));
+        });
+        server.createContext("/fresh", exchange -> {
+            exchange.getResponseHeaders().set("Cache-Control", "public, max-age=3600");
+            respond(exchange, "text/html", "<p>fresh page</p>".getBytes(StandardCharsets.UTF_8));
+        });
+        server.createContext("/private", exchange -> {
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            respond(exchange, "text/html", "<p>private page</p>".getBytes(StandardCharsets.UTF_8));
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void givenNonHtmlResponse_whenLoading_thenRejectedAndSimilarUrlsAreSkippedWithoutRequest() {
+        DefaultDocumentLoader loader = new DefaultDocumentLoader(Duration.ofSeconds(5), MAX_BODY_SIZE);
+
+        assertThrows(ApiException.class, () -> loader.loadDocument(uri("/download?id=7")));
+        assertThrows(ApiException.class, () -> loader.loadDocument(uri("/download?id=8")));
+        assertThrows(ApiException.class, () -> loader.openDocumentStream(uri("/download?id=9")));
+
+        assertEquals(1, requests.get("/download").get());
+        assertTrue(loader.loadDocument(uri("/page")).isPresent());
+    }
+
+    @Test
+    void givenDeclaredLengthAboveMaxBodySize_whenLoading_thenRejectedBeforeReadingBody() {
+        DefaultDocumentLoader loader = new DefaultDocumentLoader(Duration.ofSeconds(5), MAX_BODY_SIZE);
+
+        assertThrows(ApiException.class, () -> loader.loadDocument(uri("/big")));
+        assertThrows(ApiException.class, () -> loader.openDocumentStream(uri("/big")));
+
+        // Oversized pages are not learned as non-HTML
+        assertEquals(2, requests.get("/big").get());
+    }
+
+    @Test
+    void givenNoMaxBodySize_whenLoadingLargeResponse_thenWholeDocumentIsLoaded() {
+        DefaultDocumentLoader loader = new DefaultDocumentLoader(Duration.ofSeconds(5), 0);
+
+        assertEquals(10_000, loader.loadDocument(uri("/big")).orElseThrow().select("p").size());
+    }
+
+    @Test
+    void givenPlainTextResponse_whenLoading_thenTextIsNotParsedAsHtmlAndContentTypeIsPassedOn() throws IOException {
+        DefaultDocumentLoader loader = new DefaultDocumentLoader(Duration.ofSeconds(5), MAX_BODY_SIZE);
+
+        Document document = loader.loadDocument(uri("/notes")).orElseThrow();
+        assertEquals("if a <b> c", document.body().text());
+        assertTrue(document.select("b").isEmpty());
+
+        try (DocumentStream documentStream = loader.openDocumentStream(uri("/notes"))) {
+            assertEquals("text/plain; charset=UTF-8", documentStream.getContentType());
+        }
+    }
+
+    @Test
+    void givenCachedResponse_whenLoadedInLaterCrawl_thenNotModifiedResponseIsServedFromCache(@TempDir Path directory)
+            throws IOException {
+        try (HttpResponseCache cache = HttpResponseCache.open(directory, 1 << 20)) {
+            DefaultDocumentLoader loader = new DefaultDocumentLoader(Duration.ofSeconds(5), MAX_BODY_SIZE, cache);
+            assertEquals("versioned page", loader.loadDocument(uri("/versioned")).orElseThrow().text());
+            assertEquals(new HttpResponseCache.Stats(0, 0, 1), cache.getStats());
+        }
+
+        try (HttpResponseCache cache = HttpResponseCache.open(directory, 1 << 20)) {
+            DefaultDocumentLoader loader = new DefaultDocumentLoader(Duration.ofSeconds(5), MAX_BODY_SIZE, cache);
+            Document document = loader.loadDocument(uri("/versioned")).orElseThrow();
+            try (DocumentStream documentStream = loader.openDocumentStream(uri("/versioned"))) {
+                assertEquals("<p>versioned page</p>", new String(documentStream.getBody().readAllBytes(),
+                                                                 StandardCharsets.UTF_8));
+                assertEquals(uri("/versioned"), documentStream.getLocation());
+            }
+
+            assertEquals("versioned page", document.text());
+            assertEquals(2, notModified.get());
+            assertEquals(new HttpResponseCache.Stats(0, 2, 0), cache.getStats());
+        }
+    }
+
+    @Test
+    void givenResponseWithMaxAge_whenLoadedAgain_thenServedFromCacheWithoutRequest(@TempDir Path directory)
+            throws IOException {
+        try (HttpResponseCache cache = HttpResponseCache.open(directory, 1 << 20)) {
+            DefaultDocumentLoader loader = new DefaultDocumentLoader(Duration.ofSeconds(5), MAX_BODY_SIZE, cache);
+
+            assertEquals("fresh page", loader.loadDocument(uri("/fresh")).orElseThrow().text());
+            assertEquals("fresh page", loader.loadDocument(uri("/fresh")).orElseThrow().text());
+
+            assertEquals(1, requests.get("/fresh").get());
+            assertEquals(new HttpResponseCache.Stats(1, 0, 1), cache.getStats());
+            assertEquals(0.5, cache.getStats().getHitRatio());
+        }
+    }
+
+    @Test
+    void givenNoStoreResponse_whenLoadedAgain_thenDownloadedAgain(@TempDir Path directory) throws IOException {
+        try (HttpResponseCache cache = HttpResponseCache.open(directory, 1 << 20)) {
+            DefaultDocumentLoader loader = new DefaultDocumentLoader(Duration.ofSeconds(5), MAX_BODY_SIZE, cache);
+
+            loader.loadDocument(uri("/private"));
+            loader.loadDocument(uri("/private"));
+
+            assertEquals(2, requests.get("/private").get());
+            assertEquals(new HttpResponseCache.Stats(0, 0, 2), cache.getStats());
+            assertEquals(0, cache.entryCount());
+        }
+    }
+
+    private URI uri(String pathAndQuery) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + pathAndQuery);
+    }
+
+    private void respond(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+        requests.computeIfAbsent(exchange.getHttpContext().getPath(), path -> new AtomicInteger()).incrementAndGet();
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        } catch (IOException e) {
+            // The client may close the connection without reading the body
+        }
+    }
+}
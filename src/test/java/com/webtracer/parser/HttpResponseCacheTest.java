@@ -0,0 +1,140 @@
+package com.webtracer.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpResponseCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void givenStoredResponses_whenReopened_thenBodiesAndValidatorsAreRestored() throws IOException {
+        try (HttpResponseCache cache = HttpResponseCache.open(directory, 1_000)) {
+            store(cache, "https://example.com/a", "\"a1\"", "same body");
+            store(cache, "https://example.com/b", null, "same body");
+
+            // URLs serving the same content share one file
+            assertEquals(9, cache.size());
+        }
+
+        try (HttpResponseCache cache = HttpResponseCache.open(directory, 1_000)) {
+            HttpResponseCache.Entry entry = cache.get("https://example.com/a").orElseThrow();
+
+            assertEquals("\"a1\"", entry.getEtag());
+            assertEquals("text/html", entry.getContentType());
+            assertEquals("same body", read(cache, entry));
+            assertEquals("same body", read(cache, cache.get("https://example.com/b").orElseThrow()));
+            assertEquals(2, cache.entryCount());
+            assertEquals(1, countFiles(directory.resolve("bodies")));
+        }
+    }
+
+    @Test
+    void givenCacheAboveMaxSize_whenStoring_thenLeastRecentlyUsedResponsesAreEvicted() throws IOException {
+        try (HttpResponseCache cache = HttpResponseCache.open(directory, 10)) {
+            store(cache, "https://example.com/a", null, "aaaa");
+            store(cache, "https://example.com/b", null, "bbbb");
+            cache.recordHit(cache.get("https://example.com/a").orElseThrow());
+            store(cache, "https://example.com/c", null, "cccc");
+
+            assertTrue(cache.get("https://example.com/b").isEmpty());
+            assertEquals(8, cache.size());
+        }
+
+        try (HttpResponseCache cache = HttpResponseCache.open(directory, 10)) {
+            assertTrue(cache.get("https://example.com/a").isPresent());
+            assertTrue(cache.get("https://example.com/b").isEmpty());
+            assertTrue(cache.get("https://example.com/c").isPresent());
+            assertEquals(2, countFiles(directory.resolve("bodies")));
+        }
+    }
+
+    @Test
+    void givenHits_whenServed_thenIndexDoesNotGrowAndOrderOfUseIsPersistedOnClose() throws IOException {
+        Path index = directory.resolve("index");
+        try (HttpResponseCache cache = HttpResponseCache.open(directory, 10)) {
+            store(cache, "https://example.com/a", null, "aaaa");
+            store(cache, "https://example.com/b", null, "bbbb");
+            long indexSize = Files.size(index);
+
+            for (int i = 0; i < 100; i++) {
+                cache.recordHit(cache.get("https://example.com/a").orElseThrow());
+            }
+
+            assertEquals(indexSize, Files.size(index));
+        }
+
+        try (HttpResponseCache cache = HttpResponseCache.open(directory, 10)) {
+            store(cache, "https://example.com/c", null, "cccc");
+
+            assertTrue(cache.get("https://example.com/a").isPresent());
+            assertTrue(cache.get("https://example.com/b").isEmpty());
+        }
+    }
+
+    @Test
+    void givenPartlyReadBody_whenClosed_thenResponseIsNotStored() throws IOException {
+        try (HttpResponseCache cache = HttpResponseCache.open(directory, 1_000)) {
+            try (InputStream body = cache.store(entry("https://example.com/a", null), Duration.ZERO,
+                                                stream("unfinished body"))) {
+                assertEquals('u', body.read());
+            }
+
+            assertTrue(cache.get("https://example.com/a").isEmpty());
+            assertEquals(0, countFiles(directory.resolve("bodies")));
+            assertEquals(new HttpResponseCache.Stats(0, 0, 1), cache.getStats());
+        }
+    }
+
+    @Test
+    void givenCacheControl_whenFreshness_thenMaxAgeNoCacheAndNoStoreAreApplied() {
+        assertEquals(Duration.ZERO, HttpResponseCache.freshness(null));
+        assertEquals(Duration.ofSeconds(60), HttpResponseCache.freshness("public, Max-Age=60"));
+        assertEquals(Duration.ZERO, HttpResponseCache.freshness("max-age=60, no-cache"));
+        assertEquals(Duration.ZERO, HttpResponseCache.freshness("max-age=soon"));
+        assertNull(HttpResponseCache.freshness("private, no-store"));
+    }
+
+    private static void store(HttpResponseCache cache, String url, String etag, String body) throws IOException {
+        try (InputStream in = cache.store(entry(url, etag), Duration.ZERO, stream(body))) {
+            in.readAllBytes();
+        }
+    }
+
+    private static HttpResponseCache.Entry entry(String url, String etag) {
+        return HttpResponseCache.Entry.builder()
+                .url(url)
+                .location(url)
+                .contentType("text/html")
+                .etag(etag)
+                .build();
+    }
+
+    private static String read(HttpResponseCache cache, HttpResponseCache.Entry entry) throws IOException {
+        try (InputStream in = cache.openBody(entry)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long countFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
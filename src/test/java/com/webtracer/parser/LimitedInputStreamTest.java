@@ -0,0 +1,48 @@
+package com.webtracer.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimitedInputStreamTest {
+
+    private static final byte[] CONTENT = "0123456789".getBytes();
+
+    @Test
+    void givenLongerContent_whenReadToEnd_thenOnlyLimitIsReadAndStreamIsTruncated() throws IOException {
+        LimitedInputStream in = new LimitedInputStream(new ByteArrayInputStream(CONTENT), 4);
+
+        assertEquals("0123", new String(in.readAllBytes()));
+        assertEquals(-1, in.read());
+        assertTrue(in.isTruncated());
+    }
+
+    @Test
+    void givenContentOfExactlyLimit_whenReadToEnd_thenNotTruncated() throws IOException {
+        LimitedInputStream in = new LimitedInputStream(new ByteArrayInputStream(CONTENT), CONTENT.length);
+
+        assertArrayEquals(CONTENT, in.readAllBytes());
+        assertFalse(in.isTruncated());
+    }
+
+    @Test
+    void givenNoLimit_whenReadToEnd_thenWholeContentIsRead() throws IOException {
+        LimitedInputStream in = new LimitedInputStream(new ByteArrayInputStream(CONTENT), 0);
+
+        assertArrayEquals(CONTENT, in.readAllBytes());
+        assertFalse(in.isTruncated());
+    }
+
+    @Test
+    void givenSingleByteReads_whenLimitReached_thenEndOfStream() throws IOException {
+        LimitedInputStream in = new LimitedInputStream(new ByteArrayInputStream(CONTENT), 2);
+
+        assertEquals('0', in.read());
+        assertEquals('1', in.read());
+        assertEquals(-1, in.read());
+        assertTrue(in.isTruncated());
+    }
+}
@@ -0,0 +1,113 @@
+package com.webtracer.parser;
+
+import com.webtracer.ApiException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalFileContentTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void givenSmallFilesReadOneAfterAnother_whenThreadBufferIsReused_thenEachContentHasOnlyItsOwnBytes()
+            throws IOException {
+        Path first = Files.writeString(directory.resolve("first.html"), "<p>a longer first page</p>");
+        Path second = Files.writeString(directory.resolve("second.html"), "<p>second</p>");
+
+        try (LocalFileContent content = LocalFileContent.read(first, 0)) {
+            assertFalse(content.isMapped());
+            assertEquals("<p>a longer first page</p>", content.decode(StandardCharsets.UTF_8, 0));
+        }
+        try (LocalFileContent content = LocalFileContent.read(second, 0);
+             InputStream in = content.stream()) {
+            assertFalse(content.isTruncated());
+            assertEquals(13, content.content().remaining());
+            assertEquals("<p>second</p>", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void givenFileLongerThanMaxBodySize_whenRead_thenContentIsPrefixAndStreamRevealsTruncation()
+            throws IOException {
+        Path file = Files.writeString(directory.resolve("page.html"), "0123456789");
+
+        try (LocalFileContent content = LocalFileContent.read(file, 4)) {
+            assertTrue(content.isTruncated());
+            assertEquals(4, content.content().remaining());
+            assertEquals("0123", content.decode(StandardCharsets.UTF_8, 0));
+
+            LimitedInputStream in = new LimitedInputStream(content.stream(), 4);
+            assertEquals("0123", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            assertTrue(in.isTruncated());
+        }
+    }
+
+    @Test
+    void givenFileAboveMappingThreshold_whenRead_thenItIsMappedAndDecodedInFull() throws IOException {
+        String html = "<p>mapped words</p>".repeat(LocalFileContent.MAPPING_THRESHOLD / 10);
+        Path file = Files.writeString(directory.resolve("large.html"), html);
+
+        try (LocalFileContent content = LocalFileContent.read(file, 0)) {
+            assertTrue(content.isMapped());
+            assertEquals(html, content.decode(StandardCharsets.UTF_8, 0));
+        }
+    }
+
+    @Test
+    void givenMissingFile_whenRead_thenNoSuchFileExceptionIsThrown() {
+        assertThrows(NoSuchFileException.class, () -> LocalFileContent.read(directory.resolve("missing.html"), 0));
+    }
+
+    @Test
+    void givenLocalPages_whenLoadedByDocumentLoader_thenSameDocumentAsParsingTheStream() throws IOException,
+            ApiException {
+        DefaultDocumentLoader documentLoader = new DefaultDocumentLoader(Duration.ofSeconds(2), 10_000);
+        Path utf8 = Files.writeString(directory.resolve("utf8.html"), "<p>zażółć gęślą jaźń</p><a href=\"x\">x</a>");
+        Path bom = Files.write(directory.resolve("bom.html"), concat(new byte[]{(byte) 0xFF, (byte) 0xFE},
+                                                                     "<p>little endian</p>".getBytes(
+                                                                             StandardCharsets.UTF_16LE)));
+        Path large = Files.writeString(directory.resolve("large.html"), "<p>word</p>".repeat(2_000));
+
+        for (Path file : new Path[]{utf8, bom, large}) {
+            Document loaded = documentLoader.loadDocument(file.toUri()).orElseThrow();
+            Document expected;
+            try (LimitedInputStream in = new LimitedInputStream(Files.newInputStream(file), 10_000)) {
+                expected = Jsoup.parse(in, StandardCharsets.UTF_8.name(), "");
+            }
+
+            assertEquals(expected.text(), loaded.text(), file.toString());
+            assertEquals(expected.select("a").size(), loaded.select("a").size(), file.toString());
+            assertEquals(file == large, DocumentLoader.isTruncated(loaded), file.toString());
+        }
+    }
+
+    @Test
+    void givenMissingLocalPage_whenLoadedByDocumentLoader_thenApiExceptionIsThrown() {
+        DefaultDocumentLoader documentLoader = new DefaultDocumentLoader(Duration.ofSeconds(2));
+        URI missing = directory.resolve("missing.html").toUri();
+
+        assertThrows(ApiException.class, () -> documentLoader.loadDocument(missing));
+        assertThrows(ApiException.class, () -> documentLoader.openDocumentStream(missing));
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] bytes = new byte[first.length + second.length];
+        System.arraycopy(first, 0, bytes, 0, first.length);
+        System.arraycopy(second, 0, bytes, first.length, second.length);
+        return bytes;
+    }
+}
@@ -0,0 +1,138 @@
+package com.webtracer.parser;
+
+import com.webtracer.ApiException;
+import org.jsoup.Jsoup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares loading a directory of many generated local pages through a file input stream, as the loader used to,
+ * with the channel-based {@link LocalFileContent} path of {@link DefaultDocumentLoader}, both when the pages are
+ * parsed into JSoup documents and when they are only streamed.
+ *
+ * <p>This is a plain {@code main} program rather than a test, so that it is not executed by the build. Run it
+ * from the IDE or with {@code java -cp target/classes:target/test-classes:<dependencies> ...}. The number of
+ * pages can be passed as the first argument (defaults to {@code 5000}).</p>
+ */
+class LocalFileLoadingBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int pageCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        Path directory = Files.createTempDirectory("benchmark");
+        List<Path> pages = new ArrayList<>();
+        try {
+            Random random = new Random(pageCount);
+            for (int i = 0; i < pageCount; i++) {
+                pages.add(Files.writeString(directory.resolve("page" + i + ".html"), page(random)));
+            }
+            System.out.printf("pages=%d, first page=%d B%n", pageCount, Files.size(pages.get(0)));
+            System.out.printf("%10s %10s %12s %18s%n", "load", "path", "time[us]", "allocated[KiB]");
+
+            DefaultDocumentLoader documentLoader = new DefaultDocumentLoader(Duration.ofSeconds(10));
+            byte[] sink = new byte[8192];
+            measure("document", "stream", pages, page -> {
+                if (!Files.exists(page)) {
+                    throw new IOException("missing " + page);
+                }
+                try (LimitedInputStream in = new LimitedInputStream(Files.newInputStream(page),
+                                                                    DefaultDocumentLoader.DEFAULT_MAX_BODY_SIZE)) {
+                    return Jsoup.parse(in, StandardCharsets.UTF_8.name(), "").childNodeSize();
+                }
+            });
+            measure("document", "channel", pages,
+                    page -> documentLoader.loadDocument(page.toUri()).orElseThrow().childNodeSize());
+            measure("stream", "stream", pages, page -> {
+                if (!Files.exists(page)) {
+                    throw new IOException("missing " + page);
+                }
+                try (DocumentStream stream = new DocumentStream(Files.newInputStream(page), null, page.toUri(),
+                                                                DefaultDocumentLoader.DEFAULT_MAX_BODY_SIZE)) {
+                    return drain(stream.getBody(), sink);
+                }
+            });
+            measure("stream", "channel", pages, page -> {
+                try (DocumentStream stream = documentLoader.openDocumentStream(page.toUri())) {
+                    return drain(stream.getBody(), sink);
+                }
+            });
+        } finally {
+            for (Path page : pages) {
+                Files.delete(page);
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static void measure(String load, String path, List<Path> pages, PageLoad pageLoad) throws IOException {
+        long checksum = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            checksum += loadAll(pages, pageLoad);
+        }
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            checksum += loadAll(pages, pageLoad);
+        }
+        int loadedPages = MEASURED_ROUNDS * pages.size();
+        double micros = (System.nanoTime() - start) / 1e3 / loadedPages;
+        double allocated = (allocatedBytes() - allocatedBefore) / 1024.0 / loadedPages;
+        System.out.printf("%10s %10s %12.1f %18.1f   (checksum %d)%n", load, path, micros, allocated, checksum);
+    }
+
+    private static long loadAll(List<Path> pages, PageLoad pageLoad) throws IOException {
+        long checksum = 0;
+        for (Path page : pages) {
+            try {
+                checksum += pageLoad.load(page);
+            } catch (ApiException e) {
+                throw new IOException(e);
+            }
+        }
+        return checksum;
+    }
+
+    private static int drain(InputStream in, byte[] sink) throws IOException {
+        int total = 0;
+        for (int read; (read = in.read(sink)) >= 0; ) {
+            total += read;
+        }
+        return total;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Generates a page of a few paragraphs and links over a shared vocabulary.
+     */
+    private static String page(Random random) {
+        StringBuilder html = new StringBuilder("<html><head><title>benchmark</title></head><body>");
+        for (int p = 0; p < 8 + random.nextInt(24); p++) {
+            html.append("<p>");
+            for (int w = 0; w < 40; w++) {
+                html.append("word").append((int) Math.floor(1 / (random.nextDouble() + 1e-3))).append(' ');
+            }
+            html.append("<a href=\"page").append(random.nextInt(100)).append(".html\">link</a></p>\n");
+        }
+        return html.append("</body></html>").toString();
+    }
+
+    @FunctionalInterface
+    private interface PageLoad {
+        int load(Path page) throws IOException, ApiException;
+    }
+}
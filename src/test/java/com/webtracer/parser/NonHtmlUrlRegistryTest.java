@@ -0,0 +1,71 @@
+package com.webtracer.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NonHtmlUrlRegistryTest {
+
+    @Test
+    void givenNonHtmlUrl_whenCheckingUrlOfSameEndpoint_thenKnownNonHtml() {
+        NonHtmlUrlRegistry registry = new NonHtmlUrlRegistry();
+
+        registry.recordNonHtml(URI.create("http://example.com/download?id=7"), "application/pdf");
+
+        assertTrue(registry.isKnownNonHtml(URI.create("http://example.com/download?id=8")));
+        assertFalse(registry.isKnownNonHtml(URI.create("http://example.com/downloads?id=8")));
+        assertFalse(registry.isKnownNonHtml(URI.create("http://other.example.com/download?id=8")));
+        assertFalse(registry.isKnownNonHtml(URI.create("http://example.com/index.html")));
+    }
+
+    @Test
+    void givenSeveralNonHtmlEndpointsInDirectory_whenCheckingSibling_thenKnownNonHtml() {
+        NonHtmlUrlRegistry registry = new NonHtmlUrlRegistry();
+
+        for (int i = 1; i < NonHtmlUrlRegistry.DIRECTORY_THRESHOLD; i++) {
+            registry.recordNonHtml(URI.create("http://example.com/files/report" + i), "application/pdf");
+        }
+        assertFalse(registry.isKnownNonHtml(URI.create("http://example.com/files/next")));
+
+        registry.recordNonHtml(URI.create("http://example.com/files/last"), "application/pdf");
+        assertTrue(registry.isKnownNonHtml(URI.create("http://example.com/files/next")));
+        assertFalse(registry.isKnownNonHtml(URI.create("http://example.com/files/nested/next")));
+    }
+
+    @Test
+    void givenDirectoryServingHtml_whenNonHtmlEndpointsAreRecorded_thenOnlyThoseEndpointsAreKnown() {
+        NonHtmlUrlRegistry registry = new NonHtmlUrlRegistry();
+
+        registry.recordHtml(URI.create("http://example.com/docs/guide"));
+        for (int i = 0; i < 2 * NonHtmlUrlRegistry.DIRECTORY_THRESHOLD; i++) {
+            registry.recordNonHtml(URI.create("http://example.com/docs/image" + i), "image/png");
+        }
+
+        assertTrue(registry.isKnownNonHtml(URI.create("http://example.com/docs/image0?size=large")));
+        assertFalse(registry.isKnownNonHtml(URI.create("http://example.com/docs/tutorial")));
+    }
+
+    @Test
+    void givenEndpointServingHtml_whenAnotherQueryServesNonHtml_thenEndpointIsNotKnownNonHtml() {
+        NonHtmlUrlRegistry registry = new NonHtmlUrlRegistry();
+
+        registry.recordHtml(URI.create("http://example.com/index.php?page=1"));
+        registry.recordNonHtml(URI.create("http://example.com/index.php?action=export"), "application/pdf");
+
+        assertFalse(registry.isKnownNonHtml(URI.create("http://example.com/index.php?page=2")));
+    }
+
+    @Test
+    void givenNonHtmlEndpoint_whenAnotherQueryServesHtml_thenEndpointIsNoLongerKnownNonHtml() {
+        NonHtmlUrlRegistry registry = new NonHtmlUrlRegistry();
+
+        registry.recordNonHtml(URI.create("http://example.com/index.php?action=export"), "application/pdf");
+        assertTrue(registry.isKnownNonHtml(URI.create("http://example.com/index.php?page=1")));
+        registry.recordHtml(URI.create("http://example.com/index.php?page=1"));
+        registry.recordNonHtml(URI.create("http://example.com/index.php?action=csv"), "text/csv");
+
+        assertFalse(registry.isKnownNonHtml(URI.create("http://example.com/index.php?page=2")));
+    }
+}
@@ -0,0 +1,56 @@
+package com.webtracer.parser;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.net.URI;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageFormatTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "https://example.com/index.html, HTML",
+            "https://example.com/INDEX.HTM, HTML",
+            "https://example.com/page.xhtml, XHTML",
+            "https://example.com/notes.txt?version=2, PLAIN_TEXT",
+            "file:///docs/README.md, MARKDOWN",
+            "https://example.com/docs/guide.markdown#intro, MARKDOWN",
+            "https://example.com/sitemap.xml, XML"
+    })
+    void givenKnownExtension_whenFromExtension_thenFormatIsReturned(String url, PageFormat expected) {
+        assertEquals(Optional.of(expected), PageFormat.fromExtension(URI.create(url)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"https://example.com", "https://example.com/docs/", "https://example.com/download",
+            "https://example.com/v1.2/about", "https://example.com/report.pdf"})
+    void givenUnknownExtension_whenFromExtension_thenFormatIsEmpty(String url) {
+        assertEquals(Optional.empty(), PageFormat.fromExtension(URI.create(url)));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "text/html; charset=UTF-8 | HTML",
+            "application/xhtml+xml | XHTML",
+            "TEXT/PLAIN;charset=ISO-8859-1 | PLAIN_TEXT",
+            "text/markdown | MARKDOWN",
+            "text/x-markdown | MARKDOWN",
+            "application/xml | XML",
+            "text/xml; charset=utf-8 | XML"
+    })
+    void givenSupportedContentType_whenFromContentType_thenFormatIsReturned(String contentType, PageFormat expected) {
+        assertEquals(Optional.of(expected), PageFormat.fromContentType(contentType));
+        assertEquals(expected == PageFormat.PLAIN_TEXT || expected == PageFormat.MARKDOWN, expected.isPlainText());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"application/pdf", "image/png", "application/json", ""})
+    void givenUnsupportedContentType_whenFromContentType_thenFormatIsEmpty(String contentType) {
+        assertEquals(Optional.empty(), PageFormat.fromContentType(contentType));
+        assertEquals(Optional.empty(), PageFormat.fromContentType(null));
+    }
+}
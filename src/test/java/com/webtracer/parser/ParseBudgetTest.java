@@ -0,0 +1,66 @@
+package com.webtracer.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParseBudgetTest {
+
+    @Test
+    void givenUnlimitedBudget_whenCheckpoint_thenNeverExceeded() {
+        ParseBudget budget = ParseBudget.start(Duration.ZERO);
+
+        for (int i = 0; i < 10 * ParseBudget.CHECK_INTERVAL; i++) {
+            budget.checkpoint();
+        }
+
+        assertSame(ParseBudget.unlimited(), budget);
+        assertFalse(budget.isExceeded());
+    }
+
+    @Test
+    void givenSpentBudget_whenCheckpoint_thenExceptionAfterCheckInterval() {
+        ParseBudget budget = ParseBudget.start(Duration.ofNanos(1));
+        busyWork();
+
+        for (int i = 1; i < ParseBudget.CHECK_INTERVAL; i++) {
+            budget.checkpoint();
+        }
+        ParseBudgetExceededException exception = assertThrows(ParseBudgetExceededException.class,
+                                                              budget::checkpoint);
+
+        assertTrue(budget.isExceeded());
+        assertEquals(Duration.ofNanos(1), exception.getBudget());
+        assertTrue(exception.getSpent().compareTo(exception.getBudget()) > 0);
+    }
+
+    @Test
+    void givenGenerousBudget_whenCheckpoint_thenNotExceeded() {
+        ParseBudget budget = ParseBudget.start(Duration.ofMinutes(1));
+
+        for (int i = 0; i < 10 * ParseBudget.CHECK_INTERVAL; i++) {
+            budget.checkpoint();
+        }
+
+        assertFalse(budget.isExceeded());
+    }
+
+    @Test
+    void givenNegativeBudget_whenStart_thenIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> ParseBudget.start(Duration.ofSeconds(-1)));
+    }
+
+    /**
+     * Spends some CPU time, so that a budget of a nanosecond is exceeded whether CPU or wall-clock time is measured.
+     */
+    private static void busyWork() {
+        long end = System.nanoTime() + 2_000_000;
+        double sink = 0;
+        while (System.nanoTime() < end) {
+            sink += Math.sqrt(sink + 1);
+        }
+        assertTrue(sink > 0);
+    }
+}
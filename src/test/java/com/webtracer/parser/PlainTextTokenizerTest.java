@@ -0,0 +1,73 @@
+package com.webtracer.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlainTextTokenizerTest {
+
+    /**
+     * Records events as strings: text runs as {@code "text:..."} and links as {@code "<a href>"}.
+     */
+    private static List<String> tokenize(String text, boolean markdown) throws IOException {
+        List<String> events = new ArrayList<>();
+        new PlainTextTokenizer(new HtmlTokenHandler() {
+            @Override
+            public void text(String text) {
+                events.add("text:" + text);
+            }
+
+            @Override
+            public void startTag(String name, Map<String, String> attributes) {
+                events.add("<" + name + " " + attributes.get("href") + ">");
+            }
+        }, markdown).tokenize(new StringReader(text));
+        return events;
+    }
+
+    @Test
+    void givenPlainTextWithMarkup_whenTokenize_thenTextIsReportedAsIs() throws IOException {
+        List<String> events = tokenize("if a <b> c &amp; [x](y)\nend", false);
+
+        assertEquals(List.of("text:if a <b> c &amp; [x](y)\nend"), events);
+    }
+
+    @Test
+    void givenLongPlainText_whenTokenize_thenRunsAreSplitAtWhitespaceOnly() throws IOException {
+        String text = "lorem ipsum dolor ".repeat(2000) + "x".repeat(PlainTextTokenizer.MAX_TEXT_RUN * 3);
+
+        List<String> events = tokenize(text, false);
+
+        assertTrue(events.size() > 2);
+        StringBuilder joined = new StringBuilder();
+        for (String event : events) {
+            String run = event.substring("text:".length());
+            assertTrue(run.length() <= PlainTextTokenizer.MAX_TEXT_RUN * 2);
+            joined.append(run);
+        }
+        assertEquals(text, joined.toString());
+        for (int i = 0; i < events.size() - 1 && events.get(i + 1).charAt(5) != 'x'; i++) {
+            assertTrue(Character.isWhitespace(events.get(i + 1).charAt(5)), events.get(i + 1));
+        }
+    }
+
+    @Test
+    void givenMarkdownLinks_whenTokenize_thenLinksAreReportedAndOnlyLabelsAreText() throws IOException {
+        List<String> events = tokenize("""
+                # Title
+                See [the guide](docs/guide.md "Guide") and ![logo](logo.png), or <https://example.com/a>.
+                [ref]: https://example.com/ref  "Reference"
+                """, true);
+
+        assertEquals(List.of("text:# Title\n",
+                             "text:See ", "<a docs/guide.md>", "text:the guide", "text: and ", "text:logo",
+                             "text:, or ", "<a https://example.com/a>", "text:https://example.com/a", "text:.\n",
+                             "<a https://example.com/ref>"), events);
+    }
+}
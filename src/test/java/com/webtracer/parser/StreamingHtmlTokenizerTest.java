@@ -0,0 +1,196 @@
+package com.webtracer.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingHtmlTokenizerTest {
+
+    /**
+     * Records events as strings: text runs as {@code "text:..."} and start tags as {@code "<name attributes>"}.
+     */
+    private static List<String> tokenize(String html) throws IOException {
+        List<String> events = new ArrayList<>();
+        new StreamingHtmlTokenizer(recorder(events)).tokenize(new StringReader(html));
+        return events;
+    }
+
+    /**
+     * Tokenizes the UTF-8 bytes of the given HTML, recording text runs reported as bytes as {@code "bytes:..."}.
+     */
+    private static List<String> tokenizeUtf8(String html) throws IOException {
+        List<String> events = new ArrayList<>();
+        new StreamingHtmlTokenizer(recorder(events))
+                .tokenize(new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8)));
+        return events;
+    }
+
+    private static HtmlTokenHandler recorder(List<String> events) {
+        return new HtmlTokenHandler() {
+            @Override
+            public void text(String text) {
+                events.add("text:" + text);
+            }
+
+            @Override
+            public void text(byte[] utf8, int offset, int length) {
+                events.add("bytes:" + new String(utf8, offset, length, StandardCharsets.UTF_8));
+            }
+
+            @Override
+            public void startTag(String name, Map<String, String> attributes) {
+                events.add("<" + name + (attributes.isEmpty() ? "" : " " + attributes) + ">");
+            }
+        };
+    }
+
+    @Test
+    void givenUtf8Input_whenTokenize_thenTextRunsAreReportedAsBytesAndNamesAreDecoded() throws IOException {
+        List<String> events = tokenizeUtf8("<P TITLE=\"żółw\">Zażółć <b>gęślą</b> jaźń &amp; co</p><script>ą</script>");
+
+        assertEquals(List.of("<p {title=żółw}>", "bytes:Zażółć ", "<b>", "bytes:gęślą", "text: jaźń & co",
+                             "<script>"), events);
+    }
+
+    @Test
+    void givenLongUtf8Text_whenTokenize_thenRunsAreNeverSplitInsideCharacters() throws IOException {
+        String text = "żółć ".repeat(StreamingHtmlTokenizer.MAX_TEXT_RUN);
+
+        List<String> events = tokenizeUtf8(text);
+
+        assertTrue(events.size() > 1);
+        StringBuilder joined = new StringBuilder();
+        for (String event : events) {
+            assertTrue(event.startsWith("bytes:"));
+            assertFalse(event.contains("\uFFFD"));
+            joined.append(event.substring("bytes:".length()));
+        }
+        assertEquals(text, joined.toString());
+    }
+
+    @Test
+    void givenTextAroundTags_whenTokenize_thenTextRunsEndAtEveryTag() throws IOException {
+        List<String> events = tokenize("Hello<b>bold</b>world");
+
+        assertEquals(List.of("text:Hello", "<b>", "text:bold", "text:world"), events);
+    }
+
+    @Test
+    void givenAttributes_whenTokenize_thenNamesAreLowerCasedAndValuesDecoded() throws IOException {
+        List<String> events = tokenize("<A HREF=\"a?x=1&amp;y=2\" title='t' data-x=plain checked href=\"ignored\">");
+
+        assertEquals(1, events.size());
+        assertTrue(events.get(0).startsWith("<a "));
+        assertTrue(events.get(0).contains("href=a?x=1&y=2"));
+        assertTrue(events.get(0).contains("title=t"));
+        assertTrue(events.get(0).contains("data-x=plain"));
+        assertTrue(events.get(0).contains("checked="));
+        assertFalse(events.get(0).contains("ignored"));
+    }
+
+    @Test
+    void givenScriptAndStyle_whenTokenize_thenContentIsSkipped() throws IOException {
+        List<String> events = tokenize("<script>var a = '<b>x</b>';</script>after<style>p{}</STYLE >end");
+
+        assertEquals(List.of("<script>", "text:after", "<style>", "text:end"), events);
+    }
+
+    @Test
+    void givenTitleAndTextarea_whenTokenize_thenContentIsTextWithDecodedReferences() throws IOException {
+        List<String> events = tokenize("<title>A &amp; <b>B</title><textarea>x</textareas></textarea>");
+
+        assertEquals(List.of("<title>", "text:A & <b>B", "<textarea>", "text:x</textareas>"), events);
+    }
+
+    @Test
+    void givenCommentsDoctypeAndCdata_whenTokenize_thenOnlyCdataIsReported() throws IOException {
+        List<String> events = tokenize("<!DOCTYPE html>a<!-- <p>hidden</p> -->b<!---->c<![CDATA[x &amp; y]]>d");
+
+        assertEquals(List.of("text:a", "text:b", "text:c", "text:x &amp; y", "text:d"), events);
+    }
+
+    @Test
+    void givenLessThanNotStartingATag_whenTokenize_thenItIsText() throws IOException {
+        List<String> events = tokenize("1 < 2 &lt; 3 </> done <");
+
+        assertEquals(List.of("text:1 < 2 < 3  done <"), events);
+    }
+
+    @Test
+    void givenUnterminatedTag_whenTokenize_thenTagIsDropped() throws IOException {
+        List<String> events = tokenize("text<a href=\"x");
+
+        assertEquals(List.of("text:text"), events);
+    }
+
+    @Test
+    void givenLongText_whenTokenize_thenRunIsSplitAtWhitespaceOnly() throws IOException {
+        String word = "word".repeat(10);
+        String text = (word + " ").repeat(StreamingHtmlTokenizer.MAX_TEXT_RUN);
+
+        List<String> events = tokenize("<p>" + text + "</p>");
+
+        assertTrue(events.size() > 2);
+        StringBuilder joined = new StringBuilder();
+        for (String event : events.subList(1, events.size())) {
+            String run = event.substring("text:".length());
+            assertTrue(run.endsWith(" "), "runs must be split after whitespace");
+            assertTrue(run.length() < StreamingHtmlTokenizer.MAX_TEXT_RUN + word.length() + 1);
+            joined.append(run);
+        }
+        assertEquals(text, joined.toString());
+    }
+
+    @Test
+    void givenWordCrossingTheRunCapacity_whenTokenize_thenWordIsCarriedOverToTheNextRun() throws IOException {
+        String word = "y".repeat(StreamingHtmlTokenizer.MAX_TEXT_RUN + 100);
+        String text = "lorem ".repeat(StreamingHtmlTokenizer.MAX_TEXT_RUN / 6) + word + " end";
+
+        for (List<String> events : List.of(tokenize(text), tokenizeUtf8(text))) {
+            StringBuilder joined = new StringBuilder();
+            for (String event : events) {
+                joined.append(event.substring(event.indexOf(':') + 1));
+            }
+            assertEquals(text, joined.toString());
+            assertTrue(events.stream().anyMatch(event -> event.contains(word)), "the word must not be split");
+        }
+    }
+
+    @Test
+    void givenWordLongerThanTheRunCapacity_whenTokenize_thenRunsAreBoundedAndCharactersAreNeverSplit()
+            throws IOException {
+        String text = ("żół😀".repeat(StreamingHtmlTokenizer.MAX_TEXT_RUN) + "&amp;").repeat(3);
+        String decoded = text.replace("&amp;", "&");
+
+        for (List<String> events : List.of(tokenize(text), tokenizeUtf8(text))) {
+            assertTrue(events.size() > 2);
+            StringBuilder joined = new StringBuilder();
+            for (String event : events) {
+                String run = event.substring(event.indexOf(':') + 1);
+                assertTrue(run.length() <= StreamingHtmlTokenizer.MAX_TEXT_RUN * 2);
+                assertFalse(run.contains("\uFFFD"));
+                joined.append(run);
+            }
+            assertEquals(decoded, joined.toString());
+        }
+    }
+
+    @Test
+    void givenAttributeLongerThanTheTagLimit_whenTokenize_thenAttributeIsDropped() throws IOException {
+        String longValue = "x".repeat(StreamingHtmlTokenizer.MAX_TAG_LENGTH);
+
+        List<String> events = tokenize("<a title=t href=\"" + longValue + "\" id=i>link</a><"
+                                               + "b".repeat(StreamingHtmlTokenizer.MAX_TAG_LENGTH + 1)
+                                               + " class=c><a href=next>");
+
+        assertEquals(List.of("<a {title=t}>", "text:link", "<a {href=next}>"), events);
+    }
+}
@@ -0,0 +1,215 @@
+package com.webtracer.parser;
+
+import com.webtracer.ApiException;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WarcDocumentLoaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void givenPlainAndCompressedArchives_whenLoaded_thenArchivedPagesAreParsedWithTheirLocation()
+            throws IOException {
+        Files.write(directory.resolve("a.warc"), concat(warcinfo(),
+                                                        page("https://example.com/first", "<p>first page</p>"),
+                                                        request("https://example.com/second")));
+        Files.write(directory.resolve("b.warc.gz"), gzipEach(warcinfo(),
+                                                             page("https://example.com/second", "<p>second page</p>"),
+                                                             page("https://example.com/third", "<p>third</p>")));
+        Files.writeString(directory.resolve("notes.txt"), "not an archive");
+
+        try (WarcDocumentLoader loader = WarcDocumentLoader.open(List.of(directory), 0)) {
+            assertEquals(3, loader.getArchivedUrlCount());
+            for (String name : List.of("first", "second", "third")) {
+                Document document = loader.loadDocument(URI.create("https://example.com/" + name)).orElseThrow();
+                assertTrue(document.text().startsWith(name), document.text());
+                assertEquals("https://example.com/" + name, document.location());
+            }
+        }
+    }
+
+    @Test
+    void givenRedirectToChunkedGzipEncodedResponse_whenStreamed_thenDecodedBodyOfTargetIsRead() throws IOException {
+        byte[] encoded = chunked(gzip("<p>moved here</p>".getBytes(StandardCharsets.UTF_8)), 5);
+        Path archive = Files.write(directory.resolve("redirect.warc.gz"), gzipEach(
+                response("https://example.com/old", "301 Moved Permanently", "Location: /new\r\n", new byte[0]),
+                response("https://example.com/new", "200 OK",
+                         "Content-Type: text/html; charset=ISO-8859-2\r\nTransfer-Encoding: chunked\r\n"
+                                 + "Content-Encoding: gzip\r\n", encoded)));
+
+        try (WarcDocumentLoader loader = WarcDocumentLoader.open(List.of(archive), 0);
+             DocumentStream stream = loader.openDocumentStream(URI.create("https://example.com/old"))) {
+            assertEquals(URI.create("https://example.com/new"), stream.getLocation());
+            assertEquals("ISO-8859-2", stream.getCharset().name());
+            assertEquals("text/html; charset=ISO-8859-2", stream.getContentType());
+            assertEquals("<p>moved here</p>", new String(stream.getBody().readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void givenRepeatedCaptures_whenLoaded_thenLatestCaptureIsServed() throws IOException {
+        Path first = Files.write(directory.resolve("1.warc"), concat(page("https://example.com/", "<p>oldest</p>"),
+                                                                     page("https://example.com/", "<p>older</p>")));
+        Path second = Files.write(directory.resolve("2.warc"), page("https://example.com/", "<p>latest</p>"));
+
+        try (WarcDocumentLoader loader = WarcDocumentLoader.open(List.of(first, second), 0)) {
+            assertEquals("latest", loader.loadDocument(URI.create("https://example.com/")).orElseThrow().text());
+        }
+        try (WarcDocumentLoader loader = WarcDocumentLoader.open(List.of(first), 0)) {
+            assertEquals("older", loader.loadDocument(URI.create("https://example.com/")).orElseThrow().text());
+        }
+    }
+
+    @Test
+    void givenUrlWithFragmentOrWithoutPath_whenLoaded_thenArchivedUrlIsFound() throws IOException {
+        Path archive = Files.write(directory.resolve("site.warc"), concat(
+                page("https://example.com/", "<p>home</p>"),
+                record("resource", "<https://example.com/notes.txt>", "text/plain",
+                       "<b>plain</b> notes".getBytes(StandardCharsets.UTF_8))));
+
+        try (WarcDocumentLoader loader = WarcDocumentLoader.open(List.of(archive), 0)) {
+            assertEquals("home", loader.loadDocument(URI.create("https://example.com")).orElseThrow().text());
+            assertEquals("home", loader.loadDocument(URI.create("https://example.com/#top")).orElseThrow().text());
+            assertEquals("<b>plain</b> notes",
+                         loader.loadDocument(URI.create("https://example.com/notes.txt")).orElseThrow().text());
+        }
+    }
+
+    @Test
+    void givenFileCompressedAsAWhole_whenLoaded_thenEveryRecordIsFound() throws IOException {
+        Path archive = Files.write(directory.resolve("whole.warc.gz"), gzip(concat(
+                page("https://example.com/a", "<p>alpha</p>"),
+                page("https://example.com/b", "<p>beta</p>"),
+                page("https://example.com/c", "<p>gamma</p>"))));
+
+        try (WarcDocumentLoader loader = WarcDocumentLoader.open(List.of(archive), 0)) {
+            assertEquals("beta", loader.loadDocument(URI.create("https://example.com/b")).orElseThrow().text());
+            assertEquals("gamma", loader.loadDocument(URI.create("https://example.com/c")).orElseThrow().text());
+        }
+    }
+
+    @Test
+    void givenLongPage_whenLoaded_thenItIsTruncatedAtMaxBodySize() throws IOException {
+        Path archive = Files.write(directory.resolve("long.warc"),
+                                   page("https://example.com/long", "<p>" + "word ".repeat(1000) + "</p>"));
+
+        try (WarcDocumentLoader loader = WarcDocumentLoader.open(List.of(archive), 100)) {
+            Document document = loader.loadDocument(URI.create("https://example.com/long")).orElseThrow();
+            assertTrue(DocumentLoader.isTruncated(document));
+            assertTrue(document.text().length() < 100);
+        }
+    }
+
+    @Test
+    void givenMissingNotFoundOrNonHtmlResponses_whenLoaded_thenApiExceptionIsThrown() throws IOException {
+        Path archive = Files.write(directory.resolve("errors.warc"), concat(
+                response("https://example.com/gone", "404 Not Found", "Content-Type: text/html\r\n",
+                         "<p>not found</p>".getBytes(StandardCharsets.UTF_8)),
+                response("https://example.com/image.png", "200 OK", "Content-Type: image/png\r\n",
+                         new byte[]{1, 2, 3}),
+                response("https://example.com/loop", "302 Found", "Location: /loop\r\n", new byte[0])));
+
+        try (WarcDocumentLoader loader = WarcDocumentLoader.open(List.of(archive), 0)) {
+            for (String path : List.of("missing", "gone", "image.png", "loop")) {
+                URI uri = URI.create("https://example.com/" + path);
+                assertThrows(ApiException.class, () -> loader.loadDocument(uri), path);
+                assertThrows(ApiException.class, () -> loader.openDocumentStream(uri), path);
+            }
+        }
+    }
+
+    @Test
+    void givenMalformedOrMissingArchive_whenOpened_thenIOExceptionIsThrown() throws IOException {
+        Path malformed = Files.writeString(directory.resolve("malformed.warc"), "<html>not a record</html>");
+        Path truncated = Files.write(directory.resolve("truncated.warc.gz"),
+                                     Arrays.copyOf(gzipEach(page("https://example.com/", "<p>a</p>")), 20));
+
+        assertThrows(IOException.class, () -> WarcDocumentLoader.open(List.of(malformed), 0));
+        assertThrows(IOException.class, () -> WarcDocumentLoader.open(List.of(truncated), 0));
+        assertThrows(IOException.class, () -> WarcDocumentLoader.open(List.of(directory.resolve("missing.warc")), 0));
+        assertThrows(IOException.class, () -> WarcDocumentLoader.open(List.of(Files.createDirectory(
+                directory.resolve("empty"))), 0));
+    }
+
+    private static byte[] page(String url, String html) {
+        return response(url, "200 OK", "Content-Type: text/html; charset=UTF-8\r\n",
+                        html.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] response(String url, String status, String headers, byte[] body) {
+        byte[] head = ("HTTP/1.1 " + status + "\r\n" + headers + "\r\n").getBytes(StandardCharsets.UTF_8);
+        return record("response", url, "application/http; msgtype=response", concat(head, body));
+    }
+
+    private static byte[] request(String url) {
+        return record("request", url, "application/http; msgtype=request",
+                      "GET / HTTP/1.1\r\nHost: example.com\r\n\r\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] warcinfo() {
+        return record("warcinfo", null, "application/warc-fields",
+                      "software: test\r\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] record(String type, String target, String contentType, byte[] block) {
+        String headers = "WARC/1.0\r\nWARC-Type: " + type + "\r\n"
+                + (target == null ? "" : "WARC-Target-URI: " + target + "\r\n")
+                + "WARC-Date: 2024-01-01T00:00:00Z\r\nContent-Type: " + contentType + "\r\n"
+                + "Content-Length: " + block.length + "\r\n\r\n";
+        return concat(headers.getBytes(StandardCharsets.UTF_8), block, "\r\n\r\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] chunked(byte[] body, int chunkSize) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int offset = 0; offset < body.length; offset += chunkSize) {
+            int length = Math.min(chunkSize, body.length - offset);
+            out.writeBytes((Integer.toHexString(length) + ";ext=1\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(body, offset, length);
+            out.writeBytes("\r\n".getBytes(StandardCharsets.US_ASCII));
+        }
+        out.writeBytes("0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        return out.toByteArray();
+    }
+
+    /**
+     * Compresses every record as a gzip member of its own, as WARC writers do.
+     */
+    private static byte[] gzipEach(byte[]... records) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] record : records) {
+            out.writeBytes(gzip(record));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+}
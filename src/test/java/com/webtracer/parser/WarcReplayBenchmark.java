@@ -0,0 +1,129 @@
+package com.webtracer.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Measures indexing generated {@code .warc.gz} archives with one thread and with a thread per processor, and
+ * replaying every archived page through {@link WarcDocumentLoader#openDocumentStream(URI)}.
+ *
+ * <p>This is a plain {@code main} program rather than a test, so that it is not executed by the build. Run it
+ * from the IDE or with {@code java -cp target/classes:target/test-classes:<dependencies> ...}. The number of
+ * archive files and of pages per file can be passed as the first two arguments (default to {@code 8} and
+ * {@code 5000}).</p>
+ */
+class WarcReplayBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws IOException {
+        int fileCount = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int pagesPerFile = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        Path directory = Files.createTempDirectory("benchmark");
+        List<Path> files = new ArrayList<>();
+        List<URI> urls = new ArrayList<>();
+        try {
+            Random random = new Random(pagesPerFile);
+            long bytes = 0;
+            for (int file = 0; file < fileCount; file++) {
+                Path path = directory.resolve("archive" + file + ".warc.gz");
+                try (OutputStream out = Files.newOutputStream(path)) {
+                    for (int page = 0; page < pagesPerFile; page++) {
+                        String url = "https://example.com/" + file + "/page" + page + ".html";
+                        urls.add(URI.create(url));
+                        out.write(gzip(record(url, page(random))));
+                    }
+                }
+                bytes += Files.size(path);
+                files.add(path);
+            }
+            System.out.printf("files=%d, pages=%d, archived=%d KiB%n", fileCount, urls.size(), bytes / 1024);
+
+            int processors = Runtime.getRuntime().availableProcessors();
+            for (int parallelism : new int[]{1, processors}) {
+                long best = Long.MAX_VALUE;
+                for (int round = 0; round < ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    WarcArchive.open(files, parallelism).close();
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+                System.out.printf("index with %2d threads: %8.1f ms%n", parallelism, best / 1e6);
+            }
+
+            byte[] sink = new byte[8192];
+            try (WarcDocumentLoader loader = WarcDocumentLoader.open(files,
+                                                                     DefaultDocumentLoader.DEFAULT_MAX_BODY_SIZE)) {
+                long best = Long.MAX_VALUE;
+                long checksum = 0;
+                for (int round = 0; round < ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    for (URI url : urls) {
+                        try (DocumentStream stream = loader.openDocumentStream(url)) {
+                            checksum += drain(stream.getBody(), sink);
+                        }
+                    }
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+                System.out.printf("replay: %8.1f us/page   (checksum %d)%n", best / 1e3 / urls.size(), checksum);
+            }
+        } finally {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static int drain(InputStream in, byte[] sink) throws IOException {
+        int total = 0;
+        for (int read; (read = in.read(sink)) >= 0; ) {
+            total += read;
+        }
+        return total;
+    }
+
+    private static byte[] record(String url, String html) {
+        byte[] block = ("HTTP/1.1 200 OK\r\nContent-Type: text/html; charset=UTF-8\r\n\r\n" + html)
+                .getBytes(StandardCharsets.UTF_8);
+        String headers = "WARC/1.0\r\nWARC-Type: response\r\nWARC-Target-URI: " + url + "\r\n"
+                + "Content-Type: application/http; msgtype=response\r\nContent-Length: " + block.length + "\r\n\r\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(headers.getBytes(StandardCharsets.UTF_8));
+        out.writeBytes(block);
+        out.writeBytes("\r\n\r\n".getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Generates a page of a few paragraphs and links over a shared vocabulary.
+     */
+    private static String page(Random random) {
+        StringBuilder html = new StringBuilder("<html><head><title>benchmark</title></head><body>");
+        for (int p = 0; p < 8 + random.nextInt(24); p++) {
+            html.append("<p>");
+            for (int w = 0; w < 40; w++) {
+                html.append("word").append((int) Math.floor(1 / (random.nextDouble() + 1e-3))).append(' ');
+            }
+            html.append("<a href=\"page").append(random.nextInt(100)).append(".html\">link</a></p>\n");
+        }
+        return html.append("</body></html>").toString();
+    }
+}
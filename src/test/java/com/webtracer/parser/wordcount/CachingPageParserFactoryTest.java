@@ -0,0 +1,62 @@
+package com.webtracer.parser.wordcount;
+
+import com.webtracer.parser.AbstractPageParserFactory;
+import com.webtracer.parser.PageParser;
+import com.webtracer.parser.ParseMode;
+import com.webtracer.parser.ParseProjection;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CachingPageParserFactoryTest {
+
+    private static final WordCountParseResult RESULT = new WordCountParseResult(
+            Map.of("word", 2), List.of("https://example.com/a", "https://example.com/b"), false);
+
+    private final AbstractPageParserFactory delegate = mock(AbstractPageParserFactory.class);
+
+    private final WordCountPageParser parser = mock(WordCountPageParser.class);
+
+    private final CachingPageParserFactory factory = new CachingPageParserFactory(
+            delegate, new InMemoryParseResultCache(1 << 20, Duration.ofMinutes(1)), "settings");
+
+    @Test
+    void givenPageParsedBefore_whenParsedAgain_thenCachedResultIsServedAndLinksAreReplayed() {
+        when(delegate.createParserInstance(any())).thenReturn(parser);
+        when(parser.parse(eq(ParseProjection.ALL), any())).thenReturn(RESULT);
+
+        factory.createParserInstance("https://example.com/").parse(ParseProjection.ALL, link -> {
+        });
+        List<String> listenedLinks = new ArrayList<>();
+        WordCountParseResult cached = factory.createParserInstance("https://example.com/#again")
+                .parse(ParseProjection.ALL, listenedLinks::add);
+
+        verify(parser, times(1)).parse(eq(ParseProjection.ALL), any());
+        assertEquals(RESULT.getWordFrequencyMap(), cached.getWordFrequencyMap());
+        assertEquals(RESULT.getHyperLinkList(), listenedLinks);
+        assertEquals(1, factory.getCache().getStats().getHits());
+    }
+
+    @Test
+    void givenDelegateParser_whenParseModeRequested_thenDelegateModeIsReturned() {
+        when(delegate.createParserInstance(any())).thenReturn(parser);
+        when(parser.getParseMode()).thenReturn(ParseMode.STREAMING);
+
+        assertEquals(ParseMode.STREAMING, factory.createParserInstance("https://example.com/").getParseMode());
+    }
+
+    @Test
+    void givenDelegateCreatingOtherParsers_whenCreatingParserInstance_thenShouldThrowIllegalStateException() {
+        when(delegate.createParserInstance(any())).thenReturn(mock(PageParser.class));
+
+        assertThrows(IllegalStateException.class, () -> factory.createParserInstance("https://example.com/"));
+    }
+}
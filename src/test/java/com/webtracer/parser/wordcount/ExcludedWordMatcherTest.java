@@ -0,0 +1,71 @@
+package com.webtracer.parser.wordcount;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExcludedWordMatcherTest {
+
+    private static final List<String> TOKENS = List.of(
+            "a", "an", "the", "and", "word", "words", "12345", "1a", "hello,", "Zürich", "日本語", "😀",
+            "line break", "of", "x$", "abcabc", "ABC", "abc"
+    );
+
+    @Test
+    void givenLengthPattern_whenIsExcluded_thenMatchesTokensByCodePointLength() {
+        ExcludedWordMatcher matcher = ExcludedWordMatcher.compile(List.of(Pattern.compile("^.{1,3}$")));
+
+        assertTrue(matcher.isExcluded("the"));
+        assertTrue(matcher.isExcluded("日本語"));
+        assertTrue(matcher.isExcluded("😀"));
+        assertFalse(matcher.isExcluded("word"));
+    }
+
+    @Test
+    void givenLiteralAlternation_whenIsExcluded_thenMatchesOnlyListedWords() {
+        ExcludedWordMatcher matcher = ExcludedWordMatcher.compile(List.of(Pattern.compile("^(the|and|of)$")));
+
+        assertTrue(matcher.isExcluded("the"));
+        assertTrue(matcher.isExcluded("of"));
+        assertFalse(matcher.isExcluded("then"));
+        assertFalse(matcher.isExcluded("The"));
+    }
+
+    @Test
+    void givenEmptyPatterns_whenIsExcluded_thenNothingIsExcluded() {
+        ExcludedWordMatcher matcher = ExcludedWordMatcher.compile(List.of());
+
+        TOKENS.forEach(token -> assertFalse(matcher.isExcluded(token)));
+    }
+
+    @Test
+    void givenMixedPatterns_whenIsExcluded_thenDecisionsMatchRegexEvaluation() {
+        List<Pattern> patterns = List.of(
+                Pattern.compile("^.{1,2}$"),
+                Pattern.compile(".{5,}"),
+                Pattern.compile("the|and"),
+                Pattern.compile("(?:of)"),
+                Pattern.compile("\\d+"),
+                Pattern.compile("x\\$"),
+                Pattern.compile("(abc)\\1"),
+                Pattern.compile("abc", Pattern.CASE_INSENSITIVE),
+                Pattern.compile("[A-Z][a-z]+")
+        );
+        ExcludedWordMatcher matcher = ExcludedWordMatcher.compile(patterns);
+
+        for (String token : TOKENS) {
+            boolean expected = patterns.stream().anyMatch(p -> p.matcher(token).matches());
+            assertEquals(expected, matcher.isExcluded(token), "Unexpected decision for token: " + token);
+            // The cached decision must be identical to the evaluated one
+            assertEquals(expected, matcher.isExcluded(token), "Unexpected cached decision for token: " + token);
+        }
+    }
+
+    @Test
+    void givenNullPatterns_whenCompile_thenShouldThrowNullPointerException() {
+        assertThrows(NullPointerException.class, () -> ExcludedWordMatcher.compile(null));
+    }
+}
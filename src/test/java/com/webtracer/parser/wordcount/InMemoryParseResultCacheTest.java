@@ -0,0 +1,133 @@
+package com.webtracer.parser.wordcount;
+
+import com.webtracer.parser.ParseProjection;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryParseResultCacheTest {
+
+    private static final WordCountParseResult RESULT = new WordCountParseResult(
+            Map.of("word", 3, "other", 1), List.of("https://example.com/a", "https://example.com/b"), false);
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void givenCachedResult_whenRequestedUnderAnotherSpellingOfItsUrl_thenCachedCopyIsServed() {
+        InMemoryParseResultCache cache = new InMemoryParseResultCache(1 << 20, Duration.ofMinutes(1), clock);
+        cache.put("", "HTTPS://Example.com:443#top", ParseProjection.ALL, RESULT);
+
+        WordCountParseResult cached = cache.get("", "https://example.com/", ParseProjection.ALL);
+
+        assertNotNull(cached);
+        assertEquals(RESULT.getWordFrequencyMap(), cached.getWordFrequencyMap());
+        assertEquals(RESULT.getHyperLinkList(), cached.getHyperLinkList());
+        assertNull(cache.get("", "https://example.com/", ParseProjection.WORDS));
+        assertNull(cache.get("", "https://example.com/?page=2", ParseProjection.ALL));
+        assertEquals(1, cache.getStats().getHits());
+        assertEquals(2, cache.getStats().getMisses());
+        assertEquals(1.0 / 3, cache.getStats().getHitRatio(), 1e-9);
+    }
+
+    @Test
+    void givenViewResult_whenCachedAndReleased_thenCachedCopyIsUnaffected() {
+        InMemoryParseResultCache cache = new InMemoryParseResultCache(1 << 20, Duration.ofMinutes(1), clock);
+        WordCountParseResult.Builder builder = new WordCountParseResult.Builder().addWord("word").addLink("link");
+        cache.put("", "https://example.com/", ParseProjection.ALL, builder.buildView(() -> {
+        }));
+
+        builder.reset();
+
+        WordCountParseResult cached = cache.get("", "https://example.com/", ParseProjection.ALL);
+        assertEquals(Map.of("word", 1), cached.getWordFrequencyMap());
+        assertEquals(List.of("link"), cached.getHyperLinkList());
+    }
+
+    @Test
+    void givenCachedResult_whenTimeToLiveElapses_thenResultExpires() {
+        InMemoryParseResultCache cache = new InMemoryParseResultCache(1 << 20, Duration.ofMinutes(1), clock);
+        cache.put("", "https://example.com/", ParseProjection.ALL, RESULT);
+
+        clock.advance(Duration.ofSeconds(59));
+        assertNotNull(cache.get("", "https://example.com/", ParseProjection.ALL));
+
+        clock.advance(Duration.ofSeconds(1));
+        assertNull(cache.get("", "https://example.com/", ParseProjection.ALL));
+        assertEquals(0, cache.entryCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void givenTruncatedEmptyOrOversizedResult_whenPut_thenResultIsNotCached() {
+        InMemoryParseResultCache cache = new InMemoryParseResultCache(1_000, Duration.ofMinutes(1), clock);
+
+        cache.put("", "https://example.com/truncated", ParseProjection.ALL,
+                  new WordCountParseResult(Map.of("word", 1), List.of(), true));
+        cache.put("", "https://example.com/empty", ParseProjection.ALL, new WordCountParseResult.Builder().build());
+        cache.put("", "https://example.com/large", ParseProjection.ALL,
+                  new WordCountParseResult(Map.of("a".repeat(1_000), 1), List.of(), false));
+
+        assertEquals(0, cache.entryCount());
+    }
+
+    @Test
+    void givenPopularResult_whenManyPagesAreRequestedOnce_thenPopularResultIsNotEvicted() {
+        InMemoryParseResultCache cache = new InMemoryParseResultCache(10_000, Duration.ofMinutes(1), clock);
+        cache.put("", "https://example.com/popular", ParseProjection.ALL, RESULT);
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(cache.get("", "https://example.com/popular", ParseProjection.ALL));
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            String url = "https://example.com/once/" + i;
+            assertNull(cache.get("", url, ParseProjection.ALL));
+            cache.put("", url, ParseProjection.ALL, new WordCountParseResult(Map.of("word" + i, 1), List.of(), false));
+            assertTrue(cache.size() <= 10_000);
+        }
+
+        assertNotNull(cache.get("", "https://example.com/popular", ParseProjection.ALL));
+        assertTrue(cache.getStats().getRejections() > 0);
+    }
+
+    @Test
+    void givenUrls_whenCanonicalized_thenSchemeHostDefaultPortAndFragmentAreNormalized() {
+        assertEquals("https://example.com/", InMemoryParseResultCache.canonicalUrl("HTTPS://EXAMPLE.com"));
+        assertEquals("http://example.com/a/c?q=1", InMemoryParseResultCache.canonicalUrl(
+                "http://Example.com:80/a/b/../c?q=1#section"));
+        assertEquals("http://example.com:8080/Path", InMemoryParseResultCache.canonicalUrl(
+                "http://example.com:8080/Path"));
+        assertEquals("file:/tmp/page.html", InMemoryParseResultCache.canonicalUrl("file:/tmp/page.html#top"));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
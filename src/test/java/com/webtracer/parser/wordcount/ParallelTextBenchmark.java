@@ -0,0 +1,108 @@
+package com.webtracer.parser.wordcount;
+
+import com.webtracer.parser.DefaultDocumentLoader;
+import com.webtracer.parser.ParseMode;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Measures the speedup of counting the text of a single large page in parallel chunks, on generated pages of
+ * 1 to 100 MB parsed in {@link ParseMode#STREAMING} mode on a {@link ForkJoinPool} as used by the crawlers.
+ *
+ * <p>This is a plain {@code main} program rather than a test, so that it is not executed by the build. Run it
+ * from the IDE or with {@code java -cp target/classes:target/test-classes:<dependencies> ...}. The largest page
+ * size in MB and the parallelism of the pool can be passed as arguments (default to {@code 100} and the number of
+ * available processors). Pages of 100 MB need a heap of about 1 GB.</p>
+ */
+class ParallelTextBenchmark {
+
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 3;
+
+    public static void main(String[] args) throws IOException {
+        int maxMegabytes = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int parallelism = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        System.out.printf("cores=%d, parallelism=%d%n", Runtime.getRuntime().availableProcessors(), parallelism);
+        System.out.printf("%8s %16s %16s %10s%n", "MB", "sequential[ms]", "parallel[ms]", "speedup");
+
+        DefaultDocumentLoader documentLoader = new DefaultDocumentLoader(Duration.ofSeconds(60), 0);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (int megabytes = 1; megabytes <= maxMegabytes; megabytes *= 10) {
+                Path page = page(megabytes);
+                try {
+                    String pageUri = page.toUri().toString();
+                    WordCountParseResult expected = parse(pool, pageUri, documentLoader, 0);
+                    if (!expected.getWordFrequencyMap().equals(parse(pool, pageUri, documentLoader,
+                            WordCountPageParserImpl.DEFAULT_PARALLEL_TEXT_THRESHOLD).getWordFrequencyMap())) {
+                        throw new IllegalStateException("Parallel counting differs for " + megabytes + " MB");
+                    }
+
+                    double sequential = measure(() -> parse(pool, pageUri, documentLoader, 0));
+                    double parallel = measure(() -> parse(pool, pageUri, documentLoader,
+                                                          WordCountPageParserImpl.DEFAULT_PARALLEL_TEXT_THRESHOLD));
+                    System.out.printf("%8d %16.1f %16.1f %10.2f%n", megabytes, sequential, parallel,
+                                      sequential / parallel);
+                } finally {
+                    Files.delete(page);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static WordCountParseResult parse(ForkJoinPool pool, String pageUri, DefaultDocumentLoader documentLoader,
+                                              int parallelTextThreshold) {
+        return pool.invoke(ForkJoinTask.adapt(
+                () -> WordCountPageParserImpl.builder()
+                        .pageUri(pageUri)
+                        .excludedWordMatcher(ExcludedWordMatcher.none())
+                        .documentLoader(documentLoader)
+                        .parseMode(ParseMode.STREAMING)
+                        .parallelTextThreshold(parallelTextThreshold)
+                        .maxParseCpuTime(Duration.ZERO)
+                        .build()
+                        .parse()));
+    }
+
+    private static double measure(Runnable parse) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            parse.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            parse.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+    }
+
+    /**
+     * Generates a page of about the given size, made of log-like lines inside a single {@code <pre>} element, i.e.
+     * one huge text node.
+     */
+    private static Path page(int megabytes) throws IOException {
+        Random random = new Random(megabytes);
+        Path page = Files.createTempFile("benchmark", ".html");
+        try (BufferedWriter writer = Files.newBufferedWriter(page)) {
+            writer.write("<html><body><pre>");
+            long length = 0;
+            while (length < megabytes * 1_000_000L) {
+                String line = "2024-05-0" + random.nextInt(10) + " INFO worker" + random.nextInt(64)
+                        + " processed request " + Long.toString(random.nextInt(1 << 20), 36) + " in "
+                        + random.nextInt(1000) + " ms\n";
+                writer.write(line);
+                length += line.length();
+            }
+            writer.write("</pre></body></html>");
+        }
+        return page;
+    }
+}
@@ -0,0 +1,101 @@
+package com.webtracer.parser.wordcount;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParseResultStoreTest {
+
+    private static final WordCountParseResult RESULT = new WordCountParseResult(
+            Map.of("zażółć", 2, "gęślą", 1, "word", 1_000_000),
+            List.of("https://example.com/a", "https://example.com/ab", "https://example.com/żółw",
+                    "https://example.com/żółta", "https://other.org/"),
+            false);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void givenStoredResult_whenReplayedAfterReopening_thenWordsAndLinksAreRestoredInOrder() throws IOException {
+        ParseResultStore store = ParseResultStore.open(directory, 1 << 20, "test");
+        ParseResultStore.Key key = store.key(bytes("<p>page</p>"), "https://example.com/");
+        store.put(key, RESULT);
+
+        ParseResultStore reopened = ParseResultStore.open(directory, 1 << 20, "test");
+        WordCountParseResult.Builder builder = new WordCountParseResult.Builder();
+        List<String> listenedLinks = new ArrayList<>();
+
+        assertTrue(reopened.replay(reopened.key(bytes("<p>page</p>"), "https://example.com/"), builder,
+                                   listenedLinks::add));
+        WordCountParseResult replayed = builder.build();
+        assertEquals(RESULT.getWordFrequencyMap(), replayed.getWordFrequencyMap());
+        assertEquals(RESULT.getHyperLinkList(), replayed.getHyperLinkList());
+        assertEquals(RESULT.getHyperLinkList(), listenedLinks);
+        assertEquals(1, reopened.getHits());
+    }
+
+    @Test
+    void givenDifferentContentContextOrFingerprint_whenReplay_thenNothingIsFound() throws IOException {
+        ParseResultStore store = ParseResultStore.open(directory, 1 << 20, "test");
+        store.put(store.key(bytes("<p>page</p>"), "https://example.com/"), RESULT);
+        ParseResultStore otherFingerprint = ParseResultStore.open(directory, 1 << 20, "other exclusions");
+        WordCountParseResult.Builder builder = new WordCountParseResult.Builder();
+
+        assertFalse(store.replay(store.key(bytes("<p>page!</p>"), "https://example.com/"), builder, link -> {
+        }));
+        assertFalse(store.replay(store.key(bytes("<p>page</p>"), "https://example.com/other"), builder, link -> {
+        }));
+        assertFalse(otherFingerprint.replay(otherFingerprint.key(bytes("<p>page</p>"), "https://example.com/"),
+                                            builder, link -> {
+                }));
+        assertTrue(builder.build().getWordFrequencyMap().isEmpty());
+        assertEquals(2, store.getMisses());
+    }
+
+    @Test
+    void givenTruncatedResult_whenPut_thenItIsNotStored() throws IOException {
+        ParseResultStore store = ParseResultStore.open(directory, 1 << 20, "test");
+        ParseResultStore.Key key = store.key(bytes("<p>page"), "https://example.com/");
+
+        store.put(key, new WordCountParseResult(Map.of("page", 1), List.of(), true));
+
+        assertFalse(store.replay(key, new WordCountParseResult.Builder(), link -> {
+        }));
+    }
+
+    @Test
+    void givenMoreResultsThanFit_whenPut_thenRecentlyUsedResultsSurviveAndOldOnesAgeOut() throws IOException {
+        ParseResultStore store = ParseResultStore.open(directory, 2 * ParseResultStore.MIN_GENERATION_SIZE, "test");
+        ParseResultStore.Key kept = store.key(bytes("kept"), "");
+        ParseResultStore.Key dropped = store.key(bytes("dropped"), "");
+        store.put(kept, RESULT);
+        store.put(dropped, RESULT);
+
+        // Each generation holds a few hundred results; the kept result is looked up as the crawls go on
+        for (int i = 0; i < 5_000; i++) {
+            store.put(store.key(bytes("page " + i), ""), RESULT);
+            if (i % 100 == 0) {
+                assertTrue(store.replay(kept, new WordCountParseResult.Builder(), link -> {
+                }), "lookup " + i);
+            }
+        }
+
+        assertFalse(store.replay(dropped, new WordCountParseResult.Builder(), link -> {
+        }));
+        assertTrue(ParseResultStore.open(directory, 2 * ParseResultStore.MIN_GENERATION_SIZE, "test")
+                           .replay(kept, new WordCountParseResult.Builder(), link -> {
+                           }));
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,102 @@
+package com.webtracer.parser.wordcount;
+
+import com.webtracer.parser.DefaultDocumentLoader;
+import com.webtracer.parser.ParseMode;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the allocation per page of parsing many small generated pages with fresh and with reused parser state,
+ * draining each result into an aggregate as a crawl does.
+ *
+ * <p>This is a plain {@code main} program rather than a test, so that it is not executed by the build. Run it
+ * from the IDE or with {@code java -cp target/classes:target/test-classes:<dependencies> ...}. The number of
+ * pages can be passed as the first argument (defaults to {@code 500}).</p>
+ */
+class ParserStateReuseBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int pageCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        Path directory = Files.createTempDirectory("benchmark");
+        List<Path> pages = new ArrayList<>();
+        try {
+            Random random = new Random(pageCount);
+            for (int i = 0; i < pageCount; i++) {
+                pages.add(Files.writeString(directory.resolve("page" + i + ".html"), page(random)));
+            }
+            System.out.printf("pages=%d, first page=%d B%n", pageCount, Files.size(pages.get(0)));
+            System.out.printf("%16s %8s %12s %18s%n", "mode", "reuse", "time[us]", "allocated[KiB]");
+
+            DefaultDocumentLoader documentLoader = new DefaultDocumentLoader(Duration.ofSeconds(10));
+            for (ParseMode parseMode : List.of(ParseMode.DOM, ParseMode.STREAMING, ParseMode.STREAMING_BYTES)) {
+                for (boolean reuse : List.of(false, true)) {
+                    Runnable crawl = () -> {
+                        Map<String, Integer> aggregate = new HashMap<>();
+                        for (Path page : pages) {
+                            WordCountParseResult result = WordCountPageParserImpl.builder()
+                                    .pageUri(page.toUri().toString())
+                                    .excludedWordMatcher(ExcludedWordMatcher.none())
+                                    .documentLoader(documentLoader)
+                                    .parseMode(parseMode)
+                                    .reuseParserState(reuse)
+                                    .build()
+                                    .parse();
+                            result.getWordFrequencyMap().forEach((word, count) -> aggregate.merge(word, count,
+                                                                                                  Integer::sum));
+                            result.release();
+                        }
+                    };
+                    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                        crawl.run();
+                    }
+                    long allocatedBefore = allocatedBytes();
+                    long start = System.nanoTime();
+                    for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                        crawl.run();
+                    }
+                    int parsedPages = MEASURED_ROUNDS * pageCount;
+                    double micros = (System.nanoTime() - start) / 1e3 / parsedPages;
+                    double allocated = (allocatedBytes() - allocatedBefore) / 1024.0 / parsedPages;
+                    System.out.printf("%16s %8s %12.1f %18.1f%n", parseMode, reuse, micros, allocated);
+                }
+            }
+        } finally {
+            for (Path page : pages) {
+                Files.delete(page);
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Generates a small page of a few paragraphs and links over a shared vocabulary.
+     */
+    private static String page(Random random) {
+        StringBuilder html = new StringBuilder("<html><head><title>benchmark</title></head><body>");
+        for (int p = 0; p < 8; p++) {
+            html.append("<p>");
+            for (int w = 0; w < 20; w++) {
+                html.append("word").append((int) Math.floor(1 / (random.nextDouble() + 1e-3))).append(' ');
+            }
+            html.append("<a href=\"page").append(random.nextInt(100)).append(".html\">link</a></p>\n");
+        }
+        return html.append("</body></html>").toString();
+    }
+}
@@ -0,0 +1,62 @@
+package com.webtracer.parser.wordcount;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParserWorkspaceTest {
+
+    @Test
+    void givenReleasedWorkspace_whenAcquire_thenSameClearedWorkspaceIsReused() {
+        ParserWorkspace workspace = ParserWorkspace.acquire();
+        byte[] token = "apple".getBytes(StandardCharsets.UTF_8);
+        workspace.getUtf8Tokens().add(token, 0, token.length);
+        WordCountParseResult result = workspace.getResultBuilder()
+                .addWord("apple")
+                .addLink("https://example.com")
+                .markTruncated()
+                .buildView(workspace.releaseAction());
+
+        result.release();
+        ParserWorkspace reused = ParserWorkspace.acquire();
+
+        assertSame(workspace, reused);
+        assertEquals(0, reused.getUtf8Tokens().size());
+        WordCountParseResult empty = reused.getResultBuilder().build();
+        assertTrue(empty.getWordFrequencyMap().isEmpty());
+        assertTrue(empty.getHyperLinkList().isEmpty());
+        assertFalse(empty.isTruncated());
+        reused.release();
+    }
+
+    @Test
+    void givenWorkspaceInUse_whenAcquire_thenAnotherWorkspaceIsReturned() {
+        ParserWorkspace outer = ParserWorkspace.acquire();
+        ParserWorkspace inner = ParserWorkspace.acquire();
+
+        assertNotSame(outer, inner);
+        inner.release();
+        outer.release();
+    }
+
+    @Test
+    void givenResultReleasedTwice_whenWorkspaceIsLeasedAgain_thenNewLeaseIsNotReleased() {
+        ParserWorkspace workspace = ParserWorkspace.acquire();
+        WordCountParseResult first = workspace.getResultBuilder().buildView(workspace.releaseAction());
+        first.release();
+
+        ParserWorkspace reused = ParserWorkspace.acquire();
+        WordCountParseResult second = reused.getResultBuilder()
+                .addWord("apple")
+                .buildView(reused.releaseAction());
+        first.release();
+
+        assertSame(workspace, reused);
+        assertEquals(Map.of("apple", 1), second.getWordFrequencyMap());
+        assertNotSame(reused, ParserWorkspace.acquire());
+        second.release();
+    }
+}
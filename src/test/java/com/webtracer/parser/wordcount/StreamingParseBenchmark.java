@@ -0,0 +1,87 @@
+package com.webtracer.parser.wordcount;
+
+import com.webtracer.parser.DefaultDocumentLoader;
+import com.webtracer.parser.ParseMode;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the time and allocation of parsing a large generated page in each {@link ParseMode}.
+ *
+ * <p>This is a plain {@code main} program rather than a test, so that it is not executed by the build. Run it
+ * from the IDE or with {@code java -cp target/classes:target/test-classes:<dependencies> ...}. The number of
+ * paragraphs can be passed as the first argument (defaults to {@code 200_000}).</p>
+ */
+class StreamingParseBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int paragraphs = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Path page = Files.createTempFile("benchmark", ".html");
+        try {
+            Files.writeString(page, page(paragraphs));
+            String pageUri = page.toUri().toString();
+            System.out.printf("page=%d KiB%n", Files.size(page) / 1024);
+            System.out.printf("%16s %12s %16s%n", "mode", "time[ms]", "allocated[MiB]");
+
+            DefaultDocumentLoader documentLoader = new DefaultDocumentLoader(Duration.ofSeconds(10));
+            for (ParseMode parseMode : List.of(ParseMode.DOM, ParseMode.STREAMING, ParseMode.STREAMING_BYTES)) {
+                Runnable parse = () -> WordCountPageParserImpl.builder()
+                        .pageUri(pageUri)
+                        .excludedWordMatcher(ExcludedWordMatcher.none())
+                        .documentLoader(documentLoader)
+                        .parseMode(parseMode)
+                        .build()
+                        .parse();
+                for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                    parse.run();
+                }
+                long allocatedBefore = allocatedBytes();
+                long start = System.nanoTime();
+                for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                    parse.run();
+                }
+                double millis = (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+                double allocated = (allocatedBytes() - allocatedBefore) / 1048576.0 / MEASURED_ROUNDS;
+                System.out.printf("%16s %12.2f %16.2f%n", parseMode, millis, allocated);
+            }
+        } finally {
+            Files.delete(page);
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Generates a page whose words follow a Zipf-like distribution over a small vocabulary, as in natural text.
+     */
+    private static String page(int paragraphs) {
+        Random random = new Random(paragraphs);
+        String[] vocabulary = new String[5_000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = Long.toString(random.nextLong() & Long.MAX_VALUE, 36).substring(0, 3 + random.nextInt(6));
+        }
+
+        StringBuilder html = new StringBuilder("<html><head><title>benchmark</title></head><body>");
+        for (int p = 0; p < paragraphs; p++) {
+            html.append("<p>");
+            for (int w = 0; w < 12; w++) {
+                int rank = (int) Math.min(vocabulary.length - 1, Math.floor(1 / (random.nextDouble() + 1e-4)));
+                html.append(vocabulary[rank]).append(' ');
+            }
+            html.append("<a href=\"page").append(p % 100).append(".html\">link</a></p>\n");
+        }
+        return html.append("</body></html>").toString();
+    }
+}
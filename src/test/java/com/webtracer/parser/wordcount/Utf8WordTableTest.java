@@ -0,0 +1,50 @@
+package com.webtracer.parser.wordcount;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Utf8WordTableTest {
+
+    private static Map<String, Integer> contents(Utf8WordTable table) {
+        Map<String, Integer> contents = new HashMap<>();
+        table.forEach(contents::put);
+        return contents;
+    }
+
+    @Test
+    void givenRepeatedTokens_whenAdded_thenEachDistinctTokenIsCountedOnce() {
+        byte[] text = "apple banana apple zażółć apple".getBytes(StandardCharsets.UTF_8);
+        Utf8WordTable table = new Utf8WordTable();
+
+        table.add(text, 0, 5);
+        table.add(text, 6, 6);
+        table.add(text, 13, 5);
+        table.add(text, 19, 10);
+        table.add(text, text.length - 5, 5);
+
+        assertEquals(3, table.size());
+        assertEquals(Map.of("apple", 3, "banana", 1, "zażółć", 1), contents(table));
+    }
+
+    @Test
+    void givenManyDistinctTokens_whenAdded_thenTableGrowsWithoutLosingCounts() {
+        Utf8WordTable table = new Utf8WordTable();
+        Map<String, Integer> expected = new HashMap<>();
+
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 10_000; i++) {
+                byte[] token = ("word" + i).getBytes(StandardCharsets.UTF_8);
+                table.add(token, 0, token.length);
+                expected.merge("word" + i, 1, Integer::sum);
+            }
+        }
+
+        assertEquals(10_000, table.size());
+        assertEquals(expected, contents(table));
+    }
+}
@@ -8,7 +8,9 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,7 +33,7 @@ class WordCountNodeProcessorTest {
     void givenTextNode_whenProcessTextNode_thenWordsAreAddedToResultBuilder() {
         // Given
         TextNode textNode = new TextNode("Hello World 123");
-        WordCountNodeProcessor processor = new WordCountNodeProcessor(excludePatterns, resultBuilderMock, pageUri);
+        WordCountNodeProcessor processor = new WordCountNodeProcessor(ExcludedWordMatcher.compile(excludePatterns), resultBuilderMock, pageUri);
 
         // When
         processor.processTextNode(textNode);
@@ -53,7 +55,7 @@ class WordCountNodeProcessorTest {
         when(element.hasAttr("href")).thenReturn(true);
         when(element.attr("href")).thenReturn("/relative-link.html");
 
-        WordCountNodeProcessor processor = new WordCountNodeProcessor(excludePatterns, resultBuilderMock, pageUri);
+        WordCountNodeProcessor processor = new WordCountNodeProcessor(ExcludedWordMatcher.compile(excludePatterns), resultBuilderMock, pageUri);
 
         // When
         processor.processElement(element);
@@ -70,7 +72,7 @@ class WordCountNodeProcessorTest {
         Element element = mock(Element.class);
         when(element.attr("href")).thenReturn("https://example.com/page");
 
-        WordCountNodeProcessor processor = new WordCountNodeProcessor(excludePatterns, resultBuilderMock, pageUri);
+        WordCountNodeProcessor processor = new WordCountNodeProcessor(ExcludedWordMatcher.compile(excludePatterns), resultBuilderMock, pageUri);
 
         // When
         String resolvedLink = processor.resolveLink(element);
@@ -85,7 +87,7 @@ class WordCountNodeProcessorTest {
         Element element = mock(Element.class);
         when(element.attr("href")).thenReturn("/local-page.html");
 
-        WordCountNodeProcessor processor = new WordCountNodeProcessor(excludePatterns, resultBuilderMock, pageUri);
+        WordCountNodeProcessor processor = new WordCountNodeProcessor(ExcludedWordMatcher.compile(excludePatterns), resultBuilderMock, pageUri);
 
         // When
         String resolvedLink = processor.resolveLink(element);
@@ -94,4 +96,65 @@ class WordCountNodeProcessorTest {
         assertEquals("file:///local-page.html", resolvedLink);
     }
 
+    @Test
+    void givenTextAboveParallelThreshold_whenGetResult_thenSameWordsAsCountedSequentially() {
+        // Given
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            texts.add("  Word" + (i % 700) + " and\u2003 " + i + " more\u00a0text\u000b here ");
+        }
+
+        // When
+        Map<String, Integer> sequential = countWords(texts, 0);
+        Map<String, Integer> parallel = countWords(texts, 100);
+
+        // Then
+        assertEquals(20_000, sequential.get("here"));
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void givenSingleHugeText_whenGetResult_thenSameWordsAsCountedSequentially() {
+        // Given
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < 3 * WordCountNodeProcessor.CHUNK_LENGTH; i++) {
+            text.append("alpha\u2003 beta \u2003gamma \u001fdelta ").append(i % 97).append("\n\t word").append(i % 13)
+                    .append(' ');
+        }
+
+        // When
+        Map<String, Integer> sequential = countWords(List.of(text.toString()), 0);
+        Map<String, Integer> parallel = countWords(List.of(text.toString()), 1);
+
+        // Then
+        assertTrue(sequential.get("alpha") > 1000);
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void givenNormalizedText_whenSplitAtWhitespace_thenPartsEndAtSpacesBetweenVisibleCharacters() {
+        // Given
+        String text = "x\u2003 y ".repeat(WordCountNodeProcessor.CHUNK_LENGTH / 2) + "end";
+
+        // When
+        List<String> parts = WordCountNodeProcessor.splitAtWhitespace(text);
+
+        // Then
+        assertTrue(parts.size() > 1);
+        assertEquals(text, String.join(" ", parts));
+        for (String part : parts.subList(0, parts.size() - 1)) {
+            assertTrue(part.length() >= WordCountNodeProcessor.CHUNK_LENGTH);
+            assertFalse(Character.isWhitespace(part.charAt(part.length() - 1)));
+        }
+    }
+
+    private Map<String, Integer> countWords(List<String> texts, int parallelTextThreshold) {
+        WordCountParseResult.Builder resultBuilder = new WordCountParseResult.Builder();
+        WordCountNodeProcessor processor = new WordCountNodeProcessor(ExcludedWordMatcher.compile(excludePatterns),
+                                                                      resultBuilder, pageUri, link -> {
+        }, parallelTextThreshold);
+        texts.forEach(processor::processText);
+        return processor.getResult().getWordFrequencyMap();
+    }
+
 }
@@ -2,6 +2,8 @@ package com.webtracer.parser.wordcount;
 
 import com.webtracer.parser.DefaultDocumentLoader;
 import com.webtracer.parser.PageParser;
+import com.webtracer.parser.PageFormat;
+import com.webtracer.parser.ParseMode;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -47,4 +49,21 @@ class WordCountPageParserFactoryImplTest {
         assertEquals("url is marked non-null but is null", exception.getMessage(), "Expected NullPointerException with a specific message");
     }
 
-}
\ No newline at end of file
+    @Test
+    void givenStreamingParseMode_whenCreatingParserInstance_thenParserStreamsPages() {
+        factory = new WordCountPageParserFactoryImpl(excludedPatterns, new DefaultDocumentLoader(crawlTimeout),
+                                                     ParseMode.STREAMING);
+
+        WordCountPageParserImpl parser = factory.createParserInstance("http://example.com");
+
+        assertEquals(ParseMode.STREAMING, parser.getParseMode());
+    }
+
+    @Test
+    void givenUrlWithKnownExtension_whenCreatingParserInstance_thenParserReadsPageFormat() {
+        assertEquals(PageFormat.PLAIN_TEXT, factory.createParserInstance("http://example.com/notes.txt").getPageFormat());
+        assertEquals(PageFormat.XML, factory.createParserInstance("http://example.com/sitemap.xml").getPageFormat());
+        assertNull(factory.createParserInstance("http://example.com/about").getPageFormat());
+    }
+
+}
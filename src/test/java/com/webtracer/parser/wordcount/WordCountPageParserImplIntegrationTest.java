@@ -2,34 +2,44 @@ package com.webtracer.parser.wordcount;
 
 import com.webtracer.parser.DefaultDocumentLoader;
 import com.webtracer.parser.DocumentLoader;
+import com.webtracer.parser.PageFormat;
+import com.webtracer.parser.ParseMode;
+import com.webtracer.parser.ParseProjection;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class WordCountPageParserImplIntegrationTest {
 
     private DocumentLoader testDocumentLoader;
-    private List<Pattern> excludePatterns;
+    private ExcludedWordMatcher excludedWordMatcher;
 
     @BeforeEach
     void setUp() {
-        excludePatterns = List.of(Pattern.compile("\\d+"));  // Example: Exclude numbers
+        excludedWordMatcher = ExcludedWordMatcher.compile(List.of(Pattern.compile("\\d+")));  // Example: Exclude numbers
         testDocumentLoader = new DefaultDocumentLoader(Duration.ofSeconds(2));  // 2 seconds timeout
     }
 
     @Test
     void givenSimpleHtml_whenParse_thenCorrectWordCountAndLinks() throws IOException {
         String resourcePath = Path.of("src/test/resources/simple.html").toUri().toString();
-        WordCountPageParserImpl parser = new WordCountPageParserImpl(resourcePath, excludePatterns,
-                                                                     testDocumentLoader
-        );
+        WordCountPageParserImpl parser = parser(resourcePath).build();
 
         WordCountParseResult result = parser.parse();
 
@@ -42,9 +52,7 @@ class WordCountPageParserImplIntegrationTest {
     @Test
     void givenComplexHtml_whenParse_thenCorrectWordCountAndLinks() throws IOException {
         String resourcePath = Path.of("src/test/resources/complex.html").toUri().toString();
-        WordCountPageParserImpl parser = new WordCountPageParserImpl(resourcePath, excludePatterns,
-                                                                     testDocumentLoader
-        );
+        WordCountPageParserImpl parser = parser(resourcePath).build();
 
         WordCountParseResult result = parser.parse();
 
@@ -63,9 +71,7 @@ class WordCountPageParserImplIntegrationTest {
     @Test
     void givenEmptyHtml_whenParse_thenEmptyResult() throws IOException {
         String resourcePath = Path.of("src/test/resources/empty.html").toUri().toString();
-        WordCountPageParserImpl parser = new WordCountPageParserImpl(resourcePath, excludePatterns,
-                                                                     testDocumentLoader
-        );
+        WordCountPageParserImpl parser = parser(resourcePath).build();
 
         WordCountParseResult result = parser.parse();
 
@@ -76,9 +82,7 @@ class WordCountPageParserImplIntegrationTest {
     @Test
     void givenInvalidHtml_whenParse_thenCorrectWordCount() throws IOException {
         String resourcePath = Path.of("src/test/resources/invalid.html").toUri().toString();
-        WordCountPageParserImpl parser = new WordCountPageParserImpl(resourcePath, excludePatterns,
-                                                                     testDocumentLoader
-        );
+        WordCountPageParserImpl parser = parser(resourcePath).build();
 
         WordCountParseResult result = parser.parse();
 
@@ -95,7 +99,7 @@ class WordCountPageParserImplIntegrationTest {
     void givenHtmlWithSpecialCharacters_whenParse_thenCorrectWordCountAndLinks()
             throws IOException {
         String resourcePath = Path.of("src/test/resources/special_characters.html").toUri().toString();
-        WordCountPageParserImpl parser = new WordCountPageParserImpl(resourcePath, excludePatterns, testDocumentLoader);
+        WordCountPageParserImpl parser = parser(resourcePath).build();
 
         WordCountParseResult result = parser.parse();
 
@@ -109,7 +113,7 @@ class WordCountPageParserImplIntegrationTest {
     @Test
     void givenLargeHtml_whenParse_thenCorrectWordCountAndLinks() throws IOException {
         String resourcePath = Path.of("src/test/resources/large.html").toUri().toString();
-        WordCountPageParserImpl parser = new WordCountPageParserImpl(resourcePath, excludePatterns, testDocumentLoader);
+        WordCountPageParserImpl parser = parser(resourcePath).build();
 
         WordCountParseResult result = parser.parse();
 
@@ -120,7 +124,7 @@ class WordCountPageParserImplIntegrationTest {
     @Test
     void givenHtmlWithNestedLinks_whenParse_thenCorrectWordCountAndLinks() throws IOException {
         String resourcePath = Path.of("src/test/resources/nested_links.html").toUri().toString();
-        WordCountPageParserImpl parser = new WordCountPageParserImpl(resourcePath, excludePatterns, testDocumentLoader);
+        WordCountPageParserImpl parser = parser(resourcePath).build();
 
         WordCountParseResult result = parser.parse();
 
@@ -131,4 +135,352 @@ class WordCountPageParserImplIntegrationTest {
         assertTrue(result.getHyperLinkList().contains("https://deep-nested-example.com"));
     }
 
+    static Stream<Path> htmlResources() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of("src/test/resources"))) {
+            return files.filter(file -> file.toString().endsWith(".html")).sorted().toList().stream();
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("htmlResources")
+    void givenHtmlResource_whenParseInStreamingModes_thenSameResultAsDomMode(Path file) {
+        assertSameResultInAllModes(file.toUri().toString());
+    }
+
+    @ParameterizedTest
+    @MethodSource("htmlResources")
+    void givenHtmlResource_whenParseWithParallelCounting_thenSameResultAsSequentialCounting(Path file) {
+        String pageUri = file.toUri().toString();
+        for (ParseMode parseMode : List.of(ParseMode.DOM, ParseMode.STREAMING)) {
+            WordCountParseResult sequential = parser(pageUri)
+                    .parseMode(parseMode)
+                    .parallelTextThreshold(0)
+                    .build()
+                    .parse();
+            WordCountParseResult parallel = parser(pageUri)
+                    .parseMode(parseMode)
+                    .parallelTextThreshold(1)
+                    .build()
+                    .parse();
+
+            assertEquals(sequential.getWordFrequencyMap(), parallel.getWordFrequencyMap(), parseMode + " " + pageUri);
+            assertEquals(sequential.getHyperLinkList(), parallel.getHyperLinkList(), parseMode + " " + pageUri);
+        }
+    }
+
+    @Test
+    void givenPageLargerThanMaxBodySize_whenParse_thenOnlyPrefixIsCountedAndResultIsTruncated(@TempDir Path directory)
+            throws IOException {
+        Path page = Files.writeString(directory.resolve("large.html"),
+                                      "<html><body><p>first words</p>" + "<p>later words</p>".repeat(1000)
+                                              + "</body></html>");
+        DocumentLoader limitedLoader = new DefaultDocumentLoader(Duration.ofSeconds(10), 200);
+
+        for (ParseMode parseMode : ParseMode.values()) {
+            WordCountParseResult result = WordCountPageParserImpl.builder()
+                    .pageUri(page.toUri().toString())
+                    .excludedWordMatcher(excludedWordMatcher)
+                    .documentLoader(limitedLoader)
+                    .parseMode(parseMode)
+                    .build()
+                    .parse();
+
+            assertTrue(result.isTruncated(), parseMode.name());
+            assertEquals(1, result.getWordFrequencyMap().get("first"), parseMode.name());
+            assertTrue(result.getWordFrequencyMap().get("later") < 20, parseMode.name());
+        }
+    }
+
+    @Test
+    void givenPageWithinMaxBodySize_whenParse_thenResultIsNotTruncated() throws IOException {
+        String pageUri = getClass().getClassLoader().getResource("large.html").toString();
+
+        for (ParseMode parseMode : ParseMode.values()) {
+            WordCountParseResult result = parser(pageUri).parseMode(parseMode).build().parse();
+
+            assertFalse(result.isTruncated(), parseMode.name());
+        }
+    }
+
+    @Test
+    void givenDeeplyNestedPageAndExhaustedBudget_whenParse_thenPartialResultIsTruncated(@TempDir Path directory)
+            throws IOException {
+        Path page = Files.writeString(directory.resolve("nested.html"),
+                                      "<div>word ".repeat(5_000) + "</div>".repeat(5_000));
+
+        for (ParseMode parseMode : ParseMode.values()) {
+            WordCountParseResult full = parser(page.toUri().toString())
+                    .parseMode(parseMode)
+                    .parallelTextThreshold(0)
+                    .maxParseCpuTime(Duration.ZERO)
+                    .build()
+                    .parse();
+            WordCountParseResult limited = parser(page.toUri().toString())
+                    .parseMode(parseMode)
+                    .parallelTextThreshold(0)
+                    .maxParseCpuTime(Duration.ofNanos(1))
+                    .build()
+                    .parse();
+
+            assertFalse(full.isTruncated(), parseMode.name());
+            assertEquals(5_000, full.getWordFrequencyMap().get("word"), parseMode.name());
+            assertTrue(limited.isTruncated(), parseMode.name());
+            assertTrue(limited.getWordFrequencyMap().getOrDefault("word", 0) < 5_000, parseMode.name());
+        }
+    }
+
+    @Test
+    void givenUnusualMarkup_whenParseInStreamingModes_thenSameResultAsDomMode(@TempDir Path directory)
+            throws IOException {
+        Path file = directory.resolve("unusual.html");
+        // Kept out of the text block, whose indentation stripping would treat these characters as white space
+        String unusualWhitespace = "<p>\u2003em-space\u2003 padded\u2003words\u2003</p>"
+                + "<p>\u001fcontrol\u001f</p><p>\u0085 \u3000 \u2003</p>";
+        Files.writeString(file, """
+                <!DOCTYPE html>
+                <html><head><title>Title &amp; more</title>
+                <script>var s = "<a href='hidden.html'>hidden</a>";</script>
+                <style>p { color: red }</style></head>
+                <body>
+                <p>one<b>two</b>three&nbsp;four&shy;five <!-- comment words --> six</p>
+                <A HREF="upper.html">Upper</A><a href=unquoted.html>x</a><a name="no-href">y</a>
+                <table>text in table<tr><td>cell</td></tr></table>
+                <textarea>area <b>not bold</b></textarea>
+                1 < 2 and 3 > 2 <![CDATA[cdata words]]>
+                <p>unclosed <div>nested</p></div>
+                <p>zażółć gęślą jaźń; naïve café — 1,5&nbsp;kg a b soft­hyphen zero​width</p>
+                %s
+                </body></html>
+                trailing words
+                """.formatted(unusualWhitespace));
+
+        assertSameResultInAllModes(file.toUri().toString());
+    }
+
+    @Test
+    void givenUtf16PageWithByteOrderMark_whenParseInByteMode_thenSameResultAsUtf8Page(@TempDir Path directory)
+            throws IOException {
+        String html = "<html><body><p>Zażółć gęślą jaźń, <a href=\"next.html\">next</a> page page</p></body></html>";
+        Path utf8 = Files.writeString(directory.resolve("utf8.html"), html);
+        Path utf16 = Files.write(directory.resolve("utf16.html"),
+                                 ("\uFEFF" + html).getBytes(StandardCharsets.UTF_16LE));
+
+        WordCountParseResult expected = parser(utf8.toUri().toString())
+                .parseMode(ParseMode.STREAMING_BYTES)
+                .build()
+                .parse();
+        WordCountParseResult result = parser(utf16.toUri().toString())
+                .parseMode(ParseMode.STREAMING_BYTES)
+                .build()
+                .parse();
+
+        assertEquals(2, result.getWordFrequencyMap().get("page"));
+        assertEquals(expected.getWordFrequencyMap(), result.getWordFrequencyMap());
+        assertEquals(List.of(directory.resolve("next.html").toUri().toString()), result.getHyperLinkList());
+    }
+
+    @Test
+    void givenPlainTextFile_whenParseInAnyMode_thenTextIsCountedWithoutHtmlParsing(@TempDir Path directory)
+            throws IOException {
+        Path file = Files.writeString(directory.resolve("notes.txt"), "if a <b> c <a href=\"x.html\"> d <b>");
+
+        for (ParseMode parseMode : ParseMode.values()) {
+            WordCountParseResult result = createParser(file, parseMode).parse();
+
+            assertEquals(2, result.getWordFrequencyMap().get("b"), parseMode.name());
+            assertEquals(1, result.getWordFrequencyMap().get("d"), parseMode.name());
+            assertTrue(result.getHyperLinkList().isEmpty(), parseMode.name());
+        }
+    }
+
+    @Test
+    void givenMarkdownFile_whenParse_thenLinksAreResolvedAndTargetsAreNotCounted(@TempDir Path directory)
+            throws IOException {
+        Path file = Files.writeString(directory.resolve("README.md"), """
+                # Guide
+                Read the [install guide](docs/install.md) or see <https://example.com/faq>.
+                ![diagram](diagram.png)
+
+                [changelog]: CHANGES.md
+                """);
+
+        WordCountParseResult result = createParser(file, ParseMode.DOM).parse();
+
+        assertEquals(Set.of(directory.resolve("docs/install.md").toUri().toString(), "https://example.com/faq",
+                            directory.resolve("CHANGES.md").toUri().toString()), Set.copyOf(result.getHyperLinkList()));
+        assertEquals(1, result.getWordFrequencyMap().get("install"));
+        assertEquals(1, result.getWordFrequencyMap().get("diagram"));
+        assertNull(result.getWordFrequencyMap().get("docs"));
+        assertNull(result.getWordFrequencyMap().get("changes"));
+    }
+
+    @Test
+    void givenSitemap_whenParse_thenLocationsAreLinksAndMetadataIsIgnored(@TempDir Path directory)
+            throws IOException {
+        Path file = Files.writeString(directory.resolve("sitemap.xml"), """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <urlset xmlns="http://www.sitemaps.org/schemas/sitemap/0.9">
+                  <url>
+                    <loc>https://example.com/about?lang=en&amp;page=1</loc>
+                    <lastmod>2024-01-01</lastmod>
+                    <changefreq>weekly</changefreq>
+                    <priority>0.8</priority>
+                  </url>
+                  <url><loc> pages/contact.html </loc><changefreq>monthly</changefreq></url>
+                  <!-- generated sitemap -->
+                </urlset>
+                """);
+
+        WordCountParseResult result = createParser(file, ParseMode.DOM).parse();
+
+        assertEquals(Set.of("https://example.com/about?lang=en&page=1",
+                            directory.resolve("pages/contact.html").toUri().toString()),
+                     Set.copyOf(result.getHyperLinkList()));
+        assertTrue(result.getWordFrequencyMap().isEmpty(), result.getWordFrequencyMap().toString());
+    }
+
+    @ParameterizedTest
+    @EnumSource(ParseMode.class)
+    void givenProjection_whenParse_thenOnlySelectedOutputsAreExtracted(ParseMode parseMode) {
+        String pageUri = Path.of("src/test/resources/complex.html").toUri().toString();
+        WordCountPageParserImpl parser = parser(pageUri).parseMode(parseMode).build();
+        WordCountParseResult all = parser.parse(ParseProjection.ALL);
+
+        WordCountParseResult words = parser.parse(ParseProjection.WORDS);
+        List<String> foundLinks = new ArrayList<>();
+        WordCountParseResult links = parser.parse(ParseProjection.LINKS, foundLinks::add);
+
+        assertEquals(all.getWordFrequencyMap(), words.getWordFrequencyMap());
+        assertTrue(words.getHyperLinkList().isEmpty());
+        assertTrue(links.getWordFrequencyMap().isEmpty());
+        assertEquals(Set.copyOf(all.getHyperLinkList()), Set.copyOf(links.getHyperLinkList()));
+        assertEquals(Set.copyOf(all.getHyperLinkList()), Set.copyOf(foundLinks));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ParseMode.class)
+    void givenReusedParserState_whenParseConsecutivePages_thenSameResultsAsFreshParsers(ParseMode parseMode)
+            throws IOException {
+        try (Stream<Path> files = htmlResources()) {
+            for (Path file : files.toList()) {
+                String pageUri = file.toUri().toString();
+                WordCountParseResult fresh = parser(pageUri).parseMode(parseMode).build().parse();
+                WordCountParseResult reused = parser(pageUri)
+                        .parseMode(parseMode)
+                        .reuseParserState(true)
+                        .build()
+                        .parse();
+
+                assertEquals(fresh.getWordFrequencyMap(), reused.getWordFrequencyMap(), parseMode + " " + pageUri);
+                assertEquals(fresh.getHyperLinkList(), reused.getHyperLinkList(), parseMode + " " + pageUri);
+                assertEquals(fresh.isTruncated(), reused.isTruncated(), parseMode + " " + pageUri);
+                reused.release();
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ParseMode.class)
+    void givenParseResultStore_whenParseUnchangedPagesAgain_thenStoredResultsMatchParsedOnes(ParseMode parseMode,
+                                                                                            @TempDir Path directory)
+            throws IOException {
+        ParseResultStore store = ParseResultStore.open(directory, 1 << 20, "test");
+        List<Path> pages;
+        try (Stream<Path> files = htmlResources()) {
+            pages = files.toList();
+        }
+
+        for (int crawl = 0; crawl < 2; crawl++) {
+            for (Path file : pages) {
+                String pageUri = file.toUri().toString();
+                WordCountParseResult parsed = parser(pageUri).parseMode(parseMode).build().parse();
+                List<String> listenedLinks = new ArrayList<>();
+                WordCountParseResult stored = parser(pageUri).parseMode(parseMode).parseResultStore(store).build()
+                        .parse(listenedLinks::add);
+
+                assertEquals(parsed.getWordFrequencyMap(), stored.getWordFrequencyMap(), crawl + " " + pageUri);
+                assertEquals(parsed.getHyperLinkList(), stored.getHyperLinkList(), crawl + " " + pageUri);
+                assertEquals(parsed.getHyperLinkList(), listenedLinks, crawl + " " + pageUri);
+            }
+        }
+
+        assertEquals(pages.size(), store.getMisses());
+        assertEquals(pages.size(), store.getHits());
+    }
+
+    @Test
+    void givenParseResultStore_whenPageChanges_thenPageIsParsedAgain(@TempDir Path directory) throws IOException {
+        ParseResultStore store = ParseResultStore.open(directory.resolve("store"), 1 << 20, "test");
+        Path page = Files.writeString(directory.resolve("page.html"), "<p>old words</p>");
+        WordCountPageParserImpl parser = parser(page.toUri().toString())
+                .reuseParserState(true)
+                .parseResultStore(store)
+                .build();
+
+        WordCountParseResult first = parser.parse();
+        assertEquals(Set.of("old", "words"), first.getWordFrequencyMap().keySet());
+        first.release();
+        Files.writeString(page, "<p>new words</p>");
+        WordCountParseResult second = parser.parse();
+
+        assertEquals(Set.of("new", "words"), second.getWordFrequencyMap().keySet());
+        assertEquals(0, store.getHits());
+        second.release();
+    }
+
+    @ParameterizedTest
+    @EnumSource(ParseMode.class)
+    void givenPreviousDigest_whenParseRevision_thenOnlyChangedContentIsParsed(ParseMode parseMode,
+                                                                             @TempDir Path directory)
+            throws IOException {
+        Path page = Files.writeString(directory.resolve("page.html"), "<p>old words</p><a href=\"a.html\">1</a>");
+        WordCountPageParserImpl parser = parser(page.toUri().toString()).parseMode(parseMode).build();
+
+        PageRevision first = parser.parseRevision(ParseProjection.ALL, link -> {
+        }, null);
+        assertFalse(first.isUnchanged());
+        assertNotNull(first.getDigest());
+        assertEquals(Set.of("old", "words"), first.getResult().getWordFrequencyMap().keySet());
+
+        List<String> links = new ArrayList<>();
+        PageRevision same = parser.parseRevision(ParseProjection.ALL, links::add, first.getDigest());
+        assertTrue(same.isUnchanged());
+        assertNull(same.getResult());
+        assertEquals(first.getDigest(), same.getDigest());
+        assertTrue(links.isEmpty());
+
+        Files.writeString(page, "<p>new words</p><a href=\"a.html\">1</a>");
+        PageRevision changed = parser.parseRevision(ParseProjection.ALL, links::add, first.getDigest());
+        assertFalse(changed.isUnchanged());
+        assertNotEquals(first.getDigest(), changed.getDigest());
+        assertEquals(Set.of("new", "words"), changed.getResult().getWordFrequencyMap().keySet());
+        assertEquals(changed.getResult().getHyperLinkList(), links);
+    }
+
+    private WordCountPageParserImpl.WordCountPageParserImplBuilder parser(String pageUri) {
+        return WordCountPageParserImpl.builder()
+                .pageUri(pageUri)
+                .excludedWordMatcher(excludedWordMatcher)
+                .documentLoader(testDocumentLoader);
+    }
+
+    private WordCountPageParserImpl createParser(Path file, ParseMode parseMode) {
+        String pageUri = file.toUri().toString();
+        return parser(pageUri)
+                .parseMode(parseMode)
+                .pageFormat(PageFormat.fromExtension(file.toUri()).orElse(null))
+                .build();
+    }
+
+    private void assertSameResultInAllModes(String pageUri) {
+        WordCountParseResult dom = parser(pageUri).build().parse();
+
+        for (ParseMode parseMode : List.of(ParseMode.STREAMING, ParseMode.STREAMING_BYTES)) {
+            WordCountParseResult streaming = parser(pageUri).parseMode(parseMode).build().parse();
+
+            assertEquals(dom.getWordFrequencyMap(), streaming.getWordFrequencyMap(), parseMode + " " + pageUri);
+            assertEquals(dom.getHyperLinkList(), streaming.getHyperLinkList(), parseMode + " " + pageUri);
+        }
+    }
+
 }
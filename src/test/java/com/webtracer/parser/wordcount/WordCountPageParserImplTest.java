@@ -34,7 +34,11 @@ class WordCountPageParserImplTest {
         Document documentMock = mock(Document.class);
         when(documentLoaderMock.loadDocument(any(URI.class))).thenReturn(Optional.of(documentMock));
 
-        WordCountPageParserImpl parser = new WordCountPageParserImpl(pageUri, excludePatterns, documentLoaderMock);
+        WordCountPageParserImpl parser = WordCountPageParserImpl.builder()
+                .pageUri(pageUri)
+                .excludedWordMatcher(ExcludedWordMatcher.compile(excludePatterns))
+                .documentLoader(documentLoaderMock)
+                .build();
 
         // When
         WordCountParseResult result = parser.parse();
@@ -50,7 +54,11 @@ class WordCountPageParserImplTest {
         Document emptyDocument = mock(Document.class);
         when(documentLoaderMock.loadDocument(any(URI.class))).thenReturn(Optional.of(emptyDocument));
 
-        WordCountPageParserImpl parser = new WordCountPageParserImpl(pageUri, excludePatterns, documentLoaderMock);
+        WordCountPageParserImpl parser = WordCountPageParserImpl.builder()
+                .pageUri(pageUri)
+                .excludedWordMatcher(ExcludedWordMatcher.compile(excludePatterns))
+                .documentLoader(documentLoaderMock)
+                .build();
 
         // When
         WordCountParseResult result = parser.parse();
@@ -65,7 +73,11 @@ class WordCountPageParserImplTest {
         // Given
         when(documentLoaderMock.loadDocument(any(URI.class))).thenReturn(Optional.empty());
 
-        WordCountPageParserImpl parser = new WordCountPageParserImpl(pageUri, excludePatterns, documentLoaderMock);
+        WordCountPageParserImpl parser = WordCountPageParserImpl.builder()
+                .pageUri(pageUri)
+                .excludedWordMatcher(ExcludedWordMatcher.compile(excludePatterns))
+                .documentLoader(documentLoaderMock)
+                .build();
 
         // When
         WordCountParseResult result = parser.parse();